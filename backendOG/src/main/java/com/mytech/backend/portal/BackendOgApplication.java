@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan(basePackages = "com.mytech.backend.portal")
 @EnableJpaRepositories(basePackages = "com.mytech.backend.portal.repositories")
+@EnableScheduling
 public class BackendOgApplication {
 
 	public static void main(String[] args) {
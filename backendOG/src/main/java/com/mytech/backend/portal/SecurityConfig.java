@@ -78,6 +78,16 @@ public class SecurityConfig {
         http
                 .securityMatcher("/apis/**", "/public/**", "/api/**")
                 .authorizeHttpRequests(auth -> auth
+                        // Xuất CSV (bookings / orders / payments) chỉ cho ADMIN
+                        .requestMatchers("/apis/v1/exports/**").hasRole("ADMIN")
+                        // Tìm kiếm / cursor / NDJSON toàn bộ booking (có PII) chỉ cho ADMIN
+                        .requestMatchers("/apis/v1/bookings/export", "/apis/v1/bookings/cursor",
+                                "/apis/v1/bookings/search", "/apis/v1/bookings/search/facets").hasRole("ADMIN")
+                        // Job PDF hàng loạt chỉ cho STAFF / ADMIN
+                        .requestMatchers(HttpMethod.POST, "/apis/v1/pdf-jobs/invoices").hasAnyRole("STAFF", "ADMIN")
+                        // Tổng hợp / lịch sử booking của customer: cần đăng nhập, chủ sở hữu kiểm tra trong controller
+                        .requestMatchers(HttpMethod.GET, "/apis/v1/customers/*/summary",
+                                "/apis/v1/customers/*/bookings").authenticated()
                         .requestMatchers(HttpMethod.POST, "/apis/v1/reviews/service/**").authenticated()
                         .requestMatchers(HttpMethod.GET, "/apis/v1/reviews/service/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/apis/v1/categories").permitAll()
@@ -1,31 +1,45 @@
 package com.mytech.backend.portal.apis;
 
+import com.mytech.backend.portal.dto.Booking.BookingCursorPageDTO;
 import com.mytech.backend.portal.dto.Booking.BookingGetByServiceDTO;
+import com.mytech.backend.portal.dto.Booking.BookingListFilter;
 import com.mytech.backend.portal.dto.Booking.BookingRequestDTO;
 import com.mytech.backend.portal.dto.Booking.BookingResponseDTO;
+import com.mytech.backend.portal.dto.Booking.BookingSearchCriteria;
 import com.mytech.backend.portal.dto.Booking.BookingStatsDTO;
+import com.mytech.backend.portal.dto.Combo.ComboAnalyticsDTO;
 import com.mytech.backend.portal.dto.Rating.ReviewRequestDTO;
 import com.mytech.backend.portal.dto.Shift.AssignBookingRequest;
 import com.mytech.backend.portal.models.Booking.Booking;
 import com.mytech.backend.portal.models.Booking.BookingStatus;
-import com.mytech.backend.portal.models.Combo.Combo;
+import com.mytech.backend.portal.models.Email.EmailOutbox;
 import com.mytech.backend.portal.models.User.User;
-import com.mytech.backend.portal.repositories.BookingItemRepository;
 import com.mytech.backend.portal.repositories.BookingRepository;
-import com.mytech.backend.portal.repositories.ComboRepository;
+import com.mytech.backend.portal.repositories.EmailOutboxRepository;
 import com.mytech.backend.portal.repositories.UserRepository;
 import com.mytech.backend.portal.services.EmailService;
+import com.mytech.backend.portal.services.Booking.BookingListingService;
+import com.mytech.backend.portal.services.Booking.BookingSearchService;
 import com.mytech.backend.portal.services.Booking.BookingService;
+import com.mytech.backend.portal.services.Combo.ComboAnalyticsService;
+import com.mytech.backend.portal.services.Idempotency.IdempotencyService;
+import com.mytech.backend.portal.services.Service.ServiceStatsService;
 import com.mytech.backend.portal.services.Shift.ShiftService;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.Email;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.Collections;
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,11 +50,15 @@ import java.util.Map;
 public class BookingController {
     private final EmailService emailService;
     private final BookingService bookingService;
-    private final ComboRepository comboRepository;
-    private final BookingItemRepository bookingItemRepository;
+    private final BookingListingService bookingListingService;
+    private final BookingSearchService bookingSearchService;
+    private final ComboAnalyticsService comboAnalyticsService;
+    private final ServiceStatsService serviceStatsService;
     private final ShiftService shiftService; // dùng method assignBookingManually
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping
     public ResponseEntity<List<BookingResponseDTO>> getAllBookings() {
@@ -48,11 +66,90 @@ public class BookingController {
         return ResponseEntity.ok(bookings);
     }
 
+    // Phân trang, mỗi trang chỉ tốn số câu SQL cố định
+    @GetMapping("/page")
+    public ResponseEntity<Page<BookingResponseDTO>> getBookingsPage(
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+        Pageable pageable = PageRequest.of(page, Math.min(Math.max(size, 1), 200),
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        return ResponseEntity.ok(bookingService.getBookingsPage(pageable));
+    }
+
+    // Tìm kiếm kết hợp nhiều điều kiện cho admin (lọc và phân trang trong DB)
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Page<BookingResponseDTO>> searchBookings(
+            @RequestParam(name = "status", required = false) BookingStatus status,
+            @RequestParam(name = "serviceId", required = false) Long serviceId,
+            @RequestParam(name = "checkInFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInFrom,
+            @RequestParam(name = "checkInTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInTo,
+            @RequestParam(name = "customerId", required = false) Long customerId,
+            @RequestParam(name = "customerName", required = false) String customerName,
+            @RequestParam(name = "staffId", required = false) Long staffId,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+        BookingSearchCriteria criteria = new BookingSearchCriteria(status, serviceId, checkInFrom, checkInTo,
+                customerId, customerName, staffId);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 200),
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        return ResponseEntity.ok(bookingSearchService.search(criteria, pageable));
+    }
+
+    // Số booking theo từng status cho các tab (cùng bộ lọc với /search, bỏ qua status)
+    @GetMapping("/search/facets")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<BookingStatus, Long>> searchFacets(
+            @RequestParam(name = "serviceId", required = false) Long serviceId,
+            @RequestParam(name = "checkInFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInFrom,
+            @RequestParam(name = "checkInTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInTo,
+            @RequestParam(name = "customerId", required = false) Long customerId,
+            @RequestParam(name = "customerName", required = false) String customerName,
+            @RequestParam(name = "staffId", required = false) Long staffId) {
+        BookingSearchCriteria criteria = new BookingSearchCriteria(null, serviceId, checkInFrom, checkInTo,
+                customerId, customerName, staffId);
+        return ResponseEntity.ok(bookingSearchService.countByStatus(criteria));
+    }
+
+    // Danh sách cho admin theo cursor (keyset createdAt, id); truyền nextCursor để lấy trang sau
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BookingCursorPageDTO> getBookingsByCursor(
+            @RequestParam(name = "status", required = false) BookingStatus status,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "customerId", required = false) Long customerId,
+            @RequestParam(name = "staffId", required = false) Long staffId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        BookingListFilter filter = new BookingListFilter(status, from, to, customerId, staffId);
+        return ResponseEntity.ok(bookingListingService.list(filter, cursor, limit));
+    }
+
+    // Xuất toàn bộ booking dạng NDJSON (1 booking / dòng), ghi ngay khi đọc từ DB
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(name = "status", required = false) BookingStatus status,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "customerId", required = false) Long customerId,
+            @RequestParam(name = "staffId", required = false) Long staffId) {
+        BookingListFilter filter = new BookingListFilter(status, from, to, customerId, staffId);
+        StreamingResponseBody body = out -> bookingListingService.streamNdjson(filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @PostMapping
-    public ResponseEntity<BookingResponseDTO> placeBooking(
+    public ResponseEntity<?> placeBooking(
             @RequestParam(name = "customerId") Long customerId,
-            @RequestBody BookingRequestDTO req) {
-        return ResponseEntity.ok(bookingService.placeBooking(customerId, req));
+            @RequestBody BookingRequestDTO req,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        // Retry cùng key (kể cả gửi đồng thời) trả lại booking đã tạo, không giữ slot lần 2
+        return idempotencyService.execute("POST /apis/v1/bookings:" + customerId, idempotencyKey, req,
+                () -> ResponseEntity.ok(bookingService.placeBooking(customerId, req)));
     }
 
     @GetMapping("/{id}")
@@ -78,16 +175,17 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.reviewBooking(id, req));
     }
 
+    // Số liệu combo lấy từ bộ đếm trong bộ nhớ, không chạy query đếm mỗi lần gọi
     @GetMapping("/{comboId}/confirmed-count")
     public ResponseEntity<Long> getConfirmedBookingCount(@PathVariable("comboId") Long comboId) {
-        long count = bookingService.getConfirmedBookingsForCombo(comboId);
+        long count = comboAnalyticsService.getConfirmedCount(comboId);
         return ResponseEntity.ok(count);
     }
 
     @GetMapping("/{comboId}/revenue")
     public ResponseEntity<Map<String, Long>> getRevenue(@PathVariable("comboId") Long comboId) {
-        long totalRevenue = bookingService.getRevenueByCombo(comboId);
-        long monthlyRevenue = bookingService.getMonthlyRevenueByCombo(comboId);
+        long totalRevenue = comboAnalyticsService.getRevenue(comboId);
+        long monthlyRevenue = comboAnalyticsService.getMonthlyRevenue(comboId);
 
         Map<String, Long> result = new HashMap<>();
         result.put("totalRevenue", totalRevenue);
@@ -98,24 +196,13 @@ public class BookingController {
 
     @GetMapping("/{comboId}/savings")
     public ResponseEntity<Map<String, Object>> getTotalSavings(@PathVariable("comboId") Long comboId) {
-        Combo combo = comboRepository.findById(comboId)
-                .orElseThrow(() -> new RuntimeException("Combo not found"));
-
-        long confirmedCount = bookingItemRepository.countByComboIdAndBookingStatus(
-                comboId,
-                BookingStatus.CONFIRMED);
-
-        BigDecimal savingPerBooking = (combo.getOriginalPrice() != null && combo.getPrice() != null)
-                ? BigDecimal.valueOf(combo.getOriginalPrice()).subtract(BigDecimal.valueOf(combo.getPrice()))
-                : BigDecimal.ZERO;
-
-        BigDecimal totalSavings = bookingService.getTotalSavings(comboId);
+        ComboAnalyticsDTO metrics = comboAnalyticsService.getMetrics(comboId);
 
         Map<String, Object> response = new HashMap<>();
         response.put("comboId", comboId);
-        response.put("confirmedBookings", confirmedCount);
-        response.put("savingPerBooking", savingPerBooking);
-        response.put("totalSavings", totalSavings);
+        response.put("confirmedBookings", metrics.getConfirmedBookings());
+        response.put("savingPerBooking", metrics.getSavingPerBooking());
+        response.put("totalSavings", metrics.getTotalSavings());
 
         return ResponseEntity.ok(response);
     }
@@ -135,7 +222,13 @@ public class BookingController {
 
     @GetMapping("/services/{serviceId}")
     public ResponseEntity<BookingStatsDTO> getStats(@PathVariable Long serviceId) {
-        return ResponseEntity.ok(bookingService.getStatsByService(serviceId));
+        return ResponseEntity.ok(serviceStatsService.getStats(serviceId));
+    }
+
+    // Số liệu của tất cả service trong 1 lần gọi, key = serviceId
+    @GetMapping("/services/stats")
+    public ResponseEntity<Map<Long, BookingStatsDTO>> getAllServiceStats() {
+        return ResponseEntity.ok(serviceStatsService.getAllStats());
     }
 
     // Cập nhật trạng thái booking
@@ -204,13 +297,18 @@ public ResponseEntity<?> sendBookingConfirmationEmail(@PathVariable("id") Long i
                     .body(Collections.singletonMap("error", "Email đã được gửi trước đó"));
         }
 
-        // Gửi email xác nhận
-        emailService.sendBookingConfirmationEmail(booking);
+        // Email xác nhận (từ lúc confirm hoặc lần gửi tay trước) còn nằm trong outbox chờ gửi
+        if (emailOutboxRepository.existsByBookingIdAndTypeAndStatus(
+                id, EmailOutbox.Type.BOOKING_CONFIRMATION, EmailOutbox.Status.PENDING)) {
+            return ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "Email xác nhận đang chờ gửi"));
+        }
 
-        // Cập nhật emailSentAt và trả về DTO tối giản
-        BookingResponseDTO updatedBooking = bookingService.updateEmailSentAt(id, LocalDateTime.now());
+        // Xếp vào outbox như lúc confirm; EmailOutboxDispatcher gửi và ghi emailSentAt
+        emailService.queueBookingConfirmationEmail(booking);
 
-        return ResponseEntity.ok(updatedBooking);
+        return ResponseEntity.accepted()
+                .body(Collections.singletonMap("message", "Email xác nhận đã được xếp hàng gửi"));
 
     } catch (Exception e) {
         return ResponseEntity.status(500)
@@ -1,8 +1,10 @@
 package com.mytech.backend.portal.apis;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mytech.backend.portal.dto.Combo.ComboAnalyticsDTO;
 import com.mytech.backend.portal.dto.Combo.ComboRequestDTO;
 import com.mytech.backend.portal.dto.Combo.ComboResponseDTO;
+import com.mytech.backend.portal.services.Combo.ComboAnalyticsService;
 import com.mytech.backend.portal.services.Combo.ComboService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +19,7 @@ import java.util.List;
 public class ComboController {
 
     private final ComboService comboService;
+    private final ComboAnalyticsService comboAnalyticsService;
 
     @PostMapping
     public ResponseEntity<ComboResponseDTO> createCombo(
@@ -52,6 +55,12 @@ public class ComboController {
         return ResponseEntity.noContent().build();
     }
 
+    // Số liệu của tất cả combo trong 1 lần gọi, thay cho N x (confirmed-count, revenue, savings)
+    @GetMapping("/analytics")
+    public ResponseEntity<List<ComboAnalyticsDTO>> getAnalytics() {
+        return ResponseEntity.ok(comboAnalyticsService.getAllMetrics());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ComboResponseDTO> getOne(@PathVariable("id") Long id) {
         return ResponseEntity.ok(comboService.getCombo(id));
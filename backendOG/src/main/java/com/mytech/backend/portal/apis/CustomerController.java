@@ -1,10 +1,17 @@
 package com.mytech.backend.portal.apis;
 
+import com.mytech.backend.portal.dto.Booking.BookingCursorPageDTO;
+import com.mytech.backend.portal.dto.Booking.BookingListFilter;
 import com.mytech.backend.portal.dto.Customer.CustomerRequestDTO;
 import com.mytech.backend.portal.dto.Customer.CustomerResponseDTO;
+import com.mytech.backend.portal.dto.Customer.CustomerSummaryDTO;
+import com.mytech.backend.portal.security.CurrentUser;
+import com.mytech.backend.portal.services.Booking.BookingListingService;
 import com.mytech.backend.portal.services.Customer.CustomerService;
+import com.mytech.backend.portal.services.Customer.CustomerSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,12 +22,34 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerSummaryService customerSummaryService;
+    private final BookingListingService bookingListingService;
 
     @GetMapping("/{id}")
     public ResponseEntity<CustomerResponseDTO> getCustomer(@PathVariable Long id) {
         return ResponseEntity.ok(customerService.getCustomer(id));
     }
 
+    // Tổng booking, chi tiêu, lần ở gần nhất, service yêu thích, số review
+    @GetMapping("/{id}/summary")
+    @PreAuthorize("hasRole('STAFF') or hasRole('ADMIN') or authentication.principal.user.customer?.id == #id")
+    public ResponseEntity<CustomerSummaryDTO> getCustomerSummary(@PathVariable Long id) {
+        CurrentUser.requireCustomerOrStaff(id);
+        return ResponseEntity.ok(customerSummaryService.getSummary(id));
+    }
+
+    // Lịch sử booking theo trang (mới nhất trước); truyền nextCursor để lấy trang sau
+    @GetMapping("/{id}/bookings")
+    @PreAuthorize("hasRole('STAFF') or hasRole('ADMIN') or authentication.principal.user.customer?.id == #id")
+    public ResponseEntity<BookingCursorPageDTO> getCustomerBookings(
+            @PathVariable Long id,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        CurrentUser.requireCustomerOrStaff(id);
+        BookingListFilter filter = BookingListFilter.builder().customerId(id).build();
+        return ResponseEntity.ok(bookingListingService.list(filter, cursor, limit));
+    }
+
     @PostMapping
     public ResponseEntity<CustomerResponseDTO> createCustomer(@RequestBody CustomerRequestDTO req) {
         return ResponseEntity.ok(customerService.createCustomer(req));
@@ -0,0 +1,27 @@
+package com.mytech.backend.portal.apis;
+
+import com.mytech.backend.portal.dto.Stats.DashboardStatsMessage;
+import com.mytech.backend.portal.security.StompAuthChannelInterceptor;
+import com.mytech.backend.portal.services.Stats.DashboardStatsPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+@Controller
+@RequiredArgsConstructor
+public class DashboardStatsSocketController {
+
+    private final DashboardStatsPublisher dashboardStatsPublisher;
+
+    // Subscribe /app/admin/stats: nhận snapshot 1 lần, sau đó nghe delta trên /topic/admin/stats; chỉ ADMIN
+    @SubscribeMapping("/admin/stats")
+    public DashboardStatsMessage snapshot(Principal principal) {
+        if (!StompAuthChannelInterceptor.isAdmin(principal)) {
+            throw new AccessDeniedException("Chỉ ADMIN được xem số liệu dashboard");
+        }
+        return dashboardStatsPublisher.snapshot();
+    }
+}
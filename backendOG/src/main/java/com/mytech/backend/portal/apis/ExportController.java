@@ -0,0 +1,51 @@
+package com.mytech.backend.portal.apis;
+
+import com.mytech.backend.portal.services.Export.CsvExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/apis/v1/exports")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final CsvExportService csvExportService;
+
+    // CSV của bookings / orders / payments trong [from, to]; gzip=true trả file .csv.gz
+    @GetMapping("/{dataset}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCsv(
+            @PathVariable("dataset") String dataset,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+        CsvExportService.Dataset ds = CsvExportService.Dataset.parse(dataset);
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("from must be <= to");
+        }
+        String filename = ds.name().toLowerCase(Locale.ROOT) + "_" + from + "_" + to + (gzip ? ".csv.gz" : ".csv");
+        StreamingResponseBody body = out -> csvExportService.export(ds, from, to, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(gzip
+                        ? MediaType.parseMediaType("application/gzip")
+                        : new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
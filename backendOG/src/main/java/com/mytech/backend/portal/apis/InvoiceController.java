@@ -5,6 +5,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.mytech.backend.portal.models.OrderBooking;
@@ -23,12 +24,19 @@ public class InvoiceController {
         this.orderBookingRepository = orderBookingRepository;
     }
 
+    // stream=true: ghi PDF thẳng vào response thay vì giữ cả file trong byte[]
     @GetMapping("/{id}/invoice")
     @PreAuthorize("hasRole('STAFF') or hasRole('USER')")
-    public ResponseEntity<byte[]> generateInvoice(@PathVariable("id") Long id) {
+    public ResponseEntity<?> generateInvoice(@PathVariable("id") Long id,
+                                             @RequestParam(name = "stream", defaultValue = "false") boolean stream) {
         OrderBooking order = orderBookingRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng với id: " + id));
 
+        if (stream) {
+            return PdfResponses.streaming("inline; filename=invoice_" + order.getOrderCode() + ".pdf",
+                    out -> invoiceService.writeInvoicePDF(order, out));
+        }
+
         byte[] pdfBytes = invoiceService.generateInvoicePDF(order);
 
         return ResponseEntity.ok()
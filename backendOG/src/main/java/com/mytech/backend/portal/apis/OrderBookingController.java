@@ -23,6 +23,7 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -51,9 +52,11 @@ import com.mytech.backend.portal.repositories.OrderBookingItemRepository;
 import com.mytech.backend.portal.repositories.OrderItemRepository;
 import com.mytech.backend.portal.repositories.BookingRepository;
 import com.mytech.backend.portal.repositories.BookingItemRepository;
+import com.mytech.backend.portal.security.CurrentUser;
 import com.mytech.backend.portal.repositories.GearRepository;
 import com.mytech.backend.portal.models.Gear;
 import com.mytech.backend.portal.services.EmailService;
+import com.mytech.backend.portal.services.Idempotency.IdempotencyService;
 
 @RestController
 @RequestMapping("/apis/orders")
@@ -68,6 +71,7 @@ public class OrderBookingController {
     private final EmailService emailService;
     private final BookingRepository bookingRepository;
     private final BookingItemRepository bookingItemRepository;
+    private final IdempotencyService idempotencyService;
     private final SecureRandom random = new SecureRandom();
 
 
@@ -79,7 +83,8 @@ public class OrderBookingController {
             GearRepository gearRepository,
             EmailService emailService,
             BookingRepository bookingRepository,
-            BookingItemRepository bookingItemRepository) {
+            BookingItemRepository bookingItemRepository,
+            IdempotencyService idempotencyService) {
     	this.orderBookingRepository = orderBookingRepository;
     	this.orderItemRepository = orderItemRepository;
     	this.orderBookingItemRepository = orderBookingItemRepository;
@@ -89,6 +94,7 @@ public class OrderBookingController {
     	this.emailService = emailService;
     	this.bookingRepository = bookingRepository;
     	this.bookingItemRepository = bookingItemRepository;
+    	this.idempotencyService = idempotencyService;
     }
 
     // =====================
@@ -112,7 +118,16 @@ public class OrderBookingController {
     // 🔹 API tạo đơn hàng gear
     // =====================
     @PostMapping("/gear")
-    public ResponseEntity<OrderBooking> createGearOrder(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<?> createGearOrder(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, Object> request) {
+        // Retry cùng key không trừ kho thêm lần nữa; key tách theo user đăng nhập, khách thì theo userId của đơn
+        String scope = "POST /apis/orders/gear:" + CurrentUser.id().map(String::valueOf)
+                .orElseGet(() -> "guest:" + request.get("userId"));
+        return idempotencyService.execute(scope, idempotencyKey, request, () -> placeGearOrder(request));
+    }
+
+    private ResponseEntity<OrderBooking> placeGearOrder(Map<String, Object> request) {
         try {
             // Tạo OrderBooking
             OrderBooking order = new OrderBooking();
@@ -335,7 +350,14 @@ public class OrderBookingController {
     // =====================
     @PostMapping
     public ResponseEntity<?> createOrder(@RequestBody OrderBookingRequestDTO dto,
-                                         @AuthenticationPrincipal User user) {
+                                         @AuthenticationPrincipal User user,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        // Principal là AppUserDetails nên user ở đây luôn null: lấy id qua CurrentUser
+        String scope = "POST /apis/orders:" + CurrentUser.id().map(String::valueOf).orElse("guest");
+        return idempotencyService.execute(scope, idempotencyKey, dto, () -> placeOrder(dto, user));
+    }
+
+    private ResponseEntity<?> placeOrder(OrderBookingRequestDTO dto, User user) {
         OrderBooking order = new OrderBooking();
 
         if (dto.getOrderCode() == null || orderBookingRepository.existsByOrderCode(dto.getOrderCode())) {
@@ -1,38 +1,41 @@
 package com.mytech.backend.portal.apis;
 
-import java.io.ByteArrayOutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.itextpdf.html2pdf.HtmlConverter;
 import com.mytech.backend.portal.models.OrderBooking;
 import com.mytech.backend.portal.models.OrderItem;
 import com.mytech.backend.portal.repositories.OrderBookingRepository;
 import com.mytech.backend.portal.repositories.OrderItemRepository;
+import com.mytech.backend.portal.services.Invoice.InvoiceTemplateEngine;
 
 @RestController
 public class PDFBILLDISHController {
 
     private final OrderBookingRepository orderBookingRepository;
     private final OrderItemRepository orderItemRepository;
+    private final InvoiceTemplateEngine templateEngine;
 
     public PDFBILLDISHController(OrderBookingRepository orderBookingRepository,
-                             OrderItemRepository orderItemRepository) {
+                             OrderItemRepository orderItemRepository,
+                             InvoiceTemplateEngine templateEngine) {
         this.orderBookingRepository = orderBookingRepository;
         this.orderItemRepository = orderItemRepository;
+        this.templateEngine = templateEngine;
     }
 
+    // stream=true: ghi PDF thẳng vào response thay vì giữ cả file trong byte[]
     @GetMapping("/pdf/bill/dishes/{orderId}")
-    public ResponseEntity<byte[]> generateBillPdf(@PathVariable("orderId") Long orderId) {
+    public ResponseEntity<?> generateBillPdf(@PathVariable("orderId") Long orderId,
+                                             @RequestParam(name = "stream", defaultValue = "false") boolean stream) {
         try {
             // 1️⃣ Lấy order và items từ DB
             OrderBooking order = orderBookingRepository.findById(orderId)
@@ -40,60 +43,38 @@ public class PDFBILLDISHController {
 
             List<OrderItem> items = orderItemRepository.findByOrder(order);
 
-            // 2️⃣ Đọc file logo và encode Base64
-            Path path = Path.of("src/main/resources/static/images/ogcamping.jpg");
-            byte[] imageBytes = Files.readAllBytes(path);
-            String base64Image = Base64.getEncoder().encodeToString(imageBytes);
-
-            // 3️⃣ Build HTML động
-            StringBuilder html = new StringBuilder();
-            html.append("<!DOCTYPE html><html lang='vi'><head><meta charset='UTF-8'><title>OG Camping Bill</title></head><body>");
-            html.append("<div style='display:flex;align-items:center;justify-content:center;margin-bottom:16px;'>")
-                .append("<img src='data:image/jpeg;base64,").append(base64Image).append("' width='40' height='40' style='margin-right:8px;'>")
-                .append("<span style='font-size:24px;font-weight:bold;color:#166534;'>OG CAMPING BILL</span>")
-                .append("</div>");
-
-            html.append("<div style='margin:8px 0;'>Mã đơn hàng: ").append(order.getOrderCode()).append("</div>");
-            html.append("<div style='margin:8px 0;'>Tên khách hàng: ").append(order.getCustomerName()).append("</div>");
-            html.append("<div style='margin:8px 0;'>Email: ").append(order.getEmail()).append("</div>");
-            html.append("<div style='margin:8px 0;'>SĐT: ").append(order.getPhone()).append("</div>");
-
-            html.append("<table style='width:100%;border-collapse:collapse;margin-top:12px;'>")
-                .append("<thead>")
-                .append("<tr style='background-color:#f0f0f0;'>")
-                .append("<th style='border:1px solid #ccc;padding:6px;text-align:left;'>Tên món</th>")
-                .append("<th style='border:1px solid #ccc;padding:6px;text-align:center;'>SL</th>")
-                .append("<th style='border:1px solid #ccc;padding:6px;text-align:right;'>Giá (VNĐ)</th>")
-                .append("<th style='border:1px solid #ccc;padding:6px;text-align:right;'>Tổng (VNĐ)</th>")
-                .append("</tr>")
-                .append("</thead>")
-                .append("<tbody>");
-
+            // 2️⃣ Render từng dòng món
+            InvoiceTemplateEngine.Template row = templateEngine.template(InvoiceTemplateEngine.ORDER_DISH_BILL_ROW);
+            StringBuilder rows = new StringBuilder();
             double totalPrice = 0;
             for (OrderItem item : items) {
-                html.append("<tr>")
-                    .append("<td style='border:1px solid #ccc;padding:6px;'>").append(item.getDish().getName()).append("</td>")
-                    .append("<td style='border:1px solid #ccc;padding:6px;text-align:center;'>").append(item.getQuantity()).append("</td>")
-                    .append("<td style='border:1px solid #ccc;padding:6px;text-align:right;'>").append(String.format("%,.0f", item.getUnitPrice())).append("</td>")
-                    .append("<td style='border:1px solid #ccc;padding:6px;text-align:right;'>").append(String.format("%,.0f", item.getTotalPrice())).append("</td>")
-                    .append("</tr>");
+                row.render(Map.of(
+                        "NAME", item.getDish().getName(),
+                        "QUANTITY", item.getQuantity(),
+                        "PRICE", InvoiceTemplateEngine.money(item.getUnitPrice()),
+                        "TOTAL", InvoiceTemplateEngine.money(item.getTotalPrice())), rows);
                 totalPrice += item.getTotalPrice();
             }
 
-            html.append("</tbody></table>");
-            html.append("<div style='text-align:right;margin-top:12px;font-weight:bold;color:#d32f2f;'>Tổng cộng: ").append(String.format("%,.0f VNĐ", totalPrice)).append("</div>");
-
-            html.append("</body></html>");
-
-            // 4️⃣ Convert HTML -> PDF
-            ByteArrayOutputStream pdfOutput = new ByteArrayOutputStream();
-            HtmlConverter.convertToPdf(html.toString(), pdfOutput);
-
-            // 5️⃣ Trả về PDF
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "inline; filename=bill_" + order.getOrderCode() + ".pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfOutput.toByteArray());
+            // 3️⃣ Điền template
+            Map<String, Object> values = new HashMap<>();
+            values.put("BASE64_IMAGE", templateEngine.logoBase64());
+            values.put("ORDER_CODE", order.getOrderCode());
+            values.put("CUSTOMER_NAME", order.getCustomerName());
+            values.put("EMAIL", order.getEmail());
+            values.put("PHONE", order.getPhone());
+            values.put("ITEM_ROWS", new InvoiceTemplateEngine.Html(rows.toString()));
+            values.put("TOTAL", InvoiceTemplateEngine.money(totalPrice));
+
+            // 4️⃣ Render HTML
+            String html = templateEngine.template(InvoiceTemplateEngine.ORDER_DISH_BILL).render(values);
+            String disposition = "inline; filename=bill_" + order.getOrderCode() + ".pdf";
+
+            // 5️⃣ HTML -> PDF, trả về
+            if (stream) {
+                return PdfResponses.streaming(disposition, out -> templateEngine.toPdf(html, out));
+            }
+            return PdfResponses.buffered(disposition, templateEngine.toPdf(html));
 
         } catch (Exception e) {
             e.printStackTrace();
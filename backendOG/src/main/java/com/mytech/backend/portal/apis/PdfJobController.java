@@ -0,0 +1,79 @@
+package com.mytech.backend.portal.apis;
+
+import com.mytech.backend.portal.dto.Invoice.PdfJobDTO;
+import com.mytech.backend.portal.services.Invoice.PdfJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/apis/v1/pdf-jobs")
+@RequiredArgsConstructor
+public class PdfJobController {
+
+    private final PdfJobService pdfJobService;
+
+    // Xếp hàng render hóa đơn 1 booking; 202 + Location để poll trạng thái, 503 khi hàng đợi đầy
+    @PostMapping("/invoices/{bookingId}")
+    public ResponseEntity<PdfJobDTO> submitInvoice(@PathVariable("bookingId") Long bookingId) {
+        return accepted(pdfJobService.submitInvoice(bookingId));
+    }
+
+    // Hóa đơn của mọi booking tạo trong [from, to], gộp vào 1 file ZIP; chỉ STAFF / ADMIN
+    @PostMapping("/invoices")
+    @PreAuthorize("hasRole('STAFF') or hasRole('ADMIN')")
+    public ResponseEntity<PdfJobDTO> submitBulk(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return accepted(pdfJobService.submitBulk(from, to));
+    }
+
+    // Trạng thái / file chỉ trả cho user đã gửi job hoặc STAFF / ADMIN (kiểm tra trong PdfJobService)
+    @GetMapping("/{jobId}")
+    public ResponseEntity<PdfJobDTO> getStatus(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.of(pdfJobService.getStatus(jobId));
+    }
+
+    // 404 job không tồn tại / đã hết hạn, 409 job chưa xong hoặc lỗi
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<?> download(@PathVariable("jobId") String jobId) {
+        Optional<PdfJobDTO> status = pdfJobService.getStatus(jobId);
+        if (status.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<PdfJobService.Download> download = pdfJobService.getDownload(jobId);
+        if (download.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(status.get());
+        }
+        PdfJobService.Download result = download.get();
+        StreamingResponseBody body = result::writeTo;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(result.contentType()))
+                .contentLength(result.length())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(result.filename()).build().toString())
+                .body(body);
+    }
+
+    private static ResponseEntity<PdfJobDTO> accepted(PdfJobDTO job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/apis/v1/pdf-jobs/" + job.getJobId()))
+                .body(job);
+    }
+}
@@ -0,0 +1,31 @@
+package com.mytech.backend.portal.apis;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Response PDF dùng chung cho các controller xuất PDF.
+ */
+final class PdfResponses {
+
+    private PdfResponses() {
+    }
+
+    // Cả file trong 1 byte[], có Content-Length
+    static ResponseEntity<byte[]> buffered(String contentDisposition, byte[] pdf) {
+        return ResponseEntity.ok()
+                .header("Content-Disposition", contentDisposition)
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(pdf);
+    }
+
+    // Render thẳng vào output stream của response (chunked, không Content-Length):
+    // bộ nhớ mỗi request không phụ thuộc kích thước file
+    static ResponseEntity<StreamingResponseBody> streaming(String contentDisposition, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header("Content-Disposition", contentDisposition)
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
+    }
+}
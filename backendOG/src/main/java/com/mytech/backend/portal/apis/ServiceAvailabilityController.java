@@ -1,35 +1,44 @@
 package com.mytech.backend.portal.apis;
 
 import com.mytech.backend.portal.dto.Service.AvailabilityBatchRequest;
+import com.mytech.backend.portal.dto.Service.AvailabilityCalendarDTO;
+import com.mytech.backend.portal.dto.Service.FreeServiceDTO;
+import com.mytech.backend.portal.dto.Service.OccupancyReportDTO;
 import com.mytech.backend.portal.dto.Service.ServiceAvailabilityDTO;
 import com.mytech.backend.portal.services.ServiceAvailabilityService.ServiceAvailabilityService;
+import com.mytech.backend.portal.services.Stats.OccupancyService;
+import com.mytech.backend.portal.services.Stats.RevenueCube;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
-@RequestMapping("/apis/v1/services/{serviceId}/availability")
+@RequestMapping("/apis/v1/services")
 @RequiredArgsConstructor
 public class ServiceAvailabilityController {
 
     private final ServiceAvailabilityService availabilityService;
+    private final OccupancyService occupancyService;
 
-    @PostMapping
+    @PostMapping("/{serviceId}/availability")
     public ResponseEntity<ServiceAvailabilityDTO> createAvailability(
             @PathVariable("serviceId") Long serviceId,
             @RequestBody ServiceAvailabilityDTO dto) {
         return ResponseEntity.ok(availabilityService.createAvailability(serviceId, dto));
     }
 
-    @GetMapping
+    @GetMapping("/{serviceId}/availability")
     public ResponseEntity<List<ServiceAvailabilityDTO>> getAvailability(
             @PathVariable("serviceId") Long serviceId) {
         return ResponseEntity.ok(availabilityService.getAvailabilityByService(serviceId));
     }
 
-    @PutMapping("/{availabilityId}")
+    @PutMapping("/{serviceId}/availability/{availabilityId}")
     public ResponseEntity<ServiceAvailabilityDTO> updateAvailability(
             @PathVariable Long serviceId,
             @PathVariable Long availabilityId,
@@ -37,7 +46,7 @@ public class ServiceAvailabilityController {
         return ResponseEntity.ok(availabilityService.updateAvailability(availabilityId, dto));
     }
 
-    @DeleteMapping("/{availabilityId}")
+    @DeleteMapping("/{serviceId}/availability/{availabilityId}")
     public ResponseEntity<Void> deleteAvailability(
             @PathVariable Long serviceId,
             @PathVariable Long availabilityId) {
@@ -46,11 +55,47 @@ public class ServiceAvailabilityController {
     }
 
 
-    @PostMapping("/batch")
+    @PostMapping("/{serviceId}/availability/batch")
     public ResponseEntity<List<ServiceAvailabilityDTO>> createAvailabilityBatch(
             @PathVariable("serviceId") Long serviceId,
             @RequestBody AvailabilityBatchRequest request) {
         return ResponseEntity.ok(availabilityService.createAvailabilityBatch(serviceId, request));
     }
 
+    // Lịch slot theo tháng (?month=2025-12) hoặc theo khoảng (?from=...&to=..., inclusive)
+    @GetMapping("/{serviceId}/availability/calendar")
+    public ResponseEntity<AvailabilityCalendarDTO> getCalendar(
+            @PathVariable("serviceId") Long serviceId,
+            @RequestParam(value = "month", required = false) YearMonth month,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (month != null) {
+            from = month.atDay(1);
+            to = month.atEndOfMonth();
+        }
+        return ResponseEntity.ok(availabilityService.getCalendar(serviceId, from, to));
+    }
+
+    // Các service còn trống cho mọi ngày trong [from, to], VD: cuối tuần tới
+    @GetMapping("/availability/free")
+    public ResponseEntity<List<FreeServiceDTO>> findFreeServices(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "minSlots", defaultValue = "1") int minSlots) {
+        return ResponseEntity.ok(availabilityService.findFreeServices(from, to, minSlots));
+    }
+
+    // Tỉ lệ lấp đầy theo service / location, gộp theo ngày / tuần / tháng (?month=2025-12 hoặc ?from=&to=)
+    @GetMapping("/occupancy")
+    public ResponseEntity<OccupancyReportDTO> getOccupancy(
+            @RequestParam(value = "month", required = false) YearMonth month,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "granularity", required = false) String granularity) {
+        if (month != null) {
+            from = month.atDay(1);
+            to = month.atEndOfMonth();
+        }
+        return ResponseEntity.ok(occupancyService.getReport(from, to, RevenueCube.Granularity.parse(granularity)));
+    }
 }
@@ -141,17 +141,12 @@ public class StaffController {
     @GetMapping("/me/bookings")
     public ResponseEntity<List<BookingResponseDTO>> myBookings(@RequestParam(required = false) Long staffId) {
         Long id = staffId != null ? staffId : getCurrentUserId();
-        User staff = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Staff not found"));
-
-        List<Booking> bookings = bookingRepository.findByAssignedStaff(staff);
-
-        // Dùng mapToDTO trong service
-        List<BookingResponseDTO> response = bookings.stream()
-                .map(bookingService::mapToDTO)
-                .toList();
+        if (!userRepository.existsById(id)) {
+            throw new RuntimeException("Staff not found");
+        }
 
-        return ResponseEntity.ok(response);
+        // Projection theo staff, không load entity Booking từng cái
+        return ResponseEntity.ok(bookingService.getBookingsByStaff(id));
     }
 
 
@@ -1,11 +1,19 @@
 package com.mytech.backend.portal.apis;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 import com.mytech.backend.portal.dto.StatDTO;
+import com.mytech.backend.portal.dto.Stats.RevenueSeriesDTO;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Booking.ItemType;
 import com.mytech.backend.portal.services.StatService;
+import com.mytech.backend.portal.services.Stats.RevenueAnalyticsService;
+import com.mytech.backend.portal.services.Stats.RevenueCube;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,6 +27,35 @@ public class StatController {
     @Autowired
     private StatService statService;
 
+    @Autowired
+    private RevenueAnalyticsService revenueAnalyticsService;
+
+    // Chuỗi doanh thu theo ngày / tuần / tháng, lọc và gộp theo service, combo, location hoặc loại item
+    @GetMapping("/revenue-series")
+    public ResponseEntity<RevenueSeriesDTO> getRevenueSeries(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "granularity", required = false) String granularity,
+            @RequestParam(name = "groupBy", required = false) String groupBy,
+            @RequestParam(name = "serviceId", required = false) Long serviceId,
+            @RequestParam(name = "comboId", required = false) Long comboId,
+            @RequestParam(name = "location", required = false) String location,
+            @RequestParam(name = "itemType", required = false) ItemType itemType,
+            @RequestParam(name = "status", required = false) Set<BookingStatus> statuses) {
+        RevenueCube.Query query = RevenueCube.Query.builder()
+                .granularity(RevenueCube.Granularity.parse(granularity))
+                .groupBy(RevenueCube.Dimension.parse(groupBy))
+                .from(from)
+                .to(to.plusDays(1)) // to có tính
+                .serviceId(serviceId)
+                .comboId(comboId)
+                .location(location)
+                .itemType(itemType)
+                .statuses(statuses)
+                .build();
+        return ResponseEntity.ok(revenueAnalyticsService.getSeries(query));
+    }
+
     @GetMapping
     public ResponseEntity<?> getStats(@RequestParam("period") String period) {
         try {
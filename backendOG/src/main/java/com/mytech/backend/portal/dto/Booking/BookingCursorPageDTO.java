@@ -0,0 +1,17 @@
+package com.mytech.backend.portal.dto.Booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingCursorPageDTO {
+    private List<BookingResponseDTO> items;
+    private String nextCursor; // null khi đã hết dữ liệu
+}
@@ -0,0 +1,32 @@
+package com.mytech.backend.portal.dto.Booking;
+
+import com.mytech.backend.portal.models.Booking.ItemType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 1 dòng phẳng của booking item kèm tên service/combo/equipment,
+ * đọc theo lô nhiều booking (xem BookingItemRepository.findRowsByBookingIds).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingItemRowDTO {
+    private Long id;
+    private Long bookingId;
+    private ItemType type;
+    private Long serviceId;
+    private String serviceName;
+    private Long comboId;
+    private String comboName;
+    private Long equipmentId;
+    private String equipmentName;
+    private Integer numberOfPeople;
+    private LocalDateTime checkInDate;
+    private LocalDateTime checkOutDate;
+    private Integer quantity;
+    private Double price;
+}
@@ -0,0 +1,25 @@
+package com.mytech.backend.portal.dto.Booking;
+
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Bộ lọc danh sách booking cho admin. Mọi field đều tùy chọn (null = không lọc).
+ * Khoảng ngày [from, to] áp dụng trên ngày đặt (createdAt), inclusive.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingListFilter {
+    private BookingStatus status;
+    private LocalDate from;
+    private LocalDate to;
+    private Long customerId;
+    private Long staffId;
+}
@@ -0,0 +1,47 @@
+package com.mytech.backend.portal.dto.Booking;
+
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Payment.PaymentMethod;
+import com.mytech.backend.portal.models.Payment.PaymentStatus;
+import com.mytech.backend.portal.models.User.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 1 dòng phẳng của booking + customer + staff + payment, đọc bằng 1 câu JPQL
+ * (xem BookingRepository.BOOKING_ROW_SELECT). Không chứa item.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingRowDTO {
+    private Long id;
+    private Long customerId;
+    private String customerName;
+    private String email;
+    private String phone;
+    private String address;
+    private LocalDateTime createdAt;
+    private LocalDateTime checkInDate;
+    private LocalDateTime checkOutDate;
+    private Integer numberOfPeople;
+    private BookingStatus status;
+    private String note;
+    private String internalNotes;
+    private Long totalPrice;
+    private Boolean hasReview;
+    // staff (null nếu chưa gán)
+    private Long staffId;
+    private String staffName;
+    private User.Role staffRole;
+    // payment (null nếu chưa thanh toán)
+    private Long paymentId;
+    private PaymentMethod paymentMethod;
+    private PaymentStatus paymentStatus;
+    private Double paymentAmount;
+    private String providerTransactionId;
+    private LocalDateTime paymentCreatedAt;
+}
@@ -0,0 +1,28 @@
+package com.mytech.backend.portal.dto.Booking;
+
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Điều kiện tìm kiếm booking cho admin. Mọi field đều tùy chọn (null/rỗng = không lọc).
+ * Khoảng ngày [checkInFrom, checkInTo] áp dụng trên ngày check-in, inclusive.
+ * Dùng làm key cache nên phải giữ equals/hashCode theo giá trị.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingSearchCriteria {
+    private BookingStatus status;
+    private Long serviceId;
+    private LocalDate checkInFrom;
+    private LocalDate checkInTo;
+    private Long customerId;
+    private String customerName;
+    private Long staffId;
+}
@@ -0,0 +1,22 @@
+package com.mytech.backend.portal.dto.Combo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ComboAnalyticsDTO {
+    private Long comboId;
+    private String comboName;
+    private long confirmedBookings;   // số item combo trong các booking CONFIRMED
+    private long totalRevenue;
+    private long monthlyRevenue;      // tháng hiện tại, theo ngày tạo booking
+    private BigDecimal savingPerBooking;
+    private BigDecimal totalSavings;
+}
@@ -0,0 +1,23 @@
+package com.mytech.backend.portal.dto.Customer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CustomerSummaryDTO {
+    private Long customerId;
+    private long bookingCount;
+    private long lifetimeSpend;
+    private LocalDateTime lastStayAt;
+    private Long favouriteServiceId;
+    private String favouriteServiceName;
+    private long reviewCount;
+    private LocalDateTime updatedAt;
+}
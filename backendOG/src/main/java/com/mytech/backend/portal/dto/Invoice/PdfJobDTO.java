@@ -0,0 +1,25 @@
+package com.mytech.backend.portal.dto.Invoice;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PdfJobDTO {
+    private String jobId;
+    private String type;            // INVOICE | BULK
+    private String status;          // QUEUED | RUNNING | DONE | FAILED
+    private int total;              // số hóa đơn cần render
+    private int completed;
+    private int failed;             // booking lỗi trong job BULK (liệt kê trong errors.txt của file ZIP)
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private String downloadUrl;     // có khi status = DONE
+}
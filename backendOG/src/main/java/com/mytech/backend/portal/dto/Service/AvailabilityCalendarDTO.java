@@ -0,0 +1,20 @@
+package com.mytech.backend.portal.dto.Service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AvailabilityCalendarDTO {
+    private Long serviceId;
+    private LocalDate startDate;   // Ngày ứng với index 0 của các mảng bên dưới
+    private LocalDate endDate;     // Ngày cuối (inclusive)
+    private int[] totalSlots;      // -1 nếu ngày chưa cấu hình availability
+    private int[] freeSlots;       // Số slot còn trống mỗi ngày
+}
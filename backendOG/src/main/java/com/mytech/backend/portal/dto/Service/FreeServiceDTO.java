@@ -0,0 +1,15 @@
+package com.mytech.backend.portal.dto.Service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FreeServiceDTO {
+    private Long serviceId;
+    private Integer freeSlots;     // Số slot trống nhỏ nhất trong khoảng ngày
+}
@@ -0,0 +1,38 @@
+package com.mytech.backend.portal.dto.Service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OccupancyReportDTO {
+    private String granularity;       // DAY / WEEK / MONTH
+    private LocalDate from;
+    private LocalDate to;
+    private List<LocalDate> periods;  // ngày bắt đầu của từng kỳ
+    private List<Row> services;       // công suất thấp nhất lên đầu
+    private List<Row> locations;      // gộp theo Service.location
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Row {
+        private Long serviceId;       // null với dòng location
+        private String name;
+        private String location;
+        private long[] bookedSlots;   // theo thứ tự periods
+        private long[] totalSlots;
+        private double[] occupancyRate; // %, 1 chữ số thập phân
+        private double overallRate;
+        private LocalDate peakDay;    // ngày có tỉ lệ lấp đầy cao nhất
+        private double peakRate;
+    }
+}
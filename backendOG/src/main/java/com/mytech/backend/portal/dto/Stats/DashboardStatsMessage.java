@@ -0,0 +1,22 @@
+package com.mytech.backend.portal.dto.Stats;
+
+import com.mytech.backend.portal.dto.StatDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardStatsMessage {
+    private long version;                    // tăng mỗi lần đẩy; client bỏ delta có version <= snapshot
+    private boolean snapshot;                // true = đủ mọi khóa, false = chỉ khóa đã đổi
+    private LocalDateTime generatedAt;
+    private Map<String, List<StatDTO>> stats; // "admin.monthly", "stats.daily", ... -> thẻ dashboard
+}
@@ -0,0 +1,29 @@
+package com.mytech.backend.portal.dto.Stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueSeriesDTO {
+    private String granularity;       // DAY / WEEK / MONTH
+    private String groupBy;           // NONE / SERVICE / COMBO / LOCATION / ITEM_TYPE
+    private List<LocalDate> periods;  // ngày bắt đầu của từng kỳ
+    private List<Series> series;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Series {
+        private String key;           // id service/combo, tên location, loại item hoặc "all"
+        private long[] revenue;       // theo thứ tự periods
+        private long[] count;         // số booking item
+    }
+}
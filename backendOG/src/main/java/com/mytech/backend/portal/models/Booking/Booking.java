@@ -16,7 +16,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        // Keyset cho danh sách admin: ORDER BY created_at DESC, id DESC
+        @Index(name = "idx_bookings_created_at_id", columnList = "created_at, id"),
+        // Các bộ lọc của trang tìm kiếm booking (BookingSearchService)
+        @Index(name = "idx_bookings_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_bookings_customer_id", columnList = "customer_id"),
+        @Index(name = "idx_bookings_assigned_staff_id", columnList = "assigned_staff_id"),
+        @Index(name = "idx_bookings_check_in_date", columnList = "check_in_date")
+})
 @Data
 @Getter
 @Setter
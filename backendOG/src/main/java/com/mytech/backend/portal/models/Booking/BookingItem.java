@@ -11,7 +11,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "booking_items")
+@Table(name = "booking_items", indexes = {
+        // Lọc booking theo service (EXISTS trên booking_items)
+        @Index(name = "idx_booking_items_service_booking", columnList = "service_id, booking_id")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class BookingItem {
     @Id
@@ -0,0 +1,45 @@
+package com.mytech.backend.portal.models.Customer;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Số liệu trọn đời của 1 customer. Mỗi dòng được tính lại hoàn toàn từ bảng gốc
+ * (bookings, booking_items, reviews) nên ghi lại nhiều lần vẫn cho cùng kết quả.
+ */
+@Entity
+@Table(name = "customer_summaries")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerSummary {
+
+    @Id
+    private Long customerId;
+
+    // Mọi booking, kể cả đã hủy
+    @Column(nullable = false)
+    private long bookingCount;
+
+    // Tổng totalPrice của booking CONFIRMED / IN_PROGRESS / COMPLETED
+    @Column(nullable = false)
+    private long lifetimeSpend;
+
+    // checkInDate mới nhất của booking IN_PROGRESS / COMPLETED
+    private LocalDateTime lastStayAt;
+
+    // Service xuất hiện trong nhiều booking (chưa hủy) nhất
+    private Long favouriteServiceId;
+
+    private String favouriteServiceName;
+
+    @Column(nullable = false)
+    private long reviewCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,70 @@
+package com.mytech.backend.portal.models.Email;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email chờ gửi. Dòng được ghi trong cùng transaction với thay đổi nghiệp vụ (vd xác nhận booking)
+ * nên rollback thì không có email, commit thì email chắc chắn được gửi (ít nhất 1 lần) bởi dispatcher.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutbox {
+
+    public enum Type { BOOKING_CONFIRMATION }
+
+    public enum Status { PENDING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private Type type;
+
+    // Booking cần ghi emailSentAt khi gửi xong (null với email không gắn booking)
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "from_address", nullable = false)
+    private String fromAddress;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    // HTML đã render lúc xếp hàng
+    @Column(columnDefinition = "LONGTEXT", nullable = false)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,58 @@
+package com.mytech.backend.portal.models.Idempotency;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Kết quả lần gọi đầu tiên của 1 request POST có header Idempotency-Key.
+ * Bản trong DB giúp replay sau khi restart hoặc khi request retry rơi vào instance khác.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    public enum Status { IN_PROGRESS, COMPLETED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // scope (method + path + người gọi) + key do client gửi
+    @Column(name = "idem_key", nullable = false, unique = true, length = 255)
+    private String idemKey;
+
+    // SHA-256 của body request, chặn dùng lại key cho request khác
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    private Integer responseStatus;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Lúc instance hiện tại chiếm key (IN_PROGRESS); quá lease thì coi như instance đó đã chết
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 import com.mytech.backend.portal.models.User.User;
 
 @Entity
-@Table(name = "order_bookings")
+@Table(name = "order_bookings", indexes = {
+        // Tính lại bucket doanh thu theo ngày (DailyStatsRollup)
+        @Index(name = "idx_order_bookings_order_date", columnList = "order_date")
+})
 public class OrderBooking {
 
     @Id
@@ -10,7 +10,10 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        // Xuất CSV theo khoảng ngày
+        @Index(name = "idx_payments_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
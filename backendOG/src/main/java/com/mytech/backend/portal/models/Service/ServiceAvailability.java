@@ -5,7 +5,10 @@ import lombok.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "service_availability")
+@Table(name = "service_availability",
+        uniqueConstraints = @UniqueConstraint(name = "uk_service_availability_service_date",
+                columnNames = {"service_id", "date"}),
+        indexes = @Index(name = "idx_service_availability_date", columnList = "date"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,49 @@
+package com.mytech.backend.portal.models.Stats;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Số liệu dashboard gộp theo ngày. Mỗi dòng được tính lại hoàn toàn từ bảng gốc
+ * (order_bookings, bookings, users) nên ghi lại nhiều lần vẫn cho cùng kết quả.
+ */
+@Entity
+@Table(name = "daily_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyStatBucket {
+
+    @Id
+    private LocalDate day;
+
+    // Tổng totalPrice của order_bookings theo orderDate
+    @Column(nullable = false)
+    private double revenue;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    // Booking theo createdAt
+    @Column(nullable = false)
+    private long bookingCount;
+
+    // User role CUSTOMER theo createdAt
+    @Column(nullable = false)
+    private long newCustomers;
+
+    // Rating của các booking tạo trong ngày
+    @Column(nullable = false)
+    private long ratingSum;
+
+    @Column(nullable = false)
+    private long ratingCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -16,7 +16,12 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Đếm khách mới theo ngày (DailyStatsRollup)
+        @Index(name = "idx_users_role_created_at", columnList = "role, created_at"),
+        // Đếm user mới theo kỳ (StatServiceImpl)
+        @Index(name = "idx_users_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
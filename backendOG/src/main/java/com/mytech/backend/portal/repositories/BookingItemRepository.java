@@ -1,46 +1,28 @@
 package com.mytech.backend.portal.repositories;
 
+import com.mytech.backend.portal.dto.Booking.BookingItemRowDTO;
 import com.mytech.backend.portal.models.Booking.Booking;
 import com.mytech.backend.portal.models.Booking.BookingItem;
 import com.mytech.backend.portal.models.Booking.BookingStatus;
 import com.mytech.backend.portal.models.Booking.ItemType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 public interface BookingItemRepository extends JpaRepository<BookingItem, Long> {
 
-    @Query("SELECT COUNT(bi) FROM BookingItem bi " +
-            "WHERE bi.combo.id = :comboId AND bi.booking.status = :status")
-    long countByComboAndBookingStatus(@Param("comboId") Long comboId,
-                                      @Param("status") BookingStatus status);
-
-    // Tổng tiền của 1 combo theo booking đã confirmed
-    @Query("SELECT COALESCE(SUM(bi.price * bi.quantity), 0) " +
-            "FROM BookingItem bi " +
-            "JOIN bi.booking b " +
-            "WHERE bi.combo.id = :comboId AND b.status = :status")
-    long getTotalRevenueByComboAndStatus(@Param("comboId") Long comboId,
-                                         @Param("status") BookingStatus status);
-
-    // Tổng tiền trong tháng hiện tại
-    @Query("SELECT COALESCE(SUM(bi.price * bi.quantity), 0) " +
-            "FROM BookingItem bi " +
-            "JOIN bi.booking b " +
-            "WHERE bi.combo.id = :comboId " +
-            "AND b.status = :status " +
-            "AND MONTH(b.createdAt) = MONTH(CURRENT_DATE) " +
-            "AND YEAR(b.createdAt) = YEAR(CURRENT_DATE)")
-    long getMonthlyRevenueByComboAndStatus(@Param("comboId") Long comboId,
-                                           @Param("status") BookingStatus status);
-
-    @Query("SELECT COUNT(bi) " +
-            "FROM BookingItem bi " +
-            "WHERE bi.combo.id = :comboId " +
-            "AND bi.booking.status = :status")
-    long countByComboIdAndBookingStatus(@Param("comboId") Long comboId,
-                                        @Param("status") BookingStatus status);
+    // [bookingId, comboId, năm, tháng (theo booking.createdAt), số item, doanh thu] theo từng booking,
+    // 1 câu GROUP BY; giữ bookingId để biết booking nào đã nằm trong số liệu nạp
+    @Query("SELECT b.id, bi.combo.id, YEAR(b.createdAt), MONTH(b.createdAt), COUNT(bi), " +
+            "COALESCE(SUM(bi.price * bi.quantity), 0) " +
+            "FROM BookingItem bi JOIN bi.booking b " +
+            "WHERE bi.combo IS NOT NULL AND b.status = :status " +
+            "GROUP BY b.id, bi.combo.id, YEAR(b.createdAt), MONTH(b.createdAt)")
+    List<Object[]> aggregateComboItemsByBooking(@Param("status") BookingStatus status);
 
     @Query("SELECT COUNT(DISTINCT bi.booking.id) " +
             "FROM BookingItem bi " +
@@ -51,11 +33,25 @@ public interface BookingItemRepository extends JpaRepository<BookingItem, Long>
     @Query("SELECT bi FROM BookingItem bi WHERE bi.service.id = :serviceId")
     List<BookingItem> findItemsByServiceId(@Param("serviceId") Long serviceId);
 
-    @Query("SELECT COUNT(bi) FROM BookingItem bi WHERE bi.service.id = :serviceId")
-    Long countByServiceId(@Param("serviceId") Long serviceId);
+    // 🔹 Số liệu theo service trong 1 lượt GROUP BY:
+    // [serviceId, số item, doanh thu, số item tháng này, doanh thu tháng này,
+    //  điểm đánh giá trung bình (null nếu chưa có), số item COMPLETED]
+    // Điểm đánh giá nằm ở booking: tính qua subquery theo từng booking, không cộng lặp theo số item
+    String SERVICE_STATS_SELECT = "SELECT bi.service.id, COUNT(bi), COALESCE(SUM(bi.price), 0), " +
+            "SUM(CASE WHEN b.createdAt >= :monthStart THEN 1 ELSE 0 END), " +
+            "COALESCE(SUM(CASE WHEN b.createdAt >= :monthStart THEN bi.price ELSE 0 END), 0), " +
+            "(SELECT AVG(rb.rating) FROM Booking rb WHERE rb.rating IS NOT NULL AND EXISTS " +
+            "(SELECT 1 FROM BookingItem ri WHERE ri.booking = rb AND ri.service.id = bi.service.id)), " +
+            "SUM(CASE WHEN b.status = com.mytech.backend.portal.models.Booking.BookingStatus.COMPLETED " +
+            "THEN 1 ELSE 0 END) " +
+            "FROM BookingItem bi JOIN bi.booking b ";
 
-    @Query("SELECT SUM(bi.price) FROM BookingItem bi WHERE bi.service.id = :serviceId")
-    Long sumRevenueByServiceId(@Param("serviceId") Long serviceId);
+    @Query(SERVICE_STATS_SELECT + "WHERE bi.service IS NOT NULL GROUP BY bi.service.id")
+    List<Object[]> aggregateServiceStats(@Param("monthStart") LocalDateTime monthStart);
+
+    @Query(SERVICE_STATS_SELECT + "WHERE bi.service.id IN :serviceIds GROUP BY bi.service.id")
+    List<Object[]> aggregateServiceStats(@Param("serviceIds") Collection<Long> serviceIds,
+                                         @Param("monthStart") LocalDateTime monthStart);
 
     @Query("SELECT bi FROM BookingItem bi " +
             "JOIN FETCH bi.booking b " +
@@ -70,4 +66,37 @@ public interface BookingItemRepository extends JpaRepository<BookingItem, Long>
             "WHERE bi.booking = :booking AND bi.type = :type")
     List<BookingItem> findByBookingAndType(@Param("booking") Booking booking, 
                                           @Param("type") ItemType type);
-}
\ No newline at end of file
+
+    // Item của nhiều booking trong 1 query, join sẵn tên service/combo/equipment (không lazy load)
+    @Query("SELECT new com.mytech.backend.portal.dto.Booking.BookingItemRowDTO(" +
+            "bi.id, b.id, bi.type, sv.id, sv.name, cb.id, cb.name, eq.id, eq.name, " +
+            "bi.numberOfPeople, bi.checkInDate, bi.checkOutDate, bi.quantity, bi.price) " +
+            "FROM BookingItem bi JOIN bi.booking b " +
+            "LEFT JOIN bi.service sv LEFT JOIN bi.combo cb LEFT JOIN bi.equipment eq " +
+            "WHERE b.id IN :bookingIds ORDER BY bi.id")
+    List<BookingItemRowDTO> findRowsByBookingIds(@Param("bookingIds") Collection<Long> bookingIds);
+
+    // Item dịch vụ của các booking PENDING còn trong hạn giữ chỗ (dựng lại hold khi khởi động):
+    // [bookingId, booking.createdAt, payment.createdAt, serviceId, checkInDate, checkOutDate]
+    @Query("SELECT b.id, b.createdAt, p.createdAt, sv.id, bi.checkInDate, bi.checkOutDate " +
+            "FROM BookingItem bi JOIN bi.booking b JOIN bi.service sv LEFT JOIN b.payment p " +
+            "WHERE b.status = com.mytech.backend.portal.models.Booking.BookingStatus.PENDING " +
+            "AND bi.type = com.mytech.backend.portal.models.Booking.ItemType.SERVICE " +
+            "AND bi.checkInDate IS NOT NULL AND bi.checkOutDate IS NOT NULL " +
+            "AND (b.createdAt >= :since OR p.createdAt >= :since) " +
+            "ORDER BY b.id")
+    List<Object[]> findPendingHoldRows(@Param("since") LocalDateTime since);
+
+    // 🔹 Fact cho cube doanh thu, đọc nối tiếp theo id (chỉ lấy item mới hơn afterId):
+    // [itemId, bookingId, booking.createdAt, price, quantity, type, serviceId, comboId, location, status]
+    String CUBE_FACT_SELECT = "SELECT bi.id, b.id, b.createdAt, bi.price, bi.quantity, bi.type, sv.id, cb.id, " +
+            "COALESCE(sv.location, cb.location), b.status " +
+            "FROM BookingItem bi JOIN bi.booking b LEFT JOIN bi.service sv LEFT JOIN bi.combo cb ";
+
+    @Query(CUBE_FACT_SELECT + "WHERE bi.id > :afterId ORDER BY bi.id")
+    List<Object[]> findCubeFacts(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 🔹 Fact của các item cụ thể (item vừa thêm / sửa đã commit)
+    @Query(CUBE_FACT_SELECT + "WHERE bi.id IN :itemIds ORDER BY bi.id")
+    List<Object[]> findCubeFactsByIds(@Param("itemIds") Collection<Long> itemIds);
+}
@@ -1,22 +1,35 @@
 package com.mytech.backend.portal.repositories;
 
+import com.mytech.backend.portal.dto.Booking.BookingRowDTO;
 import com.mytech.backend.portal.models.Booking.Booking;
 import com.mytech.backend.portal.models.Booking.BookingStatus;
 import com.mytech.backend.portal.models.User.User;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking> {
+
+    // 🔹 Select phẳng booking + customer + staff + payment cho BookingResponseDTO (1 câu SQL, không lazy load)
+    String BOOKING_ROW_SELECT = "SELECT new com.mytech.backend.portal.dto.Booking.BookingRowDTO(" +
+            "b.id, c.id, c.name, c.email, c.phone, c.address, b.createdAt, b.checkInDate, b.checkOutDate, " +
+            "b.numberOfPeople, b.status, b.note, b.internalNotes, b.totalPrice, b.hasReview, " +
+            "st.id, st.name, st.role, " +
+            "p.id, p.method, p.status, p.amount, p.providerTransactionId, p.createdAt) " +
+            "FROM Booking b JOIN b.customer c LEFT JOIN b.assignedStaff st LEFT JOIN b.payment p ";
 
     // 🔹 Lấy tất cả booking theo customer
     List<Booking> findByCustomerId(Long customerId);
@@ -24,8 +37,10 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     // 🔹 Lấy tất cả booking theo staff
     List<Booking> findByAssignedStaff(User staff);
 
-    // 🔹 Đếm số booking theo staff
-    int countByAssignedStaff(User staff);
+    // 🔹 Booking còn mở (chưa COMPLETED / CANCELLED) đã gán staff, trong 1 câu: [bookingId, staffId]
+    @Query("SELECT b.id, b.assignedStaff.id FROM Booking b " +
+            "WHERE b.assignedStaff IS NOT NULL AND b.status NOT IN :closed")
+    List<Object[]> findOpenAssignments(@Param("closed") Collection<BookingStatus> closed);
 
     // 🔹 Phân trang toàn bộ booking
     Page<Booking> findAll(Pageable pageable);
@@ -39,6 +54,44 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     // 🔹 Phân trang theo staff
     Page<Booking> findByAssignedStaff(User staff, Pageable pageable);
 
+    // 🔹 Các dòng DTO phẳng (items đọc riêng theo lô bằng BookingItemRepository.findRowsByBookingIds)
+    @Query(value = BOOKING_ROW_SELECT,
+           countQuery = "SELECT COUNT(b) FROM Booking b")
+    Page<BookingRowDTO> findRows(Pageable pageable);
+
+    @Query(BOOKING_ROW_SELECT + "ORDER BY b.id")
+    List<BookingRowDTO> findAllRows();
+
+    @Query(BOOKING_ROW_SELECT + "WHERE c.id = :customerId ORDER BY b.id")
+    List<BookingRowDTO> findRowsByCustomerId(@Param("customerId") Long customerId);
+
+    @Query(BOOKING_ROW_SELECT + "WHERE st.id = :staffId ORDER BY b.id")
+    List<BookingRowDTO> findRowsByStaffId(@Param("staffId") Long staffId);
+
+    // 🔹 Dòng DTO cho 1 lô id (thứ tự do caller sắp lại)
+    @Query(BOOKING_ROW_SELECT + "WHERE b.id IN :ids")
+    List<BookingRowDTO> findRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // 🔹 Keyset theo (createdAt, id) giảm dần: trang sau bắt đầu ngay sau dòng cuối của trang trước,
+    // không OFFSET nên trang thứ 1000 cũng nhanh như trang đầu. Tham số null = không lọc.
+    @Query(BOOKING_ROW_SELECT +
+           "WHERE (:status IS NULL OR b.status = :status) " +
+           "AND (:fromAt IS NULL OR b.createdAt >= :fromAt) " +
+           "AND (:toAt IS NULL OR b.createdAt < :toAt) " +
+           "AND (:customerId IS NULL OR c.id = :customerId) " +
+           "AND (:staffId IS NULL OR st.id = :staffId) " +
+           "AND (:cursorAt IS NULL OR b.createdAt < :cursorAt " +
+           "     OR (b.createdAt = :cursorAt AND b.id < :cursorId)) " +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BookingRowDTO> findRowsAfter(@Param("status") BookingStatus status,
+                                      @Param("fromAt") LocalDateTime fromAt,
+                                      @Param("toAt") LocalDateTime toAt,
+                                      @Param("customerId") Long customerId,
+                                      @Param("staffId") Long staffId,
+                                      @Param("cursorAt") LocalDateTime cursorAt,
+                                      @Param("cursorId") Long cursorId,
+                                      Limit limit);
+
     // 🔹 Tìm booking theo customer, service và ngày check-in (tránh trùng lịch)
     @Query("SELECT b FROM Booking b JOIN b.items i WHERE b.customer.id = :customerId " +
            "AND i.service.id = :serviceId " +
@@ -56,6 +109,15 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             @Param("endDate") LocalDate endDate
     );
 
+    // 🔹 [số booking, tổng totalPrice] của các booking tạo trong [from, to)
+    @Query("SELECT COUNT(b), COALESCE(SUM(b.totalPrice), 0) FROM Booking b " +
+           "WHERE b.createdAt >= :from AND b.createdAt < :to")
+    List<Object[]> countAndRevenueBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // 🔹 Id các booking tạo trong [from, to), theo thứ tự tạo (dùng idx_bookings_created_at_id)
+    @Query("SELECT b.id FROM Booking b WHERE b.createdAt >= :from AND b.createdAt < :to ORDER BY b.createdAt, b.id")
+    List<Long> findIdsCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
     // 🔹 Tìm các booking chưa gửi email
     List<Booking> findByEmailSentAtIsNull();
 
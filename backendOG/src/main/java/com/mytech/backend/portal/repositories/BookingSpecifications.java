@@ -0,0 +1,89 @@
+package com.mytech.backend.portal.repositories;
+
+import com.mytech.backend.portal.dto.Booking.BookingSearchCriteria;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Các điều kiện lọc booking ghép được với nhau; mỗi điều kiện đi kèm 1 index trên bảng bookings
+ * (xem {@link Booking}) để DB không phải quét toàn bảng.
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    // Ghép tất cả điều kiện có giá trị trong criteria (AND)
+    public static Specification<Booking> matching(BookingSearchCriteria criteria) {
+        List<Specification<Booking>> specs = new ArrayList<>();
+        if (criteria.getStatus() != null) {
+            specs.add(hasStatus(criteria.getStatus()));
+        }
+        if (criteria.getServiceId() != null) {
+            specs.add(hasService(criteria.getServiceId()));
+        }
+        if (criteria.getCheckInFrom() != null) {
+            specs.add(checkInFrom(criteria.getCheckInFrom()));
+        }
+        if (criteria.getCheckInTo() != null) {
+            specs.add(checkInTo(criteria.getCheckInTo()));
+        }
+        if (criteria.getCustomerId() != null) {
+            specs.add(hasCustomer(criteria.getCustomerId()));
+        }
+        if (criteria.getCustomerName() != null && !criteria.getCustomerName().isBlank()) {
+            specs.add(customerNameContains(criteria.getCustomerName()));
+        }
+        if (criteria.getStaffId() != null) {
+            specs.add(assignedTo(criteria.getStaffId()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    public static Specification<Booking> hasStatus(BookingStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    // EXISTS thay cho JOIN items để 1 booking nhiều item không bị lặp dòng
+    public static Specification<Booking> hasService(Long serviceId) {
+        return (root, query, cb) -> {
+            Subquery<Long> items = query.subquery(Long.class);
+            Root<BookingItem> item = items.from(BookingItem.class);
+            items.select(item.get("id")).where(
+                    cb.equal(item.get("service").get("id"), serviceId),
+                    cb.equal(item.get("booking"), root));
+            return cb.exists(items);
+        };
+    }
+
+    public static Specification<Booking> checkInFrom(LocalDate from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("checkInDate"), from.atStartOfDay());
+    }
+
+    public static Specification<Booking> checkInTo(LocalDate to) {
+        return (root, query, cb) -> cb.lessThan(root.get("checkInDate"), to.plusDays(1).atStartOfDay());
+    }
+
+    public static Specification<Booking> hasCustomer(Long customerId) {
+        return (root, query, cb) -> cb.equal(root.get("customer").get("id"), customerId);
+    }
+
+    public static Specification<Booking> customerNameContains(String name) {
+        String pattern = "%" + name.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.join("customer").get("name")), pattern, '\\');
+    }
+
+    public static Specification<Booking> assignedTo(Long staffId) {
+        return (root, query, cb) -> cb.equal(root.get("assignedStaff").get("id"), staffId);
+    }
+}
@@ -1,9 +1,17 @@
 package com.mytech.backend.portal.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.mytech.backend.portal.models.Combo.Combo;
 
+import java.util.List;
+
 @Repository
-public interface ComboRepository extends JpaRepository<Combo, Long> {}
\ No newline at end of file
+public interface ComboRepository extends JpaRepository<Combo, Long> {
+
+    // 🔹 [id, name, price, originalPrice] của mọi combo (không load highlights/tags/items)
+    @Query("SELECT c.id, c.name, c.price, c.originalPrice FROM Combo c ORDER BY c.id")
+    List<Object[]> findPriceRows();
+}
\ No newline at end of file
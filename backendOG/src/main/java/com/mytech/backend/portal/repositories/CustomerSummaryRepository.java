@@ -0,0 +1,47 @@
+package com.mytech.backend.portal.repositories;
+
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Customer.CustomerSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerSummaryRepository extends JpaRepository<CustomerSummary, Long> {
+
+    // 🔹 Tính lại summary từ bảng gốc, mỗi câu GROUP BY theo customer trên cột đã đánh index
+
+    // [customerId, bookingCount, lifetimeSpend, lastStayAt]
+    @Query("SELECT b.customer.id, COUNT(b), " +
+           "COALESCE(SUM(CASE WHEN b.status IN :spend THEN b.totalPrice ELSE 0 END), 0), " +
+           "MAX(CASE WHEN b.status IN :stay THEN b.checkInDate END) " +
+           "FROM Booking b WHERE b.customer.id IN :ids GROUP BY b.customer.id")
+    List<Object[]> aggregateBookings(@Param("ids") Collection<Long> ids,
+                                     @Param("spend") Collection<BookingStatus> spend,
+                                     @Param("stay") Collection<BookingStatus> stay);
+
+    // [customerId, serviceId, serviceName, bookingCount]
+    @Query("SELECT b.customer.id, s.id, s.name, COUNT(DISTINCT b.id) FROM BookingItem bi " +
+           "JOIN bi.booking b JOIN bi.service s " +
+           "WHERE b.customer.id IN :ids AND b.status <> :cancelled " +
+           "GROUP BY b.customer.id, s.id, s.name")
+    List<Object[]> countServicesByCustomer(@Param("ids") Collection<Long> ids,
+                                           @Param("cancelled") BookingStatus cancelled);
+
+    // [customerId, reviewCount]
+    @Query("SELECT r.customer.id, COUNT(r) FROM Review r WHERE r.customer.id IN :ids GROUP BY r.customer.id")
+    List<Object[]> countReviews(@Param("ids") Collection<Long> ids);
+
+    // 🔹 Customer còn tồn tại trong ids
+    @Query("SELECT c.id FROM Customer c WHERE c.id IN :ids")
+    List<Long> findExistingCustomerIds(@Param("ids") Collection<Long> ids);
+
+    // 🔹 Duyệt id theo trang cho job sửa ban đêm
+    @Query("SELECT s.customerId FROM CustomerSummary s WHERE s.customerId > :afterId ORDER BY s.customerId")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
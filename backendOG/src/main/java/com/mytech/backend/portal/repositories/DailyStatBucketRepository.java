@@ -0,0 +1,51 @@
+package com.mytech.backend.portal.repositories;
+
+import com.mytech.backend.portal.models.Stats.DailyStatBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyStatBucketRepository extends JpaRepository<DailyStatBucket, LocalDate> {
+
+    // 🔹 Tổng các bucket trong [from, to): [revenue, orderCount, bookingCount, newCustomers, ratingSum, ratingCount]
+    @Query("SELECT COALESCE(SUM(d.revenue), 0), COALESCE(SUM(d.orderCount), 0), COALESCE(SUM(d.bookingCount), 0), " +
+           "COALESCE(SUM(d.newCustomers), 0), COALESCE(SUM(d.ratingSum), 0), COALESCE(SUM(d.ratingCount), 0) " +
+           "FROM DailyStatBucket d WHERE d.day >= :from AND d.day < :to")
+    List<Object[]> sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    List<DailyStatBucket> findByDayGreaterThanEqualAndDayLessThanOrderByDay(LocalDate from, LocalDate to);
+
+    // 🔹 Tính lại bucket từ bảng gốc, mỗi câu GROUP BY theo ngày trên cột đã đánh index
+
+    // [day, revenue, orderCount]
+    @Query("SELECT CAST(o.orderDate AS LocalDate), SUM(o.totalPrice), COUNT(o) FROM OrderBooking o " +
+           "WHERE o.orderDate >= :from AND o.orderDate < :to GROUP BY CAST(o.orderDate AS LocalDate)")
+    List<Object[]> aggregateOrders(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // [day, bookingCount, ratingSum, ratingCount]
+    @Query("SELECT CAST(b.createdAt AS LocalDate), COUNT(b), SUM(b.rating), COUNT(b.rating) FROM Booking b " +
+           "WHERE b.createdAt >= :from AND b.createdAt < :to GROUP BY CAST(b.createdAt AS LocalDate)")
+    List<Object[]> aggregateBookings(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // [day, newCustomers]
+    @Query("SELECT CAST(u.createdAt AS LocalDate), COUNT(u) FROM User u " +
+           "WHERE u.role = com.mytech.backend.portal.models.User.User.Role.CUSTOMER " +
+           "AND u.createdAt >= :from AND u.createdAt < :to GROUP BY CAST(u.createdAt AS LocalDate)")
+    List<Object[]> aggregateNewCustomers(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // 🔹 Ngày sớm nhất có dữ liệu (để backfill lần đầu)
+    @Query("SELECT MIN(o.orderDate) FROM OrderBooking o")
+    LocalDateTime findFirstOrderDate();
+
+    @Query("SELECT MIN(b.createdAt) FROM Booking b")
+    LocalDateTime findFirstBookingDate();
+
+    @Query("SELECT MIN(u.createdAt) FROM User u")
+    LocalDateTime findFirstUserDate();
+}
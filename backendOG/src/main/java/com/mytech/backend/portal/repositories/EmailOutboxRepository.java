@@ -0,0 +1,30 @@
+package com.mytech.backend.portal.repositories;
+
+import com.mytech.backend.portal.models.Email.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // 🔹 Email có status (PENDING) đã tới lượt gửi, cũ nhất trước (dùng idx_email_outbox_status_next_attempt)
+    @Query("SELECT e FROM EmailOutbox e WHERE e.status = :status AND e.nextAttemptAt <= :now " +
+           "ORDER BY e.nextAttemptAt, e.id")
+    List<EmailOutbox> findDue(@Param("status") EmailOutbox.Status status, @Param("now") LocalDateTime now,
+                              Pageable pageable);
+
+    // 🔹 Booking đã có email loại này ở status (PENDING) trong outbox chưa
+    boolean existsByBookingIdAndTypeAndStatus(Long bookingId, EmailOutbox.Type type, EmailOutbox.Status status);
+
+    // 🔹 Dọn email (SENT) đã gửi trước cutoff
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = :status AND e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("status") EmailOutbox.Status status, @Param("cutoff") LocalDateTime cutoff);
+}
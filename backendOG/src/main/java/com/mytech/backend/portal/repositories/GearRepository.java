@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -25,4 +26,7 @@ public interface GearRepository extends JpaRepository<Gear, Long> {
 		        @Param("area") AreaName area,
 		        @Param("status") GearStatus status
 		    );
+
+    // Thiết bị thêm mới trong [from, to), cho thống kê theo kỳ
+    long countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(LocalDateTime from, LocalDateTime to);
 }
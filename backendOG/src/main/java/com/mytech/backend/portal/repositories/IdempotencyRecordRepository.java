@@ -0,0 +1,36 @@
+package com.mytech.backend.portal.repositories;
+
+import com.mytech.backend.portal.models.Idempotency.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByIdemKey(String idemKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idemKey = :idemKey")
+    int deleteByIdemKey(@Param("idemKey") String idemKey);
+
+    // Chiếm lại key IN_PROGRESS có lease đã quá hạn; chỉ 1 instance cập nhật được (trả về 1)
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.claimedAt = :now " +
+            "WHERE r.idemKey = :idemKey AND r.status = :status " +
+            "AND (r.claimedAt IS NULL OR r.claimedAt < :staleBefore)")
+    int takeOverStaleClaim(@Param("idemKey") String idemKey,
+                           @Param("status") IdempotencyRecord.Status status,
+                           @Param("now") LocalDateTime now,
+                           @Param("staleBefore") LocalDateTime staleBefore);
+
+    // Dọn key hết hạn
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
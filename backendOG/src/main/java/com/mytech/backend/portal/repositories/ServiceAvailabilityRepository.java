@@ -2,9 +2,13 @@ package com.mytech.backend.portal.repositories;
 
 import com.mytech.backend.portal.models.Service.ServiceAvailability;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +19,43 @@ public interface ServiceAvailabilityRepository extends JpaRepository<ServiceAvai
 
     List<ServiceAvailability> findAllByServiceIdAndDateBetween(Long serviceId, LocalDate start, LocalDate end);
     List<ServiceAvailability> findAllByServiceId(Long serviceId);
+
+    // 🔹 Quét 1 lần mọi service trong khoảng ngày, chỉ lấy cột cần cho sổ slot
+    // [serviceId, date, totalSlots, bookedSlots]
+    @Query("SELECT a.service.id, a.date, a.totalSlots, a.bookedSlots FROM ServiceAvailability a " +
+           "WHERE a.date BETWEEN :start AND :end")
+    List<Object[]> findSlotRowsBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // 🔹 Như trên nhưng chỉ cho 1 nhóm service (vd: các dịch vụ trong 1 booking)
+    @Query("SELECT a.service.id, a.date, a.totalSlots, a.bookedSlots FROM ServiceAvailability a " +
+           "WHERE a.service.id IN :serviceIds AND a.date BETWEEN :start AND :end")
+    List<Object[]> findSlotRowsForServices(@Param("serviceIds") Collection<Long> serviceIds,
+                                           @Param("start") LocalDate start,
+                                           @Param("end") LocalDate end);
+
+    // 🔹 Các ngày đã có cấu hình của nhiều service trong 1 query: [serviceId, date]
+    @Query("SELECT a.service.id, a.date FROM ServiceAvailability a " +
+           "WHERE a.service.id IN :serviceIds AND a.date BETWEEN :start AND :end")
+    List<Object[]> findServiceDatesBetween(@Param("serviceIds") Collection<Long> serviceIds,
+                                           @Param("start") LocalDate start,
+                                           @Param("end") LocalDate end);
+
+    // 🔹 Giữ 1 slot cho mọi ngày trong [start, end) bằng 1 câu UPDATE có điều kiện.
+    // Trả về số ngày đã tăng; nếu nhỏ hơn số đêm thì caller phải rollback.
+    @Modifying
+    @Query("UPDATE ServiceAvailability a SET a.bookedSlots = a.bookedSlots + 1 " +
+           "WHERE a.service.id = :serviceId AND a.date >= :start AND a.date < :end " +
+           "AND a.bookedSlots < a.totalSlots")
+    int reserveSlots(@Param("serviceId") Long serviceId,
+                     @Param("start") LocalDate start,
+                     @Param("end") LocalDate end);
+
+    // 🔹 Trả 1 slot cho các ngày trong [start, end) đang có người đặt
+    @Modifying
+    @Query("UPDATE ServiceAvailability a SET a.bookedSlots = a.bookedSlots - 1 " +
+           "WHERE a.service.id = :serviceId AND a.date >= :start AND a.date < :end " +
+           "AND a.bookedSlots > 0")
+    int releaseSlots(@Param("serviceId") Long serviceId,
+                     @Param("start") LocalDate start,
+                     @Param("end") LocalDate end);
 }
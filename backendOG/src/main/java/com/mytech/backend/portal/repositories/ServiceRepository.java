@@ -19,6 +19,8 @@ public interface ServiceRepository extends JpaRepository<Service, Long> {
     // Nếu muốn filter theo active
     List<Service> findByActiveTrueAndTag(ServiceTag tag);
 
+    List<Service> findByActiveTrue();
+
     @Query("SELECT DISTINCT s.location FROM Service s WHERE s.location IS NOT NULL")
     List<String> findAllUniqueLocations();
 }
@@ -30,6 +30,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Optional<User> findByResetCode(String resetCode);
 
+    // Số user đăng ký trong [from, to)
+    long countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(LocalDateTime from, LocalDateTime to);
+
 
     @Query("SELECT sa.user FROM ShiftAssignment sa " +
             "WHERE sa.shift.shiftDate = :date " +
@@ -0,0 +1,60 @@
+package com.mytech.backend.portal.security;
+
+import com.mytech.backend.portal.models.Customer.Customer;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Người dùng của request hiện tại (principal do AuthTokenFilter đặt) và các kiểm tra quyền theo chủ sở hữu.
+ * Method security chưa bật nên các endpoint "của chính mình hoặc STAFF / ADMIN" gọi trực tiếp ở đây.
+ */
+public final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    public static Optional<AppUserDetails> get() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof AppUserDetails details
+                ? Optional.of(details)
+                : Optional.empty();
+    }
+
+    public static Optional<Long> id() {
+        return get().map(AppUserDetails::getId);
+    }
+
+    public static boolean hasRole(String role) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null) {
+            return false;
+        }
+        String authority = "ROLE_" + role;
+        for (GrantedAuthority granted : auth.getAuthorities()) {
+            if (authority.equals(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean isStaffOrAdmin() {
+        return hasRole("STAFF") || hasRole("ADMIN");
+    }
+
+    // Chỉ chính customer đó hoặc STAFF / ADMIN
+    public static void requireCustomerOrStaff(Long customerId) {
+        if (isStaffOrAdmin()) {
+            return;
+        }
+        Long own = get().map(details -> details.getUser().getCustomer()).map(Customer::getId).orElse(null);
+        if (own == null || !Objects.equals(own, customerId)) {
+            throw new AccessDeniedException("Không có quyền xem dữ liệu của customer " + customerId);
+        }
+    }
+}
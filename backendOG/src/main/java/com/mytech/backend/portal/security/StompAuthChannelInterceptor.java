@@ -0,0 +1,87 @@
+package com.mytech.backend.portal.security;
+
+import com.mytech.backend.portal.jwt.JwtUtils;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Xác thực STOMP: CONNECT mang header {@code Authorization: Bearer <jwt>} như REST API; SUBSCRIBE vào
+ * {@code /topic/admin/**} hoặc {@code /app/admin/**} (snapshot dashboard) chỉ cho ADMIN. Simple broker so khớp
+ * destination theo Ant pattern nên subscribe wildcard ({@code /topic/**}, {@code /topic/*}) cũng nhận được
+ * topic admin, vì vậy cũng chỉ cho ADMIN.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final JwtUtils jwtUtils;
+    private final AppUserDetailsService userDetailsService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            Authentication auth = authenticate(accessor.getFirstNativeHeader("Authorization"));
+            if (auth != null) {
+                accessor.setUser(auth);
+            }
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE && isAdminDestination(accessor.getDestination())
+                && !isAdmin(accessor.getUser())) {
+            throw new AccessDeniedException("Chỉ ADMIN được subscribe " + accessor.getDestination());
+        }
+        return message;
+    }
+
+    public static boolean isAdmin(Principal principal) {
+        return principal instanceof Authentication auth && auth.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+    }
+
+    // Wildcard có thể khớp /topic/admin/** nên coi như destination admin
+    private static boolean isAdminDestination(String destination) {
+        return destination != null && (PATH_MATCHER.isPattern(destination)
+                || destination.startsWith("/topic/admin/") || destination.startsWith("/app/admin/"));
+    }
+
+    // Cùng cách dựng quyền như AuthTokenFilter; token thiếu / sai thì kết nối ẩn danh
+    private Authentication authenticate(String header) {
+        if (!StringUtils.hasText(header) || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        String jwt = header.substring(7).trim();
+        if (!jwtUtils.validateJwtToken(jwt)) {
+            return null;
+        }
+        Claims claims = jwtUtils.getClaimsFromJwtToken(jwt);
+        Object rolesObj = claims.get("roles") != null ? claims.get("roles") : claims.get("role");
+        List<?> roles = rolesObj instanceof List<?> list ? list
+                : rolesObj instanceof String role ? List.of(role) : List.of();
+        AppUserDetails userDetails = (AppUserDetails) userDetailsService.loadUserByUsername(
+                jwtUtils.getUserNameFromJwtToken(jwt));
+        List<SimpleGrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toString().toUpperCase()))
+                .toList();
+        return new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+    }
+}
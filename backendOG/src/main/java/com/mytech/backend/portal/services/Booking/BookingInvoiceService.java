@@ -0,0 +1,11 @@
+package com.mytech.backend.portal.services.Booking;
+
+public interface BookingInvoiceService {
+
+    // etag = khóa nội dung của PDF, đổi khi field in trên hóa đơn đổi
+    record InvoicePdf(Long bookingId, String etag, byte[] content) {
+    }
+
+    // PDF hóa đơn của booking; lần tải lại lấy từ cache nếu booking chưa đổi
+    InvoicePdf getInvoice(Long bookingId);
+}
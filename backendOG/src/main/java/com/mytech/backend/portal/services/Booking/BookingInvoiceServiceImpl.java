@@ -0,0 +1,191 @@
+package com.mytech.backend.portal.services.Booking;
+
+import com.mytech.backend.portal.dto.Booking.BookingItemResponseDTO;
+import com.mytech.backend.portal.dto.Booking.BookingResponseDTO;
+import com.mytech.backend.portal.services.Invoice.InvoicePdfCache;
+import com.mytech.backend.portal.services.Invoice.InvoiceTemplateEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hóa đơn PDF của booking. Render (qua {@link InvoiceTemplateEngine}) chỉ khi {@link InvoicePdfCache}
+ * chưa có bản ứng với nội dung hiện tại của booking.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingInvoiceServiceImpl implements BookingInvoiceService {
+
+    // Đổi khi sửa layout để bản cache cũ không còn khớp
+    private static final String TEMPLATE_VERSION = "booking-invoice-v2";
+
+    private final BookingService bookingService;
+    private final InvoicePdfCache invoicePdfCache;
+    private final InvoiceTemplateEngine templateEngine;
+
+    @Override
+    public InvoicePdf getInvoice(Long bookingId) {
+        // Booking chưa đổi kể từ lần render trước: không đọc DB
+        String key = invoicePdfCache.currentKey(bookingId);
+        if (key != null) {
+            byte[] cached = invoicePdfCache.get(key);
+            if (cached != null) {
+                return new InvoicePdf(bookingId, key, cached);
+            }
+        }
+
+        long version = invoicePdfCache.version();
+        BookingResponseDTO booking = bookingService.getBooking(bookingId);
+        List<BookingItemResponseDTO> allItems = allItems(booking);
+        key = InvoicePdfCache.contentKey(canonical(booking, allItems));
+        byte[] pdf = invoicePdfCache.get(key);
+        if (pdf == null) {
+            pdf = render(booking, allItems);
+        }
+        invoicePdfCache.put(bookingId, booking.getCustomerId(), key, pdf, version);
+        return new InvoicePdf(bookingId, key, pdf);
+    }
+
+    // Mọi field in trên hóa đơn, theo thứ tự cố định
+    private static String canonical(BookingResponseDTO booking, List<BookingItemResponseDTO> allItems) {
+        StringBuilder sb = new StringBuilder(TEMPLATE_VERSION)
+                .append('|').append(booking.getId())
+                .append('|').append(booking.getCustomerName())
+                .append('|').append(booking.getEmail())
+                .append('|').append(booking.getPhone())
+                .append('|').append(booking.getAddress())
+                .append('|').append(getCheckInDate(booking))
+                .append('|').append(getCheckOutDate(booking))
+                .append('|').append(getNumberOfPeople(booking));
+        for (BookingItemResponseDTO item : allItems) {
+            sb.append("|item:").append(item.getName())
+                    .append(',').append(item.getQuantity())
+                    .append(',').append(item.getPrice())
+                    .append(',').append(item.getTotal());
+        }
+        return sb.toString();
+    }
+
+    private static List<BookingItemResponseDTO> allItems(BookingResponseDTO booking) {
+        List<BookingItemResponseDTO> allItems = new ArrayList<>();
+        if (booking.getServices() != null)
+            allItems.addAll(booking.getServices());
+        if (booking.getCombos() != null)
+            allItems.addAll(booking.getCombos());
+        if (booking.getEquipments() != null)
+            allItems.addAll(booking.getEquipments());
+        return allItems;
+    }
+
+    private byte[] render(BookingResponseDTO booking, List<BookingItemResponseDTO> allItems) {
+        InvoiceTemplateEngine.Template row = templateEngine.template(InvoiceTemplateEngine.BOOKING_INVOICE_ROW);
+        StringBuilder rows = new StringBuilder();
+        double totalPrice = 0;
+        for (BookingItemResponseDTO item : allItems) {
+            row.render(Map.of(
+                    "NAME", String.valueOf(item.getName()),
+                    "QUANTITY", item.getQuantity() != null ? item.getQuantity() : 1,
+                    "PRICE", InvoiceTemplateEngine.money(item.getPrice()),
+                    "TOTAL", InvoiceTemplateEngine.money(item.getTotal())), rows);
+            totalPrice += item.getTotal();
+        }
+
+        Long people = getNumberOfPeople(booking);
+        Map<String, Object> values = new HashMap<>();
+        values.put("BASE64_IMAGE", templateEngine.logoBase64());
+        values.put("BOOKING_ID", booking.getId());
+        values.put("CUSTOMER_NAME", booking.getCustomerName());
+        values.put("EMAIL", booking.getEmail());
+        values.put("PHONE", booking.getPhone());
+        values.put("ADDRESS", booking.getAddress() != null ? booking.getAddress() : "-");
+        values.put("CHECK_IN", formatBookingDate(getCheckInDate(booking)));
+        values.put("CHECK_OUT", formatBookingDate(getCheckOutDate(booking)));
+        values.put("PEOPLE", people != null ? people : "-");
+        values.put("ITEM_ROWS", new InvoiceTemplateEngine.Html(rows.toString()));
+        values.put("TOTAL", InvoiceTemplateEngine.money(totalPrice));
+        return templateEngine.renderPdf(InvoiceTemplateEngine.BOOKING_INVOICE, values);
+    }
+
+    private static String formatBookingDate(LocalDateTime date) {
+        if (date == null)
+            return "-";
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        return date.format(formatter);
+    }
+
+    private static LocalDateTime getCheckInDate(BookingResponseDTO booking) {
+        if (booking.getCheckInDate() != null && booking.getCheckOutDate() != null) {
+            return booking.getCheckInDate();
+        }
+        if (booking.getServices() != null) {
+            for (BookingItemResponseDTO s : booking.getServices()) {
+                if (s.getCheckInDate() != null && s.getCheckOutDate() != null) {
+                    return s.getCheckInDate();
+                }
+            }
+        }
+        if (booking.getCombos() != null) {
+            for (BookingItemResponseDTO c : booking.getCombos()) {
+                if (c.getCheckInDate() != null && c.getCheckOutDate() != null) {
+                    return c.getCheckInDate();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static LocalDateTime getCheckOutDate(BookingResponseDTO booking) {
+        if (booking.getCheckInDate() != null && booking.getCheckOutDate() != null) {
+            return booking.getCheckOutDate();
+        }
+        if (booking.getServices() != null) {
+            for (BookingItemResponseDTO s : booking.getServices()) {
+                if (s.getCheckInDate() != null && s.getCheckOutDate() != null) {
+                    return s.getCheckOutDate();
+                }
+            }
+        }
+        if (booking.getCombos() != null) {
+            for (BookingItemResponseDTO c : booking.getCombos()) {
+                if (c.getCheckInDate() != null && c.getCheckOutDate() != null) {
+                    return c.getCheckOutDate();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Long getNumberOfPeople(BookingResponseDTO booking) {
+        if (booking.getNumberOfPeople() != null) {
+            return booking.getNumberOfPeople().longValue(); // ép kiểu Integer → Long
+        }
+        if (booking.getServices() != null) {
+            for (BookingItemResponseDTO s : booking.getServices()) {
+                if (s.getNumberOfPeople() != null) {
+                    return s.getNumberOfPeople();
+                }
+            }
+        }
+        if (booking.getCombos() != null) {
+            for (BookingItemResponseDTO c : booking.getCombos()) {
+                if (c.getNumberOfPeople() != null) {
+                    return c.getNumberOfPeople();
+                }
+            }
+        }
+        if (booking.getEquipments() != null) {
+            for (BookingItemResponseDTO e : booking.getEquipments()) {
+                if (e.getNumberOfPeople() != null) {
+                    return e.getNumberOfPeople();
+                }
+            }
+        }
+        return null;
+    }
+}
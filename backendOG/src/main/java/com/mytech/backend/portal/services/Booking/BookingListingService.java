@@ -0,0 +1,15 @@
+package com.mytech.backend.portal.services.Booking;
+
+import com.mytech.backend.portal.dto.Booking.BookingCursorPageDTO;
+import com.mytech.backend.portal.dto.Booking.BookingListFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface BookingListingService {
+    // Trang tiếp theo sau cursor (null = trang đầu), sắp theo ngày đặt mới nhất
+    BookingCursorPageDTO list(BookingListFilter filter, String cursor, int limit);
+
+    // Ghi mỗi booking thành 1 dòng JSON ngay khi đọc từ DB, không gom cả bảng vào heap
+    void streamNdjson(BookingListFilter filter, OutputStream out) throws IOException;
+}
@@ -0,0 +1,242 @@
+package com.mytech.backend.portal.services.Booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mytech.backend.portal.dto.Booking.BookingCursorPageDTO;
+import com.mytech.backend.portal.dto.Booking.BookingListFilter;
+import com.mytech.backend.portal.dto.Booking.BookingResponseDTO;
+import com.mytech.backend.portal.dto.Booking.BookingRowDTO;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class BookingListingServiceImpl implements BookingListingService {
+
+    private static final int MAX_LIMIT = 200;
+    private static final int FLUSH_EVERY = 500;
+
+    // 1 dòng / (booking, item); các dòng của 1 booking luôn liền nhau nhờ ORDER BY
+    private static final String STREAM_SQL =
+            "SELECT b.id, b.created_at, b.status, b.check_in_date, b.check_out_date, b.number_of_people, " +
+            "b.total_price, b.assigned_staff_id, c.id, c.name, c.email, c.phone, " +
+            "bi.id, bi.type, bi.quantity, bi.price, bi.check_in_date, bi.check_out_date, " +
+            "bi.service_id, s.name, bi.combo_id, cb.name, bi.equipment_id, e.name " +
+            "FROM bookings b " +
+            "JOIN customers c ON c.id = b.customer_id " +
+            "LEFT JOIN booking_items bi ON bi.booking_id = b.id " +
+            "LEFT JOIN services s ON s.id = bi.service_id " +
+            "LEFT JOIN combos cb ON cb.id = bi.combo_id " +
+            "LEFT JOIN equipment e ON e.id = bi.equipment_id " +
+            "WHERE 1 = 1";
+
+    private final BookingRepository bookingRepository;
+    private final BookingResponseAssembler bookingResponseAssembler;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.bookings.stream-fetch-size:500}")
+    private int streamFetchSize;
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingCursorPageDTO list(BookingListFilter filter, String cursor, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        LocalDateTime cursorAt = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            Object[] decoded = decodeCursor(cursor);
+            cursorAt = (LocalDateTime) decoded[0];
+            cursorId = (Long) decoded[1];
+        }
+
+        List<BookingRowDTO> rows = bookingRepository.findRowsAfter(
+                filter.getStatus(),
+                filter.getFrom() != null ? filter.getFrom().atStartOfDay() : null,
+                filter.getTo() != null ? filter.getTo().plusDays(1).atStartOfDay() : null,
+                filter.getCustomerId(),
+                filter.getStaffId(),
+                cursorAt,
+                cursorId,
+                Limit.of(size));
+
+        List<BookingResponseDTO> items = bookingResponseAssembler.assemble(rows);
+        String next = null;
+        if (rows.size() == size) {
+            BookingRowDTO last = rows.get(rows.size() - 1);
+            next = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return BookingCursorPageDTO.builder()
+                .items(items)
+                .nextCursor(next)
+                .build();
+    }
+
+    @Override
+    public void streamNdjson(BookingListFilter filter, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(STREAM_SQL);
+        List<Object> params = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            sql.append(" AND b.status = ?");
+            params.add(filter.getStatus().name());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND b.created_at >= ?");
+            params.add(Timestamp.valueOf(filter.getFrom().atStartOfDay()));
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND b.created_at < ?");
+            params.add(Timestamp.valueOf(filter.getTo().plusDays(1).atStartOfDay()));
+        }
+        if (filter.getCustomerId() != null) {
+            sql.append(" AND b.customer_id = ?");
+            params.add(filter.getCustomerId());
+        }
+        if (filter.getStaffId() != null) {
+            sql.append(" AND b.assigned_staff_id = ?");
+            params.add(filter.getStaffId());
+        }
+        sql.append(" ORDER BY b.created_at DESC, b.id DESC, bi.id");
+
+        NdjsonWriter writer = new NdjsonWriter(out);
+        try {
+            jdbcTemplate.query(con -> {
+                // Forward-only, read-only: driver không giữ cả result set trong bộ nhớ
+                PreparedStatement ps = con.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(streamFetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                return ps;
+            }, (RowCallbackHandler) writer::accept);
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            // Client ngắt kết nối giữa chừng
+            throw e.getCause();
+        }
+    }
+
+    private static String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new Object[]{LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1))};
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Gom các dòng liền nhau của cùng 1 booking thành 1 object JSON rồi ghi ngay,
+     * nên bộ nhớ chỉ giữ 1 booking tại 1 thời điểm.
+     */
+    private final class NdjsonWriter {
+
+        private final OutputStream out;
+        private Map<String, Object> current;
+        private List<Map<String, Object>> items;
+        private int written;
+
+        NdjsonWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void accept(ResultSet rs) throws SQLException {
+            long bookingId = rs.getLong(1);
+            if (current == null || !current.get("id").equals(bookingId)) {
+                flushCurrent();
+                current = new LinkedHashMap<>();
+                items = new ArrayList<>();
+                current.put("id", bookingId);
+                current.put("bookingDate", rs.getObject(2, LocalDateTime.class));
+                current.put("status", rs.getString(3));
+                current.put("checkInDate", rs.getObject(4, LocalDateTime.class));
+                current.put("checkOutDate", rs.getObject(5, LocalDateTime.class));
+                current.put("numberOfPeople", rs.getObject(6, Integer.class));
+                current.put("totalPrice", rs.getObject(7, Long.class));
+                current.put("staffId", rs.getObject(8, Long.class));
+                current.put("customerId", rs.getLong(9));
+                current.put("customerName", rs.getString(10));
+                current.put("email", rs.getString(11));
+                current.put("phone", rs.getString(12));
+                current.put("items", items);
+            }
+
+            Long itemId = rs.getObject(13, Long.class);
+            if (itemId != null) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("id", itemId);
+                item.put("type", rs.getString(14));
+                item.put("quantity", rs.getObject(15, Integer.class));
+                item.put("price", rs.getObject(16, Double.class));
+                item.put("checkInDate", rs.getObject(17, LocalDateTime.class));
+                item.put("checkOutDate", rs.getObject(18, LocalDateTime.class));
+                item.put("serviceId", rs.getObject(19, Long.class));
+                item.put("comboId", rs.getObject(21, Long.class));
+                item.put("equipmentId", rs.getObject(23, Long.class));
+                String name = rs.getString(20);
+                if (name == null) {
+                    name = rs.getString(22);
+                }
+                if (name == null) {
+                    name = rs.getString(24);
+                }
+                item.put("name", name);
+                items.add(item);
+            }
+        }
+
+        void finish() {
+            flushCurrent();
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flushCurrent() {
+            if (current == null) {
+                return;
+            }
+            try {
+                out.write(objectMapper.writeValueAsBytes(current));
+                out.write('\n');
+                if (++written % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            current = null;
+            items = null;
+        }
+    }
+}
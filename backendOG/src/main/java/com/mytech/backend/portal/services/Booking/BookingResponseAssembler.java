@@ -0,0 +1,142 @@
+package com.mytech.backend.portal.services.Booking;
+
+import com.mytech.backend.portal.dto.Booking.BookingItemResponseDTO;
+import com.mytech.backend.portal.dto.Booking.BookingItemRowDTO;
+import com.mytech.backend.portal.dto.Booking.BookingResponseDTO;
+import com.mytech.backend.portal.dto.Booking.BookingRowDTO;
+import com.mytech.backend.portal.dto.Payment.PaymentResponseDTO;
+import com.mytech.backend.portal.dto.Staff.AssignedStaffResponse;
+import com.mytech.backend.portal.models.Booking.ItemType;
+import com.mytech.backend.portal.repositories.BookingItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dựng BookingResponseDTO cho danh sách booking từ các dòng projection,
+ * thay cho mapToDTO(Booking) từng entity (mỗi booking kéo theo customer, staff, payment
+ * và service/combo/equipment của từng item).
+ * <p>
+ * Số câu SQL cố định: 1 query dòng booking (+1 count nếu phân trang)
+ * và 1 query item cho mỗi lô {@link #ID_CHUNK} booking.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingResponseAssembler {
+
+    // Giới hạn số tham số trong mệnh đề IN
+    static final int ID_CHUNK = 1000;
+
+    private final BookingItemRepository bookingItemRepository;
+
+    public Page<BookingResponseDTO> assemble(Page<BookingRowDTO> rows) {
+        return new PageImpl<>(assemble(rows.getContent()), rows.getPageable(), rows.getTotalElements());
+    }
+
+    public List<BookingResponseDTO> assemble(List<BookingRowDTO> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<BookingItemRowDTO>> itemsByBooking = new HashMap<>();
+        List<Long> ids = rows.stream().map(BookingRowDTO::getId).toList();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK, ids.size()));
+            for (BookingItemRowDTO item : bookingItemRepository.findRowsByBookingIds(chunk)) {
+                itemsByBooking.computeIfAbsent(item.getBookingId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+
+        List<BookingResponseDTO> result = new ArrayList<>(rows.size());
+        for (BookingRowDTO row : rows) {
+            result.add(toDTO(row, itemsByBooking.getOrDefault(row.getId(), List.of())));
+        }
+        return result;
+    }
+
+    // Cùng hình dạng với BookingServiceImpl.mapToDTO
+    BookingResponseDTO toDTO(BookingRowDTO row, List<BookingItemRowDTO> items) {
+        List<BookingItemResponseDTO> services = new ArrayList<>();
+        List<BookingItemResponseDTO> combos = new ArrayList<>();
+        List<BookingItemResponseDTO> equipments = new ArrayList<>();
+
+        for (BookingItemRowDTO i : items) {
+            if (i.getType() == ItemType.SERVICE && i.getServiceId() != null) {
+                services.add(BookingItemResponseDTO.builder()
+                        .id(i.getId())
+                        .serviceId(i.getServiceId())
+                        .bookingId(i.getBookingId())
+                        .numberOfPeople(i.getNumberOfPeople() != null ? i.getNumberOfPeople().longValue() : 0L)
+                        .name(i.getServiceName())
+                        .type(ItemType.SERVICE)
+                        .checkInDate(i.getCheckInDate())
+                        .checkOutDate(i.getCheckOutDate())
+                        .quantity(i.getQuantity())
+                        .price(i.getPrice())
+                        .total(i.getPrice() * i.getQuantity())
+                        .build());
+            } else if (i.getType() == ItemType.COMBO && i.getComboId() != null) {
+                combos.add(BookingItemResponseDTO.builder()
+                        .id(i.getId())
+                        .comboId(i.getComboId())
+                        .bookingId(i.getBookingId())
+                        .type(ItemType.COMBO)
+                        .numberOfPeople(i.getNumberOfPeople() != null ? i.getNumberOfPeople().longValue() : 0L)
+                        .checkInDate(i.getCheckInDate())
+                        .checkOutDate(i.getCheckOutDate())
+                        .name(i.getComboName())
+                        .quantity(i.getQuantity())
+                        .price(i.getPrice())
+                        .total(i.getPrice() * i.getQuantity())
+                        .build());
+            } else if (i.getType() == ItemType.EQUIPMENT && i.getEquipmentId() != null) {
+                equipments.add(BookingItemResponseDTO.builder()
+                        .id(i.getId())
+                        .type(ItemType.EQUIPMENT)
+                        .name(i.getEquipmentName())
+                        .quantity(i.getQuantity())
+                        .price(i.getPrice())
+                        .total(i.getPrice() * i.getQuantity())
+                        .build());
+            }
+        }
+
+        return BookingResponseDTO.builder()
+                .id(row.getId())
+                .customerId(row.getCustomerId())
+                .customerName(row.getCustomerName())
+                .email(row.getEmail())
+                .address(row.getAddress())
+                .phone(row.getPhone())
+                .services(services)
+                .combos(combos)
+                .equipments(equipments)
+                .bookingDate(row.getCreatedAt())
+                .checkInDate(row.getCheckInDate())
+                .checkOutDate(row.getCheckOutDate())
+                .hasReview(Boolean.TRUE.equals(row.getHasReview()))
+                .numberOfPeople(row.getNumberOfPeople())
+                .status(row.getStatus())
+                .staff(row.getStaffId() != null
+                        ? new AssignedStaffResponse(row.getStaffId(), row.getStaffName(), row.getStaffRole().name())
+                        : null)
+                .totalPrice(row.getTotalPrice() != null ? row.getTotalPrice().doubleValue() : 0.0)
+                .payment(row.getPaymentId() != null ? PaymentResponseDTO.builder()
+                        .id(row.getPaymentId())
+                        .method(row.getPaymentMethod())
+                        .status(row.getPaymentStatus())
+                        .amount(row.getPaymentAmount())
+                        .providerTransactionId(row.getProviderTransactionId())
+                        .createdAt(row.getPaymentCreatedAt())
+                        .build() : null)
+                .note(row.getNote())
+                .internalNotes(row.getInternalNotes())
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.mytech.backend.portal.services.Booking;
+
+import com.mytech.backend.portal.dto.Booking.BookingResponseDTO;
+import com.mytech.backend.portal.dto.Booking.BookingSearchCriteria;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Map;
+
+public interface BookingSearchService {
+    // Lọc kết hợp status / service / khoảng check-in / khách / nhân viên ngay trong DB
+    Page<BookingResponseDTO> search(BookingSearchCriteria criteria, Pageable pageable);
+
+    // Số booking theo từng status với cùng bộ lọc (bỏ qua criteria.status), cache ngắn hạn
+    Map<BookingStatus, Long> countByStatus(BookingSearchCriteria criteria);
+}
@@ -0,0 +1,179 @@
+package com.mytech.backend.portal.services.Booking;
+
+import com.mytech.backend.portal.dto.Booking.BookingResponseDTO;
+import com.mytech.backend.portal.dto.Booking.BookingRowDTO;
+import com.mytech.backend.portal.dto.Booking.BookingSearchCriteria;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.repositories.BookingSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Tìm kiếm booking cho admin. Mỗi trang tốn số câu SQL cố định:
+ * 1 query id (lọc + sắp + phân trang trong DB), 1 count (chỉ khi cần), 1 query dòng DTO, 1 query item.
+ * <p>
+ * Số đếm theo status (các tab trên dashboard) được cache theo bộ lọc trong vài giây,
+ * nên các tab cùng tải một lúc chỉ tốn 1 câu GROUP BY: map giữ future theo bộ lọc, request đầu tiên chạy query
+ * (ngoài map), các request khác cùng bộ lọc chờ future đó.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingSearchServiceImpl implements BookingSearchService {
+
+    private static final int MAX_FACET_ENTRIES = 500;
+
+    private final BookingRepository bookingRepository;
+    private final BookingResponseAssembler bookingResponseAssembler;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.bookings.facet-ttl-seconds:30}")
+    private long facetTtlSeconds;
+
+    private final ConcurrentHashMap<BookingSearchCriteria, FacetCounts> facetCache = new ConcurrentHashMap<>();
+
+    private record FacetCounts(CompletableFuture<Map<BookingStatus, Long>> counts, long expiresAt) {
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookingResponseDTO> search(BookingSearchCriteria criteria, Pageable pageable) {
+        Specification<Booking> spec = BookingSpecifications.matching(criteria);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        // 1. Chỉ lấy id của trang hiện tại
+        CriteriaQuery<Long> idQuery = cb.createQuery(Long.class);
+        Root<Booking> root = idQuery.from(Booking.class);
+        idQuery.select(root.get("id"));
+        Predicate predicate = spec.toPredicate(root, idQuery, cb);
+        if (predicate != null) {
+            idQuery.where(predicate);
+        }
+        idQuery.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        List<Long> ids = entityManager.createQuery(idQuery)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // 2. Dòng DTO + item của đúng các id đó, giữ thứ tự của query id
+        List<BookingRowDTO> rows = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            Map<Long, BookingRowDTO> byId = new HashMap<>();
+            for (BookingRowDTO row : bookingRepository.findRowsByIds(ids)) {
+                byId.put(row.getId(), row);
+            }
+            for (Long id : ids) {
+                BookingRowDTO row = byId.get(id);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+        }
+        List<BookingResponseDTO> content = bookingResponseAssembler.assemble(rows);
+
+        // 3. Trang cuối / trang đầu chưa đầy thì không cần COUNT
+        return PageableExecutionUtils.getPage(content, pageable, () -> bookingRepository.count(spec));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<BookingStatus, Long> countByStatus(BookingSearchCriteria criteria) {
+        BookingSearchCriteria key = criteria.toBuilder().status(null).build();
+        long now = System.currentTimeMillis();
+
+        FacetCounts cached = facetCache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return await(cached.counts());
+        }
+        if (facetCache.size() >= MAX_FACET_ENTRIES) {
+            facetCache.entrySet().removeIf(e -> e.getValue().expiresAt() <= now);
+            if (facetCache.size() >= MAX_FACET_ENTRIES) {
+                facetCache.clear();
+            }
+        }
+        // compute chỉ đặt future (không chờ DB trong lock của bin); ai đặt được future thì chạy GROUP BY
+        CompletableFuture<Map<BookingStatus, Long>> mine = new CompletableFuture<>();
+        FacetCounts entry = facetCache.compute(key, (k, current) ->
+                current != null && current.expiresAt() > System.currentTimeMillis() ? current
+                        : new FacetCounts(mine, System.currentTimeMillis() + facetTtlSeconds * 1000));
+        if (entry.counts() != mine) {
+            return await(entry.counts());
+        }
+        try {
+            Map<BookingStatus, Long> counts = queryCounts(key);
+            mine.complete(counts);
+            return counts;
+        } catch (RuntimeException e) {
+            // Không cache lỗi; các request đang chờ nhận cùng lỗi đó
+            facetCache.remove(key, entry);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Map<BookingStatus, Long> await(CompletableFuture<Map<BookingStatus, Long>> running) {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for booking facet counts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private Map<BookingStatus, Long> queryCounts(BookingSearchCriteria criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Booking> root = query.from(Booking.class);
+        query.multiselect(root.get("status"), cb.count(root));
+        Predicate predicate = BookingSpecifications.matching(criteria).toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.groupBy(root.get("status"));
+
+        Map<BookingStatus, Long> counts = new EnumMap<>(BookingStatus.class);
+        for (BookingStatus status : BookingStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            BookingStatus status = tuple.get(0, BookingStatus.class);
+            if (status != null) {
+                counts.put(status, tuple.get(1, Long.class));
+            }
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+}
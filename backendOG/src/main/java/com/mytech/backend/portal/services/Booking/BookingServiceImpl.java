@@ -13,20 +13,28 @@ import com.mytech.backend.portal.models.Combo.Combo;
 import com.mytech.backend.portal.models.Customer.Customer;
 import com.mytech.backend.portal.models.Equipment.Equipment;
 import com.mytech.backend.portal.models.Service.Service;
-import com.mytech.backend.portal.models.Service.ServiceAvailability;
 import com.mytech.backend.portal.repositories.*;
 import com.mytech.backend.portal.services.EmailService;
+import com.mytech.backend.portal.services.ServiceAvailabilityService.SlotHoldManager;
+import com.mytech.backend.portal.services.ServiceAvailabilityService.SlotInventory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @org.springframework.stereotype.Service
@@ -39,9 +47,12 @@ public class BookingServiceImpl implements BookingService {
     private final ComboRepository comboRepository;
     private final CustomerRepository customerRepository;
     private final ServiceAvailabilityRepository serviceAvailabilityRepository;
+    private final SlotInventory slotInventory;
+    private final SlotHoldManager slotHoldManager;
     private final EquipmentRepository equipmentRepository;
     private final BookingItemRepository bookingItemRepository;
     private final EmailService emailService;
+    private final BookingResponseAssembler bookingResponseAssembler;
 
     @Override
     @Transactional
@@ -60,11 +71,20 @@ public class BookingServiceImpl implements BookingService {
 
         List<BookingItem> bookingItems = new ArrayList<>();
 
-        // 3. Xử lý dịch vụ lưu trú
+        // 3. Gom id của mọi item, mỗi loại entity chỉ nạp bằng 1 query findAllById
+        Map<Long, Service> services = loadAllById(serviceRepository,
+                collectIds(req.getServices(), BookingServiceDTO::getServiceId), Service::getId, "Service not found: ");
+        Map<Long, Combo> combos = loadAllById(comboRepository,
+                collectIds(req.getCombos(), BookingComboDTO::getComboId), Combo::getId, "Combo not found: ");
+        Map<Long, Equipment> equipments = loadAllById(equipmentRepository,
+                collectIds(req.getEquipmentIds(), Function.identity()), Equipment::getId, "Equipment not found: ");
+
+        // 4. Xử lý dịch vụ lưu trú: validate trong bộ nhớ trước, kiểm tra slot sau
         if (req.getServices() != null) {
+            LocalDate rangeFrom = null;
+            LocalDate rangeTo = null;
             for (BookingServiceDTO s : req.getServices()) {
-                Service service = serviceRepository.findById(s.getServiceId())
-                        .orElseThrow(() -> new RuntimeException("Service not found: " + s.getServiceId()));
+                Service service = services.get(s.getServiceId());
 
                 // Validate ngày
                 if (s.getCheckInDate() == null || s.getCheckOutDate() == null) {
@@ -100,25 +120,10 @@ public class BookingServiceImpl implements BookingService {
                     }
                 }
 
-                LocalDateTime current = s.getCheckInDate();
-                LocalDateTime end = s.getCheckOutDate();
-
-                while (!current.isAfter(end.minusDays(1))) {
-                    // Chuyển sang LocalDate để query availability theo ngày
-                    LocalDate dateToCheck = current.toLocalDate();
-
-                    ServiceAvailability availability = serviceAvailabilityRepository
-                            .findByServiceIdAndDate(service.getId(), dateToCheck)
-                            .orElseThrow(() -> new RuntimeException(
-                                    "No availability config for date: " + dateToCheck));
-
-                    if (availability.getBookedSlots() >= availability.getTotalSlots()) {
-                        throw new RuntimeException("No available slots on " + dateToCheck);
-                    }
-
-                    // Tiến tới ngày tiếp theo
-                    current = current.plusDays(1);
-                }
+                LocalDate from = s.getCheckInDate().toLocalDate();
+                LocalDate to = s.getCheckOutDate().toLocalDate();
+                rangeFrom = rangeFrom == null || from.isBefore(rangeFrom) ? from : rangeFrom;
+                rangeTo = rangeTo == null || to.isAfter(rangeTo) ? to : rangeTo;
 
                 double base = service.getPrice() != null ? service.getPrice() : 0.0;
                 int capacity = service.getMaxCapacity() != null ? service.getMaxCapacity() : 0;
@@ -145,13 +150,17 @@ public class BookingServiceImpl implements BookingService {
 
                 bookingItems.add(item);
             }
+
+            // Nạp slot của mọi service trong booking bằng 1 query theo khoảng; giữ chỗ ở bước 9 chỉ đọc bộ nhớ
+            if (rangeFrom != null) {
+                slotInventory.preload(services.keySet(), rangeFrom, rangeTo);
+            }
         }
 
-        // 4. Xử lý combo
+        // 5. Xử lý combo
         if (req.getCombos() != null) {
             for (BookingComboDTO c : req.getCombos()) {
-                Combo combo = comboRepository.findById(c.getComboId())
-                        .orElseThrow(() -> new RuntimeException("Combo not found: " + c.getComboId()));
+                Combo combo = combos.get(c.getComboId());
 
                 // Lấy số người do người dùng chọn
                 Integer numberOfPeople = c.getNumberOfPeople();
@@ -174,11 +183,10 @@ public class BookingServiceImpl implements BookingService {
             }
         }
 
-        // 5. Xử lý equipment
+        // 6. Xử lý equipment
         if (req.getEquipmentIds() != null) {
             for (Long equipmentId : req.getEquipmentIds()) {
-                Equipment equipment = equipmentRepository.findById(equipmentId)
-                        .orElseThrow(() -> new RuntimeException("Equipment not found: " + equipmentId));
+                Equipment equipment = equipments.get(equipmentId);
 
                 BookingItem item = BookingItem.builder()
                         .booking(booking)
@@ -192,16 +200,51 @@ public class BookingServiceImpl implements BookingService {
             }
         }
 
-        // 6. Set items và tính tổng giá
+        // 7. Set items và tính tổng giá
         booking.setItems(bookingItems);
         booking.setTotalPrice(booking.calculateTotalPrice());
 
-        // 7. Lưu booking (cascade sẽ lưu luôn items)
+        // 8. Lưu booking 1 lần (cascade sẽ lưu luôn items trong cùng lần flush)
         booking = bookingRepository.save(booking);
 
+        // 9. Giữ slot trong lúc chờ thanh toán; hết slot thì ném lỗi và rollback cả booking
+        slotHoldManager.hold(booking.getId(), SlotHoldManager.rangesOf(bookingItems));
+
         return mapToDTO(booking);
     }
 
+    // Id khác null, không trùng, giữ thứ tự xuất hiện trong request
+    private static <D> Set<Long> collectIds(List<D> items, Function<D, Long> idOf) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (items != null) {
+            for (D item : items) {
+                Long id = idOf.apply(item);
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    // 1 query findAllById cho cả nhóm id; thiếu id nào thì báo lỗi giống findById trước đây
+    private static <T> Map<Long, T> loadAllById(JpaRepository<T, Long> repository, Set<Long> ids,
+                                                Function<T, Long> idOf, String notFoundMessage) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, T> byId = new HashMap<>();
+        for (T entity : repository.findAllById(ids)) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        for (Long id : ids) {
+            if (!byId.containsKey(id)) {
+                throw new RuntimeException(notFoundMessage + id);
+            }
+        }
+        return byId;
+    }
+
     @Override
     public BookingResponseDTO getBooking(Long id) {
         Booking booking = bookingRepository.findById(id)
@@ -210,11 +253,21 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookingResponseDTO> getBookingsByCustomer(Long customerId) {
-        return bookingRepository.findByCustomerId(customerId)
-                .stream()
-                .map(this::mapToDTO)
-                .toList();
+        return bookingResponseAssembler.assemble(bookingRepository.findRowsByCustomerId(customerId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingResponseDTO> getBookingsByStaff(Long staffId) {
+        return bookingResponseAssembler.assemble(bookingRepository.findRowsByStaffId(staffId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookingResponseDTO> getBookingsPage(Pageable pageable) {
+        return bookingResponseAssembler.assemble(bookingRepository.findRows(pageable));
     }
 
     @Override
@@ -228,32 +281,26 @@ public class BookingServiceImpl implements BookingService {
             throw new RuntimeException("Cannot cancel this booking");
         }
 
+        // Slot chỉ bị trừ trong DB khi booking đã CONFIRMED (xem SlotHoldManager.confirm);
+        // booking PENDING chỉ có hold trong bộ nhớ
+        boolean holdsSlots = booking.getStatus() == BookingStatus.CONFIRMED;
+        if (booking.getStatus() == BookingStatus.PENDING) {
+            slotHoldManager.release(booking.getId());
+        }
+
         // Cập nhật trạng thái
         booking.setStatus(BookingStatus.CANCELLED);
         bookingRepository.save(booking);
 
         // Trả lại slots cho tất cả service trong bookingItems
-        for (BookingItem item : booking.getItems()) {
-            if (item.getType() == ItemType.SERVICE && item.getService() != null) {
-                Service service = item.getService();
-                LocalDateTime current = booking.getCheckInDate(); // LocalDateTime
-                LocalDateTime end = booking.getCheckOutDate(); // LocalDateTime
-
-                while (!current.isAfter(end.minusDays(1))) {
-                    final LocalDate dateToCheck = current.toLocalDate(); // convert về LocalDate để query availability
-                                                                         // theo ngày
-
-                    ServiceAvailability availability = serviceAvailabilityRepository
-                            .findByServiceIdAndDate(service.getId(), dateToCheck)
-                            .orElseThrow(() -> new RuntimeException("Availability not found for date: " + dateToCheck));
-
-                    int booked = availability.getBookedSlots() != null ? availability.getBookedSlots() : 0;
-                    if (booked > 0) {
-                        availability.setBookedSlots(booked - 1);
-                        serviceAvailabilityRepository.save(availability);
-                    }
-
-                    current = current.plusDays(1);
+        if (holdsSlots) {
+            for (BookingItem item : booking.getItems()) {
+                if (item.getType() == ItemType.SERVICE && item.getService() != null
+                        && item.getCheckInDate() != null && item.getCheckOutDate() != null) {
+                    LocalDate from = item.getCheckInDate().toLocalDate();
+                    LocalDate to = item.getCheckOutDate().toLocalDate();
+                    serviceAvailabilityRepository.releaseSlots(item.getService().getId(), from, to);
+                    slotInventory.release(item.getService().getId(), from, to);
                 }
             }
         }
@@ -291,44 +338,6 @@ public class BookingServiceImpl implements BookingService {
         return mapToDTO(booking);
     }
 
-    @Override
-    public long getConfirmedBookingsForCombo(Long comboId) {
-        return bookingItemRepository.countByComboAndBookingStatus(
-                comboId,
-                BookingStatus.CONFIRMED);
-    }
-
-    @Override
-    public long getRevenueByCombo(Long comboId) {
-        return bookingItemRepository.getTotalRevenueByComboAndStatus(
-                comboId, BookingStatus.CONFIRMED);
-    }
-
-    @Override
-    public long getMonthlyRevenueByCombo(Long comboId) {
-        return bookingItemRepository.getMonthlyRevenueByComboAndStatus(
-                comboId, BookingStatus.CONFIRMED);
-    }
-
-    public BigDecimal getTotalSavings(Long comboId) {
-        Combo combo = comboRepository.findById(comboId)
-                .orElseThrow(() -> new RuntimeException("Combo not found"));
-
-        long confirmedCount = bookingItemRepository.countByComboIdAndBookingStatus(
-                comboId,
-                BookingStatus.CONFIRMED);
-
-        if (combo.getOriginalPrice() == null || combo.getPrice() == null) {
-            return BigDecimal.ZERO;
-        }
-
-        // Convert Double -> BigDecimal để trừ
-        BigDecimal savingPerBooking = BigDecimal.valueOf(combo.getOriginalPrice())
-                .subtract(BigDecimal.valueOf(combo.getPrice()));
-
-        return savingPerBooking.multiply(BigDecimal.valueOf(confirmedCount));
-    }
-
     public long getTotalConfirmedBookingsFromAllCombos() {
         return bookingItemRepository.countAllConfirmedComboBookings();
     }
@@ -454,10 +463,10 @@ public class BookingServiceImpl implements BookingService {
                 .toList();
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponseDTO> getAllBookings() {
-        return bookingRepository.findAll().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        // Projection + items theo lô: số câu SQL không phụ thuộc số booking
+        return bookingResponseAssembler.assemble(bookingRepository.findAllRows());
     }
 
     @Transactional
@@ -479,22 +488,6 @@ public class BookingServiceImpl implements BookingService {
         bookingRepository.deleteById(id);
     }
 
-    public BookingStatsDTO getStatsByService(Long serviceId) {
-        Long totalBookings = bookingItemRepository.countByServiceId(serviceId);
-        Long revenue = bookingItemRepository.sumRevenueByServiceId(serviceId);
-
-        // TODO: bạn có thể bổ sung logic lấy monthlyBookings, monthlyRevenue, rating,
-        // completionRate
-        return new BookingStatsDTO(
-                totalBookings,
-                0L, // monthlyBookings
-                revenue != null ? revenue : 0L,
-                0L, // monthlyRevenue
-                0.0, // averageRating
-                0.0 // completionRate
-        );
-    }
-
     // ===== Update methods =====
     @Override
     public BookingResponseDTO updateBookingStatus(Long bookingId, BookingStatus status) {
@@ -540,15 +533,20 @@ public class BookingServiceImpl implements BookingService {
         if (booking.getStatus() == BookingStatus.CONFIRMED) {
             throw new RuntimeException("Booking đã được xác nhận");
         }
+        // Chỉ booking PENDING còn giữ / cần chốt slot; CANCELLED, COMPLETED... không được lấy slot lại
+        if (booking.getStatus() != BookingStatus.PENDING) {
+            throw new RuntimeException("Chỉ xác nhận được booking đang PENDING (hiện tại: " + booking.getStatus() + ")");
+        }
 
-        // 1️⃣ Cập nhật trạng thái
+        // 1️⃣ Chốt slot (dùng hold nếu còn) rồi cập nhật trạng thái
+        slotHoldManager.confirm(booking.getId(), SlotHoldManager.rangesOf(booking.getItems()));
         booking.setStatus(BookingStatus.CONFIRMED);
-        booking.setEmailSentAt(LocalDateTime.now());
         Booking updatedBooking = bookingRepository.save(booking);
 
-        // 2️⃣ Chuyển đổi Booking sang DTO và gửi email
+        // 2️⃣ Chuyển đổi Booking sang DTO, xếp email vào outbox (cùng transaction);
+        // EmailOutboxDispatcher gửi sau khi commit và ghi emailSentAt
         BookingResponseDTO bookingDTO = mapToDTO(updatedBooking);
-        emailService.sendBookingConfirmationEmail(bookingDTO);
+        emailService.queueBookingConfirmationEmail(bookingDTO);
 
         return bookingDTO;
     }
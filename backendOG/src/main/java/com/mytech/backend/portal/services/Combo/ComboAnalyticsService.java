@@ -0,0 +1,18 @@
+package com.mytech.backend.portal.services.Combo;
+
+import com.mytech.backend.portal.dto.Combo.ComboAnalyticsDTO;
+
+import java.util.List;
+
+public interface ComboAnalyticsService {
+    // Số liệu của mọi combo trong 1 lần gọi (1 câu SQL lấy giá combo, phần còn lại từ bộ đếm)
+    List<ComboAnalyticsDTO> getAllMetrics();
+
+    ComboAnalyticsDTO getMetrics(Long comboId);
+
+    long getConfirmedCount(Long comboId);
+
+    long getRevenue(Long comboId);
+
+    long getMonthlyRevenue(Long comboId);
+}
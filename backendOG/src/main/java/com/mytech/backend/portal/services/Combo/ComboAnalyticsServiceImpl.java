@@ -0,0 +1,199 @@
+package com.mytech.backend.portal.services.Combo;
+
+import com.mytech.backend.portal.dto.Combo.ComboAnalyticsDTO;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Combo.Combo;
+import com.mytech.backend.portal.repositories.BookingItemRepository;
+import com.mytech.backend.portal.repositories.ComboRepository;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.Kind;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bộ đếm theo combo (số item đã xác nhận, doanh thu, doanh thu theo tháng) giữ trong bộ nhớ.
+ * <p>
+ * Lần đọc đầu tiên nạp toàn bộ bằng 1 câu GROUP BY; sau đó mỗi lần booking chuyển vào / ra
+ * khỏi CONFIRMED (đã commit, qua {@link EntityChangeTracker}) thì cộng / trừ item combo của booking đó.
+ * Bộ đếm nhớ các booking đang được tính ({@code confirmedBookings}): sự kiện của 1 thay đổi đã nằm sẵn
+ * trong số liệu nạp (commit trước câu GROUP BY nhưng sự kiện tới sau) bị bỏ qua thay vì cộng 2 lần,
+ * và booking không có trong số liệu nạp thì không bị trừ.
+ * Định kỳ bộ đếm được nạp lại từ DB để sửa sai lệch do update đi vòng qua Hibernate.
+ */
+@Service
+@RequiredArgsConstructor
+public class ComboAnalyticsServiceImpl implements ComboAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComboAnalyticsServiceImpl.class);
+
+    private final BookingItemRepository bookingItemRepository;
+    private final ComboRepository comboRepository;
+    private final EntityChangeTracker entityChangeTracker;
+
+    // comboId -> bộ đếm; guarded by this
+    private final Map<Long, Counter> counters = new HashMap<>();
+    // Booking CONFIRMED có item combo đang được tính trong counters; guarded by this
+    private final Set<Long> confirmedBookings = new HashSet<>();
+    private boolean loaded;
+
+    private static final class Counter {
+        long confirmed;
+        double revenue;
+        final Map<YearMonth, Double> monthly = new HashMap<>();
+    }
+
+    @PostConstruct
+    void subscribe() {
+        entityChangeTracker.subscribeChanges(Booking.class, this::onBookingChanged);
+    }
+
+    @Override
+    public List<ComboAnalyticsDTO> getAllMetrics() {
+        List<Object[]> combos = comboRepository.findPriceRows();
+        List<ComboAnalyticsDTO> result = new ArrayList<>(combos.size());
+        synchronized (this) {
+            ensureLoaded();
+            for (Object[] row : combos) {
+                result.add(toDTO((Long) row[0], (String) row[1], (Double) row[2], (Double) row[3]));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ComboAnalyticsDTO getMetrics(Long comboId) {
+        Combo combo = comboRepository.findById(comboId)
+                .orElseThrow(() -> new RuntimeException("Combo not found"));
+        synchronized (this) {
+            ensureLoaded();
+            return toDTO(combo.getId(), combo.getName(), combo.getPrice(), combo.getOriginalPrice());
+        }
+    }
+
+    @Override
+    public synchronized long getConfirmedCount(Long comboId) {
+        ensureLoaded();
+        Counter counter = counters.get(comboId);
+        return counter != null ? counter.confirmed : 0L;
+    }
+
+    @Override
+    public synchronized long getRevenue(Long comboId) {
+        ensureLoaded();
+        Counter counter = counters.get(comboId);
+        return counter != null ? Math.round(counter.revenue) : 0L;
+    }
+
+    @Override
+    public synchronized long getMonthlyRevenue(Long comboId) {
+        ensureLoaded();
+        Counter counter = counters.get(comboId);
+        return counter != null ? Math.round(counter.monthly.getOrDefault(YearMonth.now(), 0.0)) : 0L;
+    }
+
+    // Nạp lại định kỳ ở lần đọc kế tiếp
+    @Scheduled(fixedDelayString = "${app.combo-analytics.resync-ms:3600000}",
+            initialDelayString = "${app.combo-analytics.resync-ms:3600000}")
+    public synchronized void invalidate() {
+        loaded = false;
+        counters.clear();
+        confirmedBookings.clear();
+    }
+
+    void onBookingChanged(EntityChange change) {
+        boolean isConfirmed = change.kind() != Kind.DELETE && change.value("status") == BookingStatus.CONFIRMED;
+        if (change.kind() == Kind.UPDATE && change.hasOldState()
+                && (change.oldValue("status") == BookingStatus.CONFIRMED) == isConfirmed) {
+            // Status không đổi
+            return;
+        }
+        try {
+            apply((Booking) change.entity(), isConfirmed);
+        } catch (RuntimeException e) {
+            // vd items chưa được nạp và session đã đóng
+            logger.warn("Could not apply combo counter change, reloading: {}", e.getMessage());
+            invalidate();
+        }
+    }
+
+    private synchronized void apply(Booking booking, boolean confirmed) {
+        if (!loaded) {
+            // Chưa nạp: lần đọc đầu tiên sẽ lấy số đúng từ DB (đã gồm thay đổi vừa commit)
+            return;
+        }
+        // Đã đúng trạng thái trong số liệu hiện có: bỏ qua
+        if (confirmed ? confirmedBookings.contains(booking.getId()) : !confirmedBookings.remove(booking.getId())) {
+            return;
+        }
+        int sign = confirmed ? 1 : -1;
+        YearMonth month = booking.getCreatedAt() != null ? YearMonth.from(booking.getCreatedAt()) : YearMonth.now();
+        for (BookingItem item : booking.getItems()) {
+            if (item.getCombo() == null) {
+                continue;
+            }
+            double amount = (item.getPrice() != null ? item.getPrice() : 0.0)
+                    * (item.getQuantity() != null ? item.getQuantity() : 0);
+            Counter counter = counters.computeIfAbsent(item.getCombo().getId(), id -> new Counter());
+            counter.confirmed += sign;
+            counter.revenue += sign * amount;
+            counter.monthly.merge(month, sign * amount, Double::sum);
+            if (confirmed) {
+                confirmedBookings.add(booking.getId());
+            }
+        }
+    }
+
+    // Gọi khi đang giữ khóa this; sự kiện tới trong lúc nạp chờ khóa rồi áp lên số liệu mới
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        counters.clear();
+        confirmedBookings.clear();
+        for (Object[] row : bookingItemRepository.aggregateComboItemsByBooking(BookingStatus.CONFIRMED)) {
+            confirmedBookings.add((Long) row[0]);
+            Counter counter = counters.computeIfAbsent((Long) row[1], id -> new Counter());
+            long count = ((Number) row[4]).longValue();
+            double revenue = ((Number) row[5]).doubleValue();
+            counter.confirmed += count;
+            counter.revenue += revenue;
+            counter.monthly.merge(YearMonth.of(((Number) row[2]).intValue(), ((Number) row[3]).intValue()),
+                    revenue, Double::sum);
+        }
+        loaded = true;
+        logger.info("Loaded combo counters for {} combos", counters.size());
+    }
+
+    private ComboAnalyticsDTO toDTO(Long comboId, String name, Double price, Double originalPrice) {
+        Counter counter = counters.get(comboId);
+        long confirmed = counter != null ? counter.confirmed : 0L;
+        BigDecimal savingPerBooking = (originalPrice != null && price != null)
+                ? BigDecimal.valueOf(originalPrice).subtract(BigDecimal.valueOf(price))
+                : BigDecimal.ZERO;
+        return ComboAnalyticsDTO.builder()
+                .comboId(comboId)
+                .comboName(name)
+                .confirmedBookings(confirmed)
+                .totalRevenue(counter != null ? Math.round(counter.revenue) : 0L)
+                .monthlyRevenue(counter != null ? Math.round(counter.monthly.getOrDefault(YearMonth.now(), 0.0)) : 0L)
+                .savingPerBooking(savingPerBooking)
+                .totalSavings(savingPerBooking.multiply(BigDecimal.valueOf(confirmed)))
+                .build();
+    }
+}
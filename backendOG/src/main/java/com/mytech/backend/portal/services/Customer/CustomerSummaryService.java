@@ -0,0 +1,8 @@
+package com.mytech.backend.portal.services.Customer;
+
+import com.mytech.backend.portal.dto.Customer.CustomerSummaryDTO;
+
+public interface CustomerSummaryService {
+    // Số liệu trọn đời đọc từ bảng customer_summaries, không nạp lịch sử booking
+    CustomerSummaryDTO getSummary(Long customerId);
+}
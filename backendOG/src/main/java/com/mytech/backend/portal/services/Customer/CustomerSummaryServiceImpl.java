@@ -0,0 +1,249 @@
+package com.mytech.backend.portal.services.Customer;
+
+import com.mytech.backend.portal.dto.Customer.CustomerSummaryDTO;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Customer.Customer;
+import com.mytech.backend.portal.models.Customer.CustomerSummary;
+import com.mytech.backend.portal.models.Review.Review;
+import com.mytech.backend.portal.repositories.CustomerSummaryRepository;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.Kind;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bảng số liệu trọn đời theo customer ({@link CustomerSummary}).
+ * <p>
+ * Booking / Review được thêm, sửa, xóa và đã commit ({@link EntityChangeTracker}) thì customer liên quan
+ * bị đánh dấu "bẩn"; dòng của customer bẩn được tính lại từ bảng gốc bằng vài câu GROUP BY lọc theo
+ * customer (định kỳ, và ngay khi đọc đúng customer đó). Customer chưa có dòng thì tính lần đầu khi được đọc.
+ * Thay đổi đi vòng qua Hibernate được job sửa ban đêm bắt lại.
+ */
+@Service
+@RequiredArgsConstructor
+public class CustomerSummaryServiceImpl implements CustomerSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSummaryServiceImpl.class);
+
+    private static final int CHUNK_SIZE = 500;
+    static final Set<BookingStatus> SPEND = EnumSet.of(
+            BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS, BookingStatus.COMPLETED);
+    static final Set<BookingStatus> STAY = EnumSet.of(BookingStatus.IN_PROGRESS, BookingStatus.COMPLETED);
+
+    // Thuộc tính của Booking ảnh hưởng tới summary
+    private static final List<String> TRACKED = List.of("customer", "status", "totalPrice", "checkInDate");
+
+    private final CustomerSummaryRepository summaryRepository;
+    private final EntityChangeTracker entityChangeTracker;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Set<Long> dirtyCustomers = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void subscribe() {
+        entityChangeTracker.subscribeChanges(Booking.class, this::onBookingChanged);
+        entityChangeTracker.subscribeChanges(Review.class, this::onReviewChanged);
+    }
+
+    @Override
+    public CustomerSummaryDTO getSummary(Long customerId) {
+        CustomerSummary summary = dirtyCustomers.remove(customerId)
+                ? null
+                : summaryRepository.findById(customerId).orElse(null);
+        if (summary == null) {
+            try {
+                summary = recompute(List.of(customerId)).get(customerId);
+            } catch (RuntimeException e) {
+                dirtyCustomers.add(customerId);
+                throw e;
+            }
+            if (summary == null) {
+                throw new RuntimeException("Customer not found");
+            }
+        }
+        return toDTO(summary);
+    }
+
+    public void markDirty(Long customerId) {
+        if (customerId != null) {
+            dirtyCustomers.add(customerId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.customers.summary-flush-ms:5000}")
+    public void flushDirty() {
+        if (dirtyCustomers.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Long id : dirtyCustomers) {
+            if (dirtyCustomers.remove(id)) {
+                ids.add(id);
+            }
+        }
+        for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(i, Math.min(i + CHUNK_SIZE, ids.size()));
+            try {
+                recompute(chunk);
+            } catch (RuntimeException e) {
+                // Giữ lại để lần sau thử tiếp
+                dirtyCustomers.addAll(ids.subList(i, ids.size()));
+                throw e;
+            }
+        }
+    }
+
+    // Job sửa ban đêm: tính lại mọi dòng đã có, theo từng trang id
+    @Scheduled(cron = "${app.customers.summary-repair-cron:0 45 2 * * *}")
+    public void repair() {
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            List<Long> ids = summaryRepository.findIdsAfter(afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            recompute(ids);
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        logger.info("Repaired {} customer summaries", total);
+    }
+
+    void onBookingChanged(EntityChange change) {
+        if (change.kind() == Kind.UPDATE && change.hasOldState()
+                && TRACKED.stream().noneMatch(p -> changed(change, p))) {
+            return;
+        }
+        markChanged(change);
+    }
+
+    void onReviewChanged(EntityChange change) {
+        // Chỉ thêm / xóa review hoặc đổi customer mới làm đổi số review
+        if (change.kind() == Kind.UPDATE && change.hasOldState()
+                && !changed(change, "customer")) {
+            return;
+        }
+        markChanged(change);
+    }
+
+    private void markChanged(EntityChange change) {
+        markDirty(customerId(change.value("customer")));
+        if (change.kind() == Kind.UPDATE && change.hasOldState()) {
+            markDirty(customerId(change.oldValue("customer")));
+        }
+    }
+
+    // Tính lại và ghi đè dòng của các customer trong ids; customer đã bị xóa thì xóa dòng
+    private Map<Long, CustomerSummary> recompute(Collection<Long> ids) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return tx.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            Set<Long> existing = new HashSet<>(summaryRepository.findExistingCustomerIds(ids));
+            // Dòng đã có được cập nhật tại chỗ, chỉ customer mới được tạo dòng
+            Map<Long, CustomerSummary> rows = new HashMap<>();
+            for (CustomerSummary s : summaryRepository.findAllById(existing)) {
+                rows.put(s.getCustomerId(), s);
+            }
+            for (Long id : existing) {
+                CustomerSummary s = rows.computeIfAbsent(id, k -> CustomerSummary.builder().customerId(k).build());
+                s.setBookingCount(0);
+                s.setLifetimeSpend(0);
+                s.setLastStayAt(null);
+                s.setFavouriteServiceId(null);
+                s.setFavouriteServiceName(null);
+                s.setReviewCount(0);
+                s.setUpdatedAt(now);
+            }
+
+            for (Object[] row : summaryRepository.aggregateBookings(ids, SPEND, STAY)) {
+                CustomerSummary s = rows.get((Long) row[0]);
+                if (s != null) {
+                    s.setBookingCount(((Number) row[1]).longValue());
+                    s.setLifetimeSpend(((Number) row[2]).longValue());
+                    s.setLastStayAt((LocalDateTime) row[3]);
+                }
+            }
+            // Service dùng nhiều nhất; bằng nhau thì lấy id nhỏ hơn
+            Map<Long, long[]> best = new HashMap<>();
+            for (Object[] row : summaryRepository.countServicesByCustomer(ids, BookingStatus.CANCELLED)) {
+                CustomerSummary s = rows.get((Long) row[0]);
+                if (s == null) {
+                    continue;
+                }
+                long serviceId = (Long) row[1];
+                long count = ((Number) row[3]).longValue();
+                long[] current = best.get(s.getCustomerId());
+                if (current == null || count > current[1] || (count == current[1] && serviceId < current[0])) {
+                    best.put(s.getCustomerId(), new long[]{serviceId, count});
+                    s.setFavouriteServiceId(serviceId);
+                    s.setFavouriteServiceName((String) row[2]);
+                }
+            }
+            for (Object[] row : summaryRepository.countReviews(ids)) {
+                CustomerSummary s = rows.get((Long) row[0]);
+                if (s != null) {
+                    s.setReviewCount(((Number) row[1]).longValue());
+                }
+            }
+
+            List<Long> removed = new ArrayList<>();
+            for (Long id : ids) {
+                if (!existing.contains(id)) {
+                    removed.add(id);
+                }
+            }
+            summaryRepository.deleteAllById(removed);
+            summaryRepository.saveAll(rows.values());
+            return rows;
+        });
+    }
+
+    // Customer so theo id vì old state có thể là proxy khác instance
+    private static boolean changed(EntityChange change, String property) {
+        Object now = change.value(property);
+        Object old = change.oldValue(property);
+        if (now instanceof Customer || old instanceof Customer) {
+            return !Objects.equals(customerId(now), customerId(old));
+        }
+        return !Objects.equals(now, old);
+    }
+
+    private static Long customerId(Object customer) {
+        return customer instanceof Customer c ? c.getId() : null;
+    }
+
+    private static CustomerSummaryDTO toDTO(CustomerSummary s) {
+        return CustomerSummaryDTO.builder()
+                .customerId(s.getCustomerId())
+                .bookingCount(s.getBookingCount())
+                .lifetimeSpend(s.getLifetimeSpend())
+                .lastStayAt(s.getLastStayAt())
+                .favouriteServiceId(s.getFavouriteServiceId())
+                .favouriteServiceName(s.getFavouriteServiceName())
+                .reviewCount(s.getReviewCount())
+                .updatedAt(s.getUpdatedAt())
+                .build();
+    }
+}
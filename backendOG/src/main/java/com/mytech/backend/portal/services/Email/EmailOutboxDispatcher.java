@@ -0,0 +1,240 @@
+package com.mytech.backend.portal.services.Email;
+
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Email.EmailOutbox;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.repositories.EmailOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gửi email trong bảng email_outbox ở nền, ngoài transaction và thread của request.
+ * <p>
+ * Mỗi lượt lấy email PENDING đã tới hạn theo lô {@code app.mail.outbox.batch-size} và gửi hết các lô qua
+ * 1 kết nối SMTP ({@link Transport}) mở 1 lần, thay vì mở / đóng kết nối cho từng email. Kết quả của cả lô
+ * ghi trong 1 transaction: gửi được thì SENT + {@code Booking.emailSentAt}; lỗi thì thử lại sau
+ * {@code base-backoff-ms * 2^(attempts-1)} (tối đa {@code max-backoff-ms}), quá {@code max-attempts} lần thì FAILED.
+ * Không kết nối được SMTP thì không tính vào lượt thử của email nào, chỉ tạm dừng dispatcher theo cùng kiểu backoff.
+ * <p>
+ * Chỉ 1 lượt chạy tại 1 thời điểm trên 1 instance; gửi là "ít nhất 1 lần" (mất điện giữa lúc gửi và ghi
+ * kết quả thì email có thể được gửi lại).
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private static final String LOGO_CID = "ogLogo";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final BookingRepository bookingRepository;
+    private final JavaMailSenderImpl mailSender;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.base-backoff-ms:30000}")
+    private long baseBackoffMs;
+
+    @Value("${app.mail.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.retention-days:30}")
+    private long retentionDays;
+
+    private ByteArrayResource logo;
+
+    // Backoff khi SMTP không kết nối được (chỉ thread của dispatcher đọc / ghi)
+    private int connectFailures;
+    private LocalDateTime pausedUntil;
+
+    // Kết quả gửi 1 email; error null = thành công
+    private record Result(LocalDateTime at, String error) {
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        try (InputStream in = new ClassPathResource("static/images/ogcamping.jpg").getInputStream()) {
+            logo = new ByteArrayResource(in.readAllBytes());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-ms:5000}")
+    public synchronized void dispatch() {
+        if (pausedUntil != null && LocalDateTime.now().isBefore(pausedUntil)) {
+            return;
+        }
+        List<EmailOutbox> batch = findDue();
+        if (batch.isEmpty()) {
+            return;
+        }
+        Transport transport = null;
+        boolean smtpDown = false;
+        int sent = 0;
+        int failed = 0;
+        try {
+            while (!batch.isEmpty()) {
+                Map<Long, Result> results = new HashMap<>();
+                for (EmailOutbox email : batch) {
+                    if (transport == null) {
+                        transport = connect();
+                        if (transport == null) {
+                            // Email còn lại giữ nguyên, lượt sau gửi tiếp
+                            smtpDown = true;
+                            break;
+                        }
+                    }
+                    try {
+                        MimeMessage message = toMessage(email);
+                        transport.sendMessage(message, message.getAllRecipients());
+                        results.put(email.getId(), new Result(LocalDateTime.now(), null));
+                        sent++;
+                    } catch (MessagingException | RuntimeException e) {
+                        results.put(email.getId(), new Result(LocalDateTime.now(), errorOf(e)));
+                        failed++;
+                        // Kết nối có thể đã hỏng: email kế tiếp mở kết nối mới
+                        close(transport);
+                        transport = null;
+                    }
+                }
+                record(results);
+                if (smtpDown || batch.size() < batchSize) {
+                    break;
+                }
+                batch = findDue();
+            }
+        } finally {
+            close(transport);
+        }
+        logger.info("Email outbox: {} sent, {} failed", sent, failed);
+    }
+
+    // Xóa email đã gửi quá retention-days
+    @Scheduled(cron = "${app.mail.outbox.cleanup-cron:0 15 3 * * *}")
+    public void cleanup() {
+        int deleted = new TransactionTemplate(transactionManager).execute(status -> outboxRepository.deleteSentBefore(
+                EmailOutbox.Status.SENT, LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0) {
+            logger.info("Deleted {} sent emails from outbox", deleted);
+        }
+    }
+
+    long backoffMs(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(maxBackoffMs, baseBackoffMs << shift);
+    }
+
+    private List<EmailOutbox> findDue() {
+        return outboxRepository.findDue(EmailOutbox.Status.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+    }
+
+    private Transport connect() {
+        try {
+            Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            connectFailures = 0;
+            pausedUntil = null;
+            return transport;
+        } catch (MessagingException e) {
+            connectFailures++;
+            pausedUntil = LocalDateTime.now().plusNanos(backoffMs(connectFailures) * 1_000_000);
+            logger.warn("SMTP connection failed ({} times), pausing until {}: {}", connectFailures, pausedUntil,
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private MimeMessage toMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(email.getFromAddress());
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        if (email.getBody().contains("cid:" + LOGO_CID)) {
+            helper.addInline(LOGO_CID, logo, "image/jpeg");
+        }
+        // Transport.sendMessage không tự gọi saveChanges như JavaMailSender.send
+        message.saveChanges();
+        return message;
+    }
+
+    // Ghi kết quả cả lô trong 1 transaction: 1 SELECT outbox + 1 SELECT booking, UPDATE gộp theo batch
+    private void record(Map<Long, Result> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Map<Long, LocalDateTime> sentBookings = new HashMap<>();
+            for (EmailOutbox email : outboxRepository.findAllById(results.keySet())) {
+                Result result = results.get(email.getId());
+                email.setAttempts(email.getAttempts() + 1);
+                if (result.error() == null) {
+                    email.setStatus(EmailOutbox.Status.SENT);
+                    email.setSentAt(result.at());
+                    email.setLastError(null);
+                    if (email.getBookingId() != null) {
+                        sentBookings.put(email.getBookingId(), result.at());
+                    }
+                } else {
+                    email.setLastError(result.error());
+                    if (email.getAttempts() >= maxAttempts) {
+                        email.setStatus(EmailOutbox.Status.FAILED);
+                        logger.warn("Email {} to {} failed permanently: {}", email.getId(), email.getRecipient(),
+                                result.error());
+                    } else {
+                        email.setNextAttemptAt(result.at().plusNanos(backoffMs(email.getAttempts()) * 1_000_000));
+                    }
+                }
+            }
+            if (!sentBookings.isEmpty()) {
+                for (Booking booking : bookingRepository.findAllById(sentBookings.keySet())) {
+                    booking.setEmailSentAt(sentBookings.get(booking.getId()));
+                }
+            }
+        });
+    }
+
+    private static String errorOf(Exception e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static void close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                logger.debug("SMTP close failed: {}", e.getMessage());
+            }
+        }
+    }
+}
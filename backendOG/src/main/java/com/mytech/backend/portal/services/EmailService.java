@@ -10,5 +10,7 @@ public interface EmailService {
     void sendResetPasswordCode(String to, String subject, String body);
     // void sendBookingEmail(Booking booking);
     void sendBookingConfirmationEmail(BookingResponseDTO bookingDTO);
+    // Ghi email xác nhận vào outbox trong transaction hiện tại; dispatcher gửi sau khi commit
+    void queueBookingConfirmationEmail(BookingResponseDTO bookingDTO);
    
 }
@@ -0,0 +1,24 @@
+package com.mytech.backend.portal.services.Export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Locale;
+
+public interface CsvExportService {
+
+    enum Dataset {
+        BOOKINGS, ORDERS, PAYMENTS;
+
+        public static Dataset parse(String value) {
+            try {
+                return Dataset.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown export dataset: " + value);
+            }
+        }
+    }
+
+    // Ghi CSV của [from, to] (to có tính) thẳng ra out theo từng dòng đọc từ DB; gzip = nén luồng ra
+    void export(Dataset dataset, LocalDate from, LocalDate to, boolean gzip, OutputStream out) throws IOException;
+}
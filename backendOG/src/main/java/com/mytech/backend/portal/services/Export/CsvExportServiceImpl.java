@@ -0,0 +1,234 @@
+package com.mytech.backend.portal.services.Export;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Xuất CSV cho kế toán: mỗi dòng của result set (forward-only, có fetch size) được ghi ngay ra response
+ * qua 1 buffer cố định, nên bộ nhớ không tăng theo số dòng.
+ */
+@Service
+@RequiredArgsConstructor
+public class CsvExportServiceImpl implements CsvExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Mỗi câu lọc theo cột thời gian có index: ? = from (có tính), ? = to + 1 ngày (không tính)
+    private static final String BOOKINGS_SQL =
+            "SELECT b.id, b.created_at, b.status, b.check_in_date, b.check_out_date, b.number_of_people, " +
+            "b.total_price, b.assigned_staff_id, c.id, c.name, c.email, c.phone, " +
+            "p.method, p.status, p.amount, p.provider_transaction_id " +
+            "FROM bookings b " +
+            "JOIN customers c ON c.id = b.customer_id " +
+            "LEFT JOIN payments p ON p.booking_id = b.id " +
+            "WHERE b.created_at >= ? AND b.created_at < ? " +
+            "ORDER BY b.created_at, b.id";
+
+    private static final String ORDERS_SQL =
+            "SELECT o.id, o.order_code, o.order_date, o.booking_date, o.status, o.total_price, o.people, " +
+            "o.customer_name, o.email, o.phone, o.user_id, o.confirmed_at, o.created_on " +
+            "FROM order_bookings o " +
+            "WHERE o.order_date >= ? AND o.order_date < ? " +
+            "ORDER BY o.order_date, o.id";
+
+    private static final String PAYMENTS_SQL =
+            "SELECT p.id, p.booking_id, p.created_at, p.updated_at, p.method, p.status, p.amount, " +
+            "p.provider_transaction_id, p.failure_reason " +
+            "FROM payments p " +
+            "WHERE p.created_at >= ? AND p.created_at < ? " +
+            "ORDER BY p.created_at, p.id";
+
+    private static final String[] BOOKINGS_HEADER = {
+            "id", "createdAt", "status", "checkInDate", "checkOutDate", "numberOfPeople",
+            "totalPrice", "staffId", "customerId", "customerName", "email", "phone",
+            "paymentMethod", "paymentStatus", "paymentAmount", "providerTransactionId"};
+
+    private static final String[] ORDERS_HEADER = {
+            "id", "orderCode", "orderDate", "bookingDate", "status", "totalPrice", "people",
+            "customerName", "email", "phone", "userId", "confirmedAt", "createdOn"};
+
+    private static final String[] PAYMENTS_HEADER = {
+            "id", "bookingId", "createdAt", "updatedAt", "method", "status", "amount",
+            "providerTransactionId", "failureReason"};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.export.fetch-size:500}")
+    private int fetchSize;
+
+    @Override
+    public void export(Dataset dataset, LocalDate from, LocalDate to, boolean gzip, OutputStream out)
+            throws IOException {
+        if (dataset == null || from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("dataset, from and to are required, from <= to");
+        }
+        String sql;
+        String[] header;
+        switch (dataset) {
+            case BOOKINGS -> {
+                sql = BOOKINGS_SQL;
+                header = BOOKINGS_HEADER;
+            }
+            case ORDERS -> {
+                sql = ORDERS_SQL;
+                header = ORDERS_HEADER;
+            }
+            default -> {
+                sql = PAYMENTS_SQL;
+                header = PAYMENTS_HEADER;
+            }
+        }
+
+        GZIPOutputStream zip = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        CsvWriter writer = new CsvWriter(new BufferedWriter(
+                new OutputStreamWriter(zip != null ? zip : out, StandardCharsets.UTF_8), BUFFER_SIZE));
+        try {
+            writer.writeRow(header);
+            jdbcTemplate.query(con -> {
+                // Forward-only, read-only: driver không giữ cả result set trong bộ nhớ
+                PreparedStatement ps = con.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+                ps.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+                return ps;
+            }, (RowCallbackHandler) writer::accept);
+            writer.flush();
+            if (zip != null) {
+                zip.finish();
+            }
+            out.flush();
+        } catch (UncheckedIOException e) {
+            // Client ngắt kết nối giữa chừng
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Ghi từng dòng theo RFC 4180: chỉ bọc ngoặc kép khi giá trị có dấu phẩy, ngoặc kép hoặc xuống dòng.
+     * Giá trị bắt đầu bằng {@code = + - @}, tab hoặc CR (Excel / Sheets hiểu là công thức) được thêm {@code '}
+     * phía trước và bọc ngoặc kép; giá trị là số (kể cả số âm) thì giữ nguyên.
+     */
+    static final class CsvWriter {
+
+        private static final Pattern NUMBER = Pattern.compile("[-+]?\\d+(\\.\\d+)?");
+
+        private final Writer out;
+        private String[] row;
+
+        CsvWriter(Writer out) {
+            this.out = out;
+        }
+
+        void accept(ResultSet rs) throws SQLException {
+            int columns = rs.getMetaData().getColumnCount();
+            if (row == null) {
+                row = new String[columns];
+            }
+            for (int i = 0; i < columns; i++) {
+                row[i] = format(rs.getObject(i + 1));
+            }
+            writeRow(row);
+        }
+
+        void writeRow(String[] values) {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    writeValue(values[i]);
+                }
+                out.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void flush() {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeValue(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            boolean quote = isFormula(value);
+            if (quote) {
+                value = "'" + value;
+            }
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    out.write('"');
+                }
+                out.write(c);
+            }
+            out.write('"');
+        }
+
+        // Tên khách, mã giao dịch... do người dùng nhập có thể là công thức khi mở file trong bảng tính
+        private static boolean isFormula(String value) {
+            char first = value.charAt(0);
+            if (first == '-' || first == '+') {
+                return !NUMBER.matcher(value).matches();
+            }
+            return first == '=' || first == '@' || first == '\t' || first == '\r';
+        }
+
+        private static String format(Object value) {
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof Timestamp ts) {
+                return ts.toLocalDateTime().format(DATE_TIME);
+            }
+            if (value instanceof LocalDateTime dt) {
+                return dt.format(DATE_TIME);
+            }
+            // Tránh dạng 1.5E7 của double
+            if (value instanceof Double || value instanceof Float) {
+                return BigDecimal.valueOf(((Number) value).doubleValue()).stripTrailingZeros().toPlainString();
+            }
+            if (value instanceof BigDecimal bd) {
+                return bd.toPlainString();
+            }
+            return value.toString();
+        }
+    }
+}
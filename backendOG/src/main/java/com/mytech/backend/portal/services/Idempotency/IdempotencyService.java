@@ -0,0 +1,19 @@
+package com.mytech.backend.portal.services.Idempotency;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    String HEADER = "Idempotency-Key";
+
+    /**
+     * Chạy action đúng 1 lần cho mỗi (scope, key). Lần gọi lặp lại (kể cả đồng thời) nhận lại
+     * đúng response đầu tiên mà không chạy action. key null/rỗng thì chạy action như bình thường.
+     *
+     * @param scope   phạm vi của key, vd "POST /apis/orders:user-12"
+     * @param request body (và tham số) của request, dùng để phát hiện key bị dùng cho request khác
+     */
+    ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action);
+}
@@ -0,0 +1,301 @@
+package com.mytech.backend.portal.services.Idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mytech.backend.portal.models.Idempotency.IdempotencyRecord;
+import com.mytech.backend.portal.repositories.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 3 tầng cho Idempotency-Key:
+ * <ol>
+ *     <li>cache LRU có TTL trong bộ nhớ: retry thường gặp được trả ngay, không chạm DB;</li>
+ *     <li>map các lần chạy đang dở: request trùng đồng thời chờ chung 1 lần chạy;</li>
+ *     <li>bảng idempotency_keys: giữ kết quả qua restart và chặn instance khác chạy lại.</li>
+ * </ol>
+ * Claim IN_PROGRESS chỉ có hiệu lực trong {@code app.idempotency.lease-seconds}: instance chết giữa chừng
+ * thì request retry sau lease chiếm lại key, thay vì nhận 409 tới hết TTL.
+ * Response lỗi 5xx hoặc exception không được lưu, để client retry được.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // Thời gian giữ claim IN_PROGRESS; phải dài hơn thời gian xử lý request lâu nhất
+    @Value("${app.idempotency.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    // LRU theo thứ tự truy cập, guarded by itself
+    private final LinkedHashMap<String, StoredResponse> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    record StoredResponse(String requestHash, int status, String contentType, String body,
+                          LocalDateTime expiresAt) {
+    }
+
+    @Override
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String idemKey = scope + "|" + key;
+        String requestHash = hash(request);
+
+        StoredResponse cached = cacheGet(idemKey);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(idemKey, mine);
+        if (running != null) {
+            // Trùng đồng thời: chờ lần chạy đầu và trả lại đúng response đó
+            return replay(await(running), requestHash);
+        }
+
+        try {
+            ResponseEntity<?>[] original = new ResponseEntity<?>[1];
+            StoredResponse stored = lead(idemKey, requestHash, action, original);
+            mine.complete(stored);
+            return original[0] != null ? original[0] : replay(stored, requestHash);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idemKey, mine);
+        }
+    }
+
+    // Lần chạy "chính" của 1 key trong instance này
+    private StoredResponse lead(String idemKey, String requestHash, Supplier<ResponseEntity<?>> action,
+                                ResponseEntity<?>[] original) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusHours(ttlHours);
+        boolean claimed = false;
+        Optional<IdempotencyRecord> existing = repository.findByIdemKey(idemKey);
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            if (record.getExpiresAt().isBefore(now)) {
+                inNewTransaction(() -> repository.deleteByIdemKey(idemKey));
+            } else if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getResponseStatus(),
+                        record.getContentType(), record.getResponseBody(), record.getExpiresAt());
+                cachePut(idemKey, stored);
+                return stored;
+            } else if (!isStale(record, now)) {
+                return conflict(record.getRequestHash(), requestHash);
+            } else {
+                // Instance chiếm key đã chết giữa chừng (không kịp xóa / ghi COMPLETED): chiếm lại rồi chạy
+                checkSameRequest(record.getRequestHash(), requestHash);
+                Integer taken = newTransaction().execute(status -> repository.takeOverStaleClaim(idemKey,
+                        IdempotencyRecord.Status.IN_PROGRESS, now, now.minusSeconds(leaseSeconds)));
+                if (taken == null || taken == 0) {
+                    return conflict(record.getRequestHash(), requestHash);
+                }
+                logger.warn("Took over stale idempotency claim {} (claimed at {})", idemKey, record.getClaimedAt());
+                claimed = true;
+            }
+        }
+
+        // Chiếm key trong DB trước khi chạy: instance khác đang chạy cùng key sẽ vi phạm unique
+        if (!claimed) {
+            try {
+                inNewTransaction(() -> repository.saveAndFlush(IdempotencyRecord.builder()
+                        .idemKey(idemKey)
+                        .requestHash(requestHash)
+                        .status(IdempotencyRecord.Status.IN_PROGRESS)
+                        .createdAt(now)
+                        .claimedAt(now)
+                        .expiresAt(expiresAt)
+                        .build()));
+            } catch (DataIntegrityViolationException e) {
+                return conflict(repository.findByIdemKey(idemKey)
+                        .map(IdempotencyRecord::getRequestHash)
+                        .orElse(requestHash), requestHash);
+            }
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            inNewTransaction(() -> repository.deleteByIdemKey(idemKey));
+            throw e;
+        }
+        original[0] = response;
+
+        Object body = response.getBody();
+        boolean text = body instanceof String;
+        StoredResponse stored = new StoredResponse(requestHash, response.getStatusCode().value(),
+                text ? MediaType.TEXT_PLAIN_VALUE : MediaType.APPLICATION_JSON_VALUE,
+                text ? (String) body : serialize(body), expiresAt);
+
+        if (response.getStatusCode().is5xxServerError()) {
+            inNewTransaction(() -> repository.deleteByIdemKey(idemKey));
+            return stored;
+        }
+        inNewTransaction(() -> repository.findByIdemKey(idemKey).ifPresent(record -> {
+            record.setStatus(IdempotencyRecord.Status.COMPLETED);
+            record.setResponseStatus(stored.status());
+            record.setContentType(stored.contentType());
+            record.setResponseBody(stored.body());
+            repository.save(record);
+        }));
+        cachePut(idemKey, stored);
+        return stored;
+    }
+
+    @Scheduled(cron = "${app.idempotency.cleanup-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        Integer deleted = new TransactionTemplate(transactionManager)
+                .execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        synchronized (cache) {
+            LocalDateTime now = LocalDateTime.now();
+            cache.values().removeIf(r -> r.expiresAt().isBefore(now));
+        }
+        if (deleted != null && deleted > 0) {
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        checkSameRequest(stored.requestHash(), requestHash);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status())
+                .header("Idempotent-Replayed", "true");
+        if (stored.body() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.parseMediaType(stored.contentType())).body(stored.body());
+    }
+
+    private boolean isStale(IdempotencyRecord record, LocalDateTime now) {
+        LocalDateTime claimedAt = record.getClaimedAt() != null ? record.getClaimedAt() : record.getCreatedAt();
+        return claimedAt.isBefore(now.minusSeconds(leaseSeconds));
+    }
+
+    private static void checkSameRequest(String claimedHash, String requestHash) {
+        if (!claimedHash.equals(requestHash)) {
+            throw new IllegalArgumentException(HEADER + " was already used for a different request");
+        }
+    }
+
+    // Instance khác đang xử lý cùng key: client thử lại sau; key dùng cho request khác thì báo 400 như replay
+    private StoredResponse conflict(String claimedHash, String requestHash) {
+        checkSameRequest(claimedHash, requestHash);
+        return new StoredResponse(requestHash, HttpStatus.CONFLICT.value(), MediaType.APPLICATION_JSON_VALUE,
+                "{\"error\":\"Conflict\",\"message\":\"A request with this " + HEADER + " is still in progress\"}",
+                LocalDateTime.now());
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for duplicate request", e);
+        } catch (ExecutionException e) {
+            // Lần chạy đầu lỗi: request trùng nhận cùng lỗi đó
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private StoredResponse cacheGet(String idemKey) {
+        synchronized (cache) {
+            StoredResponse stored = cache.get(idemKey);
+            if (stored != null && stored.expiresAt().isBefore(LocalDateTime.now())) {
+                cache.remove(idemKey);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private void cachePut(String idemKey, StoredResponse stored) {
+        synchronized (cache) {
+            cache.put(idemKey, stored);
+            Iterator<Map.Entry<String, StoredResponse>> eldest = cache.entrySet().iterator();
+            while (cache.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private void inNewTransaction(Runnable work) {
+        newTransaction().executeWithoutResult(status -> work.run());
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tx;
+    }
+
+    private String serialize(Object body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store idempotent response", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            // Không băm được thì dùng toString, vẫn phân biệt được phần lớn request
+            return HexFormat.of().formatHex(String.valueOf(request).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.mytech.backend.portal.services.Invoice;
+
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.models.Customer.Customer;
+import com.mytech.backend.portal.models.Payment.Payment;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Cache PDF hóa đơn đã render, khóa theo SHA-256 của các field in trên hóa đơn (content-addressed).
+ * <p>
+ * 2 tầng: bộ nhớ (LRU, giới hạn theo tổng byte) và thư mục trên đĩa (giữ qua restart, dọn định kỳ theo
+ * tổng dung lượng). Ngoài ra giữ bookingId -> khóa hiện hành để lần tải lại không phải đọc DB; mục này
+ * bị xóa khi booking, item, payment hoặc customer của booking thay đổi (đã commit).
+ */
+@Component
+@RequiredArgsConstructor
+public class InvoicePdfCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoicePdfCache.class);
+
+    private static final int MAX_INDEX = 100_000;
+    private static final String SUFFIX = ".pdf";
+
+    private final EntityChangeTracker entityChangeTracker;
+
+    @Value("${app.invoice.cache.memory-bytes:33554432}")
+    private long memoryBytes;
+
+    @Value("${app.invoice.cache.disk-bytes:536870912}")
+    private long diskBytes;
+
+    @Value("${app.invoice.cache.dir:${java.io.tmpdir}/ogcamping-invoices}")
+    private String dir;
+
+    private record Indexed(String key, Long customerId) {
+    }
+
+    private final Map<Long, Indexed> index = new ConcurrentHashMap<>();
+    // Tăng mỗi lần invalidate; put với version cũ thì không ghi index (DTO có thể đã cũ)
+    private final AtomicLong version = new AtomicLong();
+
+    // guarded by itself; access-order = LRU
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryUsed;
+
+    // null = không ghi được đĩa, chỉ dùng tầng bộ nhớ
+    private volatile Path directory;
+
+    @PostConstruct
+    void init() {
+        try {
+            directory = Files.createDirectories(Path.of(dir));
+        } catch (IOException e) {
+            logger.warn("Invoice disk cache disabled, cannot create {}: {}", dir, e.getMessage());
+        }
+        entityChangeTracker.subscribeChanges(Booking.class,
+                change -> invalidate(((Booking) change.entity()).getId()));
+        entityChangeTracker.subscribeChanges(BookingItem.class,
+                change -> invalidate(bookingIdOf(((BookingItem) change.entity()).getBooking())));
+        entityChangeTracker.subscribeChanges(Payment.class,
+                change -> invalidate(bookingIdOf(((Payment) change.entity()).getBooking())));
+        entityChangeTracker.subscribeChanges(Customer.class, this::onCustomerChanged);
+    }
+
+    public static String contentKey(String canonical) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    // Khóa hiện hành của booking nếu chưa bị invalidate; không đọc DB
+    public String currentKey(Long bookingId) {
+        Indexed indexed = index.get(bookingId);
+        return indexed != null ? indexed.key() : null;
+    }
+
+    // Bộ nhớ trước, rồi đĩa (đọc được thì đưa lên bộ nhớ)
+    public byte[] get(String key) {
+        synchronized (memory) {
+            byte[] pdf = memory.get(key);
+            if (pdf != null) {
+                return pdf;
+            }
+        }
+        Path path = fileOf(key);
+        if (path == null) {
+            return null;
+        }
+        try {
+            byte[] pdf = Files.readAllBytes(path);
+            putMemory(key, pdf);
+            return pdf;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Cannot read cached invoice {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lưu PDF theo khóa nội dung; chỉ gắn làm khóa hiện hành của booking nếu không có invalidate nào
+     * xảy ra kể từ {@code loadedAtVersion} (lúc đọc dữ liệu booking).
+     */
+    public void put(Long bookingId, Long customerId, String key, byte[] pdf, long loadedAtVersion) {
+        putMemory(key, pdf);
+        writeDisk(key, pdf);
+        if (version.get() == loadedAtVersion) {
+            if (index.size() >= MAX_INDEX) {
+                index.clear();
+            }
+            index.put(bookingId, new Indexed(key, customerId));
+        }
+    }
+
+    public void invalidate(Long bookingId) {
+        if (bookingId == null) {
+            return;
+        }
+        version.incrementAndGet();
+        Indexed removed = index.remove(bookingId);
+        if (removed != null) {
+            evict(removed.key());
+        }
+    }
+
+    // Giữ tổng dung lượng thư mục cache dưới app.invoice.cache.disk-bytes, xóa file cũ nhất trước
+    @Scheduled(fixedDelayString = "${app.invoice.cache.prune-ms:3600000}")
+    public void pruneDisk() {
+        Path root = directory;
+        if (root == null) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(root)) {
+            stream.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).forEach(files::add);
+        } catch (IOException e) {
+            logger.warn("Cannot list invoice cache {}: {}", root, e.getMessage());
+            return;
+        }
+        long total = 0;
+        Map<Path, long[]> info = new LinkedHashMap<>();
+        for (Path file : files) {
+            try {
+                long size = Files.size(file);
+                info.put(file, new long[]{size, Files.getLastModifiedTime(file).toMillis()});
+                total += size;
+            } catch (IOException e) {
+                // File vừa bị xóa
+            }
+        }
+        if (total <= diskBytes) {
+            return;
+        }
+        List<Path> oldestFirst = new ArrayList<>(info.keySet());
+        oldestFirst.sort(Comparator.comparingLong(p -> info.get(p)[1]));
+        int deleted = 0;
+        for (Path file : oldestFirst) {
+            if (total <= diskBytes) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(file);
+                total -= info.get(file)[0];
+                deleted++;
+            } catch (IOException e) {
+                logger.warn("Cannot delete cached invoice {}: {}", file, e.getMessage());
+            }
+        }
+        logger.info("Pruned {} cached invoices", deleted);
+    }
+
+    void onCustomerChanged(EntityChange change) {
+        Long customerId = ((Customer) change.entity()).getId();
+        version.incrementAndGet();
+        index.entrySet().removeIf(e -> {
+            if (customerId.equals(e.getValue().customerId())) {
+                evict(e.getValue().key());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void putMemory(String key, byte[] pdf) {
+        if (pdf.length > memoryBytes) {
+            return;
+        }
+        synchronized (memory) {
+            byte[] previous = memory.put(key, pdf);
+            memoryUsed += pdf.length - (previous != null ? previous.length : 0);
+            Iterator<byte[]> it = memory.values().iterator();
+            while (memoryUsed > memoryBytes && it.hasNext()) {
+                memoryUsed -= it.next().length;
+                it.remove();
+            }
+        }
+    }
+
+    private void writeDisk(String key, byte[] pdf) {
+        Path path = fileOf(key);
+        if (path == null || Files.exists(path)) {
+            return;
+        }
+        Path tmp = null;
+        try {
+            // Ghi file tạm rồi đổi tên để request khác không đọc phải file dở
+            tmp = Files.createTempFile(path.getParent(), key, ".tmp");
+            Files.write(tmp, pdf);
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Cannot write cached invoice {}: {}", path, e.getMessage());
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // File tạm còn sót không ảnh hưởng cache
+                }
+            }
+        }
+    }
+
+    private void evict(String key) {
+        synchronized (memory) {
+            byte[] removed = memory.remove(key);
+            if (removed != null) {
+                memoryUsed -= removed.length;
+            }
+        }
+        Path path = fileOf(key);
+        if (path != null) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Cannot delete cached invoice {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private Path fileOf(String key) {
+        Path root = directory;
+        return root != null ? root.resolve(key + SUFFIX) : null;
+    }
+
+    private static Long bookingIdOf(Booking booking) {
+        return booking != null ? booking.getId() : null;
+    }
+}
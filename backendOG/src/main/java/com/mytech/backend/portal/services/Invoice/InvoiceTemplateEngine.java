@@ -0,0 +1,224 @@
+package com.mytech.backend.portal.services.Invoice;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Render hóa đơn PDF dùng chung cho mọi controller / service xuất PDF.
+ * <p>
+ * Template HTML (placeholder {@code {{NAME}}}) được đọc và tách thành các đoạn cố định 1 lần lúc khởi động;
+ * render chỉ nối đoạn và giá trị (đã escape HTML). Logo được đọc và mã hóa Base64 1 lần. Font (chuẩn PDF +
+ * Noto Sans đi kèm html2pdf, có đủ dấu tiếng Việt, và thư mục {@code app.pdf.font-dir} nếu có) được quét 1 lần
+ * vào 1 {@link FontSet} dùng chung; font nhúng vào PDF ở dạng subset.
+ */
+@Component
+public class InvoiceTemplateEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceTemplateEngine.class);
+
+    public static final String BOOKING_INVOICE = "booking-invoice";
+    public static final String BOOKING_INVOICE_ROW = "booking-invoice-row";
+    public static final String BOOKING_DISH_BILL = "booking-dish-bill";
+    public static final String BOOKING_DISH_BILL_ROW = "booking-dish-bill-row";
+    public static final String ORDER_DISH_BILL = "order-dish-bill";
+    public static final String ORDER_DISH_BILL_ROW = "order-dish-bill-row";
+    public static final String ORDER_INVOICE = "order-invoice";
+    public static final String SAMPLE_BILL = "sample-bill";
+
+    private static final List<String> TEMPLATES = List.of(BOOKING_INVOICE, BOOKING_INVOICE_ROW,
+            BOOKING_DISH_BILL, BOOKING_DISH_BILL_ROW, ORDER_DISH_BILL, ORDER_DISH_BILL_ROW,
+            ORDER_INVOICE, SAMPLE_BILL);
+    private static final String LOCATION = "templates/pdf/";
+    private static final String LOGO = "static/images/ogcamping.jpg";
+    private static final String DEFAULT_FONT_FAMILY = "Noto Sans";
+
+    // Thư mục font bổ sung (vd font tiếng Việt riêng); rỗng = chỉ dùng font đi kèm
+    @Value("${app.pdf.font-dir:}")
+    private String fontDir;
+
+    // Chỉ ghi trong init, sau đó chỉ đọc
+    private final Map<String, Template> templates = new HashMap<>();
+    private String logoBase64;
+    private FontSet fontSet;
+
+    /**
+     * Giá trị chèn nguyên văn, không escape (vd các dòng bảng đã render từ template khác).
+     */
+    public record Html(String value) {
+    }
+
+    /**
+     * Template đã tách: {@code literals[i]} rồi tới giá trị của {@code names[i]}, cuối cùng là literal cuối.
+     */
+    public static final class Template {
+
+        private final String[] literals;
+        private final String[] names;
+        private final int literalLength;
+
+        private Template(String[] literals, String[] names) {
+            this.literals = literals;
+            this.names = names;
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        static Template compile(String source) {
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            int pos = 0;
+            while (true) {
+                int open = source.indexOf("{{", pos);
+                int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+                if (close < 0) {
+                    break;
+                }
+                literals.add(source.substring(pos, open));
+                names.add(source.substring(open + 2, close).trim());
+                pos = close + 2;
+            }
+            literals.add(source.substring(pos));
+            return new Template(literals.toArray(String[]::new), names.toArray(String[]::new));
+        }
+
+        // Giá trị String được escape; Html chèn nguyên văn; thiếu / null = rỗng
+        public String render(Map<String, ?> values) {
+            StringBuilder out = new StringBuilder(literalLength + 64 * names.length);
+            render(values, out);
+            return out.toString();
+        }
+
+        public void render(Map<String, ?> values, StringBuilder out) {
+            for (int i = 0; i < names.length; i++) {
+                out.append(literals[i]);
+                Object value = values.get(names[i]);
+                if (value instanceof Html html) {
+                    out.append(html.value());
+                } else if (value != null) {
+                    escape(value.toString(), out);
+                }
+            }
+            out.append(literals[names.length]);
+        }
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        for (String name : TEMPLATES) {
+            try (InputStream in = new ClassPathResource(LOCATION + name + ".html").getInputStream()) {
+                templates.put(name, Template.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+        }
+        try (InputStream in = new ClassPathResource(LOGO).getInputStream()) {
+            logoBase64 = Base64.getEncoder().encodeToString(in.readAllBytes());
+        }
+        DefaultFontProvider fonts = new DefaultFontProvider(true, true, false);
+        if (fontDir != null && !fontDir.isBlank()) {
+            int added = fonts.addDirectory(fontDir);
+            logger.info("Loaded {} PDF fonts from {}", added, fontDir);
+        }
+        fontSet = fonts.getFontSet();
+    }
+
+    public Template template(String name) {
+        Template template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown PDF template: " + name);
+        }
+        return template;
+    }
+
+    public String logoBase64() {
+        return logoBase64;
+    }
+
+    // Render template rồi chuyển sang PDF
+    public byte[] renderPdf(String name, Map<String, ?> values) {
+        return toPdf(template(name).render(values));
+    }
+
+    public byte[] toPdf(String html) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        toPdf(html, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Ghi PDF thẳng vào {@code out} (vd output stream của response) mà không đóng nó; PdfWriter đẩy dữ liệu
+     * ra theo từng khối trong lúc convert nên không có bản sao nào của cả file trong heap.
+     */
+    public void toPdf(String html, OutputStream out) {
+        HtmlConverter.convertToPdf(html, new NonClosingOutputStream(out), converterProperties());
+    }
+
+    /**
+     * FontProvider giữ cache chọn font theo từng lần convert nên không dùng chung giữa các thread;
+     * mỗi lần tạo 1 provider nhẹ trên {@link FontSet} đã quét sẵn (phần tốn kém nằm ở FontSet).
+     */
+    public ConverterProperties converterProperties() {
+        return new ConverterProperties()
+                .setCharset(StandardCharsets.UTF_8.name())
+                .setFontProvider(new FontProvider(fontSet, DEFAULT_FONT_FAMILY));
+    }
+
+    // PdfWriter đóng stream khi xong; stream của response để Spring đóng
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    // Helper cho số tiền kiểu "1,200,000"
+    public static String money(double amount) {
+        return String.format("%,.0f", amount);
+    }
+
+    static void escape(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.mytech.backend.portal.services.Invoice;
+
+import com.mytech.backend.portal.dto.Invoice.PdfJobDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface PdfJobService {
+
+    enum Type { INVOICE, BULK }
+
+    enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    // Kết quả của job đã xong; writeTo ghi thẳng ra response
+    interface Download {
+        String filename();
+
+        String contentType();
+
+        long length();
+
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    // Xếp hàng render hóa đơn 1 booking; hàng đợi đầy thì ném RejectedExecutionException
+    PdfJobDTO submitInvoice(Long bookingId);
+
+    // Render hóa đơn mọi booking tạo trong [from, to] vào 1 file ZIP
+    PdfJobDTO submitBulk(LocalDate from, LocalDate to);
+
+    Optional<PdfJobDTO> getStatus(String jobId);
+
+    // Empty khi job không tồn tại hoặc chưa DONE
+    Optional<Download> getDownload(String jobId);
+}
@@ -0,0 +1,381 @@
+package com.mytech.backend.portal.services.Invoice;
+
+import com.mytech.backend.portal.dto.Invoice.PdfJobDTO;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.security.CurrentUser;
+import com.mytech.backend.portal.services.Booking.BookingInvoiceService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Hàng đợi render PDF chạy ngoài thread của Tomcat.
+ * <p>
+ * Render chạy trên pool cố định {@code app.pdf.jobs.workers} thread (mặc định = số core) với hàng đợi có
+ * giới hạn {@code app.pdf.jobs.queue-capacity}; hàng đợi đầy thì từ chối ngay (503) thay vì dồn việc.
+ * Job BULK có thread điều phối riêng (tối đa {@code app.pdf.jobs.max-bulk-jobs} job cùng lúc): đẩy từng
+ * hóa đơn vào pool, giữ tối đa số worker hóa đơn đang chạy, và ghi PDF nào xong trước vào file ZIP tạm
+ * trước. Kết quả giữ {@code app.pdf.jobs.ttl-ms} rồi bị dọn.
+ * <p>
+ * Job nhớ user đã gửi; trạng thái và file kết quả chỉ trả cho user đó hoặc STAFF / ADMIN.
+ */
+@Service
+@RequiredArgsConstructor
+public class PdfJobServiceImpl implements PdfJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfJobServiceImpl.class);
+
+    private static final String PDF = "application/pdf";
+    private static final String ZIP = "application/zip";
+
+    private final BookingInvoiceService bookingInvoiceService;
+    private final BookingRepository bookingRepository;
+
+    // 0 = số core
+    @Value("${app.pdf.jobs.workers:0}")
+    private int workers;
+
+    @Value("${app.pdf.jobs.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${app.pdf.jobs.max-bulk-jobs:2}")
+    private int maxBulkJobs;
+
+    @Value("${app.pdf.jobs.max-bulk-size:5000}")
+    private int maxBulkSize;
+
+    @Value("${app.pdf.jobs.ttl-ms:3600000}")
+    private long ttlMs;
+
+    private volatile ThreadPoolExecutor renderPool;
+    private volatile ThreadPoolExecutor bulkPool;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final Type type;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final int total;
+        final String filename;
+        // User gửi job (null khi gọi ngoài request có đăng nhập)
+        final Long ownerId;
+        volatile Status status = Status.QUEUED;
+        volatile String error;
+        volatile LocalDateTime finishedAt;
+        // Kết quả: INVOICE giữ trong bộ nhớ, BULK ở file ZIP tạm
+        volatile byte[] pdf;
+        volatile Path zip;
+
+        Job(Type type, int total, String filename, Long ownerId) {
+            this.type = type;
+            this.total = total;
+            this.filename = filename;
+            this.ownerId = ownerId;
+        }
+    }
+
+    private record PdfDownload(String filename, byte[] pdf) implements Download {
+        public String contentType() {
+            return PDF;
+        }
+
+        public long length() {
+            return pdf.length;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(pdf);
+        }
+    }
+
+    private record ZipDownload(String filename, Path zip, long length) implements Download {
+        public String contentType() {
+            return ZIP;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            Files.copy(zip, out);
+        }
+    }
+
+    // 1 hóa đơn trong job BULK; pdf null = lỗi
+    private record Entry(Long bookingId, byte[] pdf, String error) {
+    }
+
+    @PostConstruct
+    void start() {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        renderPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory("pdf-render-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        bulkPool = new ThreadPoolExecutor(maxBulkJobs, maxBulkJobs, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxBulkJobs), threadFactory("pdf-bulk-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        logger.info("PDF job pool: {} workers, queue {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    void stop() {
+        renderPool.shutdownNow();
+        bulkPool.shutdownNow();
+        jobs.values().forEach(PdfJobServiceImpl::deleteResult);
+        jobs.clear();
+    }
+
+    @Override
+    public PdfJobDTO submitInvoice(Long bookingId) {
+        if (bookingId == null) {
+            throw new IllegalArgumentException("bookingId is required");
+        }
+        Job job = new Job(Type.INVOICE, 1, "invoice_" + bookingId + ".pdf", CurrentUser.id().orElse(null));
+        jobs.put(job.id, job);
+        try {
+            renderPool.execute(() -> runInvoice(job, bookingId));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new RejectedExecutionException("PDF queue is full, retry later", e);
+        }
+        return toDTO(job);
+    }
+
+    @Override
+    public PdfJobDTO submitBulk(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("from and to are required, from <= to");
+        }
+        List<Long> ids = bookingRepository.findIdsCreatedBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        if (ids.size() > maxBulkSize) {
+            throw new IllegalArgumentException("Too many bookings in range: " + ids.size() + " (max " + maxBulkSize + ")");
+        }
+        Job job = new Job(Type.BULK, ids.size(), "invoices_" + from + "_" + to + ".zip",
+                CurrentUser.id().orElse(null));
+        jobs.put(job.id, job);
+        try {
+            bulkPool.execute(() -> runBulk(job, ids));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new RejectedExecutionException("Too many bulk PDF jobs running, retry later", e);
+        }
+        return toDTO(job);
+    }
+
+    @Override
+    public Optional<PdfJobDTO> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId))
+                .map(PdfJobServiceImpl::checkOwner)
+                .map(PdfJobServiceImpl::toDTO);
+    }
+
+    @Override
+    public Optional<Download> getDownload(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        checkOwner(job);
+        if (job.status != Status.DONE) {
+            return Optional.empty();
+        }
+        if (job.type == Type.INVOICE) {
+            return Optional.of(new PdfDownload(job.filename, job.pdf));
+        }
+        try {
+            return Optional.of(new ZipDownload(job.filename, job.zip, Files.size(job.zip)));
+        } catch (IOException e) {
+            // File tạm đã bị dọn
+            return Optional.empty();
+        }
+    }
+
+    // Dọn job đã xong quá ttl (kể cả file ZIP tạm)
+    @Scheduled(fixedDelayString = "${app.pdf.jobs.cleanup-ms:60000}")
+    public void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(ttlMs * 1_000_000);
+        jobs.values().removeIf(job -> {
+            LocalDateTime finished = job.finishedAt;
+            if (finished != null && finished.isBefore(cutoff)) {
+                deleteResult(job);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void runInvoice(Job job, Long bookingId) {
+        job.status = Status.RUNNING;
+        try {
+            job.pdf = bookingInvoiceService.getInvoice(bookingId).content();
+            job.completed.incrementAndGet();
+            finish(job, Status.DONE, null);
+        } catch (RuntimeException e) {
+            job.failed.incrementAndGet();
+            finish(job, Status.FAILED, e.getMessage());
+        }
+    }
+
+    private void runBulk(Job job, List<Long> ids) {
+        job.status = Status.RUNNING;
+        long started = System.nanoTime();
+        Path zip = null;
+        try {
+            zip = Files.createTempFile("pdf-bulk-", ".zip");
+            job.zip = zip;
+            List<String> errors = new ArrayList<>();
+            try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(zip), 64 * 1024))) {
+                // PDF đã nén sẵn, nén thêm chỉ tốn CPU
+                out.setLevel(Deflater.BEST_SPEED);
+                CompletionService<Entry> completion = new ExecutorCompletionService<>(renderPool);
+                int window = renderPool.getMaximumPoolSize();
+                int next = 0;
+                int inFlight = 0;
+                while (next < ids.size() || inFlight > 0) {
+                    // Giữ tối đa `window` hóa đơn trong pool để job lẻ vẫn chen vào được
+                    while (next < ids.size() && inFlight < window) {
+                        Long id = ids.get(next);
+                        try {
+                            completion.submit(() -> render(id));
+                            inFlight++;
+                            next++;
+                        } catch (RejectedExecutionException e) {
+                            // Pool đầy job lẻ: tự render 1 cái nếu không còn gì để chờ
+                            if (inFlight == 0) {
+                                write(out, job, render(id), errors);
+                                next++;
+                            }
+                            break;
+                        }
+                    }
+                    if (inFlight > 0) {
+                        write(out, job, completion.take().get(), errors);
+                        inFlight--;
+                    }
+                }
+                if (!errors.isEmpty()) {
+                    out.putNextEntry(new ZipEntry("errors.txt"));
+                    out.write(String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+                    out.closeEntry();
+                }
+            }
+            finish(job, Status.DONE, null);
+            logger.info("Bulk PDF job {}: {} invoices ({} failed) in {} ms", job.id, job.completed.get(),
+                    job.failed.get(), (System.nanoTime() - started) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(job, Status.FAILED, "Interrupted");
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            logger.warn("Bulk PDF job {} failed: {}", job.id, e.getMessage());
+            finish(job, Status.FAILED, e.getMessage());
+        }
+        if (job.status == Status.FAILED) {
+            deleteResult(job);
+        }
+    }
+
+    private Entry render(Long bookingId) {
+        try {
+            return new Entry(bookingId, bookingInvoiceService.getInvoice(bookingId).content(), null);
+        } catch (RuntimeException e) {
+            return new Entry(bookingId, null, e.getMessage());
+        }
+    }
+
+    // Chỉ thread điều phối ghi vào ZIP
+    private static void write(ZipOutputStream out, Job job, Entry entry, List<String> errors) throws IOException {
+        if (entry.pdf() == null) {
+            job.failed.incrementAndGet();
+            errors.add("booking " + entry.bookingId() + ": " + entry.error());
+            return;
+        }
+        out.putNextEntry(new ZipEntry("invoice_" + entry.bookingId() + ".pdf"));
+        out.write(entry.pdf());
+        out.closeEntry();
+        job.completed.incrementAndGet();
+    }
+
+    private static void finish(Job job, Status status, String error) {
+        job.error = error;
+        job.finishedAt = LocalDateTime.now();
+        job.status = status;
+    }
+
+    private static void deleteResult(Job job) {
+        job.pdf = null;
+        Path zip = job.zip;
+        if (zip != null) {
+            try {
+                Files.deleteIfExists(zip);
+            } catch (IOException e) {
+                logger.warn("Could not delete {}: {}", zip, e.getMessage());
+            }
+        }
+    }
+
+    // Chỉ user đã gửi job hoặc STAFF / ADMIN
+    private static Job checkOwner(Job job) {
+        if (!CurrentUser.isStaffOrAdmin() && !Objects.equals(job.ownerId, CurrentUser.id().orElse(null))) {
+            throw new AccessDeniedException("Không có quyền xem job " + job.id);
+        }
+        return job;
+    }
+
+    private static PdfJobDTO toDTO(Job job) {
+        return PdfJobDTO.builder()
+                .jobId(job.id)
+                .type(job.type.name())
+                .status(job.status.name())
+                .total(job.total)
+                .completed(job.completed.get())
+                .failed(job.failed.get())
+                .error(job.error)
+                .createdAt(job.createdAt)
+                .finishedAt(job.finishedAt)
+                .downloadUrl(job.status == Status.DONE ? "/apis/v1/pdf-jobs/" + job.id + "/download" : null)
+                .build();
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
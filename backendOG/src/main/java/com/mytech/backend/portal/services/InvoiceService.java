@@ -2,8 +2,12 @@ package com.mytech.backend.portal.services;
 
 import com.mytech.backend.portal.models.OrderBooking;
 
+import java.io.OutputStream;
+
 public interface InvoiceService {
 	byte[] generateInvoicePDF(OrderBooking order);
+
+	// Ghi PDF thẳng vào out (không đóng out), không giữ cả file trong bộ nhớ
+	void writeInvoicePDF(OrderBooking order, OutputStream out);
 //    byte[] generateInvoicePDF(Long orderId);
 }
-
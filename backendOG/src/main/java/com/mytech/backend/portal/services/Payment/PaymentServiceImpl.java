@@ -3,17 +3,14 @@ package com.mytech.backend.portal.services.Payment;
 import com.mytech.backend.portal.dto.Payment.PaymentRequestDTO;
 import com.mytech.backend.portal.dto.Payment.PaymentResponseDTO;
 import com.mytech.backend.portal.models.Booking.Booking;
-import com.mytech.backend.portal.models.Booking.BookingItem;
 import com.mytech.backend.portal.models.Booking.BookingStatus;
 import com.mytech.backend.portal.models.Booking.ItemType;
 import com.mytech.backend.portal.models.Payment.Payment;
 import com.mytech.backend.portal.models.Payment.PaymentMethod;
 import com.mytech.backend.portal.models.Payment.PaymentStatus;
-import com.mytech.backend.portal.models.Service.Service;
-import com.mytech.backend.portal.models.Service.ServiceAvailability;
 import com.mytech.backend.portal.repositories.BookingRepository;
 import com.mytech.backend.portal.repositories.PaymentRepository;
-import com.mytech.backend.portal.repositories.ServiceAvailabilityRepository;
+import com.mytech.backend.portal.services.ServiceAvailabilityService.SlotHoldManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,7 +19,7 @@ import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
@@ -37,7 +34,10 @@ import java.util.stream.Collectors;
 public class PaymentServiceImpl implements PaymentService {
     private final BookingRepository bookingRepository;
     private final PaymentRepository paymentRepository;
-    private final ServiceAvailabilityRepository serviceAvailabilityRepository;
+    private final SlotHoldManager slotHoldManager;
+
+    // Thời hạn link VNPay (vnp_ExpireDate)
+    private static final Duration PAYMENT_WINDOW = Duration.ofMinutes(15);
 
     @Value("${vnpay.url}")
     private String vnpayUrl;
@@ -77,6 +77,7 @@ public class PaymentServiceImpl implements PaymentService {
         String paymentUrl = null;
         if (req.getMethod() == PaymentMethod.VNPAY) {
             paymentUrl = generateVNPayUrl(booking.getId(), txnRef);
+            slotHoldManager.extend(booking.getId(), PAYMENT_WINDOW);
         }
 
         return PaymentResponseDTO.builder()
@@ -117,6 +118,7 @@ public class PaymentServiceImpl implements PaymentService {
         String paymentUrl = null;
         if (req.getMethod() == PaymentMethod.VNPAY) {
             paymentUrl = generateVNPayMobileUrl(booking.getId(), txnRef);
+            slotHoldManager.extend(booking.getId(), PAYMENT_WINDOW);
         }
 
         return PaymentResponseDTO.builder()
@@ -151,7 +153,7 @@ public class PaymentServiceImpl implements PaymentService {
 
         LocalDateTime now = LocalDateTime.now();
         String createDate = now.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String expireDate = now.plusMinutes(15).format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        String expireDate = now.plus(PAYMENT_WINDOW).format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
 
         Map<String, String> vnpParams = new TreeMap<>();
         vnpParams.put("vnp_Version", "2.1.0");
@@ -202,7 +204,7 @@ public class PaymentServiceImpl implements PaymentService {
 
         LocalDateTime now = LocalDateTime.now();
         String createDate = now.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String expireDate = now.plusMinutes(15).format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        String expireDate = now.plus(PAYMENT_WINDOW).format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
 
         // Mobile return URL - sử dụng mobile callback endpoint với IP thay vì localhost
         String mobileReturnUrl = vnpayReturnUrl.replace("/callback", "/callback/mobile")
@@ -268,48 +270,17 @@ public class PaymentServiceImpl implements PaymentService {
             if (!booking.getStatus().equals(BookingStatus.CONFIRMED)) {
                 booking.setStatus(BookingStatus.CONFIRMED);
 
-                // Cập nhật bookedSlots cho tất cả Service items trong booking
-                for (BookingItem item : booking.getItems()) {
-                    if (item.getType() == ItemType.SERVICE && item.getService() != null) {
-                        Service service = item.getService();
-
-                        if (item.getCheckInDate() == null || item.getCheckOutDate() == null) {
-                            throw new RuntimeException("Missing check-in/check-out date for service " + service.getName());
-                        }
-
-                        LocalDateTime current = item.getCheckInDate();
-                        LocalDateTime end = item.getCheckOutDate();
-
-                        while (!current.isAfter(end.minusDays(1))) {
-                            // convert LocalDateTime -> LocalDate vì availability được quản lý theo ngày
-                            LocalDate dateToCheck = current.toLocalDate();
-
-                            ServiceAvailability availability = serviceAvailabilityRepository
-                                    .findByServiceIdAndDate(service.getId(), dateToCheck)
-                                    .orElseThrow(() -> new RuntimeException(
-                                            "No availability config for service " + service.getName() + " on date: " + dateToCheck));
-
-                            if (availability.getBookedSlots() >= availability.getTotalSlots()) {
-                                throw new RuntimeException("No available slots on " + dateToCheck + " for service: " + service.getName());
-                            }
-
-                            availability.setBookedSlots(availability.getBookedSlots() + 1);
-                            serviceAvailabilityRepository.save(availability);
-
-                            current = current.plusDays(1);
-                        }
-                    }
-                }
-
-
+                // Hold đã giữ slot từ lúc đặt: chỉ còn ghi bookedSlots vào DB
+                slotHoldManager.confirm(booking.getId(), SlotHoldManager.rangesOf(booking.getItems()));
 
                 bookingRepository.save(booking);
             }
 
         } else {
             payment.setStatus(PaymentStatus.FAILED);
-            // 🔹 Hủy luôn booking khi payment fail
+            // 🔹 Hủy luôn booking khi payment fail và trả hold
             booking.setStatus(BookingStatus.CANCELLED);
+            slotHoldManager.release(booking.getId());
             bookingRepository.save(booking);
         }
 
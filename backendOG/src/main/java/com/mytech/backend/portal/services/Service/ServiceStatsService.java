@@ -0,0 +1,13 @@
+package com.mytech.backend.portal.services.Service;
+
+import com.mytech.backend.portal.dto.Booking.BookingStatsDTO;
+
+import java.util.Map;
+
+public interface ServiceStatsService {
+    // Số liệu booking của 1 service (tổng, tháng này, doanh thu, đánh giá, tỉ lệ hoàn thành)
+    BookingStatsDTO getStats(Long serviceId);
+
+    // Số liệu của mọi service có booking, key = serviceId
+    Map<Long, BookingStatsDTO> getAllStats();
+}
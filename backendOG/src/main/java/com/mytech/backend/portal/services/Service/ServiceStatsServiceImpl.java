@@ -0,0 +1,139 @@
+package com.mytech.backend.portal.services.Service;
+
+import com.mytech.backend.portal.dto.Booking.BookingStatsDTO;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.repositories.BookingItemRepository;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.Kind;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Số liệu booking theo service, tính bằng 1 câu GROUP BY trên booking_items JOIN bookings.
+ * <p>
+ * Kết quả được cache; khi 1 booking đổi status / đánh giá (đã commit) thì chỉ các service có
+ * trong booking đó bị đánh dấu cũ và được tính lại ở lần đọc sau. Sang tháng mới thì bỏ cache
+ * vì phần "tháng này" đã đổi mốc.
+ */
+@Service
+@RequiredArgsConstructor
+public class ServiceStatsServiceImpl implements ServiceStatsService {
+
+    // Thuộc tính của Booking ảnh hưởng tới số liệu
+    private static final List<String> TRACKED = List.of("status", "rating", "createdAt");
+
+    private final BookingItemRepository bookingItemRepository;
+    private final EntityChangeTracker entityChangeTracker;
+
+    // guarded by this
+    private final Map<Long, BookingStatsDTO> stats = new HashMap<>();
+    private final Set<Long> stale = new HashSet<>();
+    private YearMonth month;
+    private boolean allLoaded;
+
+    @PostConstruct
+    void subscribe() {
+        entityChangeTracker.subscribeChanges(Booking.class, this::onBookingChanged);
+    }
+
+    @Override
+    public synchronized BookingStatsDTO getStats(Long serviceId) {
+        checkMonth();
+        BookingStatsDTO cached = stats.get(serviceId);
+        if (cached != null && !stale.contains(serviceId)) {
+            return cached;
+        }
+        load(List.of(serviceId));
+        return stats.computeIfAbsent(serviceId, id -> empty());
+    }
+
+    @Override
+    public synchronized Map<Long, BookingStatsDTO> getAllStats() {
+        checkMonth();
+        if (!allLoaded) {
+            stats.clear();
+            stale.clear();
+            for (Object[] row : bookingItemRepository.aggregateServiceStats(month.atDay(1).atStartOfDay())) {
+                stats.put((Long) row[0], toDTO(row));
+            }
+            allLoaded = true;
+        } else if (!stale.isEmpty()) {
+            load(new HashSet<>(stale));
+        }
+        return Map.copyOf(stats);
+    }
+
+    void onBookingChanged(EntityChange change) {
+        if (change.kind() == Kind.UPDATE && change.hasOldState()
+                && TRACKED.stream().allMatch(p -> Objects.equals(change.value(p), change.oldValue(p)))) {
+            return;
+        }
+        Set<Long> serviceIds = new HashSet<>();
+        for (BookingItem item : ((Booking) change.entity()).getItems()) {
+            if (item.getService() != null) {
+                serviceIds.add(item.getService().getId());
+            }
+        }
+        markStale(serviceIds);
+    }
+
+    private synchronized void markStale(Collection<Long> serviceIds) {
+        stale.addAll(serviceIds);
+    }
+
+    // Gọi khi đang giữ khóa this
+    private void load(Collection<Long> serviceIds) {
+        for (Long id : serviceIds) {
+            // Service không còn item nào thì không có dòng trả về
+            stats.remove(id);
+            stale.remove(id);
+        }
+        for (Object[] row : bookingItemRepository.aggregateServiceStats(serviceIds, month.atDay(1).atStartOfDay())) {
+            stats.put((Long) row[0], toDTO(row));
+        }
+    }
+
+    private void checkMonth() {
+        YearMonth now = YearMonth.now();
+        if (!now.equals(month)) {
+            month = now;
+            stats.clear();
+            stale.clear();
+            allLoaded = false;
+        }
+    }
+
+    private static BookingStatsDTO toDTO(Object[] row) {
+        long total = ((Number) row[1]).longValue();
+        Number rating = (Number) row[5];
+        long completed = ((Number) row[6]).longValue();
+        return new BookingStatsDTO(
+                total,
+                ((Number) row[3]).longValue(),
+                Math.round(((Number) row[2]).doubleValue()),
+                Math.round(((Number) row[4]).doubleValue()),
+                rating != null ? round1(rating.doubleValue()) : 0.0,
+                total > 0 ? round1(completed * 100.0 / total) : 0.0 // %
+        );
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static BookingStatsDTO empty() {
+        return new BookingStatsDTO(0L, 0L, 0L, 0L, 0.0, 0.0);
+    }
+}
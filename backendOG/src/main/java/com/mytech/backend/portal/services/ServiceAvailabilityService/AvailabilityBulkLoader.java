@@ -0,0 +1,120 @@
+package com.mytech.backend.portal.services.ServiceAvailabilityService;
+
+import com.mytech.backend.portal.repositories.ServiceAvailabilityRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mở slot hàng loạt cho service_availability.
+ * <p>
+ * Lấy các ngày đã có cấu hình bằng 1 query cho cả khoảng, rồi chèn các ngày còn thiếu bằng
+ * JDBC batch (entity dùng IDENTITY nên Hibernate không batch insert được). Index unique
+ * (service_id, date) chặn trùng nếu 2 tiến trình cùng mở 1 ngày: INSERT IGNORE bỏ qua dòng trùng thay vì
+ * làm hỏng cả lô, và chỉ các dòng thực sự được chèn mới được đẩy vào {@link SlotInventory}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AvailabilityBulkLoader {
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO service_availability (service_id, date, total_slots, booked_slots) VALUES (?, ?, ?, 0)";
+    private static final int BATCH_SIZE = 500;
+
+    private final ServiceAvailabilityRepository availabilityRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SlotInventory slotInventory;
+
+    record NewDay(Long serviceId, LocalDate date, int totalSlots) {
+    }
+
+    // Mở [start, end] (inclusive) cho mỗi service với số slot tương ứng; trả về các ngày đã thêm
+    @Transactional
+    public Map<Long, List<LocalDate>> openDays(Map<Long, Integer> slotsByService, LocalDate start, LocalDate end) {
+        Map<Long, List<LocalDate>> inserted = new HashMap<>();
+        if (slotsByService.isEmpty() || end.isBefore(start)) {
+            return inserted;
+        }
+
+        Map<Long, Set<LocalDate>> existing = new HashMap<>();
+        for (Object[] row : availabilityRepository.findServiceDatesBetween(slotsByService.keySet(), start, end)) {
+            existing.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((LocalDate) row[1]);
+        }
+
+        List<NewDay> rows = new ArrayList<>();
+        slotsByService.forEach((serviceId, totalSlots) -> {
+            Set<LocalDate> taken = existing.getOrDefault(serviceId, Set.of());
+            for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                if (!taken.contains(date)) {
+                    rows.add(new NewDay(serviceId, date, totalSlots));
+                }
+            }
+        });
+        if (rows.isEmpty()) {
+            return inserted;
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.serviceId());
+            ps.setDate(2, Date.valueOf(row.date()));
+            ps.setInt(3, row.totalSlots());
+        });
+
+        // 0 = trùng với dòng tiến trình khác vừa mở, bỏ qua
+        List<NewDay> added = new ArrayList<>();
+        List<NewDay> unknown = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                NewDay row = rows.get(i++);
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    unknown.add(row);
+                } else if (count > 0) {
+                    added.add(row);
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            added.addAll(readBack(unknown, start, end));
+        }
+
+        Map<Long, Map<LocalDate, Integer>> totals = new HashMap<>();
+        for (NewDay row : added) {
+            totals.computeIfAbsent(row.serviceId(), id -> new HashMap<>()).put(row.date(), row.totalSlots());
+            inserted.computeIfAbsent(row.serviceId(), id -> new ArrayList<>()).add(row.date());
+        }
+        slotInventory.updateTotals(totals);
+        return inserted;
+    }
+
+    // rewriteBatchedStatements gộp lô thành 1 câu nhiều VALUES nên driver không trả số dòng cho từng dòng:
+    // đọc lại các ngày đó trong cùng transaction (snapshot từ lần đọc đầu không thấy dòng tiến trình khác
+    // commit sau đó) và lấy total_slots thực tế trong DB
+    private List<NewDay> readBack(List<NewDay> rows, LocalDate start, LocalDate end) {
+        Set<Long> serviceIds = new HashSet<>();
+        Set<NewDay> wanted = new HashSet<>();
+        for (NewDay row : rows) {
+            serviceIds.add(row.serviceId());
+            wanted.add(new NewDay(row.serviceId(), row.date(), 0));
+        }
+        List<NewDay> found = new ArrayList<>();
+        for (Object[] row : availabilityRepository.findSlotRowsForServices(serviceIds, start, end)) {
+            NewDay day = new NewDay((Long) row[0], (LocalDate) row[1], 0);
+            if (wanted.contains(day)) {
+                found.add(new NewDay(day.serviceId(), day.date(), ((Number) row[2]).intValue()));
+            }
+        }
+        return found;
+    }
+}
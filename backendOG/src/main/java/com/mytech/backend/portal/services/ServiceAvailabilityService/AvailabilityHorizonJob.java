@@ -0,0 +1,56 @@
+package com.mytech.backend.portal.services.ServiceAvailabilityService;
+
+import com.mytech.backend.portal.models.Service.Service;
+import com.mytech.backend.portal.repositories.ServiceRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Giữ cho mọi service đang active luôn mở sẵn N ngày tới, mỗi ngày defaultSlotsPerDay slot.
+ */
+@Component
+@RequiredArgsConstructor
+public class AvailabilityHorizonJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityHorizonJob.class);
+
+    private final ServiceRepository serviceRepository;
+    private final AvailabilityBulkLoader bulkLoader;
+
+    @Value("${app.availability.horizon-days:90}")
+    private int horizonDays;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.availability.horizon-cron:0 30 0 * * *}")
+    public void extendHorizon() {
+        if (horizonDays <= 0) {
+            return;
+        }
+        Map<Long, Integer> slotsByService = new HashMap<>();
+        for (Service service : serviceRepository.findByActiveTrue()) {
+            Integer slots = service.getDefaultSlotsPerDay();
+            if (slots != null && slots > 0) {
+                slotsByService.put(service.getId(), slots);
+            }
+        }
+
+        LocalDate start = LocalDate.now();
+        LocalDate end = start.plusDays(horizonDays - 1L);
+        Map<Long, List<LocalDate>> inserted = bulkLoader.openDays(slotsByService, start, end);
+
+        int total = inserted.values().stream().mapToInt(List::size).sum();
+        logger.info("Availability horizon {} -> {}: opened {} days for {} services",
+                start, end, total, inserted.size());
+    }
+}
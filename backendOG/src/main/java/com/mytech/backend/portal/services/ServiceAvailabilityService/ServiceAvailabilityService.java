@@ -1,8 +1,11 @@
 package com.mytech.backend.portal.services.ServiceAvailabilityService;
 
 import com.mytech.backend.portal.dto.Service.AvailabilityBatchRequest;
+import com.mytech.backend.portal.dto.Service.AvailabilityCalendarDTO;
+import com.mytech.backend.portal.dto.Service.FreeServiceDTO;
 import com.mytech.backend.portal.dto.Service.ServiceAvailabilityDTO;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface ServiceAvailabilityService {
@@ -11,4 +14,6 @@ public interface ServiceAvailabilityService {
     void deleteAvailability(Long availabilityId);
     List<ServiceAvailabilityDTO> getAvailabilityByService(Long serviceId);
     List<ServiceAvailabilityDTO> createAvailabilityBatch(Long serviceId, AvailabilityBatchRequest request);
+    AvailabilityCalendarDTO getCalendar(Long serviceId, LocalDate from, LocalDate to);
+    List<FreeServiceDTO> findFreeServices(LocalDate from, LocalDate to, int minSlots);
 }
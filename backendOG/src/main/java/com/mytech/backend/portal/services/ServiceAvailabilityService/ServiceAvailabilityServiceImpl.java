@@ -1,6 +1,8 @@
 package com.mytech.backend.portal.services.ServiceAvailabilityService;
 
 import com.mytech.backend.portal.dto.Service.AvailabilityBatchRequest;
+import com.mytech.backend.portal.dto.Service.AvailabilityCalendarDTO;
+import com.mytech.backend.portal.dto.Service.FreeServiceDTO;
 import com.mytech.backend.portal.dto.Service.ServiceAvailabilityDTO;
 import com.mytech.backend.portal.models.Service.Service;
 import com.mytech.backend.portal.models.Service.ServiceAvailability;
@@ -9,9 +11,12 @@ import com.mytech.backend.portal.repositories.ServiceRepository;
 import lombok.RequiredArgsConstructor;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @org.springframework.stereotype.Service
 @RequiredArgsConstructor
@@ -19,6 +24,10 @@ public class ServiceAvailabilityServiceImpl implements ServiceAvailabilityServic
 
     private final ServiceRepository serviceRepository;
     private final ServiceAvailabilityRepository availabilityRepository;
+    private final SlotInventory slotInventory;
+    private final AvailabilityBulkLoader bulkLoader;
+
+    private static final int MAX_CALENDAR_DAYS = 366;
 
     @Override
     public ServiceAvailabilityDTO createAvailability(Long serviceId, ServiceAvailabilityDTO dto) {
@@ -39,6 +48,7 @@ public class ServiceAvailabilityServiceImpl implements ServiceAvailabilityServic
                 .build();
 
         availability = availabilityRepository.save(availability);
+        slotInventory.updateTotal(serviceId, availability.getDate(), availability.getTotalSlots());
         return mapToDTO(availability);
     }
 
@@ -50,12 +60,16 @@ public class ServiceAvailabilityServiceImpl implements ServiceAvailabilityServic
         availability.setTotalSlots(dto.getTotalSlots());
         // bookedSlots không update trực tiếp ở đây, chỉ hệ thống booking mới thay đổi
         availability = availabilityRepository.save(availability);
+        slotInventory.updateTotal(availability.getService().getId(), availability.getDate(),
+                availability.getTotalSlots());
 
         return mapToDTO(availability);
     }
 
     @Override
     public void deleteAvailability(Long availabilityId) {
+        availabilityRepository.findById(availabilityId).ifPresent(availability ->
+                slotInventory.removeDay(availability.getService().getId(), availability.getDate()));
         availabilityRepository.deleteById(availabilityId);
     }
 
@@ -76,32 +90,48 @@ public class ServiceAvailabilityServiceImpl implements ServiceAvailabilityServic
     // tao truoc
     @Override
     public List<ServiceAvailabilityDTO> createAvailabilityBatch(Long serviceId, AvailabilityBatchRequest request) {
-        Service service = serviceRepository.findById(serviceId)
-                .orElseThrow(() -> new RuntimeException("Service not found"));
+        if (!serviceRepository.existsById(serviceId)) {
+            throw new RuntimeException("Service not found");
+        }
+        if (request.getStartDate() == null || request.getEndDate() == null || request.getTotalSlots() == null) {
+            throw new IllegalArgumentException("startDate, endDate and totalSlots are required");
+        }
 
-        List<ServiceAvailability> availabilities = new ArrayList<>();
-
-        LocalDate current = request.getStartDate();
-        while (!current.isAfter(request.getEndDate())) {
-            LocalDate dateToCheck = current;
-
-            // Nếu ngày đã có availability thì bỏ qua (tránh trùng lặp)
-            boolean exists = availabilityRepository.findByServiceIdAndDate(serviceId, dateToCheck).isPresent();
-            if (!exists) {
-                ServiceAvailability availability = ServiceAvailability.builder()
-                        .service(service)
-                        .date(dateToCheck)
-                        .totalSlots(request.getTotalSlots())
-                        .bookedSlots(0)
-                        .build();
-                availabilities.add(availability);
-            }
-
-            current = current.plusDays(1);
+        // Ngày đã có availability thì bỏ qua (tránh trùng lặp), phần còn lại chèn theo lô
+        Map<Long, List<LocalDate>> inserted = bulkLoader.openDays(
+                Map.of(serviceId, request.getTotalSlots()), request.getStartDate(), request.getEndDate());
+        Set<LocalDate> created = new HashSet<>(inserted.getOrDefault(serviceId, List.of()));
+        if (created.isEmpty()) {
+            return List.of();
         }
-        List<ServiceAvailability> saved = availabilityRepository.saveAll(availabilities);
 
-        return saved.stream().map(this::mapToDTO).toList();
+        return availabilityRepository
+                .findAllByServiceIdAndDateBetween(serviceId, request.getStartDate(), request.getEndDate())
+                .stream()
+                .filter(a -> created.contains(a.getDate()))
+                .map(this::mapToDTO)
+                .toList();
+    }
+
+    @Override
+    public AvailabilityCalendarDTO getCalendar(Long serviceId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return slotInventory.calendar(serviceId, from, to);
+    }
+
+    @Override
+    public List<FreeServiceDTO> findFreeServices(LocalDate from, LocalDate to, int minSlots) {
+        validateRange(from, to);
+        return slotInventory.findFree(from, to, Math.max(1, minSlots));
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid date range: " + from + " - " + to);
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_CALENDAR_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_CALENDAR_DAYS + " days");
+        }
     }
 
 }
@@ -0,0 +1,119 @@
+package com.mytech.backend.portal.services.ServiceAvailabilityService;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sổ slot của 1 service: mảng int đóng gói theo epoch day (index 0 = baseDay).
+ * Mọi thao tác đọc/ghi phải giữ {@link #lock}.
+ */
+class ServiceSlotLedger {
+
+    static final int UNCONFIGURED = -1; // ngày chưa có cấu hình availability
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    private long baseDay;
+    private int[] total = new int[0];
+    private int[] booked = new int[0];
+
+    // Đoạn ngày đã nạp từ DB (inclusive), rỗng khi loadedFrom > loadedTo
+    private long loadedFrom = Long.MAX_VALUE;
+    private long loadedTo = Long.MIN_VALUE;
+
+    boolean isLoaded(long day) {
+        return day >= loadedFrom && day <= loadedTo;
+    }
+
+    boolean covers(long from, long to) {
+        return from >= loadedFrom && to <= loadedTo;
+    }
+
+    long loadedFrom() {
+        return loadedFrom;
+    }
+
+    long loadedTo() {
+        return loadedTo;
+    }
+
+    /** Đánh dấu đoạn [from, to] đã nạp; đoạn nạp luôn liền mạch nên lấy bao của 2 đoạn. */
+    void markLoaded(long from, long to) {
+        ensureCapacity(Math.min(from, loadedFrom), Math.max(to, loadedTo));
+        loadedFrom = Math.min(from, loadedFrom);
+        loadedTo = Math.max(to, loadedTo);
+    }
+
+    int total(long day) {
+        int i = index(day);
+        return i < 0 || i >= total.length ? UNCONFIGURED : total[i];
+    }
+
+    int booked(long day) {
+        int i = index(day);
+        return i < 0 || i >= booked.length ? 0 : booked[i];
+    }
+
+    int free(long day) {
+        int t = total(day);
+        return t == UNCONFIGURED ? 0 : Math.max(0, t - booked(day));
+    }
+
+    void set(long day, int totalSlots, int bookedSlots) {
+        ensureCapacity(day, day);
+        int i = index(day);
+        total[i] = totalSlots;
+        booked[i] = bookedSlots;
+    }
+
+    void setTotal(long day, int totalSlots) {
+        ensureCapacity(day, day);
+        int i = index(day);
+        if (total[i] == UNCONFIGURED) {
+            booked[i] = 0;
+        }
+        total[i] = totalSlots;
+    }
+
+    void clear(long day) {
+        int i = index(day);
+        if (i >= 0 && i < total.length) {
+            total[i] = UNCONFIGURED;
+            booked[i] = 0;
+        }
+    }
+
+    void addBooked(long day, int delta) {
+        ensureCapacity(day, day);
+        booked[index(day)] += delta;
+    }
+
+    private int index(long day) {
+        return (int) (day - baseDay);
+    }
+
+    private void ensureCapacity(long from, long to) {
+        if (total.length == 0) {
+            baseDay = from;
+            total = new int[(int) (to - from + 1)];
+            booked = new int[total.length];
+            Arrays.fill(total, UNCONFIGURED);
+            return;
+        }
+        long end = baseDay + total.length - 1;
+        if (from >= baseDay && to <= end) {
+            return;
+        }
+        long newBase = Math.min(baseDay, from);
+        long newEnd = Math.max(end, to);
+        int[] newTotal = new int[(int) (newEnd - newBase + 1)];
+        int[] newBooked = new int[newTotal.length];
+        Arrays.fill(newTotal, UNCONFIGURED);
+        int offset = (int) (baseDay - newBase);
+        System.arraycopy(total, 0, newTotal, offset, total.length);
+        System.arraycopy(booked, 0, newBooked, offset, booked.length);
+        baseDay = newBase;
+        total = newTotal;
+        booked = newBooked;
+    }
+}
@@ -0,0 +1,256 @@
+package com.mytech.backend.portal.services.ServiceAvailabilityService;
+
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.models.Booking.ItemType;
+import com.mytech.backend.portal.repositories.BookingItemRepository;
+import com.mytech.backend.portal.repositories.ServiceAvailabilityRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giữ chỗ có thời hạn cho booking PENDING trong lúc khách thanh toán VNPay.
+ * <p>
+ * Hold được trừ thẳng vào {@link SlotInventory} (khách khác thấy như slot đã đặt) nhưng chưa ghi DB.
+ * Khi thanh toán thành công, {@link #confirm} chỉ việc ghi DB vì slot đã được giữ sẵn;
+ * hết hạn thì 1 thread duy nhất lấy hold khỏi {@link DelayQueue} và trả slot, không quét DB.
+ * Khi khởi động, hold được dựng lại từ các booking PENDING còn trong hạn.
+ */
+@Component
+@RequiredArgsConstructor
+public class SlotHoldManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotHoldManager.class);
+
+    private final SlotInventory slotInventory;
+    private final ServiceAvailabilityRepository availabilityRepository;
+    private final BookingItemRepository bookingItemRepository;
+
+    // Phải dài hơn vnp_ExpireDate (15 phút) để khách kịp thanh toán
+    @Value("${app.booking.hold-minutes:20}")
+    private long holdMinutes;
+
+    // bookingId -> hold hiện hành; entry cũ trong queue (đã gia hạn/đã xác nhận) bị bỏ qua khi tới hạn
+    private final ConcurrentHashMap<Long, SlotHold> holds = new ConcurrentHashMap<>();
+    private final DelayQueue<SlotHold> expiries = new DelayQueue<>();
+    private volatile Thread reaper;
+
+    public record Range(Long serviceId, LocalDate from, LocalDate to) {
+    }
+
+    // Các khoảng ngày cần slot của 1 booking (chỉ item SERVICE)
+    public static List<Range> rangesOf(List<BookingItem> items) {
+        List<Range> ranges = new ArrayList<>();
+        for (BookingItem item : items) {
+            if (item.getType() == ItemType.SERVICE && item.getService() != null) {
+                if (item.getCheckInDate() == null || item.getCheckOutDate() == null) {
+                    throw new RuntimeException("Missing check-in/check-out date for service "
+                            + item.getService().getName());
+                }
+                ranges.add(new Range(item.getService().getId(),
+                        item.getCheckInDate().toLocalDate(), item.getCheckOutDate().toLocalDate()));
+            }
+        }
+        return ranges;
+    }
+
+    // Giữ slot cho booking vừa tạo; hết slot thì ném lỗi và transaction rollback sẽ trả lại
+    public void hold(Long bookingId, List<Range> ranges) {
+        if (ranges.isEmpty()) {
+            return;
+        }
+        for (Range r : ranges) {
+            slotInventory.reserve(r.serviceId(), r.from(), r.to());
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(holdMinutes);
+        TransactionHooks.afterCommit(() -> schedule(new SlotHold(bookingId, ranges, deadline)));
+    }
+
+    // Gia hạn khi phát hành link thanh toán, để hold không hết trước vnp_ExpireDate
+    public void extend(Long bookingId, Duration paymentWindow) {
+        long deadline = System.currentTimeMillis() + Math.max(paymentWindow.toMillis(),
+                TimeUnit.MINUTES.toMillis(holdMinutes));
+        holds.computeIfPresent(bookingId, (id, current) -> {
+            if (current.deadline >= deadline) {
+                return current;
+            }
+            SlotHold extended = new SlotHold(id, current.ranges, deadline);
+            expiries.put(extended);
+            return extended;
+        });
+    }
+
+    /**
+     * Chốt slot cho booking khi thanh toán/xác nhận: nếu còn hold thì slot trong bộ nhớ đã là của booking,
+     * chỉ cần ghi DB; nếu hold đã hết hạn (hoặc không có) thì giữ lại như bình thường.
+     */
+    public void confirm(Long bookingId, List<Range> ranges) {
+        SlotHold held = holds.remove(bookingId);
+        if (held != null) {
+            // Rollback thì trả hold về như cũ (tới hạn sẽ được thu hồi bình thường)
+            TransactionHooks.onRollback(() -> restore(held));
+        }
+
+        for (Range r : ranges) {
+            if (held == null) {
+                slotInventory.reserve(r.serviceId(), r.from(), r.to());
+            }
+            int updated = availabilityRepository.reserveSlots(r.serviceId(), r.from(), r.to());
+            if (updated != ChronoUnit.DAYS.between(r.from(), r.to())) {
+                // Ném lỗi để rollback các ngày đã tăng
+                throw new RuntimeException("No available slots between " + r.from() + " and " + r.to()
+                        + " for service: " + r.serviceId());
+            }
+        }
+    }
+
+    // Trả hold khi booking PENDING bị hủy hoặc thanh toán thất bại
+    public void release(Long bookingId) {
+        TransactionHooks.afterCommit(() -> {
+            SlotHold held = holds.remove(bookingId);
+            if (held != null) {
+                releaseSlots(held);
+            }
+        });
+    }
+
+    public boolean isHeld(Long bookingId) {
+        return holds.containsKey(bookingId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        Thread thread = new Thread(this::reap, "slot-hold-reaper");
+        thread.setDaemon(true);
+        thread.start();
+        reaper = thread;
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = reaper;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // Dựng lại hold từ các booking PENDING còn trong hạn (hạn tính từ lúc tạo booking / tạo payment)
+    void rebuild() {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(holdMinutes);
+        Map<Long, List<Range>> rangesByBooking = new LinkedHashMap<>();
+        Map<Long, LocalDateTime> startedAt = new LinkedHashMap<>();
+        for (Object[] row : bookingItemRepository.findPendingHoldRows(since)) {
+            Long bookingId = (Long) row[0];
+            LocalDateTime created = (LocalDateTime) row[1];
+            LocalDateTime paymentCreated = (LocalDateTime) row[2];
+            LocalDateTime start = paymentCreated != null && paymentCreated.isAfter(created) ? paymentCreated : created;
+            startedAt.put(bookingId, start);
+            rangesByBooking.computeIfAbsent(bookingId, id -> new ArrayList<>()).add(new Range((Long) row[3],
+                    ((LocalDateTime) row[4]).toLocalDate(), ((LocalDateTime) row[5]).toLocalDate()));
+        }
+
+        int restored = 0;
+        for (Map.Entry<Long, List<Range>> entry : rangesByBooking.entrySet()) {
+            long deadline = startedAt.get(entry.getKey()).plusMinutes(holdMinutes)
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (deadline <= System.currentTimeMillis() || holds.containsKey(entry.getKey())) {
+                continue;
+            }
+            List<Range> taken = new ArrayList<>();
+            try {
+                for (Range r : entry.getValue()) {
+                    slotInventory.reserve(r.serviceId(), r.from(), r.to());
+                    taken.add(r);
+                }
+                schedule(new SlotHold(entry.getKey(), entry.getValue(), deadline));
+                restored++;
+            } catch (RuntimeException e) {
+                // Slot đã bị booking khác lấy trong lúc server tắt: bỏ hold này
+                taken.forEach(r -> slotInventory.release(r.serviceId(), r.from(), r.to()));
+                logger.warn("Cannot restore slot hold for booking {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        logger.info("Restored {} slot holds from pending bookings", restored);
+    }
+
+    private void reap() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                expire(expiries.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Failed to expire slot hold", e);
+            }
+        }
+    }
+
+    void expire(SlotHold hold) {
+        // Chỉ thu hồi nếu đây vẫn là hold hiện hành (chưa gia hạn, chưa xác nhận, chưa hủy)
+        if (holds.remove(hold.bookingId, hold)) {
+            releaseSlots(hold);
+            logger.info("Slot hold for booking {} expired", hold.bookingId);
+        }
+    }
+
+    private void schedule(SlotHold hold) {
+        holds.put(hold.bookingId, hold);
+        expiries.put(hold);
+    }
+
+    private void restore(SlotHold hold) {
+        if (holds.putIfAbsent(hold.bookingId, hold) == null) {
+            expiries.put(hold);
+        }
+    }
+
+    private void releaseSlots(SlotHold hold) {
+        for (Range r : hold.ranges) {
+            slotInventory.release(r.serviceId(), r.from(), r.to());
+        }
+    }
+
+    // So sánh theo identity: bản gia hạn là 1 object mới
+    static final class SlotHold implements Delayed {
+
+        final Long bookingId;
+        final List<Range> ranges;
+        final long deadline; // epoch millis
+
+        SlotHold(Long bookingId, List<Range> ranges, long deadline) {
+            this.bookingId = bookingId;
+            this.ranges = List.copyOf(ranges);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((SlotHold) other).deadline);
+        }
+    }
+}
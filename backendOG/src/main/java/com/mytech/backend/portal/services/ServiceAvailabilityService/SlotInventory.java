@@ -0,0 +1,368 @@
+package com.mytech.backend.portal.services.ServiceAvailabilityService;
+
+import com.mytech.backend.portal.dto.Service.AvailabilityCalendarDTO;
+import com.mytech.backend.portal.dto.Service.FreeServiceDTO;
+import com.mytech.backend.portal.models.Service.ServiceAvailability;
+import com.mytech.backend.portal.repositories.ServiceAvailabilityRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kho slot trong bộ nhớ cho service_availability.
+ * <p>
+ * Mỗi service có 1 {@link ServiceSlotLedger} với lock riêng, nên giữ/trả slot cho cả
+ * khoảng ngày là 1 bước all-or-nothing và không bao giờ vượt totalSlots. Ledger được nạp
+ * lười bằng 1 query theo khoảng ngày và được hoàn tác nếu transaction rollback.
+ * <p>
+ * Kho này chỉ là cổng chặn trong bộ nhớ: DB vẫn được cập nhật bởi caller qua
+ * {@link ServiceAvailabilityRepository#reserveSlots} / {@code releaseSlots}.
+ * <p>
+ * Khoảng ngày luôn là [from, to): to là ngày check-out, không tính slot.
+ */
+@Component
+@RequiredArgsConstructor
+public class SlotInventory {
+
+    private final ServiceAvailabilityRepository availabilityRepository;
+
+    private final ConcurrentHashMap<Long, ServiceSlotLedger> ledgers = new ConcurrentHashMap<>();
+
+    // Khoảng ngày đã nạp cho MỌI service (phục vụ truy vấn chéo service), guarded by globalLock
+    private final Object globalLock = new Object();
+    private long globalFrom = Long.MAX_VALUE;
+    private long globalTo = Long.MIN_VALUE;
+
+    // Kiểm tra còn slot cho cả khoảng ngày, không giữ chỗ
+    public void checkAvailable(Long serviceId, LocalDate from, LocalDate to) {
+        ServiceSlotLedger ledger = ledger(serviceId);
+        ledger.lock.lock();
+        try {
+            load(serviceId, ledger, from.toEpochDay(), to.toEpochDay() - 1);
+            ensureFree(ledger, from, to);
+        } finally {
+            ledger.lock.unlock();
+        }
+    }
+
+    // Nạp trước [from, to) cho nhiều service bằng 1 query, để các lần kiểm tra sau chỉ đọc bộ nhớ
+    public void preload(Collection<Long> serviceIds, LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay() - 1;
+        if (last < first) {
+            return;
+        }
+        List<Long> missing = new ArrayList<>();
+        for (Long serviceId : serviceIds) {
+            ServiceSlotLedger ledger = ledger(serviceId);
+            ledger.lock.lock();
+            try {
+                if (!missingSegments(ledger, first, last).isEmpty()) {
+                    missing.add(serviceId);
+                }
+            } finally {
+                ledger.lock.unlock();
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<Object[]>> rowsByService = new HashMap<>();
+        for (Object[] row : availabilityRepository.findSlotRowsForServices(
+                missing, from, LocalDate.ofEpochDay(last))) {
+            rowsByService.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(row);
+        }
+        for (Long serviceId : missing) {
+            ServiceSlotLedger ledger = ledger(serviceId);
+            ledger.lock.lock();
+            try {
+                fill(serviceId, ledger, rowsByService.getOrDefault(serviceId, List.of()), first, last);
+            } finally {
+                ledger.lock.unlock();
+            }
+        }
+    }
+
+    // Giữ 1 slot cho mọi ngày trong [from, to), hoặc ném lỗi mà không đổi gì
+    public void reserve(Long serviceId, LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay() - 1;
+        ServiceSlotLedger ledger = ledger(serviceId);
+        ledger.lock.lock();
+        try {
+            load(serviceId, ledger, first, last);
+            ensureFree(ledger, from, to);
+            for (long day = first; day <= last; day++) {
+                ledger.addBooked(day, 1);
+            }
+        } finally {
+            ledger.lock.unlock();
+        }
+
+        List<Long> days = new ArrayList<>();
+        for (long day = first; day <= last; day++) {
+            days.add(day);
+        }
+        TransactionHooks.onRollback(() -> undo(serviceId, days, -1));
+    }
+
+    // Trả slot cho các ngày trong [from, to) đang có người đặt
+    public void release(Long serviceId, LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay() - 1;
+        List<Long> released = new ArrayList<>();
+        ServiceSlotLedger ledger = ledger(serviceId);
+        ledger.lock.lock();
+        try {
+            load(serviceId, ledger, first, last);
+            for (long day = first; day <= last; day++) {
+                if (ledger.total(day) != ServiceSlotLedger.UNCONFIGURED && ledger.booked(day) > 0) {
+                    ledger.addBooked(day, -1);
+                    released.add(day);
+                }
+            }
+        } finally {
+            ledger.lock.unlock();
+        }
+
+        TransactionHooks.onRollback(() -> undo(serviceId, released, 1));
+    }
+
+    // Đồng bộ khi admin tạo/sửa cấu hình ngày (chỉ áp dụng nếu ngày đã nạp)
+    public void updateTotal(Long serviceId, LocalDate date, int totalSlots) {
+        updateTotals(Map.of(serviceId, Map.of(date, totalSlots)));
+    }
+
+    // Như updateTotal cho cả lô ngày: 1 afterCommit cho cả lô, mỗi ledger chỉ khóa 1 lần
+    public void updateTotals(Map<Long, Map<LocalDate, Integer>> totalsByService) {
+        if (totalsByService.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> totalsByService.forEach(this::applyTotals));
+    }
+
+    private void applyTotals(Long serviceId, Map<LocalDate, Integer> totals) {
+        ServiceSlotLedger ledger = ledgers.get(serviceId);
+        if (ledger == null) {
+            // Service chưa có ledger: truy vấn chéo service phải quét lại DB
+            synchronized (globalLock) {
+                globalFrom = Long.MAX_VALUE;
+                globalTo = Long.MIN_VALUE;
+            }
+            return;
+        }
+        ledger.lock.lock();
+        try {
+            totals.forEach((date, totalSlots) -> {
+                if (ledger.isLoaded(date.toEpochDay())) {
+                    ledger.setTotal(date.toEpochDay(), totalSlots);
+                }
+            });
+        } finally {
+            ledger.lock.unlock();
+        }
+    }
+
+    public void removeDay(Long serviceId, LocalDate date) {
+        TransactionHooks.afterCommit(() -> {
+            ServiceSlotLedger ledger = ledgers.get(serviceId);
+            if (ledger == null) {
+                return;
+            }
+            ledger.lock.lock();
+            try {
+                ledger.clear(date.toEpochDay());
+            } finally {
+                ledger.lock.unlock();
+            }
+        });
+    }
+
+    // Số slot còn trống của 1 ngày (0 nếu chưa cấu hình)
+    public int freeSlots(Long serviceId, LocalDate date) {
+        long day = date.toEpochDay();
+        ServiceSlotLedger ledger = ledger(serviceId);
+        ledger.lock.lock();
+        try {
+            load(serviceId, ledger, day, day);
+            return ledger.free(day);
+        } finally {
+            ledger.lock.unlock();
+        }
+    }
+
+    // Lịch slot của 1 service cho [from, to] (inclusive), đọc từ mảng đóng gói trong bộ nhớ
+    public AvailabilityCalendarDTO calendar(Long serviceId, LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        int[] total = new int[(int) (last - first + 1)];
+        int[] free = new int[total.length];
+        ServiceSlotLedger ledger = ledger(serviceId);
+        ledger.lock.lock();
+        try {
+            load(serviceId, ledger, first, last);
+            for (int i = 0; i < total.length; i++) {
+                total[i] = ledger.total(first + i);
+                free[i] = ledger.free(first + i);
+            }
+        } finally {
+            ledger.lock.unlock();
+        }
+        return AvailabilityCalendarDTO.builder()
+                .serviceId(serviceId)
+                .startDate(from)
+                .endDate(to)
+                .totalSlots(total)
+                .freeSlots(free)
+                .build();
+    }
+
+    // Các service còn ít nhất minSlots slot cho MỌI ngày trong [from, to] (inclusive)
+    public List<FreeServiceDTO> findFree(LocalDate from, LocalDate to, int minSlots) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        loadAll(first, last);
+
+        List<FreeServiceDTO> result = new ArrayList<>();
+        for (Map.Entry<Long, ServiceSlotLedger> entry : ledgers.entrySet()) {
+            ServiceSlotLedger ledger = entry.getValue();
+            int minFree = Integer.MAX_VALUE;
+            ledger.lock.lock();
+            try {
+                for (long day = first; day <= last && minFree >= minSlots; day++) {
+                    minFree = Math.min(minFree, ledger.free(day));
+                }
+            } finally {
+                ledger.lock.unlock();
+            }
+            if (minFree >= minSlots) {
+                result.add(new FreeServiceDTO(entry.getKey(), minFree));
+            }
+        }
+        return result;
+    }
+
+    private ServiceSlotLedger ledger(Long serviceId) {
+        return ledgers.computeIfAbsent(serviceId, id -> new ServiceSlotLedger());
+    }
+
+    // Nạp phần còn thiếu của [first, last] bằng 1-2 query theo khoảng; gọi khi đang giữ lock
+    private void load(Long serviceId, ServiceSlotLedger ledger, long first, long last) {
+        for (long[] segment : missingSegments(ledger, first, last)) {
+            loadSegment(serviceId, ledger, segment[0], segment[1]);
+        }
+    }
+
+    // Các đoạn cần nạp để ledger phủ liền mạch tới [first, last]
+    private List<long[]> missingSegments(ServiceSlotLedger ledger, long first, long last) {
+        List<long[]> segments = new ArrayList<>(2);
+        if (last < first || ledger.covers(first, last)) {
+            return segments;
+        }
+        if (ledger.loadedFrom() > ledger.loadedTo()) {
+            segments.add(new long[]{first, last});
+            return segments;
+        }
+        if (first < ledger.loadedFrom()) {
+            segments.add(new long[]{first, ledger.loadedFrom() - 1});
+        }
+        if (last > ledger.loadedTo()) {
+            segments.add(new long[]{ledger.loadedTo() + 1, last});
+        }
+        return segments;
+    }
+
+    // Nạp [first, last] cho mọi service bằng 1 lần quét bảng service_availability
+    private void loadAll(long first, long last) {
+        synchronized (globalLock) {
+            if (first >= globalFrom && last <= globalTo) {
+                return;
+            }
+            Map<Long, List<Object[]>> rowsByService = new HashMap<>();
+            for (Object[] row : availabilityRepository.findSlotRowsBetween(
+                    LocalDate.ofEpochDay(first), LocalDate.ofEpochDay(last))) {
+                rowsByService.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(row);
+            }
+
+            Set<Long> serviceIds = new HashSet<>(ledgers.keySet());
+            serviceIds.addAll(rowsByService.keySet());
+            for (Long serviceId : serviceIds) {
+                ServiceSlotLedger ledger = ledger(serviceId);
+                ledger.lock.lock();
+                try {
+                    fill(serviceId, ledger, rowsByService.getOrDefault(serviceId, List.of()), first, last);
+                } finally {
+                    ledger.lock.unlock();
+                }
+            }
+            globalFrom = first;
+            globalTo = last;
+        }
+    }
+
+    // Đổ các dòng đã quét vào phần ledger còn thiếu trong [first, last]; gọi khi đang giữ lock.
+    // Kiểm tra lại missingSegments dưới lock nên dòng cũ không ghi đè ngày đã nạp trong lúc query.
+    private void fill(Long serviceId, ServiceSlotLedger ledger, List<Object[]> rows, long first, long last) {
+        for (long[] segment : missingSegments(ledger, first, last)) {
+            if (segment[0] < first || segment[1] > last) {
+                // Khoảng trống nằm ngoài lần quét này: nạp riêng cho service đó
+                loadSegment(serviceId, ledger, segment[0], segment[1]);
+                continue;
+            }
+            ledger.markLoaded(segment[0], segment[1]);
+            for (Object[] row : rows) {
+                long day = ((LocalDate) row[1]).toEpochDay();
+                if (day >= segment[0] && day <= segment[1]) {
+                    ledger.set(day,
+                            row[2] != null ? (Integer) row[2] : 0,
+                            row[3] != null ? (Integer) row[3] : 0);
+                }
+            }
+        }
+    }
+
+    private void loadSegment(Long serviceId, ServiceSlotLedger ledger, long first, long last) {
+        List<ServiceAvailability> rows = availabilityRepository.findAllByServiceIdAndDateBetween(
+                serviceId, LocalDate.ofEpochDay(first), LocalDate.ofEpochDay(last));
+        ledger.markLoaded(first, last);
+        for (ServiceAvailability a : rows) {
+            ledger.set(a.getDate().toEpochDay(),
+                    a.getTotalSlots() != null ? a.getTotalSlots() : 0,
+                    a.getBookedSlots() != null ? a.getBookedSlots() : 0);
+        }
+    }
+
+    private void ensureFree(ServiceSlotLedger ledger, LocalDate from, LocalDate to) {
+        for (LocalDate date = from; date.isBefore(to); date = date.plusDays(1)) {
+            long day = date.toEpochDay();
+            if (ledger.total(day) == ServiceSlotLedger.UNCONFIGURED) {
+                throw new RuntimeException("No availability config for date: " + date);
+            }
+            if (ledger.booked(day) >= ledger.total(day)) {
+                throw new RuntimeException("No available slots on " + date);
+            }
+        }
+    }
+
+    private void undo(Long serviceId, List<Long> days, int delta) {
+        ServiceSlotLedger ledger = ledger(serviceId);
+        ledger.lock.lock();
+        try {
+            for (long day : days) {
+                ledger.addBooked(day, delta);
+            }
+        } finally {
+            ledger.lock.unlock();
+        }
+    }
+}
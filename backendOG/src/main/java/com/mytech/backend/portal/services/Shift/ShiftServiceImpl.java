@@ -15,8 +15,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -25,13 +26,16 @@ public class ShiftServiceImpl implements ShiftService {
     private final ShiftRepository shiftRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
+    private final StaffWorkloadTracker workloadTracker;
 
     public ShiftServiceImpl(ShiftRepository shiftRepository,
                             UserRepository userRepository,
-                            BookingRepository bookingRepository) {
+                            BookingRepository bookingRepository,
+                            StaffWorkloadTracker workloadTracker) {
         this.shiftRepository = shiftRepository;
         this.userRepository = userRepository;
         this.bookingRepository = bookingRepository;
+        this.workloadTracker = workloadTracker;
     }
 
 
@@ -134,10 +138,12 @@ public class ShiftServiceImpl implements ShiftService {
             throw new RuntimeException("No available staff in current shift");
         }
 
-        // Chọn nhân viên có ít booking nhất để cân bằng workload
-        User selected = availableStaff.stream()
-                .min(Comparator.comparingInt(staff -> bookingRepository.countByAssignedStaff(staff)))
-                .orElseThrow();
+        // Chọn nhân viên có ít booking đang mở nhất để cân bằng workload (đọc từ bộ nhớ, không query đếm)
+        Map<Long, User> byId = new LinkedHashMap<>();
+        for (User staff : availableStaff) {
+            byId.put(staff.getId(), staff);
+        }
+        User selected = byId.get(workloadTracker.leastLoaded(byId.keySet()).orElseThrow());
 
         booking.setAssignedStaff(selected);
         return bookingRepository.save(booking);
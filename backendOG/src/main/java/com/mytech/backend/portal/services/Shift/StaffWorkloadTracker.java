@@ -0,0 +1,170 @@
+package com.mytech.backend.portal.services.Shift;
+
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.Kind;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Số booking đang mở (chưa COMPLETED / CANCELLED) của từng nhân viên, giữ trong bộ nhớ.
+ * <p>
+ * {@code loads} (ConcurrentHashMap, khóa theo từng bin) giữ số hiện tại; {@code byLoad} là tập có thứ tự
+ * (load, staffId) đóng vai min-heap. Mỗi thay đổi của 1 nhân viên cập nhật cả 2 trong
+ * {@code loads.compute} nên không lệch nhau. Số liệu nạp 1 lần bằng 1 câu đọc các booking mở đã gán,
+ * sau đó đi theo thay đổi booking đã commit; định kỳ nạp lại để bắt update hàng loạt.
+ * <p>
+ * {@code openBookings} (bookingId -> staffId) nhớ booking nào đang được tính cho ai: mỗi sự kiện chỉ đưa
+ * booking về trạng thái mới của nó, nên sự kiện của 1 thay đổi đã nằm sẵn trong số liệu nạp không bị
+ * cộng 2 lần. Nạp và áp sự kiện cùng giữ khóa this: sự kiện tới khi đang nạp chờ nạp xong rồi áp;
+ * sự kiện tới khi chưa nạp bị bỏ qua vì lần nạp sau (chạy sau commit đó) đã thấy nó.
+ */
+@Component
+@RequiredArgsConstructor
+public class StaffWorkloadTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaffWorkloadTracker.class);
+
+    static final Set<BookingStatus> CLOSED = EnumSet.of(BookingStatus.COMPLETED, BookingStatus.CANCELLED);
+
+    private final BookingRepository bookingRepository;
+    private final EntityChangeTracker entityChangeTracker;
+
+    private record Load(int count, long staffId) {
+    }
+
+    private final Map<Long, Integer> loads = new ConcurrentHashMap<>();
+    // bookingId -> staffId của các booking đang được tính; guarded by this
+    private final Map<Long, Long> openBookings = new HashMap<>();
+    private final ConcurrentSkipListSet<Load> byLoad = new ConcurrentSkipListSet<>(
+            Comparator.comparingInt(Load::count).thenComparingLong(Load::staffId));
+    private volatile boolean loaded;
+
+    @PostConstruct
+    void subscribe() {
+        entityChangeTracker.subscribeChanges(Booking.class, this::onBookingChanged);
+    }
+
+    /**
+     * Nhân viên ít booking mở nhất trong {@code candidates}; không chạy query nào (trừ lần nạp đầu).
+     * Duyệt {@code byLoad} từ nhỏ tới lớn và dừng ở ứng viên đầu tiên gặp.
+     */
+    public Optional<Long> leastLoaded(Collection<Long> candidates) {
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!loaded) {
+            ensureLoaded();
+        }
+        Long untracked = null;
+        for (Long id : candidates) {
+            // Chưa có booking mở nào = tải 0
+            if (!loads.containsKey(id) && (untracked == null || id < untracked)) {
+                untracked = id;
+            }
+        }
+        if (untracked != null) {
+            return Optional.of(untracked);
+        }
+        Set<Long> wanted = candidates instanceof Set<Long> set ? set : Set.copyOf(candidates);
+        for (Load load : byLoad) {
+            if (wanted.contains(load.staffId())) {
+                return Optional.of(load.staffId());
+            }
+        }
+        // Ứng viên vừa bị reload xóa giữa chừng
+        return candidates.stream().findFirst();
+    }
+
+    public int loadOf(Long staffId) {
+        if (!loaded) {
+            ensureLoaded();
+        }
+        return loads.getOrDefault(staffId, 0);
+    }
+
+    // Nạp lại từ DB ở lần dùng kế tiếp
+    @Scheduled(fixedDelayString = "${app.shift.workload-resync-ms:3600000}",
+            initialDelayString = "${app.shift.workload-resync-ms:3600000}")
+    public synchronized void invalidate() {
+        loaded = false;
+    }
+
+    synchronized void onBookingChanged(EntityChange change) {
+        if (!loaded) {
+            return;
+        }
+        Long bookingId = ((Booking) change.entity()).getId();
+        Long newStaff = change.kind() == Kind.DELETE ? null : staffId(change.value("assignedStaff"));
+        if (newStaff != null && isOpen(change.value("status"))) {
+            Long oldStaff = openBookings.put(bookingId, newStaff);
+            if (!newStaff.equals(oldStaff)) {
+                if (oldStaff != null) {
+                    adjust(oldStaff, -1);
+                }
+                adjust(newStaff, 1);
+            }
+        } else {
+            Long oldStaff = openBookings.remove(bookingId);
+            if (oldStaff != null) {
+                adjust(oldStaff, -1);
+            }
+        }
+    }
+
+    // Gọi khi đang giữ khóa this
+    private void adjust(Long staffId, int delta) {
+        loads.compute(staffId, (id, current) -> {
+            int before = current != null ? current : 0;
+            int after = Math.max(0, before + delta);
+            if (current != null) {
+                byLoad.remove(new Load(before, id));
+            }
+            byLoad.add(new Load(after, id));
+            return after;
+        });
+    }
+
+    private synchronized void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loads.clear();
+        byLoad.clear();
+        openBookings.clear();
+        for (Object[] row : bookingRepository.findOpenAssignments(CLOSED)) {
+            Long staffId = (Long) row[1];
+            openBookings.put((Long) row[0], staffId);
+            loads.merge(staffId, 1, Integer::sum);
+        }
+        loads.forEach((staffId, count) -> byLoad.add(new Load(count, staffId)));
+        loaded = true;
+        logger.info("Loaded workload for {} staff", loads.size());
+    }
+
+    private static boolean isOpen(Object status) {
+        return status instanceof BookingStatus s && !CLOSED.contains(s);
+    }
+
+    private static Long staffId(Object staff) {
+        return staff instanceof User user ? user.getId() : null;
+    }
+}
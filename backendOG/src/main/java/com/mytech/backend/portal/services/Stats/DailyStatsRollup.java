@@ -0,0 +1,200 @@
+package com.mytech.backend.portal.services.Stats;
+
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.OrderBooking;
+import com.mytech.backend.portal.models.Stats.DailyStatBucket;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.DailyStatBucketRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Bảng gộp số liệu theo ngày ({@link DailyStatBucket}) cho dashboard admin.
+ * <p>
+ * Khi Booking / OrderBooking / User được thêm, sửa, xóa và transaction đã commit
+ * ({@link EntityChangeTracker}), ngày liên quan bị đánh dấu "bẩn"; bucket của ngày bẩn được
+ * tính lại từ bảng gốc bằng vài câu GROUP BY (định kỳ, và ngay trước mỗi lần đọc). Thay đổi đi vòng qua Hibernate (update hàng loạt, SQL tay)
+ * được job sửa ban đêm bắt lại.
+ */
+@Component
+@RequiredArgsConstructor
+public class DailyStatsRollup {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyStatsRollup.class);
+
+    // Mỗi lần tính lại tối đa 1 tháng để câu GROUP BY không quét quá nhiều
+    private static final int CHUNK_DAYS = 31;
+
+    private final DailyStatBucketRepository bucketRepository;
+    private final EntityChangeTracker entityChangeTracker;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.stats.rollup-repair-days:35}")
+    private int repairDays;
+
+    private final Set<LocalDate> dirtyDays = ConcurrentHashMap.newKeySet();
+
+    public record Totals(double revenue, long orderCount, long bookingCount, long newCustomers,
+                         long ratingSum, long ratingCount) {
+
+        public double averageRating() {
+            return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+        }
+    }
+
+    @PostConstruct
+    void subscribe() {
+        entityChangeTracker.subscribe(OrderBooking.class, "orderDate", this::markDirty);
+        entityChangeTracker.subscribe(Booking.class, "createdAt", this::markDirty);
+        entityChangeTracker.subscribe(User.class, "createdAt", this::markDirty);
+    }
+
+    // Lần đầu chạy (bảng rỗng): dựng bucket cho toàn bộ lịch sử
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (bucketRepository.count() > 0) {
+            return;
+        }
+        LocalDate first = Stream.of(bucketRepository.findFirstOrderDate(),
+                        bucketRepository.findFirstBookingDate(),
+                        bucketRepository.findFirstUserDate())
+                .filter(Objects::nonNull)
+                .map(LocalDateTime::toLocalDate)
+                .min(LocalDate::compareTo)
+                .orElse(null);
+        if (first == null) {
+            return;
+        }
+        LocalDate end = LocalDate.now().plusDays(1);
+        rebuild(first, end);
+        logger.info("Backfilled daily stats from {} to {}", first, end);
+    }
+
+    public void markDirty(LocalDate day) {
+        if (day != null) {
+            dirtyDays.add(day);
+        }
+    }
+
+    /**
+     * Tổng số liệu của các ngày trong [from, to). Ngày bẩn được tính lại trước nên
+     * kết quả phản ánh cả thay đổi vừa commit.
+     */
+    public Totals totals(LocalDate from, LocalDate to) {
+        flushDirty();
+        Object[] row = bucketRepository.sumBetween(from, to).get(0);
+        return new Totals(((Number) row[0]).doubleValue(), ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(), ((Number) row[3]).longValue(),
+                ((Number) row[4]).longValue(), ((Number) row[5]).longValue());
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.rollup-flush-ms:5000}")
+    public void flushDirty() {
+        if (dirtyDays.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            TreeSet<LocalDate> days = new TreeSet<>();
+            for (LocalDate day : dirtyDays) {
+                if (dirtyDays.remove(day)) {
+                    days.add(day);
+                }
+            }
+            if (days.isEmpty()) {
+                return;
+            }
+            try {
+                // Thường chỉ có hôm nay; gom các ngày liền nhau thành 1 khoảng
+                LocalDate start = days.first();
+                LocalDate prev = start;
+                for (LocalDate day : days.tailSet(start, false)) {
+                    if (!day.equals(prev.plusDays(1))) {
+                        recompute(start, prev.plusDays(1));
+                        start = day;
+                    }
+                    prev = day;
+                }
+                recompute(start, prev.plusDays(1));
+            } catch (RuntimeException e) {
+                // Giữ lại để lần sau thử tiếp
+                dirtyDays.addAll(days);
+                throw e;
+            }
+        }
+    }
+
+    // Job sửa ban đêm: tính lại các ngày gần đây từ bảng gốc
+    @Scheduled(cron = "${app.stats.rollup-repair-cron:0 30 2 * * *}")
+    public void repair() {
+        LocalDate end = LocalDate.now().plusDays(1);
+        rebuild(end.minusDays(repairDays), end);
+        logger.info("Repaired daily stats for the last {} days", repairDays);
+    }
+
+    // Tính lại mọi bucket trong [from, to)
+    public synchronized void rebuild(LocalDate from, LocalDate to) {
+        for (LocalDate start = from; start.isBefore(to); start = start.plusDays(CHUNK_DAYS)) {
+            LocalDate end = start.plusDays(CHUNK_DAYS);
+            recompute(start, end.isAfter(to) ? to : end);
+        }
+    }
+
+    private void recompute(LocalDate from, LocalDate to) {
+        LocalDateTime fromAt = from.atStartOfDay();
+        LocalDateTime toAt = to.atStartOfDay();
+        LocalDateTime now = LocalDateTime.now();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Map<LocalDate, DailyStatBucket> buckets = new HashMap<>();
+            for (Object[] row : bucketRepository.aggregateOrders(fromAt, toAt)) {
+                DailyStatBucket bucket = bucket(buckets, (LocalDate) row[0], now);
+                bucket.setRevenue(row[1] != null ? ((Number) row[1]).doubleValue() : 0.0);
+                bucket.setOrderCount(((Number) row[2]).longValue());
+            }
+            for (Object[] row : bucketRepository.aggregateBookings(fromAt, toAt)) {
+                DailyStatBucket bucket = bucket(buckets, (LocalDate) row[0], now);
+                bucket.setBookingCount(((Number) row[1]).longValue());
+                bucket.setRatingSum(row[2] != null ? ((Number) row[2]).longValue() : 0L);
+                bucket.setRatingCount(((Number) row[3]).longValue());
+            }
+            for (Object[] row : bucketRepository.aggregateNewCustomers(fromAt, toAt)) {
+                bucket(buckets, (LocalDate) row[0], now).setNewCustomers(((Number) row[1]).longValue());
+            }
+
+            // Ngày không còn dữ liệu thì xóa bucket cũ
+            List<DailyStatBucket> stale = new ArrayList<>();
+            for (DailyStatBucket existing : bucketRepository.findByDayGreaterThanEqualAndDayLessThanOrderByDay(from, to)) {
+                if (!buckets.containsKey(existing.getDay())) {
+                    stale.add(existing);
+                }
+            }
+            bucketRepository.deleteAll(stale);
+            bucketRepository.saveAll(buckets.values());
+        });
+    }
+
+    private static DailyStatBucket bucket(Map<LocalDate, DailyStatBucket> buckets, LocalDate day, LocalDateTime now) {
+        return buckets.computeIfAbsent(day, d -> DailyStatBucket.builder().day(d).updatedAt(now).build());
+    }
+}
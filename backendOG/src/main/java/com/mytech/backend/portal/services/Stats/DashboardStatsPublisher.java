@@ -0,0 +1,157 @@
+package com.mytech.backend.portal.services.Stats;
+
+import com.mytech.backend.portal.dto.StatDTO;
+import com.mytech.backend.portal.dto.Stats.DashboardStatsMessage;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.OrderBooking;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.services.AdminService;
+import com.mytech.backend.portal.services.StatService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Đẩy số liệu dashboard admin qua STOMP ({@value #DESTINATION}) thay cho việc client poll.
+ * <p>
+ * Booking / OrderBooking / User thay đổi (đã commit) chỉ hẹn 1 lần tính sau {@code app.stats.push-debounce-ms};
+ * mọi thay đổi trong khoảng đó gộp vào cùng lần tính. Số liệu lấy từ {@link AdminService} và {@link StatService}
+ * (đã cache / gộp theo ngày nên chỉ tính lại phần bẩn), so với lần đẩy trước và chỉ gửi các khóa đã đổi.
+ * Bao nhiêu admin đang kết nối thì vẫn chỉ tính 1 lần. Client mới lấy snapshot qua {@code /app/admin/stats}.
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardStatsPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStatsPublisher.class);
+
+    public static final String DESTINATION = "/topic/admin/stats";
+
+    // Các kỳ mà 2 trang dashboard đang dùng
+    static final List<String> ADMIN_PERIODS = List.of("daily", "weekly", "monthly", "yearly");
+    static final List<String> STAT_PERIODS = List.of("daily", "weekly", "monthly");
+
+    private final AdminService adminService;
+    private final StatService statService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final EntityChangeTracker entityChangeTracker;
+
+    @Value("${app.stats.push-debounce-ms:1000}")
+    private long debounceMs;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile ScheduledExecutorService executor;
+
+    // guarded by this
+    private Map<String, List<StatDTO>> published = Map.of();
+    private long version;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dashboard-stats-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        entityChangeTracker.subscribe(Booking.class, null, this::onChange);
+        entityChangeTracker.subscribe(OrderBooking.class, null, this::onChange);
+        entityChangeTracker.subscribe(User.class, null, this::onChange);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    void onChange(LocalDate day) {
+        // Đã có lần tính đang chờ thì thay đổi này đi cùng lần đó
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::publishPending, debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Kỳ "ngày / tuần / tháng gần nhất" trượt theo giờ nên vẫn đẩy định kỳ dù không có thay đổi
+    @Scheduled(fixedDelayString = "${app.stats.push-refresh-ms:60000}",
+            initialDelayString = "${app.stats.push-refresh-ms:60000}")
+    public void refresh() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh dashboard stats: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tính lại số liệu và gửi các khóa đã đổi so với lần trước; trả về phần đã gửi (rỗng = không gửi gì).
+     */
+    public synchronized Map<String, List<StatDTO>> publish() {
+        Map<String, List<StatDTO>> current = compute();
+        Map<String, List<StatDTO>> changed = new LinkedHashMap<>();
+        current.forEach((key, stats) -> {
+            if (!Objects.equals(published.get(key), stats)) {
+                changed.put(key, stats);
+            }
+        });
+        published = current;
+        if (!changed.isEmpty()) {
+            version++;
+            messagingTemplate.convertAndSend(DESTINATION, message(false, changed));
+        }
+        return changed;
+    }
+
+    // Trạng thái đầy đủ cho client vừa kết nối; không tính lại nếu đã có
+    public synchronized DashboardStatsMessage snapshot() {
+        if (published.isEmpty()) {
+            published = compute();
+        }
+        return message(true, published);
+    }
+
+    private void publishPending() {
+        // Thả cờ trước khi tính: thay đổi commit trong lúc tính sẽ hẹn thêm 1 lần nữa
+        scheduled.set(false);
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish dashboard stats: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, List<StatDTO>> compute() {
+        Map<String, List<StatDTO>> stats = new LinkedHashMap<>();
+        for (String period : ADMIN_PERIODS) {
+            stats.put("admin." + period, adminService.getStats(period));
+        }
+        for (String period : STAT_PERIODS) {
+            stats.put("stats." + period, statService.getStats(period));
+        }
+        return stats;
+    }
+
+    private DashboardStatsMessage message(boolean snapshot, Map<String, List<StatDTO>> stats) {
+        return DashboardStatsMessage.builder()
+                .version(version)
+                .snapshot(snapshot)
+                .generatedAt(LocalDateTime.now())
+                .stats(stats)
+                .build();
+    }
+}
@@ -0,0 +1,196 @@
+package com.mytech.backend.portal.services.Stats;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Báo cho các bộ số liệu (bucket theo ngày, cache thống kê) biết ngày nào vừa có dữ liệu thay đổi.
+ * <p>
+ * Nghe sự kiện sau commit của Hibernate, nên chỉ thay đổi đã commit mới được báo và request
+ * ghi dữ liệu không phải chờ. Mỗi đăng ký gồm loại entity và thuộc tính ngày của nó
+ * (vd Booking.createdAt); update đổi ngày thì cả ngày cũ lẫn ngày mới đều được báo.
+ * Update hàng loạt bằng JPQL/SQL không đi qua đây.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityChangeTracker.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Map<Class<?>, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<Consumer<EntityChange>>> changeSubscriptions = new ConcurrentHashMap<>();
+
+    private record Subscription(String dateProperty, Consumer<LocalDate> listener) {
+    }
+
+    public enum Kind { INSERT, UPDATE, DELETE }
+
+    /**
+     * 1 thay đổi đã commit. {@code oldState} chỉ có với UPDATE (có thể null nếu Hibernate không giữ
+     * trạng thái cũ); với DELETE, {@code state} là trạng thái lúc xóa.
+     */
+    public record EntityChange(Kind kind, Object entity, String[] propertyNames, Object[] state, Object[] oldState) {
+
+        public Object value(String property) {
+            return valueIn(state, property);
+        }
+
+        public Object oldValue(String property) {
+            return valueIn(oldState, property);
+        }
+
+        public boolean hasOldState() {
+            return oldState != null;
+        }
+
+        private Object valueIn(Object[] values, String property) {
+            if (values == null) {
+                return null;
+            }
+            for (int i = 0; i < propertyNames.length; i++) {
+                if (propertyNames[i].equals(property)) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    @PostConstruct
+    void registerListener() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        ChangeListener listener = new ChangeListener();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    /**
+     * @param dateProperty thuộc tính LocalDateTime quyết định ngày của entity;
+     *                     null = entity không gắn với ngày, listener nhận null
+     */
+    public void subscribe(Class<?> type, String dateProperty, Consumer<LocalDate> listener) {
+        subscriptions.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>())
+                .add(new Subscription(dateProperty, listener));
+    }
+
+    // Nhận cả entity và trạng thái trước/sau, cho bộ đếm cần biết giá trị cũ (vd status booking)
+    public void subscribeChanges(Class<?> type, Consumer<EntityChange> listener) {
+        changeSubscriptions.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    private void publish(Kind kind, Object entity, EntityPersister persister, Object[] state, Object[] oldState) {
+        String[] names = persister.getPropertyNames();
+        List<Consumer<EntityChange>> changeSubs = changeSubscriptions.get(persister.getMappedClass());
+        if (changeSubs != null) {
+            EntityChange change = new EntityChange(kind, entity, names, state, oldState);
+            for (Consumer<EntityChange> listener : changeSubs) {
+                try {
+                    listener.accept(change);
+                } catch (RuntimeException e) {
+                    logger.error("Change listener for {} failed", persister.getEntityName(), e);
+                }
+            }
+        }
+
+        List<Subscription> subs = subscriptions.get(persister.getMappedClass());
+        if (subs == null) {
+            return;
+        }
+        for (Subscription sub : subs) {
+            try {
+                if (sub.dateProperty() == null) {
+                    sub.listener().accept(null);
+                    continue;
+                }
+                LocalDate day = dayOf(names, state, sub.dateProperty());
+                if (day != null) {
+                    sub.listener().accept(day);
+                }
+                LocalDate oldDay = dayOf(names, oldState, sub.dateProperty());
+                if (oldDay != null && !oldDay.equals(day)) {
+                    sub.listener().accept(oldDay);
+                }
+            } catch (RuntimeException e) {
+                // Lỗi của 1 bộ số liệu không được làm hỏng luồng commit
+                logger.error("Change listener for {} failed", persister.getEntityName(), e);
+            }
+        }
+    }
+
+    private static LocalDate dayOf(String[] names, Object[] state, String property) {
+        if (state == null) {
+            return null;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) {
+                return state[i] instanceof LocalDateTime at ? at.toLocalDate() : null;
+            }
+        }
+        return null;
+    }
+
+    private final class ChangeListener implements PostCommitInsertEventListener,
+            PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            publish(Kind.INSERT, event.getEntity(), event.getPersister(), event.getState(), null);
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            publish(Kind.UPDATE, event.getEntity(), event.getPersister(),
+                    event.getState(), event.getOldState());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            publish(Kind.DELETE, event.getEntity(), event.getPersister(),
+                    event.getDeletedState(), null);
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return subscriptions.containsKey(persister.getMappedClass())
+                    || changeSubscriptions.containsKey(persister.getMappedClass());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.mytech.backend.portal.services.Stats;
+
+import com.mytech.backend.portal.dto.Service.OccupancyReportDTO;
+
+import java.time.LocalDate;
+
+public interface OccupancyService {
+    // Tỉ lệ lấp đầy (bookedSlots / totalSlots) theo service và theo location trong [from, to] (có tính)
+    OccupancyReportDTO getReport(LocalDate from, LocalDate to, RevenueCube.Granularity granularity);
+}
@@ -0,0 +1,272 @@
+package com.mytech.backend.portal.services.Stats;
+
+import com.mytech.backend.portal.dto.Service.OccupancyReportDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Báo cáo công suất từ service_availability.
+ * <p>
+ * Số slot theo ngày được cache theo tháng. Các tháng còn thiếu trong khoảng truy vấn được nạp bằng
+ * 1 lượt quét dạng stream qua JdbcTemplate riêng có fetch size riêng (không giữ entity, không nạp hết
+ * kết quả vào bộ nhớ, không đổi cấu hình datasource của phần còn lại); gộp tuần / tháng,
+ * ngày cao điểm và số liệu theo location được tính lại từ cache ở mỗi lần gọi.
+ * Tháng hiện tại / tương lai hết hạn sau {@code app.occupancy.cache-ttl-seconds}, tháng đã qua sau 1 ngày.
+ */
+@Service
+@RequiredArgsConstructor
+public class OccupancyServiceImpl implements OccupancyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyServiceImpl.class);
+
+    private static final int MAX_MONTHS = 36;
+    private static final long PAST_MONTH_TTL_MS = 24 * 3600_000L;
+    private static final String UNKNOWN_LOCATION = "N/A";
+
+    private static final String SCAN_SQL =
+            "SELECT s.id, s.name, s.location, a.date, a.total_slots, a.booked_slots " +
+            "FROM service_availability a JOIN services s ON s.id = a.service_id " +
+            "WHERE a.date BETWEEN ? AND ?";
+
+    private final DataSource dataSource;
+
+    @Value("${app.occupancy.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Value("${app.occupancy.fetch-size:1000}")
+    private int fetchSize;
+
+    // Chỉ dùng cho lượt quét công suất
+    private JdbcTemplate scanJdbc;
+
+    private final Map<YearMonth, MonthData> months = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        scanJdbc = new JdbcTemplate(dataSource);
+        scanJdbc.setFetchSize(fetchSize);
+    }
+
+    // serviceId -> slot từng ngày của 1 tháng
+    private record MonthData(Map<Long, ServiceDays> services, long loadedAt) {
+    }
+
+    private record ServiceDays(String name, String location, int[] booked, int[] total) {
+    }
+
+    // Cộng dồn cho 1 dòng báo cáo (service hoặc location)
+    private static final class Acc {
+        final Long serviceId;
+        final String name;
+        final String location;
+        final long[] booked;
+        final long[] total;
+        LocalDate peakDay;
+        double peakRate = -1;
+
+        Acc(Long serviceId, String name, String location, int buckets) {
+            this.serviceId = serviceId;
+            this.name = name;
+            this.location = location;
+            this.booked = new long[buckets];
+            this.total = new long[buckets];
+        }
+
+        void add(int bucket, LocalDate day, long dayBooked, long dayTotal) {
+            booked[bucket] += dayBooked;
+            total[bucket] += dayTotal;
+            double rate = rate(dayBooked, dayTotal);
+            if (rate > peakRate) {
+                peakRate = rate;
+                peakDay = day;
+            }
+        }
+    }
+
+    @Override
+    public OccupancyReportDTO getReport(LocalDate from, LocalDate to, RevenueCube.Granularity granularity) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("from and to are required, from <= to");
+        }
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+        if (first.until(last, ChronoUnit.MONTHS) >= MAX_MONTHS) {
+            throw new IllegalArgumentException("Range too large (max " + MAX_MONTHS + " months)");
+        }
+        RevenueCube.Granularity g = granularity != null ? granularity : RevenueCube.Granularity.DAY;
+
+        Map<YearMonth, MonthData> data = ensureLoaded(first, last);
+
+        // Kỳ của từng ngày
+        List<LocalDate> periods = new ArrayList<>();
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        int[] bucketOfDay = new int[days];
+        LocalDate current = null;
+        for (int i = 0; i < days; i++) {
+            LocalDate start = g.bucketStart(from.plusDays(i));
+            if (!start.equals(current)) {
+                periods.add(start);
+                current = start;
+            }
+            bucketOfDay[i] = periods.size() - 1;
+        }
+
+        Map<Long, Acc> services = new LinkedHashMap<>();
+        Map<String, Acc> locations = new LinkedHashMap<>();
+        Map<String, long[]> locationDay = new HashMap<>();
+        for (int i = 0; i < days; i++) {
+            LocalDate day = from.plusDays(i);
+            int bucket = bucketOfDay[i];
+            int idx = day.getDayOfMonth() - 1;
+            locationDay.clear();
+            for (Map.Entry<Long, ServiceDays> e : data.get(YearMonth.from(day)).services().entrySet()) {
+                ServiceDays sd = e.getValue();
+                if (sd.total()[idx] <= 0) {
+                    continue;
+                }
+                services.computeIfAbsent(e.getKey(),
+                                id -> new Acc(id, sd.name(), sd.location(), periods.size()))
+                        .add(bucket, day, sd.booked()[idx], sd.total()[idx]);
+                long[] loc = locationDay.computeIfAbsent(locationOf(sd), l -> new long[2]);
+                loc[0] += sd.booked()[idx];
+                loc[1] += sd.total()[idx];
+            }
+            for (Map.Entry<String, long[]> e : locationDay.entrySet()) {
+                locations.computeIfAbsent(e.getKey(), l -> new Acc(null, l, l, periods.size()))
+                        .add(bucket, day, e.getValue()[0], e.getValue()[1]);
+            }
+        }
+
+        return OccupancyReportDTO.builder()
+                .granularity(g.name())
+                .from(from)
+                .to(to)
+                .periods(periods)
+                .services(toRows(services.values()))
+                .locations(toRows(locations.values()))
+                .build();
+    }
+
+    // Trả về dữ liệu của mọi tháng trong [first, last]; tháng thiếu / hết hạn được nạp bằng 1 lượt quét
+    private Map<YearMonth, MonthData> ensureLoaded(YearMonth first, YearMonth last) {
+        long now = System.currentTimeMillis();
+        YearMonth thisMonth = YearMonth.now();
+        Map<YearMonth, MonthData> result = new HashMap<>();
+        YearMonth loadFrom = null;
+        YearMonth loadTo = null;
+        for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+            MonthData cached = months.get(m);
+            long ttlMs = m.isBefore(thisMonth) ? PAST_MONTH_TTL_MS : cacheTtlSeconds * 1000;
+            if (cached == null || now - cached.loadedAt() > ttlMs) {
+                if (loadFrom == null) {
+                    loadFrom = m;
+                }
+                loadTo = m;
+            } else {
+                result.put(m, cached);
+            }
+        }
+        if (loadFrom != null) {
+            Map<YearMonth, MonthData> loaded = scan(loadFrom, loadTo);
+            result.putAll(loaded);
+            months.putAll(loaded);
+            evictOldest();
+        }
+        return result;
+    }
+
+    private Map<YearMonth, MonthData> scan(YearMonth first, YearMonth last) {
+        long started = System.nanoTime();
+        Map<YearMonth, Map<Long, ServiceDays>> byMonth = new HashMap<>();
+        for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+            byMonth.put(m, new HashMap<>());
+        }
+        AtomicLong rows = new AtomicLong();
+        scanJdbc.query(SCAN_SQL, (RowCallbackHandler) rs -> {
+            LocalDate date = rs.getDate(4).toLocalDate();
+            YearMonth month = YearMonth.from(date);
+            String name = rs.getString(2);
+            String location = rs.getString(3);
+            ServiceDays sd = byMonth.get(month).computeIfAbsent(rs.getLong(1),
+                    id -> new ServiceDays(name, location,
+                            new int[month.lengthOfMonth()], new int[month.lengthOfMonth()]));
+            // getInt trả 0 khi NULL
+            sd.total()[date.getDayOfMonth() - 1] = rs.getInt(5);
+            sd.booked()[date.getDayOfMonth() - 1] = rs.getInt(6);
+            rows.incrementAndGet();
+        }, Date.valueOf(first.atDay(1)), Date.valueOf(last.atEndOfMonth()));
+        logger.debug("Occupancy scan {}..{}: {} rows in {} ms", first, last, rows.get(),
+                (System.nanoTime() - started) / 1_000_000);
+
+        long now = System.currentTimeMillis();
+        Map<YearMonth, MonthData> result = new HashMap<>();
+        byMonth.forEach((m, services) -> result.put(m, new MonthData(services, now)));
+        return result;
+    }
+
+    private void evictOldest() {
+        while (months.size() > 2 * MAX_MONTHS) {
+            months.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().loadedAt()))
+                    .ifPresent(e -> months.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    private static List<OccupancyReportDTO.Row> toRows(Iterable<Acc> accs) {
+        List<OccupancyReportDTO.Row> rows = new ArrayList<>();
+        for (Acc acc : accs) {
+            double[] rates = new double[acc.booked.length];
+            long booked = 0;
+            long total = 0;
+            for (int b = 0; b < rates.length; b++) {
+                rates[b] = rate(acc.booked[b], acc.total[b]);
+                booked += acc.booked[b];
+                total += acc.total[b];
+            }
+            rows.add(OccupancyReportDTO.Row.builder()
+                    .serviceId(acc.serviceId)
+                    .name(acc.name)
+                    .location(acc.location)
+                    .bookedSlots(acc.booked)
+                    .totalSlots(acc.total)
+                    .occupancyRate(rates)
+                    .overallRate(rate(booked, total))
+                    .peakDay(acc.peakDay)
+                    .peakRate(Math.max(acc.peakRate, 0))
+                    .build());
+        }
+        // Dùng ít nhất lên đầu
+        rows.sort(Comparator.comparingDouble(OccupancyReportDTO.Row::getOverallRate)
+                .thenComparing(OccupancyReportDTO.Row::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return rows;
+    }
+
+    private static String locationOf(ServiceDays sd) {
+        return sd.location() != null && !sd.location().isBlank() ? sd.location() : UNKNOWN_LOCATION;
+    }
+
+    private static double rate(long booked, long total) {
+        return total > 0 ? Math.round(booked * 1000.0 / total) / 10.0 : 0.0;
+    }
+}
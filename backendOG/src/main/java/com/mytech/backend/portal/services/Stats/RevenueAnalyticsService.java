@@ -0,0 +1,8 @@
+package com.mytech.backend.portal.services.Stats;
+
+import com.mytech.backend.portal.dto.Stats.RevenueSeriesDTO;
+
+public interface RevenueAnalyticsService {
+    // Chuỗi doanh thu / số item theo kỳ, lọc và gộp theo 1 chiều (query.to không tính)
+    RevenueSeriesDTO getSeries(RevenueCube.Query query);
+}
@@ -0,0 +1,185 @@
+package com.mytech.backend.portal.services.Stats;
+
+import com.mytech.backend.portal.dto.Stats.RevenueSeriesDTO;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Booking.ItemType;
+import com.mytech.backend.portal.repositories.BookingItemRepository;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.Kind;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Nạp booking item vào {@link RevenueCube} và trả lời truy vấn chuỗi thời gian từ bộ nhớ.
+ * <p>
+ * Lần đầu nạp toàn bộ theo lô (thứ tự id); sau đó định kỳ đọc item từ {@code cube-rescan-ids} id trước
+ * item cuối đã nạp trở đi: id IDENTITY cấp lúc insert nhưng commit có thể muộn hơn id lớn hơn, nên đọc
+ * lại 1 đoạn đuôi để bắt item commit muộn (cube tự bỏ trùng theo id). Item thêm / sửa / xóa và đổi status /
+ * xóa booking (đã commit trên instance này) được gom lại và áp ở lần làm mới kế tiếp, kể cả item cũ
+ * nằm ngoài đoạn đuôi.
+ */
+@Service
+@RequiredArgsConstructor
+public class RevenueAnalyticsServiceImpl implements RevenueAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueAnalyticsServiceImpl.class);
+
+    // Giới hạn khoảng truy vấn để mảng kỳ không quá lớn
+    private static final long MAX_RANGE_DAYS = 3660;
+
+    private final BookingItemRepository bookingItemRepository;
+    private final EntityChangeTracker entityChangeTracker;
+
+    @Value("${app.stats.cube-batch-size:20000}")
+    private int batchSize;
+
+    // Số id đọc lại phía trước item cuối mỗi lần làm mới
+    @Value("${app.stats.cube-rescan-ids:2000}")
+    private long rescanIds;
+
+    private final RevenueCube cube = new RevenueCube();
+
+    // bookingId -> status mới (empty = đã xóa), chờ áp vào cube
+    private final Map<Long, Optional<BookingStatus>> pendingStatuses = new ConcurrentHashMap<>();
+    // itemId -> true = thêm / sửa, false = đã xóa; chờ áp vào cube
+    private final Map<Long, Boolean> pendingItems = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @PostConstruct
+    void subscribe() {
+        entityChangeTracker.subscribeChanges(Booking.class, this::onBookingChanged);
+        entityChangeTracker.subscribeChanges(BookingItem.class, this::onItemChanged);
+    }
+
+    @Override
+    public RevenueSeriesDTO getSeries(RevenueCube.Query query) {
+        if (query.from() == null || query.to() == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (ChronoUnit.DAYS.between(query.from(), query.to()) > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Range too large (max " + MAX_RANGE_DAYS + " days)");
+        }
+        if (!loaded) {
+            refresh();
+        }
+        RevenueCube.Result result = cube.query(query);
+        List<RevenueSeriesDTO.Series> series = new ArrayList<>(result.series().size());
+        for (RevenueCube.Series s : result.series()) {
+            series.add(new RevenueSeriesDTO.Series(s.key(), s.revenue(), s.count()));
+        }
+        return RevenueSeriesDTO.builder()
+                .granularity(Objects.requireNonNullElse(query.granularity(), RevenueCube.Granularity.DAY).name())
+                .groupBy(Objects.requireNonNullElse(query.groupBy(), RevenueCube.Dimension.NONE).name())
+                .periods(result.periods())
+                .series(series)
+                .build();
+    }
+
+    // Đọc item mới (và đoạn đuôi) theo lô, các item đã đổi, rồi áp các thay đổi status đang chờ
+    @Scheduled(fixedDelayString = "${app.stats.cube-refresh-ms:10000}")
+    public synchronized void refresh() {
+        long started = System.nanoTime();
+        int added = 0;
+        long afterId = loaded ? Math.max(0L, cube.lastItemId() - rescanIds) : 0L;
+        while (true) {
+            List<Object[]> rows = bookingItemRepository.findCubeFacts(afterId, PageRequest.of(0, batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            cube.append(toFacts(rows));
+            added += rows.size();
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+
+        List<Long> changedItems = new ArrayList<>();
+        List<Long> deletedItems = new ArrayList<>();
+        for (Long itemId : List.copyOf(pendingItems.keySet())) {
+            Boolean present = pendingItems.remove(itemId);
+            if (present != null) {
+                (present ? changedItems : deletedItems).add(itemId);
+            }
+        }
+        for (int from = 0; from < changedItems.size(); from += batchSize) {
+            List<Long> ids = changedItems.subList(from, Math.min(from + batchSize, changedItems.size()));
+            cube.append(toFacts(bookingItemRepository.findCubeFactsByIds(ids)));
+        }
+        cube.removeItems(deletedItems);
+
+        Map<Long, BookingStatus> changes = new HashMap<>();
+        for (Long bookingId : List.copyOf(pendingStatuses.keySet())) {
+            Optional<BookingStatus> status = pendingStatuses.remove(bookingId);
+            if (status != null) {
+                changes.put(bookingId, status.orElse(null));
+            }
+        }
+        cube.updateStatuses(changes);
+
+        if (!loaded) {
+            loaded = true;
+            logger.info("Revenue cube loaded {} items in {} ms", added, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    void onBookingChanged(EntityChange change) {
+        Long bookingId = ((Booking) change.entity()).getId();
+        if (change.kind() == Kind.DELETE) {
+            pendingStatuses.put(bookingId, Optional.empty());
+        } else if (change.kind() == Kind.UPDATE
+                && (!change.hasOldState() || change.value("status") != change.oldValue("status"))) {
+            pendingStatuses.put(bookingId, Optional.ofNullable((BookingStatus) change.value("status")));
+        }
+        // INSERT: item mới được lần làm mới sau đọc theo id
+    }
+
+    void onItemChanged(EntityChange change) {
+        Long itemId = ((BookingItem) change.entity()).getId();
+        if (itemId != null) {
+            pendingItems.put(itemId, change.kind() != Kind.DELETE);
+        }
+    }
+
+    private static List<RevenueCube.Fact> toFacts(List<Object[]> rows) {
+        List<RevenueCube.Fact> facts = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            facts.add(toFact(row));
+        }
+        return facts;
+    }
+
+    private static RevenueCube.Fact toFact(Object[] row) {
+        Double price = (Double) row[3];
+        Integer quantity = (Integer) row[4];
+        long amount = price != null ? Math.round(price * (quantity != null ? quantity : 1)) : 0L;
+        return new RevenueCube.Fact(
+                (Long) row[0],
+                (Long) row[1],
+                ((LocalDateTime) row[2]).toLocalDate(),
+                amount,
+                (ItemType) row[5],
+                (Long) row[6],
+                (Long) row[7],
+                (String) row[8],
+                (BookingStatus) row[9]);
+    }
+}
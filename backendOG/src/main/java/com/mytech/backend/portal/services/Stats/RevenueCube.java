@@ -0,0 +1,456 @@
+package com.mytech.backend.portal.services.Stats;
+
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Booking.ItemType;
+import lombok.Builder;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cube doanh thu dạng cột: mỗi booking item là 1 dòng, mỗi thuộc tính là 1 mảng nguyên thủy
+ * (ngày dạng epoch-day, số tiền, mã service / combo / location, loại item, status booking).
+ * Service, combo, location được mã hóa thành số liên tục 0..n-1 qua từ điển để gộp nhóm bằng mảng.
+ * <p>
+ * Truy vấn lọc + gộp theo ngày / tuần / tháng và 1 chiều tùy chọn được chia đoạn và quét song song
+ * trên ForkJoinPool chung; mỗi đoạn cộng dồn vào mảng riêng rồi gộp lại, không có khóa trong vòng lặp.
+ * Ghi (thêm dòng, đổi status) giữ write lock; đọc giữ read lock nên nhiều truy vấn chạy cùng lúc được.
+ */
+public class RevenueCube {
+
+    public static final int NONE = -1;
+
+    // Dưới ngưỡng này 1 luồng quét nhanh hơn chi phí chia việc
+    public static final int LEAF_SIZE = 1 << 16;
+    private static final byte DELETED = -1;
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        public LocalDate bucketStart(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        public static Granularity parse(String value) {
+            if (value == null || value.isBlank()) {
+                return DAY;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid granularity: " + value + " (day, week, month)");
+            }
+        }
+    }
+
+    public enum Dimension {
+        NONE, SERVICE, COMBO, LOCATION, ITEM_TYPE;
+
+        public static Dimension parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NONE;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase().replace("ITEMTYPE", "ITEM_TYPE"));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid groupBy: " + value
+                        + " (service, combo, location, itemType)");
+            }
+        }
+    }
+
+    // 1 booking item
+    public record Fact(long itemId, long bookingId, LocalDate day, long amount, ItemType type,
+                       Long serviceId, Long comboId, String location, BookingStatus status) {
+    }
+
+    /**
+     * @param to       ngày kết thúc (không tính)
+     * @param statuses null hoặc rỗng = mọi status
+     */
+    @Builder
+    public record Query(Granularity granularity, LocalDate from, LocalDate to, Dimension groupBy,
+                        Long serviceId, Long comboId, String location, ItemType itemType,
+                        Set<BookingStatus> statuses) {
+    }
+
+    public record Series(String key, long[] revenue, long[] count) {
+    }
+
+    public record Result(List<LocalDate> periods, List<Series> series) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Các cột, guarded by lock
+    private int size;
+    private long[] itemIds = new long[0];
+    private long[] bookingIds = new long[0];
+    private int[] days = new int[0];
+    private long[] amounts = new long[0];
+    private int[] services = new int[0];
+    private int[] combos = new int[0];
+    private int[] locations = new int[0];
+    private byte[] types = new byte[0];
+    private byte[] statuses = new byte[0];
+
+    private final Dictionary<Long> serviceDict = new Dictionary<>();
+    private final Dictionary<Long> comboDict = new Dictionary<>();
+    private final Dictionary<String> locationDict = new Dictionary<>();
+
+    // Giá trị -> mã liên tục; guarded by lock
+    private static final class Dictionary<T> {
+        private final Map<T, Integer> codes = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        int encode(T value) {
+            if (value == null) {
+                return NONE;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        // null nếu chưa từng gặp
+        Integer find(T value) {
+            return codes.get(value);
+        }
+
+        T decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Id item lớn nhất đã nạp; lần nạp sau đọc tiếp từ đây
+    public long lastItemId() {
+        lock.readLock().lock();
+        try {
+            return size == 0 ? 0L : itemIds[size - 1];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Thêm hoặc cập nhật item, giữ cột itemId tăng dần. Item mới hơn item cuối được nối vào cuối;
+     * item đã có thì ghi đè (giá / số lượng / status đổi); item id nhỏ commit muộn được chèn đúng chỗ
+     * (chỉ dời phần đuôi phía sau nó, thường rất ngắn).
+     */
+    public void append(List<Fact> facts) {
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(size + facts.size());
+            for (Fact f : facts) {
+                int i;
+                if (size == 0 || f.itemId() > itemIds[size - 1]) {
+                    i = size++;
+                } else {
+                    i = Arrays.binarySearch(itemIds, 0, size, f.itemId());
+                    if (i < 0) {
+                        i = -i - 1;
+                        shiftTail(i);
+                    }
+                }
+                write(i, f);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Item đã bị xóa: giữ dòng nhưng không còn được tính
+    public int removeItems(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (Long id : ids) {
+                int i = Arrays.binarySearch(itemIds, 0, size, id);
+                if (i >= 0 && statuses[i] != DELETED) {
+                    statuses[i] = DELETED;
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Gọi khi đang giữ write lock
+    private void write(int i, Fact f) {
+        itemIds[i] = f.itemId();
+        bookingIds[i] = f.bookingId();
+        days[i] = (int) f.day().toEpochDay();
+        amounts[i] = f.amount();
+        services[i] = serviceDict.encode(f.serviceId());
+        combos[i] = comboDict.encode(f.comboId());
+        locations[i] = locationDict.encode(f.location());
+        types[i] = f.type() != null ? (byte) f.type().ordinal() : (byte) NONE;
+        statuses[i] = f.status() != null ? (byte) f.status().ordinal() : (byte) NONE;
+    }
+
+    // Dời các dòng từ i về sau 1 ô để chèn vào i; gọi khi đang giữ write lock và còn chỗ
+    private void shiftTail(int i) {
+        int n = size - i;
+        System.arraycopy(itemIds, i, itemIds, i + 1, n);
+        System.arraycopy(bookingIds, i, bookingIds, i + 1, n);
+        System.arraycopy(days, i, days, i + 1, n);
+        System.arraycopy(amounts, i, amounts, i + 1, n);
+        System.arraycopy(services, i, services, i + 1, n);
+        System.arraycopy(combos, i, combos, i + 1, n);
+        System.arraycopy(locations, i, locations, i + 1, n);
+        System.arraycopy(types, i, types, i + 1, n);
+        System.arraycopy(statuses, i, statuses, i + 1, n);
+        size++;
+    }
+
+    /**
+     * Cập nhật status cho mọi item của các booking; value null = booking đã bị xóa.
+     *
+     * @return số dòng bị đổi
+     */
+    public int updateStatuses(Map<Long, BookingStatus> changes) {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        lock.writeLock().lock();
+        try {
+            int changed = 0;
+            for (int i = 0; i < size; i++) {
+                // Item đã xóa riêng lẻ thì giữ nguyên trạng thái xóa
+                if (statuses[i] != DELETED && changes.containsKey(bookingIds[i])) {
+                    BookingStatus status = changes.get(bookingIds[i]);
+                    statuses[i] = status != null ? (byte) status.ordinal() : DELETED;
+                    changed++;
+                }
+            }
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result query(Query q) {
+        int fromDay = (int) q.from().toEpochDay();
+        int toDay = (int) q.to().toEpochDay();
+        if (toDay <= fromDay) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        // Ngày -> chỉ số kỳ, tính 1 lần cho cả truy vấn
+        Granularity granularity = q.granularity() != null ? q.granularity() : Granularity.DAY;
+        int[] bucketOfDay = new int[toDay - fromDay];
+        List<LocalDate> periods = new ArrayList<>();
+        LocalDate current = null;
+        for (int d = fromDay; d < toDay; d++) {
+            LocalDate start = granularity.bucketStart(LocalDate.ofEpochDay(d));
+            if (!start.equals(current)) {
+                periods.add(start);
+                current = start;
+            }
+            bucketOfDay[d - fromDay] = periods.size() - 1;
+        }
+
+        int statusMask = 0;
+        Set<BookingStatus> wanted = q.statuses() == null || q.statuses().isEmpty()
+                ? EnumSet.allOf(BookingStatus.class) : q.statuses();
+        for (BookingStatus s : wanted) {
+            statusMask |= 1 << s.ordinal();
+        }
+
+        Dimension groupBy = q.groupBy() != null ? q.groupBy() : Dimension.NONE;
+        lock.readLock().lock();
+        try {
+            Integer serviceFilter = filterCode(serviceDict, q.serviceId());
+            Integer comboFilter = filterCode(comboDict, q.comboId());
+            Integer locationFilter = filterCode(locationDict, q.location());
+            if (serviceFilter == null || comboFilter == null || locationFilter == null) {
+                // Giá trị lọc chưa từng xuất hiện
+                return new Result(periods, List.of());
+            }
+            int groups = switch (groupBy) {
+                case NONE -> 1;
+                case SERVICE -> serviceDict.size();
+                case COMBO -> comboDict.size();
+                case LOCATION -> locationDict.size();
+                case ITEM_TYPE -> ItemType.values().length;
+            };
+            Scan scan = new Scan(fromDay, toDay, bucketOfDay, periods.size(), groupBy, groups + 1,
+                    serviceFilter, comboFilter, locationFilter,
+                    q.itemType() != null ? q.itemType().ordinal() : NONE,
+                    statusMask);
+            long[][] acc = size == 0 ? new long[scan.slots()][]
+                    : ForkJoinPool.commonPool().invoke(new ScanTask(scan, 0, size));
+
+            // Slot 0 = không có giá trị (NONE), slot k+1 = mã k
+            List<Series> series = new ArrayList<>();
+            int n = periods.size();
+            for (int slot = 0; slot < acc.length; slot++) {
+                if (acc[slot] != null) {
+                    series.add(new Series(label(groupBy, slot - 1),
+                            Arrays.copyOfRange(acc[slot], 0, n), Arrays.copyOfRange(acc[slot], n, 2 * n)));
+                }
+            }
+            if (groupBy != Dimension.NONE) {
+                series.sort(Comparator.comparing(Series::key));
+            }
+            return new Result(periods, series);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Gọi khi đang giữ read lock
+    private String label(Dimension groupBy, int key) {
+        if (groupBy == Dimension.NONE) {
+            return "all";
+        }
+        if (key == NONE) {
+            return "none";
+        }
+        return switch (groupBy) {
+            case SERVICE -> String.valueOf(serviceDict.decode(key));
+            case COMBO -> String.valueOf(comboDict.decode(key));
+            case LOCATION -> locationDict.decode(key);
+            default -> ItemType.values()[key].name();
+        };
+    }
+
+    // NONE = không lọc; null = giá trị chưa có trong cube
+    private static <T> Integer filterCode(Dictionary<T> dict, T value) {
+        return value == null ? Integer.valueOf(NONE) : dict.find(value);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= itemIds.length) {
+            return;
+        }
+        int capacity = Math.max(needed, Math.max(1024, itemIds.length * 2));
+        itemIds = Arrays.copyOf(itemIds, capacity);
+        bookingIds = Arrays.copyOf(bookingIds, capacity);
+        days = Arrays.copyOf(days, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        services = Arrays.copyOf(services, capacity);
+        combos = Arrays.copyOf(combos, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        types = Arrays.copyOf(types, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+    }
+
+    // Tham số đã chuẩn hóa của 1 lần quét
+    private record Scan(int fromDay, int toDay, int[] bucketOfDay, int buckets, Dimension groupBy, int slots,
+                        int service, int combo, int location, int type, int statusMask) {
+    }
+
+    // Kết quả: slot nhóm -> [doanh thu theo kỳ..., số item theo kỳ...], null nếu nhóm không có dòng nào
+    private final class ScanTask extends RecursiveTask<long[][]> {
+
+        private final Scan scan;
+        private final int lo;
+        private final int hi;
+
+        ScanTask(Scan scan, int lo, int hi) {
+            this.scan = scan;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (hi - lo <= LEAF_SIZE) {
+                return scanRange();
+            }
+            int mid = (lo + hi) >>> 1;
+            ScanTask left = new ScanTask(scan, lo, mid);
+            left.fork();
+            long[][] right = new ScanTask(scan, mid, hi).compute();
+            return merge(left.join(), right);
+        }
+
+        private long[][] scanRange() {
+            long[][] out = new long[scan.slots()][];
+            int n = scan.buckets();
+            for (int i = lo; i < hi; i++) {
+                int day = days[i];
+                if (day < scan.fromDay() || day >= scan.toDay()) {
+                    continue;
+                }
+                int status = statuses[i];
+                if (status < 0 || (scan.statusMask() & (1 << status)) == 0) {
+                    continue;
+                }
+                if ((scan.service() != NONE && services[i] != scan.service())
+                        || (scan.combo() != NONE && combos[i] != scan.combo())
+                        || (scan.location() != NONE && locations[i] != scan.location())
+                        || (scan.type() != NONE && types[i] != scan.type())) {
+                    continue;
+                }
+                int slot = 1 + switch (scan.groupBy()) {
+                    case NONE -> 0;
+                    case SERVICE -> services[i];
+                    case COMBO -> combos[i];
+                    case LOCATION -> locations[i];
+                    case ITEM_TYPE -> types[i];
+                };
+                long[] acc = out[slot];
+                if (acc == null) {
+                    acc = out[slot] = new long[2 * n];
+                }
+                int bucket = scan.bucketOfDay()[day - scan.fromDay()];
+                acc[bucket] += amounts[i];
+                acc[n + bucket]++;
+            }
+            return out;
+        }
+
+        private long[][] merge(long[][] a, long[][] b) {
+            for (int slot = 0; slot < a.length; slot++) {
+                if (b[slot] == null) {
+                    continue;
+                }
+                if (a[slot] == null) {
+                    a[slot] = b[slot];
+                    continue;
+                }
+                long[] target = a[slot];
+                long[] src = b[slot];
+                for (int k = 0; k < src.length; k++) {
+                    target[k] += src[k];
+                }
+            }
+            return a;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mytech.backend.portal.services.impl;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -11,27 +12,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.mytech.backend.portal.dto.StatDTO;
-import com.mytech.backend.portal.repositories.BookingRepository;
-import com.mytech.backend.portal.repositories.OrderBookingRepository;
 import com.mytech.backend.portal.repositories.ServiceRepository;
-import com.mytech.backend.portal.repositories.UserRepository;
 import com.mytech.backend.portal.services.AdminService;
+import com.mytech.backend.portal.services.Stats.DailyStatsRollup;
 
 @Service
 public class AdminServiceImpl implements AdminService {
     private static final Logger logger = LoggerFactory.getLogger(AdminServiceImpl.class);
 
-    @Autowired
-    private BookingRepository bookingRepository;
-
-    @Autowired
-    private OrderBookingRepository orderBookingRepository;
-
     @Autowired
     private ServiceRepository serviceRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private DailyStatsRollup dailyStatsRollup;
     
 	@Override
 	public List<StatDTO> getStats(String period) {
@@ -93,37 +86,28 @@ public class AdminServiceImpl implements AdminService {
         List<StatDTO> stats = new ArrayList<>();
 
         try {
+            // Đọc từ bucket theo ngày: 1 ngày được tính nếu 0h của nó nằm trong khoảng
+            LocalDate currentFrom = firstDayFrom(currentStart);
+            LocalDate currentTo = firstDayFrom(currentEnd);
+            LocalDate prevFrom = firstDayFrom(prevStart);
+            DailyStatsRollup.Totals current = dailyStatsRollup.totals(currentFrom, currentTo);
+            DailyStatsRollup.Totals previous = dailyStatsRollup.totals(prevFrom, currentFrom);
+
             // Revenue Stat
-            double totalRevenue = orderBookingRepository.findAll().stream()
-                    .filter(ob -> ob.getOrderDate() != null && ob.getOrderDate().isAfter(currentStart) && ob.getOrderDate().isBefore(currentEnd))
-                    .mapToDouble(ob -> ob.getTotalPrice() != null ? ob.getTotalPrice() : 0)
-                    .sum();
-            double prevTotalRevenue = orderBookingRepository.findAll().stream()
-                    .filter(ob -> ob.getOrderDate() != null && ob.getOrderDate().isAfter(prevStart) && ob.getOrderDate().isBefore(currentStart))
-                    .mapToDouble(ob -> ob.getTotalPrice() != null ? ob.getTotalPrice() : 0)
-                    .sum();
+            double totalRevenue = current.revenue();
+            double prevTotalRevenue = previous.revenue();
             String revenueChange = calculateChange(totalRevenue, prevTotalRevenue);
             stats.add(new StatDTO("Total Revenue", String.format("%,.0f VND", totalRevenue), "vnd", "text-green-600", revenueChange));
 
             // Bookings Stat
-            long totalBookings = bookingRepository.findAll().stream()
-                    .filter(b -> b.getCreatedAt() != null && b.getCreatedAt().isAfter(currentStart) && b.getCreatedAt().isBefore(currentEnd))
-                    .count();
-            long prevTotalBookings = bookingRepository.findAll().stream()
-                    .filter(b -> b.getCreatedAt() != null && b.getCreatedAt().isAfter(prevStart) && b.getCreatedAt().isBefore(currentStart))
-                    .count();
+            long totalBookings = current.bookingCount();
+            long prevTotalBookings = previous.bookingCount();
             String bookingsChange = calculateChange(totalBookings, prevTotalBookings);
             stats.add(new StatDTO("Total Bookings", String.valueOf(totalBookings), "calendar", "text-blue-600", bookingsChange));
 
             // Customers Stat
-            long totalCustomers = userRepository.findAll().stream()
-                    .filter(u -> u.getRole() != null && u.getRole() == com.mytech.backend.portal.models.User.User.Role.CUSTOMER)
-                    .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(currentStart) && u.getCreatedAt().isBefore(currentEnd))
-                    .count();
-            long prevTotalCustomers = userRepository.findAll().stream()
-                    .filter(u -> u.getRole() != null && u.getRole() == com.mytech.backend.portal.models.User.User.Role.CUSTOMER)
-                    .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(prevStart) && u.getCreatedAt().isBefore(currentStart))
-                    .count();
+            long totalCustomers = current.newCustomers();
+            long prevTotalCustomers = previous.newCustomers();
             String customersChange = calculateChange(totalCustomers, prevTotalCustomers);
             stats.add(new StatDTO("New Customers", String.valueOf(totalCustomers), "users", "text-purple-600", customersChange));
 
@@ -134,16 +118,8 @@ public class AdminServiceImpl implements AdminService {
             stats.add(new StatDTO("Active Services", String.valueOf(totalServices), "package", "text-yellow-600", servicesChange));
 
             // Average Rating Stat
-            double avgRating = bookingRepository.findAll().stream()
-                    .filter(b -> b.getRating() != null && b.getCreatedAt() != null && b.getCreatedAt().isAfter(currentStart) && b.getCreatedAt().isBefore(currentEnd))
-                    .mapToInt(b -> b.getRating() != null ? b.getRating() : 0)
-                    .average()
-                    .orElse(0.0);
-            double prevAvgRating = bookingRepository.findAll().stream()
-                    .filter(b -> b.getRating() != null && b.getCreatedAt() != null && b.getCreatedAt().isAfter(prevStart) && b.getCreatedAt().isBefore(currentStart))
-                    .mapToInt(b -> b.getRating() != null ? b.getRating() : 0)
-                    .average()
-                    .orElse(0.0);
+            double avgRating = current.averageRating();
+            double prevAvgRating = previous.averageRating();
             String ratingChange = String.format("%.1f", avgRating - prevAvgRating);
             stats.add(new StatDTO("Average Rating", String.format("%.1f", avgRating), "star", "text-orange-600", ratingChange));
 
@@ -155,6 +131,12 @@ public class AdminServiceImpl implements AdminService {
         }
     }
 
+    // Ngày đầu tiên có 0h >= at (at đúng 0h thì là chính ngày đó)
+    private static LocalDate firstDayFrom(LocalDateTime at) {
+        LocalDate day = at.toLocalDate();
+        return at.equals(day.atStartOfDay()) ? day : day.plusDays(1);
+    }
+
     private String calculateChange(double current, double previous) {
         if (previous == 0) {
             return current == 0 ? "0%" : "+100%";
@@ -11,11 +11,14 @@ import com.mytech.backend.portal.models.OrderBooking;
 import com.mytech.backend.portal.models.Booking.Booking;
 import com.mytech.backend.portal.models.Booking.BookingItem;
 import com.mytech.backend.portal.models.Customer.Customer;
+import com.mytech.backend.portal.models.Email.EmailOutbox;
+import com.mytech.backend.portal.repositories.EmailOutboxRepository;
 import com.mytech.backend.portal.services.EmailService;
 import jakarta.mail.internet.MimeMessage;
 
 import java.io.File;
 import java.text.NumberFormat;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 import org.springframework.core.io.ClassPathResource;
@@ -29,12 +32,18 @@ import org.thymeleaf.context.Context;
 @Service
 public class EmailServiceImpl implements EmailService {
 
+    static final String FROM_ADDRESS = "no-reply@ogcamping.vn";
+    static final String BOOKING_CONFIRMATION_SUBJECT = "Xác nhận đơn đặt chỗ - OGCAMPING";
+
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
+    private final EmailOutboxRepository emailOutboxRepository;
 
-    public EmailServiceImpl(JavaMailSender mailSender, TemplateEngine templateEngine) {
+    public EmailServiceImpl(JavaMailSender mailSender, TemplateEngine templateEngine,
+                            EmailOutboxRepository emailOutboxRepository) {
         this.mailSender = mailSender;
         this.templateEngine = templateEngine;
+        this.emailOutboxRepository = emailOutboxRepository;
     }
 
     // @Override
@@ -193,94 +202,14 @@ public class EmailServiceImpl implements EmailService {
     @Override
     public void sendBookingConfirmationEmail(BookingResponseDTO bookingDTO) {
         try {
-            // Formatter cho ngày giờ
-            DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-            String checkInDate = "-";
-            String checkOutDate = "-";
-            Integer numberOfPeople = 0;
-
-            // Lấy Check-in / Check-out theo ưu tiên Booking -> Service -> Combo
-            if (bookingDTO.getCheckInDate() != null && bookingDTO.getCheckOutDate() != null) {
-                checkInDate = bookingDTO.getCheckInDate().format(dateTimeFormatter);
-                checkOutDate = bookingDTO.getCheckOutDate().format(dateTimeFormatter);
-            } else if (bookingDTO.getServices() != null && !bookingDTO.getServices().isEmpty()) {
-                for (BookingItemResponseDTO s : bookingDTO.getServices()) {
-                    if (s.getCheckInDate() != null && s.getCheckOutDate() != null) {
-                        checkInDate = s.getCheckInDate().format(dateTimeFormatter);
-                        checkOutDate = s.getCheckOutDate().format(dateTimeFormatter);
-                        break;
-                    }
-                }
-            } else if (bookingDTO.getCombos() != null && !bookingDTO.getCombos().isEmpty()) {
-                for (BookingItemResponseDTO c : bookingDTO.getCombos()) {
-                    if (c.getCheckInDate() != null && c.getCheckOutDate() != null) {
-                        checkInDate = c.getCheckInDate().format(dateTimeFormatter);
-                        checkOutDate = c.getCheckOutDate().format(dateTimeFormatter);
-                        break;
-                    }
-                }
-            }
-
-            // Lấy số người theo ưu tiên Booking -> Service -> Combo
-            // Lấy số người theo ưu tiên Booking -> Service -> Combo
-            
-            if (bookingDTO.getNumberOfPeople() != null) {
-                numberOfPeople = bookingDTO.getNumberOfPeople().intValue(); // <- Chuyển Long -> Integer
-            } else if (bookingDTO.getServices() != null) {
-                for (BookingItemResponseDTO s : bookingDTO.getServices()) {
-                    if (s.getNumberOfPeople() != null) {
-                        numberOfPeople = s.getNumberOfPeople().intValue(); // <- Chuyển Long -> Integer
-                        break;
-                    }
-                }
-            } else if (bookingDTO.getCombos() != null) {
-                for (BookingItemResponseDTO c : bookingDTO.getCombos()) {
-                    if (c.getNumberOfPeople() != null) {
-                        numberOfPeople = c.getNumberOfPeople().intValue(); // <- Chuyển Long -> Integer
-                        break;
-                    }
-                }
-            }
-
-            // Format tiền VNĐ
-            NumberFormat currencyVN = NumberFormat.getCurrencyInstance(new Locale("vi", "VN"));
-            String totalPrice = bookingDTO.getTotalPrice() != null
-                    ? currencyVN.format(bookingDTO.getTotalPrice())
-                    : "0 ₫";
-
-            // Log dữ liệu booking để kiểm tra
-            System.out.println("===== BẮT ĐẦU GỬI MAIL =====");
-            System.out.println("Customer Email: " + bookingDTO.getEmail());
-            System.out.println("Customer Name: " + bookingDTO.getCustomerName());
-            System.out.println("Booking ID: " + bookingDTO.getId());
-            System.out.println("Check-in Date: " + checkInDate);
-            System.out.println("Check-out Date: " + checkOutDate);
-            System.out.println("Number of People: " + numberOfPeople);
-            System.out.println("Phone: " + bookingDTO.getPhone());
-            System.out.println("Note: " + bookingDTO.getNote());
-            System.out.println("Total Price: " + totalPrice);
-            System.out.println("===== KẾT THÚC LOG BOOKING =====");
+            String htmlContent = renderBookingConfirmation(bookingDTO);
 
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
             helper.setTo(bookingDTO.getEmail());
-            helper.setSubject("Xác nhận đơn đặt chỗ - OGCAMPING");
-            helper.setFrom("no-reply@ogcamping.vn");
-
-            // Truyền biến cho Thymeleaf
-            Context context = new Context();
-            context.setVariable("customerName", bookingDTO.getCustomerName());
-            context.setVariable("orderId", bookingDTO.getId());
-            context.setVariable("checkInDate", checkInDate);
-            context.setVariable("checkOutDate", checkOutDate);
-            context.setVariable("numberOfPeople", numberOfPeople);
-            context.setVariable("phone", bookingDTO.getPhone() != null ? bookingDTO.getPhone() : "-");
-            context.setVariable("note", bookingDTO.getNote() != null ? bookingDTO.getNote() : "Không có");
-            context.setVariable("totalPrice", totalPrice);
-
-            // Render file Thymeleaf booking-confirmation.html
-            String htmlContent = templateEngine.process("booking-confirmation", context);
+            helper.setSubject(BOOKING_CONFIRMATION_SUBJECT);
+            helper.setFrom(FROM_ADDRESS);
             helper.setText(htmlContent, true);
 
             // Gắn logo inline
@@ -294,4 +223,94 @@ public class EmailServiceImpl implements EmailService {
         }
     }
 
+    @Override
+    public void queueBookingConfirmationEmail(BookingResponseDTO bookingDTO) {
+        if (bookingDTO.getEmail() == null || bookingDTO.getEmail().isBlank()) {
+            throw new IllegalArgumentException("Booking không có email khách hàng");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        emailOutboxRepository.save(EmailOutbox.builder()
+                .type(EmailOutbox.Type.BOOKING_CONFIRMATION)
+                .bookingId(bookingDTO.getId())
+                .fromAddress(FROM_ADDRESS)
+                .recipient(bookingDTO.getEmail())
+                .subject(BOOKING_CONFIRMATION_SUBJECT)
+                .body(renderBookingConfirmation(bookingDTO))
+                .status(EmailOutbox.Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    // Render booking-confirmation.html (logo tham chiếu cid:ogLogo)
+    private String renderBookingConfirmation(BookingResponseDTO bookingDTO) {
+        // Formatter cho ngày giờ
+        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        String checkInDate = "-";
+        String checkOutDate = "-";
+        Integer numberOfPeople = 0;
+
+        // Lấy Check-in / Check-out theo ưu tiên Booking -> Service -> Combo
+        if (bookingDTO.getCheckInDate() != null && bookingDTO.getCheckOutDate() != null) {
+            checkInDate = bookingDTO.getCheckInDate().format(dateTimeFormatter);
+            checkOutDate = bookingDTO.getCheckOutDate().format(dateTimeFormatter);
+        } else if (bookingDTO.getServices() != null && !bookingDTO.getServices().isEmpty()) {
+            for (BookingItemResponseDTO s : bookingDTO.getServices()) {
+                if (s.getCheckInDate() != null && s.getCheckOutDate() != null) {
+                    checkInDate = s.getCheckInDate().format(dateTimeFormatter);
+                    checkOutDate = s.getCheckOutDate().format(dateTimeFormatter);
+                    break;
+                }
+            }
+        } else if (bookingDTO.getCombos() != null && !bookingDTO.getCombos().isEmpty()) {
+            for (BookingItemResponseDTO c : bookingDTO.getCombos()) {
+                if (c.getCheckInDate() != null && c.getCheckOutDate() != null) {
+                    checkInDate = c.getCheckInDate().format(dateTimeFormatter);
+                    checkOutDate = c.getCheckOutDate().format(dateTimeFormatter);
+                    break;
+                }
+            }
+        }
+
+        // Lấy số người theo ưu tiên Booking -> Service -> Combo
+        if (bookingDTO.getNumberOfPeople() != null) {
+            numberOfPeople = bookingDTO.getNumberOfPeople().intValue(); // <- Chuyển Long -> Integer
+        } else if (bookingDTO.getServices() != null) {
+            for (BookingItemResponseDTO s : bookingDTO.getServices()) {
+                if (s.getNumberOfPeople() != null) {
+                    numberOfPeople = s.getNumberOfPeople().intValue(); // <- Chuyển Long -> Integer
+                    break;
+                }
+            }
+        } else if (bookingDTO.getCombos() != null) {
+            for (BookingItemResponseDTO c : bookingDTO.getCombos()) {
+                if (c.getNumberOfPeople() != null) {
+                    numberOfPeople = c.getNumberOfPeople().intValue(); // <- Chuyển Long -> Integer
+                    break;
+                }
+            }
+        }
+
+        // Format tiền VNĐ
+        NumberFormat currencyVN = NumberFormat.getCurrencyInstance(new Locale("vi", "VN"));
+        String totalPrice = bookingDTO.getTotalPrice() != null
+                ? currencyVN.format(bookingDTO.getTotalPrice())
+                : "0 ₫";
+
+        // Truyền biến cho Thymeleaf
+        Context context = new Context();
+        context.setVariable("customerName", bookingDTO.getCustomerName());
+        context.setVariable("orderId", bookingDTO.getId());
+        context.setVariable("checkInDate", checkInDate);
+        context.setVariable("checkOutDate", checkOutDate);
+        context.setVariable("numberOfPeople", numberOfPeople);
+        context.setVariable("phone", bookingDTO.getPhone() != null ? bookingDTO.getPhone() : "-");
+        context.setVariable("note", bookingDTO.getNote() != null ? bookingDTO.getNote() : "Không có");
+        context.setVariable("totalPrice", totalPrice);
+
+        // Render file Thymeleaf booking-confirmation.html
+        return templateEngine.process("booking-confirmation", context);
+    }
+
 }
@@ -1,63 +1,56 @@
 package com.mytech.backend.portal.services.impl;
 
-import com.itextpdf.html2pdf.ConverterProperties;
-import com.itextpdf.html2pdf.HtmlConverter;
 import com.mytech.backend.portal.models.OrderBooking;
+import com.mytech.backend.portal.services.Invoice.InvoiceTemplateEngine;
 import com.mytech.backend.portal.services.InvoiceService;
-import org.springframework.core.io.ClassPathResource;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
 
 @Service
+@RequiredArgsConstructor
 public class InvoiceServiceImpl implements InvoiceService {
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final InvoiceTemplateEngine templateEngine;
+
     @Override
     public byte[] generateInvoicePDF(OrderBooking order) {
         try {
-            // 1️⃣ Load HTML template
-            ClassPathResource resource = new ClassPathResource("templates/InvoiceTemplate.html");
-            String html = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
-
-            // 2️⃣ Encode logo Base64
-            Path logoPath = Path.of("src/main/resources/static/images/ogcamping.jpg");
-            byte[] logoBytes = Files.readAllBytes(logoPath);
-            String base64Logo = Base64.getEncoder().encodeToString(logoBytes);
-
-            // 3️⃣ Thay placeholder Base64_IMAGE và các thông tin OrderBooking
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-
-            html = html.replace("{{BASE64_IMAGE}}", base64Logo)
-                       .replace("{{ORDER_CODE}}", order.getOrderCode() != null ? order.getOrderCode() : "Chưa có")
-                       .replace("{{CUSTOMER_NAME}}", order.getCustomerName())
-                       .replace("{{EMAIL}}", order.getEmail())
-                       .replace("{{PHONE}}", order.getPhone())
-                       .replace("{{BOOKING_DATE}}", 
-                                order.getBookingDate() != null ? order.getBookingDate().format(formatter) : "")
-                       .replace("{{PEOPLE}}", String.valueOf(order.getPeople()))
-                       .replace("{{TOTAL_PRICE}}", String.valueOf(order.getTotalPrice()))
-                       .replace("{{SPECIAL_REQUESTS}}", 
-                                order.getSpecialRequests() != null ? order.getSpecialRequests() : "Không có")
-                       .replace("{{EMERGENCY_CONTACT}}", 
-                                order.getEmergencyContact() != null ? order.getEmergencyContact() : "Không có")
-                       .replace("{{EMERGENCY_PHONE}}", 
-                                order.getEmergencyPhone() != null ? order.getEmergencyPhone() : "Không có");
-
-            // 4️⃣ Convert HTML sang PDF
-            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                ConverterProperties converterProperties = new ConverterProperties();
-                HtmlConverter.convertToPdf(html, outputStream, converterProperties);
-                return outputStream.toByteArray();
-            }
-
-        } catch (IOException e) {
+            return templateEngine.toPdf(renderHtml(order));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Lỗi tạo PDF cho đơn hàng id=" + order.getId(), e);
+        }
+    }
+
+    @Override
+    public void writeInvoicePDF(OrderBooking order, OutputStream out) {
+        try {
+            templateEngine.toPdf(renderHtml(order), out);
+        } catch (RuntimeException e) {
             throw new RuntimeException("Lỗi tạo PDF cho đơn hàng id=" + order.getId(), e);
         }
     }
+
+    // Điền placeholder của template đơn hàng
+    private String renderHtml(OrderBooking order) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("BASE64_IMAGE", templateEngine.logoBase64());
+        values.put("ORDER_CODE", order.getOrderCode() != null ? order.getOrderCode() : "Chưa có");
+        values.put("CUSTOMER_NAME", order.getCustomerName());
+        values.put("EMAIL", order.getEmail());
+        values.put("PHONE", order.getPhone());
+        values.put("BOOKING_DATE", order.getBookingDate() != null ? order.getBookingDate().format(DATE_FORMAT) : "");
+        values.put("PEOPLE", String.valueOf(order.getPeople()));
+        values.put("TOTAL_PRICE", String.valueOf(order.getTotalPrice()));
+        values.put("SPECIAL_REQUESTS", order.getSpecialRequests() != null ? order.getSpecialRequests() : "Không có");
+        values.put("EMERGENCY_CONTACT", order.getEmergencyContact() != null ? order.getEmergencyContact() : "Không có");
+        values.put("EMERGENCY_PHONE", order.getEmergencyPhone() != null ? order.getEmergencyPhone() : "Không có");
+        return templateEngine.template(InvoiceTemplateEngine.ORDER_INVOICE).render(values);
+    }
 }
@@ -1,42 +1,174 @@
 package com.mytech.backend.portal.services.impl;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.mytech.backend.portal.dto.StatDTO;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Gear;
+import com.mytech.backend.portal.models.User.User;
 import com.mytech.backend.portal.repositories.BookingRepository;
 import com.mytech.backend.portal.repositories.GearRepository;
 import com.mytech.backend.portal.repositories.UserRepository;
 import com.mytech.backend.portal.services.StatService;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
 
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Thống kê theo kỳ (ngày / tuần / tháng): kỳ hiện tại so với kỳ trước.
+ * <p>
+ * Mỗi (kỳ, ngày bắt đầu kỳ) được tính 1 lần bằng COUNT/SUM trong DB rồi giữ trong cache.
+ * Khi booking hoặc user của 1 ngày thay đổi (đã commit), chỉ các kỳ chứa ngày đó bị xóa khỏi cache:
+ * kỳ hiện tại được tính lại ở lần gọi sau, kỳ đã đóng thì gần như không bao giờ phải tính lại.
+ */
 @Service
+@RequiredArgsConstructor
 public class StatServiceImpl implements StatService {
 
-    @Autowired
-    private UserRepository userRepository;
+    // Đủ cho vài năm bucket của cả 3 loại kỳ
+    private static final int MAX_BUCKETS = 5000;
+
+    private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
+    private final GearRepository gearRepository;
+    private final EntityChangeTracker entityChangeTracker;
+
+    private final ConcurrentHashMap<BucketKey, BucketStats> buckets = new ConcurrentHashMap<>();
+    private volatile Long gearCount;
+    // Tăng mỗi lần evict: bucket tính xong sau 1 lần evict thì không được đưa vào cache
+    private final AtomicLong generation = new AtomicLong();
+
+    enum Period {
+        DAILY, WEEKLY, MONTHLY;
+
+        LocalDate bucketStart(LocalDate day) {
+            return switch (this) {
+                case DAILY -> day;
+                case WEEKLY -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTHLY -> day.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate start) {
+            return switch (this) {
+                case DAILY -> start.plusDays(1);
+                case WEEKLY -> start.plusWeeks(1);
+                case MONTHLY -> start.plusMonths(1);
+            };
+        }
+
+        LocalDate previous(LocalDate start) {
+            return switch (this) {
+                case DAILY -> start.minusDays(1);
+                case WEEKLY -> start.minusWeeks(1);
+                case MONTHLY -> start.minusMonths(1);
+            };
+        }
+
+        static Period parse(String period) {
+            try {
+                return Period.valueOf(period.toUpperCase());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Invalid period parameter. Must be 'daily', 'weekly', or 'monthly'.");
+            }
+        }
+    }
+
+    record BucketKey(Period period, LocalDate start) {
+    }
 
-    @Autowired
-    private BookingRepository bookingRepository;
+    record BucketStats(long newUsers, long bookings, long newGears, double revenue) {
+    }
 
-    @Autowired
-    private GearRepository gearRepository;
+    @PostConstruct
+    void subscribe() {
+        entityChangeTracker.subscribe(Booking.class, "createdAt", this::evict);
+        entityChangeTracker.subscribe(User.class, "createdAt", this::evict);
+        entityChangeTracker.subscribe(Gear.class, "createdAt", this::evict);
+        entityChangeTracker.subscribe(Gear.class, null, day -> gearCount = null);
+    }
 
     @Override
     public List<StatDTO> getStats(String period) {
-        // TODO: Implement actual logic based on period parameter (e.g., filter by date range)
-        double revenue = bookingRepository.findAll().stream()
-                .mapToDouble(booking -> booking.getTotalPrice() != null ? booking.getTotalPrice() : 0.0)
-                .sum();
-        
+        Period p = Period.parse(period);
+        LocalDate currentStart = p.bucketStart(LocalDate.now());
+        BucketStats current = bucket(p, currentStart);
+        BucketStats previous = bucket(p, p.previous(currentStart));
+
+        Long gears = gearCount;
+        if (gears == null) {
+            gears = gearRepository.count();
+            gearCount = gears;
+        }
+
+        // User / booking / doanh thu là số của kỳ hiện tại; thiết bị là tổng hiện có,
+        // so với lúc đầu kỳ (không tính thiết bị đã xóa trong kỳ)
         return Arrays.asList(
-                new StatDTO("Total Users", String.valueOf(userRepository.count()), "users", "blue", "+5%"),
-                new StatDTO("Total Bookings", String.valueOf(bookingRepository.count()), "bookings", "green", "+10%"),
-                new StatDTO("Total Equipment", String.valueOf(gearRepository.count()), "equipment", "orange", "+2%"),
-                new StatDTO("Revenue", String.format("$%.2f", revenue), "dollar", "purple", "+15%")
+                new StatDTO("New Users", String.valueOf(current.newUsers()), "users", "blue",
+                        calculateChange(current.newUsers(), previous.newUsers())),
+                new StatDTO("New Bookings", String.valueOf(current.bookings()), "bookings", "green",
+                        calculateChange(current.bookings(), previous.bookings())),
+                new StatDTO("Total Equipment", String.valueOf(gears), "equipment", "orange",
+                        calculateChange(gears, gears - current.newGears())),
+                new StatDTO("Revenue", String.format("$%.2f", current.revenue()), "dollar", "purple",
+                        calculateChange(current.revenue(), previous.revenue()))
         );
     }
 
+    // Xóa mọi kỳ (ngày, tuần, tháng) chứa ngày vừa thay đổi
+    void evict(LocalDate day) {
+        generation.incrementAndGet();
+        if (day == null) {
+            buckets.clear();
+            return;
+        }
+        for (Period p : Period.values()) {
+            buckets.remove(new BucketKey(p, p.bucketStart(day)));
+        }
+    }
+
+    private BucketStats bucket(Period period, LocalDate start) {
+        BucketKey key = new BucketKey(period, start);
+        BucketStats cached = buckets.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Query ngoài map (không giữ lock của bin trong lúc chờ DB); nhiều dashboard cùng miss
+        // thì có thể cùng tính, nhưng chỉ 1 kết quả được giữ
+        long gen = generation.get();
+        LocalDate end = period.next(start);
+        Object[] row = bookingRepository.countAndRevenueBetween(start.atStartOfDay(), end.atStartOfDay()).get(0);
+        long users = userRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+                start.atStartOfDay(), end.atStartOfDay());
+        long newGears = gearRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+                start.atStartOfDay(), end.atStartOfDay());
+        BucketStats stats = new BucketStats(users, ((Number) row[0]).longValue(), newGears,
+                ((Number) row[1]).doubleValue());
+        if (generation.get() != gen) {
+            // Có thay đổi commit trong lúc đang tính: trả kết quả này nhưng không cache
+            return stats;
+        }
+        if (buckets.size() >= MAX_BUCKETS) {
+            buckets.clear();
+        }
+        BucketStats existing = buckets.putIfAbsent(key, stats);
+        return existing != null ? existing : stats;
+    }
+
+    private String calculateChange(double current, double previous) {
+        if (previous == 0) {
+            return current == 0 ? "0%" : "+100%";
+        }
+        double change = ((current - previous) / previous) * 100;
+        return String.format("%+.1f%%", change);
+    }
 }
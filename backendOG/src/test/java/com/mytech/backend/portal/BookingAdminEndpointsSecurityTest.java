@@ -0,0 +1,120 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.apis.BookingController;
+import com.mytech.backend.portal.jwt.JwtUtils;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.repositories.EmailOutboxRepository;
+import com.mytech.backend.portal.repositories.UserRepository;
+import com.mytech.backend.portal.security.AppUserDetails;
+import com.mytech.backend.portal.security.AppUserDetailsService;
+import com.mytech.backend.portal.security.oauth2.OAuth2FailureHandler;
+import com.mytech.backend.portal.security.oauth2.OAuth2SuccessHandler;
+import com.mytech.backend.portal.services.Booking.BookingListingService;
+import com.mytech.backend.portal.services.Booking.BookingSearchService;
+import com.mytech.backend.portal.services.Booking.BookingService;
+import com.mytech.backend.portal.services.Combo.ComboAnalyticsService;
+import com.mytech.backend.portal.services.EmailService;
+import com.mytech.backend.portal.services.Idempotency.IdempotencyService;
+import com.mytech.backend.portal.services.Service.ServiceStatsService;
+import com.mytech.backend.portal.services.Shift.ShiftService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /apis/v1/bookings/search, /search/facets, /cursor và /export trả booking của mọi khách (có PII): chạy qua
+ * filter chain thật, ẩn danh và token CUSTOMER đều bị chặn, token ADMIN đi qua.
+ */
+@WebMvcTest(controllers = BookingController.class)
+@Import(SecurityConfig.class)
+class BookingAdminEndpointsSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private JwtUtils jwtUtils;
+    @MockBean
+    private AppUserDetailsService userDetailsService;
+    @MockBean
+    private OAuth2SuccessHandler oAuth2SuccessHandler;
+    @MockBean
+    private OAuth2FailureHandler oAuth2FailureHandler;
+
+    @MockBean
+    private EmailService emailService;
+    @MockBean
+    private BookingService bookingService;
+    @MockBean
+    private BookingListingService bookingListingService;
+    @MockBean
+    private BookingSearchService bookingSearchService;
+    @MockBean
+    private ComboAnalyticsService comboAnalyticsService;
+    @MockBean
+    private ServiceStatsService serviceStatsService;
+    @MockBean
+    private ShiftService shiftService;
+    @MockBean
+    private UserRepository userRepository;
+    @MockBean
+    private BookingRepository bookingRepository;
+    @MockBean
+    private EmailOutboxRepository emailOutboxRepository;
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        token("customer-token", "customer@example.com", User.Role.CUSTOMER);
+        token("admin-token", "admin@example.com", User.Role.ADMIN);
+    }
+
+    @Test
+    void anonymousAndCustomerAreRejected() throws Exception {
+        for (String path : List.of("/apis/v1/bookings/cursor", "/apis/v1/bookings/export",
+                "/apis/v1/bookings/search", "/apis/v1/bookings/search/facets")) {
+            mockMvc.perform(get(path)).andExpect(unauthorizedOrForbidden());
+            mockMvc.perform(get(path).header("Authorization", "Bearer customer-token"))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    void adminCanListByCursor() throws Exception {
+        mockMvc.perform(get("/apis/v1/bookings/cursor").header("Authorization", "Bearer admin-token"))
+                .andExpect(status().isOk());
+    }
+
+    private static ResultMatcher unauthorizedOrForbidden() {
+        return result -> {
+            int status = result.getResponse().getStatus();
+            assertTrue(status == 401 || status == 403, "status " + status);
+        };
+    }
+
+    // JWT giả: JwtUtils mock trả claims "roles", AuthTokenFilter dựng quyền như với token thật
+    private void token(String jwt, String email, User.Role role) {
+        Claims claims = Mockito.mock(Claims.class);
+        Mockito.when(claims.get("roles")).thenReturn(List.of(role.name()));
+        Mockito.when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
+        Mockito.when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(email);
+        Mockito.when(jwtUtils.getClaimsFromJwtToken(jwt)).thenReturn(claims);
+        Mockito.when(userDetailsService.loadUserByUsername(email))
+                .thenReturn(new AppUserDetails(User.builder().email(email).role(role).build()));
+    }
+}
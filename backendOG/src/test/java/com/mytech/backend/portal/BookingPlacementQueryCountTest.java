@@ -0,0 +1,143 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.dto.Booking.BookingComboDTO;
+import com.mytech.backend.portal.dto.Booking.BookingRequestDTO;
+import com.mytech.backend.portal.dto.Booking.BookingResponseDTO;
+import com.mytech.backend.portal.dto.Booking.BookingServiceDTO;
+import com.mytech.backend.portal.models.Combo.Combo;
+import com.mytech.backend.portal.models.Customer.Customer;
+import com.mytech.backend.portal.models.Equipment.Equipment;
+import com.mytech.backend.portal.models.Service.Service;
+import com.mytech.backend.portal.repositories.*;
+import com.mytech.backend.portal.services.Booking.BookingResponseAssembler;
+import com.mytech.backend.portal.services.Booking.BookingServiceImpl;
+import com.mytech.backend.portal.services.EmailService;
+import com.mytech.backend.portal.services.ServiceAvailabilityService.SlotHoldManager;
+import com.mytech.backend.portal.services.ServiceAvailabilityService.SlotInventory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Đặt booking nhóm lớn: mỗi lần gọi repository tính là 1 round-trip DB,
+ * số round-trip phải giữ nguyên dù số item tăng từ 1 lên 60 mỗi loại.
+ */
+class BookingPlacementQueryCountTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.of(2025, 12, 20);
+    private static final int NIGHTS = 2;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 15, 60})
+    void roundTripsStayFixedAsItemCountGrows(int itemsPerType) {
+        // Kho slot mới (chưa nạp gì) cho mỗi lần chạy
+        Fixture fixture = new Fixture(itemsPerType);
+        BookingResponseDTO response = fixture.bookingService.placeBooking(1L, fixture.request);
+
+        assertEquals(itemsPerType, response.getServices().size());
+        assertEquals(itemsPerType, response.getCombos().size());
+        assertEquals(itemsPerType, response.getEquipments().size());
+        // customer + 3 findAllById + 1 query slot + 1 save, không phụ thuộc số item
+        // (trước đây 60 item mỗi loại tốn > 180 round-trip)
+        assertEquals(6, fixture.roundTrips.get());
+    }
+
+    private static final class Fixture {
+
+        final AtomicInteger roundTrips = new AtomicInteger();
+        final BookingServiceImpl bookingService;
+        final BookingRequestDTO request;
+
+        Fixture(int itemsPerType) {
+            BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+            ServiceRepository serviceRepository = Mockito.mock(ServiceRepository.class);
+            ComboRepository comboRepository = Mockito.mock(ComboRepository.class);
+            CustomerRepository customerRepository = Mockito.mock(CustomerRepository.class);
+            EquipmentRepository equipmentRepository = Mockito.mock(EquipmentRepository.class);
+            ServiceAvailabilityRepository availabilityRepository = Mockito.mock(ServiceAvailabilityRepository.class);
+
+            Mockito.when(customerRepository.findById(anyLong())).thenAnswer(roundTrip(invocation ->
+                    Optional.of(Customer.builder().id(1L).name("Đoàn công ty").email("team@example.com").build())));
+            Mockito.when(serviceRepository.findAllById(any())).thenAnswer(roundTrip(invocation ->
+                    byIds(invocation.getArgument(0), id -> Service.builder()
+                            .id(id).name("Khu cắm trại " + id).price(500_000.0)
+                            .minDays(1).maxDays(5).minCapacity(1).maxCapacity(6)
+                            .allowExtraPeople(false).maxExtraPeople(0).extraFeePerPerson(0.0)
+                            .build())));
+            Mockito.when(comboRepository.findAllById(any())).thenAnswer(roundTrip(invocation ->
+                    byIds(invocation.getArgument(0), id -> Combo.builder()
+                            .id(id).name("Combo " + id).price(900_000.0).build())));
+            Mockito.when(equipmentRepository.findAllById(any())).thenAnswer(roundTrip(invocation ->
+                    byIds(invocation.getArgument(0), id -> Equipment.builder()
+                            .id(id).name("Lều " + id).price(150_000.0).build())));
+            Mockito.when(availabilityRepository.findSlotRowsForServices(any(), any(), any()))
+                    .thenAnswer(roundTrip(invocation -> {
+                        Collection<Long> ids = invocation.getArgument(0);
+                        List<Object[]> rows = new ArrayList<>();
+                        for (Long id : ids) {
+                            for (int d = 0; d < NIGHTS; d++) {
+                                rows.add(new Object[]{id, CHECK_IN.plusDays(d), 10, 0});
+                            }
+                        }
+                        return rows;
+                    }));
+            Mockito.when(availabilityRepository.findAllByServiceIdAndDateBetween(anyLong(), any(), any()))
+                    .thenAnswer(roundTrip(invocation -> List.of()));
+            Mockito.when(bookingRepository.save(any())).thenAnswer(roundTrip(invocation -> invocation.getArgument(0)));
+
+            SlotInventory slotInventory = new SlotInventory(availabilityRepository);
+            SlotHoldManager slotHoldManager = new SlotHoldManager(slotInventory, availabilityRepository,
+                    Mockito.mock(BookingItemRepository.class));
+            bookingService = new BookingServiceImpl(bookingRepository, serviceRepository, comboRepository,
+                    customerRepository, availabilityRepository, slotInventory, slotHoldManager,
+                    equipmentRepository, Mockito.mock(BookingItemRepository.class), Mockito.mock(EmailService.class),
+                    new BookingResponseAssembler(Mockito.mock(BookingItemRepository.class)));
+
+            LocalDateTime checkIn = CHECK_IN.atTime(14, 0);
+            LocalDateTime checkOut = CHECK_IN.plusDays(NIGHTS).atTime(12, 0);
+            List<BookingServiceDTO> services = new ArrayList<>();
+            List<BookingComboDTO> combos = new ArrayList<>();
+            List<Long> equipmentIds = new ArrayList<>();
+            for (long id = 1; id <= itemsPerType; id++) {
+                services.add(new BookingServiceDTO(id, checkIn, checkOut, 4));
+                combos.add(new BookingComboDTO(id, checkIn, checkOut, 4));
+                equipmentIds.add(id);
+            }
+            request = BookingRequestDTO.builder()
+                    .services(services)
+                    .combos(combos)
+                    .equipmentIds(equipmentIds)
+                    .checkInDate(checkIn)
+                    .checkOutDate(checkOut)
+                    .build();
+        }
+
+        // Mỗi lần gọi repository = 1 round-trip DB
+        private <T> Answer<T> roundTrip(Answer<T> answer) {
+            return invocation -> {
+                roundTrips.incrementAndGet();
+                return answer.answer(invocation);
+            };
+        }
+
+        private static <T> List<T> byIds(Iterable<Long> ids, LongFunction<T> factory) {
+            List<T> result = new ArrayList<>();
+            ids.forEach(id -> result.add(factory.apply(id)));
+            return result;
+        }
+    }
+}
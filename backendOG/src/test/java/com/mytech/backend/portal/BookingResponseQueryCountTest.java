@@ -0,0 +1,236 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.dto.Booking.BookingResponseDTO;
+import com.mytech.backend.portal.dto.Booking.BookingRowDTO;
+import com.mytech.backend.portal.dto.Booking.BookingSearchCriteria;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Booking.ItemType;
+import com.mytech.backend.portal.models.Combo.Combo;
+import com.mytech.backend.portal.models.Customer.Customer;
+import com.mytech.backend.portal.models.Equipment.Equipment;
+import com.mytech.backend.portal.models.Payment.Payment;
+import com.mytech.backend.portal.models.Payment.PaymentMethod;
+import com.mytech.backend.portal.models.Payment.PaymentStatus;
+import com.mytech.backend.portal.models.Service.Service;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.BookingItemRepository;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.services.Booking.BookingResponseAssembler;
+import com.mytech.backend.portal.services.Booking.BookingSearchService;
+import com.mytech.backend.portal.services.Booking.BookingSearchServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Đếm số câu SQL khi dựng danh sách BookingResponseDTO: phải cố định, không tăng theo
+ * số booking hay số item. Nếu ai đó quay lại load entity + mapToDTO thì test này sẽ fail.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({BookingResponseAssembler.class, BookingSearchServiceImpl.class})
+class BookingResponseQueryCountTest {
+
+    private static final int BOOKINGS = 30;
+
+    @Configuration
+    @EntityScan(basePackages = "com.mytech.backend.portal.models")
+    @EnableJpaRepositories(basePackageClasses = BookingRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = {BookingRepository.class, BookingItemRepository.class}))
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingResponseAssembler assembler;
+
+    @Autowired
+    private BookingSearchService bookingSearchService;
+
+    private Statistics statistics;
+    private Long staffId;
+    private Long serviceId;
+
+    @BeforeEach
+    void setUp() {
+        User staff = em.persist(User.builder().name("Nhân viên A").email("staff@example.com")
+                .role(User.Role.STAFF).build());
+        staffId = staff.getId();
+        Service service = em.persist(Service.builder().name("Lều đôi ven hồ").price(400_000.0).build());
+        serviceId = service.getId();
+        Combo combo = em.persist(Combo.builder().name("Combo BBQ").price(650_000.0).build());
+        Equipment equipment = em.persist(Equipment.builder().name("Đèn pin").price(30_000.0).build());
+
+        for (int n = 0; n < BOOKINGS; n++) {
+            User user = em.persist(User.builder().name("Khách " + n).email("guest" + n + "@example.com").build());
+            Customer customer = em.persist(Customer.builder().name("Khách " + n)
+                    .email("guest" + n + "@example.com").user(user).build());
+
+            Booking booking = Booking.builder()
+                    .customer(customer)
+                    .status(BookingStatus.CONFIRMED)
+                    .assignedStaff(n % 2 == 0 ? staff : null)
+                    .totalPrice(1_080_000L)
+                    .build();
+            List<BookingItem> items = new ArrayList<>();
+            LocalDateTime checkIn = LocalDateTime.of(2025, 12, 1, 14, 0).plusDays(n);
+            items.add(BookingItem.builder().booking(booking).type(ItemType.SERVICE).service(service)
+                    .quantity(1).price(400_000.0).numberOfPeople(2)
+                    .checkInDate(checkIn).checkOutDate(checkIn.plusDays(1)).build());
+            items.add(BookingItem.builder().booking(booking).type(ItemType.COMBO).combo(combo)
+                    .quantity(1).price(650_000.0).numberOfPeople(2).build());
+            items.add(BookingItem.builder().booking(booking).type(ItemType.EQUIPMENT).equipment(equipment)
+                    .quantity(1).price(30_000.0).build());
+            booking.setItems(items);
+            em.persist(booking);
+
+            if (n % 3 == 0) {
+                em.persist(Payment.builder().booking(booking).method(PaymentMethod.VNPAY)
+                        .status(PaymentStatus.PAID).amount(1_080_000.0)
+                        .providerTransactionId("TX-" + n).build());
+            }
+        }
+        em.flush();
+        em.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void allBookingsUseTwoStatements() {
+        List<BookingResponseDTO> bookings = assembler.assemble(bookingRepository.findAllRows());
+
+        assertEquals(BOOKINGS, bookings.size());
+        // 1 query dòng booking + 1 query item
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        BookingResponseDTO first = bookings.get(0);
+        assertEquals(1, first.getServices().size());
+        assertEquals(1, first.getCombos().size());
+        assertEquals(1, first.getEquipments().size());
+        assertEquals("Lều đôi ven hồ", first.getServices().get(0).getName());
+        assertNotNull(first.getStaff());
+        assertNotNull(first.getPayment());
+    }
+
+    @Test
+    void pageUsesThreeStatements() {
+        Page<BookingResponseDTO> page = assembler.assemble(bookingRepository.findRows(
+                PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "createdAt", "id"))));
+
+        assertEquals(10, page.getContent().size());
+        assertEquals(BOOKINGS, page.getTotalElements());
+        // dòng booking + count + item
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void staffBookingsUseTwoStatements() {
+        List<BookingResponseDTO> bookings = assembler.assemble(bookingRepository.findRowsByStaffId(staffId));
+
+        assertEquals(BOOKINGS / 2, bookings.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void keysetPagesWalkEveryBookingOnce() {
+        Set<Long> seen = new HashSet<>();
+        LocalDateTime cursorAt = null;
+        Long cursorId = null;
+        int pages = 0;
+        while (true) {
+            List<BookingRowDTO> rows = bookingRepository.findRowsAfter(
+                    BookingStatus.CONFIRMED, null, null, null, null, cursorAt, cursorId, Limit.of(7));
+            pages++;
+            for (BookingRowDTO row : rows) {
+                assertTrue(seen.add(row.getId()), "Duplicate booking " + row.getId());
+            }
+            if (rows.size() < 7) {
+                break;
+            }
+            BookingRowDTO last = rows.get(rows.size() - 1);
+            cursorAt = last.getCreatedAt();
+            cursorId = last.getId();
+        }
+
+        assertEquals(BOOKINGS, seen.size());
+        assertEquals(BOOKINGS / 7 + 1, pages);
+        // Mỗi trang keyset = đúng 1 câu SQL
+        assertEquals(pages, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void searchFiltersInDbWithFixedStatements() {
+        BookingSearchCriteria criteria = BookingSearchCriteria.builder()
+                .status(BookingStatus.CONFIRMED)
+                .serviceId(serviceId)
+                .staffId(staffId)
+                .build();
+
+        Page<BookingResponseDTO> page = bookingSearchService.search(criteria,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt", "id")));
+
+        assertEquals(10, page.getContent().size());
+        assertEquals(BOOKINGS / 2, page.getTotalElements());
+        page.getContent().forEach(b -> assertEquals(staffId, b.getStaff().getId()));
+        // id + count + dòng booking + item
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void facetCountsAreCachedPerFilter() {
+        BookingSearchCriteria criteria = BookingSearchCriteria.builder().staffId(staffId).build();
+
+        Map<BookingStatus, Long> counts = bookingSearchService.countByStatus(criteria);
+        // Tab khác (khác status) dùng lại kết quả đã cache
+        Map<BookingStatus, Long> again = bookingSearchService.countByStatus(
+                criteria.toBuilder().status(BookingStatus.PENDING).build());
+
+        assertEquals(BOOKINGS / 2L, counts.get(BookingStatus.CONFIRMED));
+        assertEquals(0L, counts.get(BookingStatus.PENDING));
+        assertEquals(counts, again);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,39 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+
+/**
+ * EntityChangeTracker giả cho unit test: bean đăng ký listener như thật, test lấy listener đã đăng ký
+ * để đẩy thay đổi vào trực tiếp. Luồng thật (sự kiện sau commit của Hibernate) xem
+ * {@link ChangeTrackerPostCommitTest}.
+ */
+final class ChangeListeners {
+
+    final EntityChangeTracker tracker = Mockito.mock(EntityChangeTracker.class);
+
+    // Listener đăng ký qua subscribeChanges cho entity type
+    @SuppressWarnings("unchecked")
+    Consumer<EntityChange> changes(Class<?> type) {
+        ArgumentCaptor<Consumer<EntityChange>> captor = ArgumentCaptor.forClass(Consumer.class);
+        Mockito.verify(tracker).subscribeChanges(eq(type), captor.capture());
+        return captor.getValue();
+    }
+
+    // Listener đăng ký qua subscribe; dateProperty null = entity không gắn với ngày
+    @SuppressWarnings("unchecked")
+    Consumer<LocalDate> dates(Class<?> type, String dateProperty) {
+        ArgumentCaptor<Consumer<LocalDate>> captor = ArgumentCaptor.forClass(Consumer.class);
+        Mockito.verify(tracker).subscribe(eq(type), dateProperty != null ? eq(dateProperty) : isNull(),
+                captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,128 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Customer.Customer;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.services.Shift.StaffWorkloadTracker;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Luồng thật: Hibernate báo thay đổi sau commit qua EntityChangeTracker, bộ đếm tải nhân viên đi theo
+ * mà không nạp lại; transaction rollback không được báo. Test không chạy trong transaction của
+ * {@code @DataJpaTest} (sự kiện sau commit chỉ có khi commit thật), mỗi bước commit riêng rồi dọn dữ liệu.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({StaffWorkloadTracker.class, EntityChangeTracker.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChangeTrackerPostCommitTest {
+
+    @Configuration
+    @EntityScan(basePackages = "com.mytech.backend.portal.models")
+    @EnableJpaRepositories(basePackageClasses = BookingRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = BookingRepository.class))
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StaffWorkloadTracker tracker;
+
+    private TransactionTemplate tx;
+    private Long alice;
+    private Long bob;
+    private Long customerId;
+    private Long openBooking;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            User a = user("alice@example.com", User.Role.STAFF);
+            User b = user("bob@example.com", User.Role.STAFF);
+            User guest = user("guest@example.com", User.Role.CUSTOMER);
+            Customer customer = Customer.builder().name("Khách").email("guest@example.com").user(guest).build();
+            em.persist(customer);
+            alice = a.getId();
+            bob = b.getId();
+            customerId = customer.getId();
+            openBooking = booking(a, BookingStatus.CONFIRMED).getId();
+        });
+        // Nạp 1 lần; các bước sau chỉ đi theo sự kiện
+        assertEquals(1, tracker.loadOf(alice));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Booking b WHERE b.customer.id = :id")
+                    .setParameter("id", customerId).executeUpdate();
+            em.createQuery("DELETE FROM Customer c WHERE c.id = :id").setParameter("id", customerId).executeUpdate();
+            em.createQuery("DELETE FROM User u WHERE u.email IN :emails")
+                    .setParameter("emails", List.of("alice@example.com", "bob@example.com", "guest@example.com"))
+                    .executeUpdate();
+        });
+        tracker.invalidate();
+    }
+
+    @Test
+    void committedChangesMoveLoadAndRollbacksDoNot() {
+        tx.executeWithoutResult(status -> booking(em.find(User.class, bob), BookingStatus.PENDING));
+        assertEquals(1, tracker.loadOf(bob));
+
+        tx.executeWithoutResult(status -> em.find(Booking.class, openBooking).setStatus(BookingStatus.COMPLETED));
+        assertEquals(0, tracker.loadOf(alice));
+
+        tx.executeWithoutResult(status -> {
+            booking(em.find(User.class, alice), BookingStatus.PENDING);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, tracker.loadOf(alice));
+        assertEquals(alice, tracker.leastLoaded(List.of(alice, bob)).orElseThrow());
+    }
+
+    private User user(String email, User.Role role) {
+        User user = User.builder().name(email).email(email).role(role).build();
+        em.persist(user);
+        return user;
+    }
+
+    private Booking booking(User staff, BookingStatus status) {
+        Booking booking = Booking.builder().customer(em.getReference(Customer.class, customerId))
+                .assignedStaff(staff).status(status).build();
+        em.persist(booking);
+        return booking;
+    }
+}
@@ -0,0 +1,128 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.dto.Combo.ComboAnalyticsDTO;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Combo.Combo;
+import com.mytech.backend.portal.repositories.BookingItemRepository;
+import com.mytech.backend.portal.repositories.ComboRepository;
+import com.mytech.backend.portal.services.Combo.ComboAnalyticsServiceImpl;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bộ đếm combo: nạp 1 lần bằng GROUP BY, sau đó chỉ cộng / trừ khi booking vào / ra CONFIRMED,
+ * mỗi booking tối đa 1 lần.
+ */
+class ComboAnalyticsServiceTest {
+
+    private static final String[] PROPS = {"createdAt", "status"};
+
+    private BookingItemRepository bookingItemRepository;
+    private ComboAnalyticsServiceImpl service;
+    private Consumer<EntityChange> onBookingChanged;
+    private Combo combo;
+
+    @BeforeEach
+    void setUp() {
+        bookingItemRepository = Mockito.mock(BookingItemRepository.class);
+        ComboRepository comboRepository = Mockito.mock(ComboRepository.class);
+        ChangeListeners listeners = new ChangeListeners();
+
+        YearMonth now = YearMonth.now();
+        // 3 booking đã xác nhận (101-103), mỗi booking 1 item combo 7
+        Mockito.when(bookingItemRepository.aggregateComboItemsByBooking(BookingStatus.CONFIRMED))
+                .thenReturn(LongStream.rangeClosed(101, 103)
+                        .mapToObj(id -> new Object[]{id, 7L, now.getYear(), now.getMonthValue(), 1L, 1_000_000.0})
+                        .toList());
+        Mockito.when(comboRepository.findPriceRows())
+                .thenReturn(List.<Object[]>of(new Object[]{7L, "Combo 2N1D", 1_000_000.0, 1_200_000.0}));
+
+        combo = new Combo();
+        combo.setId(7L);
+
+        service = new ComboAnalyticsServiceImpl(bookingItemRepository, comboRepository, listeners.tracker);
+        ReflectionTestUtils.invokeMethod(service, "subscribe");
+        onBookingChanged = listeners.changes(Booking.class);
+    }
+
+    @Test
+    void bulkMetricsLoadOnce() {
+        service.getAllMetrics();
+        List<ComboAnalyticsDTO> metrics = service.getAllMetrics();
+
+        ComboAnalyticsDTO m = metrics.get(0);
+        assertEquals(3L, m.getConfirmedBookings());
+        assertEquals(3_000_000L, m.getTotalRevenue());
+        assertEquals(3_000_000L, m.getMonthlyRevenue());
+        assertEquals(0, new BigDecimal("600000").compareTo(m.getTotalSavings()));
+        Mockito.verify(bookingItemRepository, Mockito.times(1)).aggregateComboItemsByBooking(BookingStatus.CONFIRMED);
+    }
+
+    @Test
+    void statusTransitionsAdjustCounters() {
+        service.getConfirmedCount(7L);
+        Booking booking = bookingWithCombo(200L);
+
+        onBookingChanged.accept(update(booking, BookingStatus.PENDING, BookingStatus.CONFIRMED));
+        assertEquals(4L, service.getConfirmedCount(7L));
+        assertEquals(4_000_000L, service.getRevenue(7L));
+
+        // Update khác mà status không đổi thì không đếm lại
+        onBookingChanged.accept(update(booking, BookingStatus.CONFIRMED, BookingStatus.CONFIRMED));
+        assertEquals(4L, service.getConfirmedCount(7L));
+
+        onBookingChanged.accept(update(booking, BookingStatus.CONFIRMED, BookingStatus.CANCELLED));
+        assertEquals(3L, service.getConfirmedCount(7L));
+        assertEquals(3_000_000L, service.getRevenue(7L));
+        Mockito.verify(bookingItemRepository, Mockito.times(1)).aggregateComboItemsByBooking(BookingStatus.CONFIRMED);
+    }
+
+    @Test
+    void changesAlreadyInSnapshotAreNotCountedTwice() {
+        service.getConfirmedCount(7L);
+
+        // Booking 101 commit trước câu GROUP BY nhưng sự kiện tới sau khi nạp xong
+        onBookingChanged.accept(update(bookingWithCombo(101L), BookingStatus.PENDING, BookingStatus.CONFIRMED));
+        assertEquals(3L, service.getConfirmedCount(7L));
+
+        // Booking 300 chưa từng được tính: hủy không trừ
+        onBookingChanged.accept(update(bookingWithCombo(300L), BookingStatus.CONFIRMED, BookingStatus.CANCELLED));
+        assertEquals(3L, service.getConfirmedCount(7L));
+
+        onBookingChanged.accept(update(bookingWithCombo(102L), BookingStatus.CONFIRMED, BookingStatus.CANCELLED));
+        assertEquals(2L, service.getConfirmedCount(7L));
+        assertEquals(2_000_000L, service.getRevenue(7L));
+    }
+
+    private Booking bookingWithCombo(Long id) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setCreatedAt(LocalDateTime.now());
+        BookingItem item = new BookingItem();
+        item.setCombo(combo);
+        item.setPrice(1_000_000.0);
+        item.setQuantity(1);
+        booking.getItems().add(item);
+        return booking;
+    }
+
+    private static EntityChange update(Booking booking, BookingStatus from, BookingStatus to) {
+        return new EntityChange(Kind.UPDATE, booking, PROPS,
+                new Object[]{booking.getCreatedAt(), to}, new Object[]{booking.getCreatedAt(), from});
+    }
+}
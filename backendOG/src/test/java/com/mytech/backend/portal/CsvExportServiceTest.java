@@ -0,0 +1,58 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.services.Export.CsvExportService.Dataset;
+import com.mytech.backend.portal.services.Export.CsvExportServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Giá trị do người dùng nhập có dạng công thức bảng tính được vô hiệu hoá ({@code '} + ngoặc kép);
+ * số âm, số tiền và giá trị thường ghi như cũ.
+ */
+class CsvExportServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private final CsvExportServiceImpl service = new CsvExportServiceImpl(jdbcTemplate);
+
+    @Test
+    void neutralisesFormulaCells() throws Exception {
+        String csv = export(1L, "=HYPERLINK(\"http://x\")", "+cmd|' /C calc'!A0", "-2+3", "@SUM(A1)",
+                "\tTab", "\rCR", new BigDecimal("-150000.00"), "+84901234567", "Nguyễn Văn A, HN");
+
+        String row = csv.substring(csv.indexOf("\r\n") + 2, csv.length() - 2);
+        assertEquals("1,\"'=HYPERLINK(\"\"http://x\"\")\",\"'+cmd|' /C calc'!A0\",\"'-2+3\",\"'@SUM(A1)\","
+                + "\"'\tTab\",\"'\rCR\",-150000.00,+84901234567,\"Nguyễn Văn A, HN\"", row);
+    }
+
+    // 1 dòng result set với các giá trị cho trước, header của PAYMENTS không ảnh hưởng nội dung dòng
+    private String export(Object... values) throws Exception {
+        ResultSetMetaData meta = Mockito.mock(ResultSetMetaData.class);
+        Mockito.when(meta.getColumnCount()).thenReturn(values.length);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(rs.getMetaData()).thenReturn(meta);
+        for (int i = 0; i < values.length; i++) {
+            Mockito.when(rs.getObject(i + 1)).thenReturn(values[i]);
+        }
+        Mockito.doAnswer(inv -> {
+            inv.getArgument(1, RowCallbackHandler.class).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(Dataset.PAYMENTS, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), false, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
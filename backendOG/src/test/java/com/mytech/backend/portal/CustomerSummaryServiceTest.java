@@ -0,0 +1,146 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.dto.Customer.CustomerSummaryDTO;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Booking.ItemType;
+import com.mytech.backend.portal.models.Customer.Customer;
+import com.mytech.backend.portal.models.Review.Review;
+import com.mytech.backend.portal.models.Service.Service;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.CustomerSummaryRepository;
+import com.mytech.backend.portal.services.Customer.CustomerSummaryServiceImpl;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Summary tính từ vài câu GROUP BY rồi đọc từ bảng; customer bị đánh dấu bẩn thì tính lại khi đọc.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({CustomerSummaryServiceImpl.class, EntityChangeTracker.class})
+class CustomerSummaryServiceTest {
+
+    @Configuration
+    @EntityScan(basePackages = "com.mytech.backend.portal.models")
+    @EnableJpaRepositories(basePackageClasses = CustomerSummaryRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = CustomerSummaryRepository.class))
+    static class JpaConfig {
+    }
+
+    private static final LocalDateTime MAY = LocalDateTime.of(2024, 5, 10, 14, 0);
+    private static final LocalDateTime JULY = LocalDateTime.of(2024, 7, 2, 14, 0);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CustomerSummaryServiceImpl customerSummaryService;
+
+    private Customer customer;
+    private Service lake;
+    private Service hill;
+
+    @BeforeEach
+    void setUp() {
+        lake = em.persist(Service.builder().name("Lều đôi ven hồ").price(400_000.0).build());
+        hill = em.persist(Service.builder().name("Glamping đồi thông").price(900_000.0).build());
+        User user = em.persist(User.builder().name("Khách").email("guest@example.com")
+                .role(User.Role.CUSTOMER).build());
+        customer = em.persist(Customer.builder().name("Khách").email("guest@example.com")
+                .user(user).build());
+
+        booking(lake, BookingStatus.COMPLETED, MAY, 400_000L);
+        Booking july = booking(lake, BookingStatus.COMPLETED, JULY, 800_000L);
+        booking(hill, BookingStatus.CANCELLED, JULY.plusDays(20), 900_000L);
+        booking(hill, BookingStatus.PENDING, JULY.plusDays(40), 900_000L);
+        em.persist(Review.builder().customer(customer).service(lake).booking(july).rating(5)
+                .images(new ArrayList<>()).videos(new ArrayList<>()).build());
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void computesLifetimeFieldsThenServesFromTable() {
+        CustomerSummaryDTO summary = customerSummaryService.getSummary(customer.getId());
+
+        assertEquals(4L, summary.getBookingCount());
+        assertEquals(1_200_000L, summary.getLifetimeSpend());
+        assertEquals(JULY, summary.getLastStayAt());
+        assertEquals(lake.getId(), summary.getFavouriteServiceId());
+        assertEquals("Lều đôi ven hồ", summary.getFavouriteServiceName());
+        assertEquals(1L, summary.getReviewCount());
+
+        em.flush();
+        em.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        customerSummaryService.getSummary(customer.getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void dirtyCustomerIsRecomputedOnRead() {
+        customerSummaryService.getSummary(customer.getId());
+
+        // 2 booking đồi thông được xác nhận -> thành service yêu thích
+        Customer managed = em.find(Customer.class, customer.getId());
+        booking(managed, hill, BookingStatus.CONFIRMED, JULY.plusDays(60), 900_000L);
+        booking(managed, hill, BookingStatus.CONFIRMED, JULY.plusDays(70), 900_000L);
+        em.flush();
+        customerSummaryService.markDirty(customer.getId());
+
+        CustomerSummaryDTO summary = customerSummaryService.getSummary(customer.getId());
+        assertEquals(6L, summary.getBookingCount());
+        assertEquals(3_000_000L, summary.getLifetimeSpend());
+        assertEquals(hill.getId(), summary.getFavouriteServiceId());
+        assertEquals(JULY, summary.getLastStayAt());
+    }
+
+    @Test
+    void unknownCustomerIsNotFound() {
+        assertThrows(RuntimeException.class, () -> customerSummaryService.getSummary(-1L));
+    }
+
+    private Booking booking(Service service, BookingStatus status, LocalDateTime checkIn, Long totalPrice) {
+        return booking(customer, service, status, checkIn, totalPrice);
+    }
+
+    private Booking booking(Customer owner, Service service, BookingStatus status, LocalDateTime checkIn,
+                            Long totalPrice) {
+        Booking booking = Booking.builder().customer(owner).status(status).checkInDate(checkIn)
+                .totalPrice(totalPrice).build();
+        booking.setItems(new ArrayList<>());
+        booking.getItems().add(BookingItem.builder().booking(booking).type(ItemType.SERVICE)
+                .service(service).quantity(1).price(service.getPrice()).build());
+        return em.persist(booking);
+    }
+}
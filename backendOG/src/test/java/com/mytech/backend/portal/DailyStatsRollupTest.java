@@ -0,0 +1,121 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Customer.Customer;
+import com.mytech.backend.portal.models.OrderBooking;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.DailyStatBucketRepository;
+import com.mytech.backend.portal.services.Stats.DailyStatsRollup;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bucket theo ngày phải cho cùng số liệu với việc cộng trực tiếp từ bảng gốc,
+ * và đọc tổng của 1 khoảng ngày chỉ tốn 1 câu SQL dù dữ liệu trải dài bao lâu.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({DailyStatsRollup.class, EntityChangeTracker.class})
+class DailyStatsRollupTest {
+
+    @Configuration
+    @EntityScan(basePackages = "com.mytech.backend.portal.models")
+    @EnableJpaRepositories(basePackageClasses = DailyStatBucketRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = DailyStatBucketRepository.class))
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DailyStatsRollup rollup;
+
+    private final LocalDate today = LocalDate.now();
+    private int weeklyOrders;
+
+    @BeforeEach
+    void setUp() {
+        // 3 năm đơn hàng, mỗi tuần 1 đơn 100.000đ (tính lùi từ hôm nay)
+        for (LocalDate day = today; !day.isBefore(today.minusYears(3)); day = day.minusWeeks(1)) {
+            em.persist(order(day, 100_000.0));
+            weeklyOrders++;
+        }
+        em.persist(order(today, 50_000.0));
+
+        for (int n = 0; n < 4; n++) {
+            User user = em.persist(User.builder().name("Khách " + n).email("guest" + n + "@example.com")
+                    .role(User.Role.CUSTOMER).build());
+            Customer customer = em.persist(Customer.builder().name("Khách " + n)
+                    .email("guest" + n + "@example.com").user(user).build());
+            em.persist(Booking.builder().customer(customer).status(BookingStatus.COMPLETED)
+                    .rating(n < 2 ? 5 : null).build());
+        }
+        em.persist(User.builder().name("Nhân viên").email("staff@example.com").role(User.Role.STAFF).build());
+        em.flush();
+
+        rollup.rebuild(today.minusYears(3), today.plusDays(1));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void todayBucketMatchesSourceTables() {
+        DailyStatsRollup.Totals totals = rollup.totals(today, today.plusDays(1));
+
+        assertEquals(150_000.0, totals.revenue());
+        assertEquals(4, totals.bookingCount());
+        // Nhân viên không tính là khách mới
+        assertEquals(4, totals.newCustomers());
+        assertEquals(5.0, totals.averageRating());
+    }
+
+    @Test
+    void yearlyTotalsReadBucketsWithOneStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        DailyStatsRollup.Totals all = rollup.totals(today.minusYears(3), today.plusDays(1));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(weeklyOrders + 1, all.orderCount());
+        assertEquals(weeklyOrders * 100_000.0 + 50_000.0, all.revenue());
+    }
+
+    private static OrderBooking order(LocalDate day, double total) {
+        OrderBooking order = new OrderBooking();
+        order.setOrderCode("#OGC" + day + "-" + total);
+        order.setStatus("CONFIRMED");
+        order.setTotalPrice(total);
+        order.setCustomerName("Khách lẻ");
+        order.setEmail("walkin@example.com");
+        order.setOrderDate(day.atTime(10, 0));
+        return order;
+    }
+}
@@ -0,0 +1,95 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.dto.StatDTO;
+import com.mytech.backend.portal.dto.Stats.DashboardStatsMessage;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.services.AdminService;
+import com.mytech.backend.portal.services.StatService;
+import com.mytech.backend.portal.services.Stats.DashboardStatsPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * Nhiều thay đổi liền nhau chỉ gây 1 lần tính và 1 tin nhắn; tin nhắn chỉ chứa khóa đã đổi.
+ */
+class DashboardStatsPublisherTest {
+
+    private AdminService adminService;
+    private SimpMessagingTemplate messagingTemplate;
+    private DashboardStatsPublisher publisher;
+    private Consumer<LocalDate> onBookingChanged;
+    private final AtomicLong bookings = new AtomicLong(10);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        adminService = Mockito.mock(AdminService.class);
+        StatService statService = Mockito.mock(StatService.class);
+        messagingTemplate = Mockito.mock(SimpMessagingTemplate.class);
+        ChangeListeners listeners = new ChangeListeners();
+
+        // Chỉ thẻ "monthly" phụ thuộc số booking
+        Mockito.when(adminService.getStats(anyString())).thenAnswer(inv -> List.of(new StatDTO(
+                "Total Bookings", "monthly".equals(inv.getArgument(0)) ? String.valueOf(bookings.get()) : "1",
+                "calendar", "text-blue-600", "0%")));
+        Mockito.when(statService.getStats(anyString())).thenReturn(
+                List.of(new StatDTO("Total Users", "3", "users", "blue", "0%")));
+
+        publisher = new DashboardStatsPublisher(adminService, statService, messagingTemplate, listeners.tracker);
+        ReflectionTestUtils.setField(publisher, "debounceMs", 100L);
+        ReflectionTestUtils.invokeMethod(publisher, "start");
+        onBookingChanged = listeners.dates(Booking.class, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(publisher, "stop");
+    }
+
+    @Test
+    void burstOfChangesCoalescesIntoOneComputation() {
+        DashboardStatsMessage snapshot = publisher.snapshot();
+        assertTrue(snapshot.isSnapshot());
+        assertEquals(7, snapshot.getStats().size());
+        Mockito.clearInvocations(adminService);
+
+        for (int i = 0; i < 200; i++) {
+            bookings.incrementAndGet();
+            onBookingChanged.accept(null);
+        }
+
+        ArgumentCaptor<DashboardStatsMessage> sent = ArgumentCaptor.forClass(DashboardStatsMessage.class);
+        Mockito.verify(messagingTemplate, Mockito.timeout(2000)).convertAndSend(
+                eq(DashboardStatsPublisher.DESTINATION), sent.capture());
+        // 1 lần tính = 1 lần gọi cho mỗi kỳ
+        Mockito.verify(adminService, Mockito.times(1)).getStats("monthly");
+        assertFalse(sent.getValue().isSnapshot());
+        assertEquals(1, sent.getValue().getVersion());
+        assertEquals(List.of("admin.monthly"), List.copyOf(sent.getValue().getStats().keySet()));
+        assertEquals("210", sent.getValue().getStats().get("admin.monthly").get(0).getValue());
+    }
+
+    @Test
+    void unchangedStatsAreNotSent() {
+        publisher.snapshot();
+        assertTrue(publisher.publish().isEmpty());
+        Mockito.verify(messagingTemplate, Mockito.never()).convertAndSend(anyString(), any(Object.class));
+    }
+}
@@ -0,0 +1,267 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Email.EmailOutbox;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.repositories.EmailOutboxRepository;
+import com.mytech.backend.portal.services.Email.EmailOutboxDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Dispatcher gửi cả lô qua 1 kết nối SMTP tới server giả chạy trong tiến trình, ghi emailSentAt khi gửi được,
+ * thử lại theo backoff khi server từ chối, và không tính lượt thử khi không kết nối được.
+ */
+class EmailOutboxDispatcherTest {
+
+    private static final long BASE_BACKOFF_MS = 1000;
+
+    private FakeSmtpServer smtp;
+    private EmailOutboxRepository outboxRepository;
+    private BookingRepository bookingRepository;
+    private JavaMailSenderImpl mailSender;
+    private EmailOutboxDispatcher dispatcher;
+
+    private List<EmailOutbox> emails;
+    private Map<Long, Booking> bookings;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new FakeSmtpServer();
+        outboxRepository = Mockito.mock(EmailOutboxRepository.class);
+        bookingRepository = Mockito.mock(BookingRepository.class);
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        Properties props = new Properties();
+        props.put("mail.smtp.connectiontimeout", "2000");
+        props.put("mail.smtp.timeout", "2000");
+        mailSender.setJavaMailProperties(props);
+
+        dispatcher = new EmailOutboxDispatcher(outboxRepository, bookingRepository, mailSender,
+                Mockito.mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "baseBackoffMs", BASE_BACKOFF_MS);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 5 * BASE_BACKOFF_MS);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.invokeMethod(dispatcher, "init");
+
+        emails = List.of(email(1L, 10L, "a@example.com"), email(2L, 11L, "b@example.com"),
+                email(3L, 12L, "c@example.com"));
+        bookings = emails.stream()
+                .map(e -> Booking.builder().id(e.getBookingId()).build())
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        // Repository giả trả về chính các object này, như entity được quản lý trong transaction
+        Mockito.when(outboxRepository.findAllById(any())).thenAnswer(inv -> {
+            Set<Long> ids = Set.copyOf(inv.<Collection<Long>>getArgument(0));
+            return emails.stream().filter(e -> ids.contains(e.getId())).toList();
+        });
+        Mockito.when(bookingRepository.findAllById(any())).thenAnswer(inv -> {
+            Set<Long> ids = Set.copyOf(inv.<Collection<Long>>getArgument(0));
+            return bookings.values().stream().filter(b -> ids.contains(b.getId())).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void sendsBatchOverOneConnectionAndRecordsEmailSentAt() {
+        Mockito.when(outboxRepository.findDue(any(), any(), any())).thenReturn(emails, List.of());
+
+        dispatcher.dispatch();
+
+        assertEquals(1, smtp.connections.get());
+        assertEquals(3, smtp.messages.size());
+        assertTrue(smtp.messages.get(0).contains("To: a@example.com"));
+        assertTrue(smtp.messages.get(0).contains("Content-ID: <ogLogo>"));
+        for (EmailOutbox email : emails) {
+            assertEquals(EmailOutbox.Status.SENT, email.getStatus());
+            assertEquals(1, email.getAttempts());
+            assertNotNull(email.getSentAt());
+            assertEquals(email.getSentAt(), bookings.get(email.getBookingId()).getEmailSentAt());
+        }
+    }
+
+    @Test
+    void rejectedEmailIsRetriedWithExponentialBackoff() {
+        smtp.rejectOnce.add("b@example.com");
+        Mockito.when(outboxRepository.findDue(any(), any(), any())).thenReturn(emails);
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        EmailOutbox b = emails.get(1);
+        assertEquals(EmailOutbox.Status.PENDING, b.getStatus());
+        assertEquals(1, b.getAttempts());
+        assertNotNull(b.getLastError());
+        assertFalse(b.getNextAttemptAt().isBefore(before.plusNanos(BASE_BACKOFF_MS * 1_000_000)));
+        assertNull(bookings.get(11L).getEmailSentAt());
+        // a, c vẫn đi; sau lỗi mở kết nối mới
+        assertEquals(EmailOutbox.Status.SENT, emails.get(0).getStatus());
+        assertEquals(EmailOutbox.Status.SENT, emails.get(2).getStatus());
+        assertEquals(2, smtp.messages.size());
+
+        // Tới hạn lại thì gửi được
+        Mockito.when(outboxRepository.findDue(any(), any(), any())).thenReturn(List.of(b));
+        dispatcher.dispatch();
+        assertEquals(EmailOutbox.Status.SENT, b.getStatus());
+        assertEquals(2, b.getAttempts());
+        assertNotNull(bookings.get(11L).getEmailSentAt());
+
+        // 1s, 2s, 4s rồi chặn ở max 5s
+        assertEquals(1000L, (long) ReflectionTestUtils.invokeMethod(dispatcher, "backoffMs", 1));
+        assertEquals(2000L, (long) ReflectionTestUtils.invokeMethod(dispatcher, "backoffMs", 2));
+        assertEquals(4000L, (long) ReflectionTestUtils.invokeMethod(dispatcher, "backoffMs", 3));
+        assertEquals(5000L, (long) ReflectionTestUtils.invokeMethod(dispatcher, "backoffMs", 4));
+    }
+
+    @Test
+    void smtpDownKeepsEmailsPendingWithoutUsingAttempts() throws IOException {
+        smtp.close();
+        Mockito.when(outboxRepository.findDue(any(), any(), any())).thenReturn(emails);
+
+        dispatcher.dispatch();
+        // Đang tạm dừng: lượt sau không quét outbox
+        dispatcher.dispatch();
+
+        Mockito.verify(outboxRepository, Mockito.times(1)).findDue(any(), any(), any());
+        Mockito.verify(outboxRepository, Mockito.never()).findAllById(any());
+        for (EmailOutbox email : emails) {
+            assertEquals(EmailOutbox.Status.PENDING, email.getStatus());
+            assertEquals(0, email.getAttempts());
+        }
+    }
+
+    private static EmailOutbox email(Long id, Long bookingId, String recipient) {
+        LocalDateTime now = LocalDateTime.now();
+        return EmailOutbox.builder()
+                .id(id)
+                .type(EmailOutbox.Type.BOOKING_CONFIRMATION)
+                .bookingId(bookingId)
+                .fromAddress("no-reply@ogcamping.vn")
+                .recipient(recipient)
+                .subject("Xác nhận đơn đặt chỗ - OGCAMPING")
+                .body("<html><body><img src=\"cid:ogLogo\"><p>Booking " + bookingId + "</p></body></html>")
+                .status(EmailOutbox.Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+
+    /**
+     * Server SMTP tối giản chạy trong tiến trình: nhận lần lượt từng kết nối, lưu nội dung DATA,
+     * trả 451 cho lần gửi đầu tới các địa chỉ trong {@code rejectOnce}.
+     */
+    private static final class FakeSmtpServer {
+
+        final AtomicInteger connections = new AtomicInteger();
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final Set<String> rejectOnce = ConcurrentHashMap.newKeySet();
+        private final ServerSocket server;
+
+        FakeSmtpServer() throws IOException {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread thread = new Thread(this::acceptLoop, "fake-smtp");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        void close() throws IOException {
+            server.close();
+        }
+
+        private void acceptLoop() {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    connections.incrementAndGet();
+                    handle(socket);
+                } catch (IOException e) {
+                    // Server đã đóng hoặc client ngắt giữa chừng
+                }
+            }
+        }
+
+        private void handle(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1);
+            reply(out, "220 fake ESMTP");
+            String recipient = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "RCPT" -> {
+                        recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            data.append(line).append('\n');
+                        }
+                        if (rejectOnce.remove(recipient)) {
+                            reply(out, "451 Try again later");
+                        } else {
+                            messages.add(data.toString());
+                            reply(out, "250 OK queued");
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    // EHLO, MAIL, RSET, NOOP
+                    default -> reply(out, "250 OK");
+                }
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+    }
+}
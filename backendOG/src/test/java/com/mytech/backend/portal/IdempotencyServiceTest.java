@@ -0,0 +1,159 @@
+package com.mytech.backend.portal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mytech.backend.portal.models.Idempotency.IdempotencyRecord;
+import com.mytech.backend.portal.repositories.IdempotencyRecordRepository;
+import com.mytech.backend.portal.services.Idempotency.IdempotencyServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Khách bấm "Đặt" nhiều lần / app retry: action chỉ chạy 1 lần, mọi request trùng nhận cùng response.
+ */
+class IdempotencyServiceTest {
+
+    private static final Map<String, Object> ORDER = Map.of("userId", 1, "totalPrice", 250_000);
+
+    private IdempotencyRecordRepository repository;
+    private IdempotencyServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(IdempotencyRecordRepository.class);
+        service = new IdempotencyServiceImpl(repository, new ObjectMapper(),
+                Mockito.mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "maxEntries", 100);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 120L);
+    }
+
+    @Test
+    void concurrentDuplicatesRunActionOnce() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ResponseEntity<?>>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(pool.submit(() -> service.execute("POST /apis/orders/gear", "key-1", ORDER, () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return ResponseEntity.ok(Map.of("orderCode", "#OGC1"));
+                })));
+            }
+            started.await(5, TimeUnit.SECONDS);
+            // Cho các request trùng kịp xếp hàng sau lần chạy đầu
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<ResponseEntity<?>> call : calls) {
+                ResponseEntity<?> response = call.get(5, TimeUnit.SECONDS);
+                assertEquals(200, response.getStatusCode().value());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, runs.get());
+        Mockito.verify(repository, Mockito.times(1)).saveAndFlush(any());
+
+        // Retry sau đó lấy từ cache, không chạm DB
+        ResponseEntity<?> replay = service.execute("POST /apis/orders/gear", "key-1", ORDER, () -> {
+            throw new AssertionError("must not run again");
+        });
+        assertEquals("true", replay.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals("{\"orderCode\":\"#OGC1\"}", replay.getBody());
+        // 1 lần kiểm tra trước khi chạy + 1 lần ghi COMPLETED
+        Mockito.verify(repository, Mockito.times(2)).findByIdemKey(any());
+    }
+
+    @Test
+    void reusingKeyForDifferentRequestIsRejected() {
+        service.execute("POST /apis/orders/gear", "key-2", ORDER, () -> ResponseEntity.ok("created"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.execute("POST /apis/orders/gear", "key-2",
+                Map.of("userId", 1, "totalPrice", 999_000), () -> ResponseEntity.ok("created")));
+    }
+
+    @Test
+    void failedActionIsNotStored() {
+        assertThrows(RuntimeException.class, () -> service.execute("POST /apis/v1/bookings:1", "key-3", ORDER,
+                () -> {
+                    throw new RuntimeException("No available slots");
+                }));
+
+        ResponseEntity<?> retry = service.execute("POST /apis/v1/bookings:1", "key-3", ORDER,
+                () -> ResponseEntity.ok("created"));
+        assertEquals("created", retry.getBody());
+    }
+
+    @Test
+    void staleClaimFromDeadInstanceIsTakenOver() {
+        // Instance trước chiếm key rồi chết, record IN_PROGRESS còn lại với lease đã quá hạn
+        Mockito.when(repository.findByIdemKey(any())).thenReturn(Optional.of(inProgress(ORDER, 10)));
+        Mockito.when(repository.takeOverStaleClaim(any(), any(), any(), any())).thenReturn(1);
+
+        ResponseEntity<?> retry = service.execute("POST /apis/v1/bookings:1", "key-4", ORDER,
+                () -> ResponseEntity.ok("created"));
+
+        assertEquals("created", retry.getBody());
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(any());
+    }
+
+    @Test
+    void liveClaimReturnsConflictButDifferentRequestIsRejected() {
+        Mockito.when(repository.findByIdemKey(any())).thenReturn(Optional.of(inProgress(ORDER, 0)));
+
+        ResponseEntity<?> duplicate = service.execute("POST /apis/v1/bookings:1", "key-5", ORDER, () -> {
+            throw new AssertionError("must not run while another instance holds the key");
+        });
+        assertEquals(409, duplicate.getStatusCode().value());
+
+        assertThrows(IllegalArgumentException.class, () -> service.execute("POST /apis/v1/bookings:1", "key-5",
+                Map.of("userId", 1, "totalPrice", 999_000), () -> ResponseEntity.ok("created")));
+        Mockito.verify(repository, Mockito.never()).takeOverStaleClaim(any(), any(), any(), any());
+    }
+
+    private IdempotencyRecord inProgress(Object request, long claimedMinutesAgo) {
+        LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(claimedMinutesAgo);
+        return IdempotencyRecord.builder()
+                .idemKey("key")
+                .requestHash(ReflectionTestUtils.invokeMethod(service, "hash", request))
+                .status(IdempotencyRecord.Status.IN_PROGRESS)
+                .createdAt(claimedAt)
+                .claimedAt(claimedAt)
+                .expiresAt(claimedAt.plusHours(24))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.services.Invoice.InvoicePdfCache;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Tầng bộ nhớ giới hạn theo byte, tầng đĩa giữ bản bị đẩy khỏi bộ nhớ; đổi booking thì mất khóa hiện hành.
+ */
+class InvoicePdfCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private InvoicePdfCache cache;
+    private Consumer<EntityChange> onBookingChanged;
+
+    @BeforeEach
+    void setUp() {
+        ChangeListeners listeners = new ChangeListeners();
+        cache = new InvoicePdfCache(listeners.tracker);
+        ReflectionTestUtils.setField(cache, "memoryBytes", 250L);
+        ReflectionTestUtils.setField(cache, "diskBytes", 250L);
+        ReflectionTestUtils.setField(cache, "dir", dir.toString());
+        ReflectionTestUtils.invokeMethod(cache, "init");
+
+        onBookingChanged = listeners.changes(Booking.class);
+        Mockito.verify(listeners.tracker, Mockito.times(4)).subscribeChanges(any(), any());
+    }
+
+    @Test
+    void evictedFromMemoryStillServedFromDisk() throws Exception {
+        String first = InvoicePdfCache.contentKey("booking-1");
+        String second = InvoicePdfCache.contentKey("booking-2");
+        cache.put(1L, 10L, first, pdf(200, 1), cache.version());
+        cache.put(2L, 10L, second, pdf(200, 2), cache.version());
+
+        // Chỉ đủ chỗ cho 1 bản trong bộ nhớ; bản đầu bị đẩy xuống đĩa
+        Files.delete(dir.resolve(second + ".pdf"));
+        assertArrayEquals(pdf(200, 2), cache.get(second));
+        assertArrayEquals(pdf(200, 1), cache.get(first));
+        assertEquals(first, cache.currentKey(1L));
+
+        // Đĩa vượt 250 byte -> xóa file cũ nhất
+        cache.put(3L, 10L, InvoicePdfCache.contentKey("booking-3"), pdf(200, 3), cache.version());
+        cache.pruneDisk();
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void bookingChangeDropsCurrentKeyAndFiles() {
+        String key = InvoicePdfCache.contentKey("booking-1");
+        cache.put(1L, 10L, key, pdf(100, 1), cache.version());
+
+        Booking booking = new Booking();
+        booking.setId(1L);
+        onBookingChanged.accept(new EntityChange(Kind.UPDATE, booking, new String[0], new Object[0], null));
+
+        assertNull(cache.currentKey(1L));
+        assertNull(cache.get(key));
+        assertFalse(Files.exists(dir.resolve(key + ".pdf")));
+    }
+
+    @Test
+    void renderStartedBeforeChangeIsNotIndexed() {
+        long loadedAt = cache.version();
+        cache.invalidate(1L);
+        cache.put(1L, 10L, InvoicePdfCache.contentKey("stale"), pdf(100, 1), loadedAt);
+
+        assertNull(cache.currentKey(1L));
+    }
+
+    private static byte[] pdf(int size, int fill) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) fill);
+        return bytes;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mytech.backend.portal;
+
+import com.itextpdf.layout.font.FontSet;
+import com.mytech.backend.portal.services.Invoice.InvoiceTemplateEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Template tách 1 lần, logo và FontSet quét 1 lần rồi dùng chung cho mọi lần render; giá trị được escape,
+ * {@link InvoiceTemplateEngine.Html} chèn nguyên văn.
+ */
+class InvoiceTemplateEngineTest {
+
+    private static final int ROWS = 20;
+
+    private InvoiceTemplateEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new InvoiceTemplateEngine();
+        ReflectionTestUtils.setField(engine, "fontDir", "");
+        ReflectionTestUtils.invokeMethod(engine, "init");
+    }
+
+    @Test
+    void templatesLogoAndFontsAreLoadedOnceAndShared() {
+        InvoiceTemplateEngine.Template row = engine.template(InvoiceTemplateEngine.BOOKING_INVOICE_ROW);
+        String logo = engine.logoBase64();
+        FontSet fonts = (FontSet) ReflectionTestUtils.getField(engine, "fontSet");
+
+        for (int i = 0; i < 3; i++) {
+            byte[] pdf = renderInvoice();
+            assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+        }
+
+        assertSame(row, engine.template(InvoiceTemplateEngine.BOOKING_INVOICE_ROW));
+        assertSame(logo, engine.logoBase64());
+        assertSame(fonts, ReflectionTestUtils.getField(engine, "fontSet"));
+        // Mỗi lần convert có FontProvider riêng nhưng cùng 1 FontSet đã quét
+        assertSame(fonts, engine.converterProperties().getFontProvider().getFontSet());
+        assertSame(fonts, engine.converterProperties().getFontProvider().getFontSet());
+    }
+
+    @Test
+    void valuesAreEscapedAndHtmlFragmentsInsertedVerbatim() {
+        String row = engine.template(InvoiceTemplateEngine.BOOKING_INVOICE_ROW).render(Map.of(
+                "NAME", "<b>Lều & bạt</b>",
+                "QUANTITY", 2));
+        assertTrue(row.contains("<td>&lt;b&gt;Lều &amp; bạt&lt;/b&gt;</td>"), row);
+        assertTrue(row.contains("<td class='number'>2</td>"), row);
+        // Placeholder thiếu giá trị thành rỗng
+        assertTrue(row.contains("<td class='number'></td>"), row);
+
+        String html = engine.template(InvoiceTemplateEngine.BOOKING_INVOICE).render(Map.of(
+                "ITEM_ROWS", new InvoiceTemplateEngine.Html(row)));
+        assertTrue(html.contains(row), "row fragment must be inserted unescaped");
+    }
+
+    @Test
+    void unknownTemplateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> engine.template("missing"));
+    }
+
+    private byte[] renderInvoice() {
+        InvoiceTemplateEngine.Template row = engine.template(InvoiceTemplateEngine.BOOKING_INVOICE_ROW);
+        StringBuilder rows = new StringBuilder();
+        for (int i = 1; i <= ROWS; i++) {
+            row.render(Map.of(
+                    "NAME", "Lều cắm trại " + i,
+                    "QUANTITY", 2,
+                    "PRICE", InvoiceTemplateEngine.money(150_000),
+                    "TOTAL", InvoiceTemplateEngine.money(300_000)), rows);
+        }
+        Map<String, Object> values = new HashMap<>();
+        values.put("BASE64_IMAGE", engine.logoBase64());
+        values.put("BOOKING_ID", 42);
+        values.put("CUSTOMER_NAME", "Nguyễn Văn Á");
+        values.put("ITEM_ROWS", new InvoiceTemplateEngine.Html(rows.toString()));
+        values.put("TOTAL", InvoiceTemplateEngine.money(ROWS * 300_000));
+        return engine.renderPdf(InvoiceTemplateEngine.BOOKING_INVOICE, values);
+    }
+}
@@ -0,0 +1,195 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.dto.Invoice.PdfJobDTO;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.security.AppUserDetails;
+import com.mytech.backend.portal.services.Booking.BookingInvoiceService;
+import com.mytech.backend.portal.services.Booking.BookingInvoiceService.InvoicePdf;
+import com.mytech.backend.portal.services.Invoice.PdfJobService;
+import com.mytech.backend.portal.services.Invoice.PdfJobServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Render chạy trên pool giới hạn: hàng đợi đầy thì từ chối ngay, job ZIP render song song nhưng
+ * không vượt số worker, booking lỗi không làm hỏng cả file.
+ */
+class PdfJobServiceTest {
+
+    private static final int WORKERS = 2;
+    private static final int QUEUE = 2;
+
+    private BookingInvoiceService invoiceService;
+    private BookingRepository bookingRepository;
+    private PdfJobServiceImpl service;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        invoiceService = Mockito.mock(BookingInvoiceService.class);
+        bookingRepository = Mockito.mock(BookingRepository.class);
+        service = new PdfJobServiceImpl(invoiceService, bookingRepository);
+        ReflectionTestUtils.setField(service, "workers", WORKERS);
+        ReflectionTestUtils.setField(service, "queueCapacity", QUEUE);
+        ReflectionTestUtils.setField(service, "maxBulkJobs", 1);
+        ReflectionTestUtils.setField(service, "maxBulkSize", 1000);
+        ReflectionTestUtils.setField(service, "ttlMs", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(service, "start");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(service, "stop");
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void fullQueueRejectsInsteadOfPiling() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(invoiceService.getInvoice(anyLong())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return pdf(inv.getArgument(0));
+        });
+
+        List<PdfJobDTO> accepted = LongStream.rangeClosed(1, WORKERS + QUEUE)
+                .mapToObj(service::submitInvoice).toList();
+        // 2 job đang chạy trên 2 worker, 2 job nằm kín hàng đợi
+        assertThrows(RejectedExecutionException.class, () -> service.submitInvoice(99L));
+
+        release.countDown();
+        for (PdfJobDTO job : accepted) {
+            PdfJobDTO done = await(job.getJobId());
+            assertEquals("DONE", done.getStatus());
+            PdfJobService.Download download = service.getDownload(job.getJobId()).orElseThrow();
+            assertEquals("application/pdf", download.contentType());
+        }
+    }
+
+    @Test
+    void bulkZipsEveryInvoiceWithinWorkerLimit() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1, 40).boxed().toList();
+        Mockito.when(bookingRepository.findIdsCreatedBetween(any(), any())).thenReturn(ids);
+        Mockito.when(invoiceService.getInvoice(anyLong())).thenAnswer(inv -> {
+            Long id = inv.getArgument(0);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+                if (id == 7L) {
+                    throw new RuntimeException("Booking not found");
+                }
+                return pdf(id);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        PdfJobDTO job = service.submitBulk(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
+        assertEquals(40, job.getTotal());
+        PdfJobDTO done = await(job.getJobId());
+        assertEquals("DONE", done.getStatus());
+        assertEquals(39, done.getCompleted());
+        assertEquals(1, done.getFailed());
+        assertTrue(maxRunning.get() <= WORKERS, "ran " + maxRunning.get() + " at once");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfJobService.Download download = service.getDownload(job.getJobId()).orElseThrow();
+        assertEquals("invoices_2025-01-01_2025-01-31.zip", download.filename());
+        download.writeTo(out);
+
+        Set<String> names = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                if (entry.getName().equals("invoice_12.pdf")) {
+                    assertArrayEquals(pdf(12L).content(), zip.readAllBytes());
+                }
+            }
+        }
+        assertEquals(40, names.size()); // 39 PDF + errors.txt
+        assertTrue(names.contains("errors.txt"));
+        assertFalse(names.contains("invoice_7.pdf"));
+    }
+
+    @Test
+    void bulkRangeTooLargeIsRejected() {
+        Mockito.when(bookingRepository.findIdsCreatedBetween(any(), any()))
+                .thenReturn(LongStream.rangeClosed(1, 1001).boxed().toList());
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submitBulk(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)));
+    }
+
+    @Test
+    void onlySubmitterOrStaffSeesTheJob() throws Exception {
+        Mockito.when(invoiceService.getInvoice(anyLong())).thenAnswer(inv -> pdf(inv.getArgument(0)));
+        login(7L, User.Role.CUSTOMER);
+        PdfJobDTO job = service.submitInvoice(1L);
+        await(job.getJobId());
+
+        login(8L, User.Role.CUSTOMER);
+        assertThrows(AccessDeniedException.class, () -> service.getStatus(job.getJobId()));
+        assertThrows(AccessDeniedException.class, () -> service.getDownload(job.getJobId()));
+
+        login(2L, User.Role.STAFF);
+        assertTrue(service.getDownload(job.getJobId()).isPresent());
+        login(7L, User.Role.CUSTOMER);
+        assertTrue(service.getDownload(job.getJobId()).isPresent());
+    }
+
+    private static void login(Long userId, User.Role role) {
+        User user = User.builder().email("u" + userId + "@example.com").role(role).build();
+        user.setId(userId);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AppUserDetails(user), null, List.of(new SimpleGrantedAuthority("ROLE_" + role.name()))));
+    }
+
+    private PdfJobDTO await(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            PdfJobDTO job = service.getStatus(jobId).orElseThrow();
+            if (job.getStatus().equals("DONE") || job.getStatus().equals("FAILED")) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job " + jobId + " did not finish");
+    }
+
+    private static InvoicePdf pdf(Long bookingId) {
+        return new InvoicePdf(bookingId, "etag-" + bookingId,
+                ("%PDF-1.7 booking " + bookingId).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,86 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.services.Invoice.InvoiceTemplateEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PDF ghi thẳng vào output stream theo từng khối nhỏ, không đóng stream của response.
+ */
+class PdfStreamingTest {
+
+    private static final int ROWS = 300;
+
+    // Giống output stream của servlet: chỉ ghi nhận kích thước từng lần ghi, không giữ dữ liệu
+    private static final class RecordingStream extends OutputStream {
+        long total;
+        int writes;
+        int largestWrite;
+        byte[] head = new byte[0];
+        final byte[] tail = new byte[16];
+        boolean closed;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (total == 0) {
+                head = Arrays.copyOfRange(b, off, off + Math.min(len, 5));
+            }
+            total += len;
+            writes++;
+            largestWrite = Math.max(largestWrite, len);
+            int keep = Math.min(len, tail.length);
+            System.arraycopy(tail, keep, tail, 0, tail.length - keep);
+            System.arraycopy(b, off + len - keep, tail, tail.length - keep, keep);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    void largeBillIsWrittenInChunksWithoutClosingResponse() {
+        InvoiceTemplateEngine engine = new InvoiceTemplateEngine();
+        ReflectionTestUtils.setField(engine, "fontDir", "");
+        ReflectionTestUtils.invokeMethod(engine, "init");
+
+        InvoiceTemplateEngine.Template row = engine.template(InvoiceTemplateEngine.BOOKING_DISH_BILL_ROW);
+        StringBuilder rows = new StringBuilder();
+        for (int i = 1; i <= ROWS; i++) {
+            row.render(Map.of("INDEX", i, "NAME", "Gà nướng mật ong " + i, "QUANTITY", 2,
+                    "PRICE", InvoiceTemplateEngine.money(120_000), "TOTAL", InvoiceTemplateEngine.money(240_000)), rows);
+        }
+        Map<String, Object> values = new HashMap<>();
+        values.put("BASE64_IMAGE", engine.logoBase64());
+        values.put("BOOKING_ID", 7);
+        values.put("CUSTOMER_NAME", "Trần Thị Bích");
+        values.put("ITEM_ROWS", new InvoiceTemplateEngine.Html(rows.toString()));
+        values.put("TOTAL", InvoiceTemplateEngine.money(ROWS * 240_000));
+        String html = engine.template(InvoiceTemplateEngine.BOOKING_DISH_BILL).render(values);
+
+        RecordingStream out = new RecordingStream();
+        engine.toPdf(html, out);
+
+        assertTrue(new String(out.head, StandardCharsets.ISO_8859_1).startsWith("%PDF-"));
+        assertTrue(new String(out.tail, StandardCharsets.ISO_8859_1).contains("%%EOF"));
+        assertFalse(out.closed, "response stream must be left open for Spring");
+        // Ghi dần theo khối của bộ đệm PdfWriter trong lúc convert, không phải 1 lần cả file
+        assertTrue(out.writes > 10 && out.largestWrite < out.total,
+                out.writes + " writes, largest " + out.largestWrite + " of " + out.total + " bytes");
+    }
+}
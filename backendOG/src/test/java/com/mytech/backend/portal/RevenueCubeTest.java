@@ -0,0 +1,185 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Booking.ItemType;
+import com.mytech.backend.portal.services.Stats.RevenueCube;
+import com.mytech.backend.portal.services.Stats.RevenueCube.Dimension;
+import com.mytech.backend.portal.services.Stats.RevenueCube.Fact;
+import com.mytech.backend.portal.services.Stats.RevenueCube.Granularity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cube phải cho cùng kết quả với cộng tay từng dòng, dù quét 1 leaf hay chia nhiều leaf song song.
+ */
+class RevenueCubeTest {
+
+    private static final int ITEMS = 2_000_000;
+    private static final LocalDate START = LocalDate.of(2023, 1, 1);
+    private static final String[] LOCATIONS = {"Sapa", "Đà Lạt", "Phú Quốc"};
+
+    private final RevenueCube cube = new RevenueCube();
+    private final List<Fact> facts = new ArrayList<>(ITEMS);
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        List<Fact> batch = new ArrayList<>();
+        for (int i = 1; i <= ITEMS; i++) {
+            boolean combo = random.nextInt(4) == 0;
+            Fact fact = new Fact(i, (i + 1) / 2, START.plusDays(random.nextInt(730)),
+                    100_000L * (1 + random.nextInt(20)),
+                    combo ? ItemType.COMBO : ItemType.SERVICE,
+                    combo ? null : (long) (1 + random.nextInt(50)),
+                    combo ? (long) (1 + random.nextInt(10)) : null,
+                    LOCATIONS[random.nextInt(LOCATIONS.length)],
+                    BookingStatus.values()[random.nextInt(BookingStatus.values().length)]);
+            facts.add(fact);
+            batch.add(fact);
+            if (batch.size() == 50_000) {
+                cube.append(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        cube.append(batch);
+    }
+
+    @Test
+    void monthlyByLocationMatchesBruteForce() {
+        RevenueCube.Result result = cube.query(RevenueCube.Query.builder()
+                .granularity(Granularity.MONTH).groupBy(Dimension.LOCATION)
+                .from(START).to(START.plusYears(1))
+                .itemType(ItemType.SERVICE)
+                .statuses(Set.of(BookingStatus.CONFIRMED, BookingStatus.COMPLETED))
+                .build());
+
+        assertEquals(12, result.periods().size());
+        Map<String, long[]> expected = Map.of(
+                "Sapa", new long[12], "Đà Lạt", new long[12], "Phú Quốc", new long[12]);
+        for (Fact f : facts) {
+            if (f.day().isBefore(START.plusYears(1)) && f.type() == ItemType.SERVICE
+                    && (f.status() == BookingStatus.CONFIRMED || f.status() == BookingStatus.COMPLETED)) {
+                expected.get(f.location())[f.day().getMonthValue() - 1] += f.amount();
+            }
+        }
+        assertEquals(3, result.series().size());
+        for (RevenueCube.Series s : result.series()) {
+            assertArrayEquals(expected.get(s.key()), s.revenue(), s.key());
+        }
+    }
+
+    @Test
+    void statusChangeMovesRevenue() {
+        RevenueCube.Query cancelled = RevenueCube.Query.builder()
+                .granularity(Granularity.WEEK).from(START).to(START.plusYears(2))
+                .statuses(Set.of(BookingStatus.CANCELLED)).build();
+        long before = total(cube.query(cancelled));
+
+        Fact first = facts.get(0);
+        Fact second = facts.get(1);
+        long moved = (first.status() == BookingStatus.CANCELLED ? 0 : first.amount())
+                + (second.status() == BookingStatus.CANCELLED ? 0 : second.amount());
+        cube.updateStatuses(Map.of(first.bookingId(), BookingStatus.CANCELLED));
+
+        assertEquals(before + moved, total(cube.query(cancelled)));
+    }
+
+    @Test
+    void lateItemsAreInsertedInOrderAndUpdatesReplaceTheRow() {
+        RevenueCube small = new RevenueCube();
+        small.append(List.of(fact(1, 100_000L), fact(3, 300_000L)));
+        // Item 2 commit sau item 3; item 3 đổi số lượng; lần đọc lại đoạn đuôi trả item 3 lần nữa
+        small.append(List.of(fact(2, 200_000L), fact(3, 600_000L)));
+        small.append(List.of(fact(3, 600_000L), fact(4, 400_000L)));
+        RevenueCube.Query all = RevenueCube.Query.builder()
+                .granularity(Granularity.MONTH).from(START).to(START.plusMonths(1)).build();
+
+        assertEquals(4, small.size());
+        assertEquals(4L, small.lastItemId());
+        assertEquals(1_300_000L, total(small.query(all)));
+
+        assertEquals(1, small.removeItems(List.of(2L, 99L)));
+        small.updateStatuses(Map.of(1L, BookingStatus.COMPLETED));
+        assertEquals(1_100_000L, total(small.query(all)));
+    }
+
+    @Test
+    void parallelScanOfMillionsOfItemsMatchesBruteForce() {
+        // ~30 leaf: mọi nhóm / ngày phải khớp sau khi merge
+        RevenueCube.Result result = cube.query(RevenueCube.Query.builder()
+                .granularity(Granularity.DAY).groupBy(Dimension.SERVICE)
+                .from(START).to(START.plusYears(2)).build());
+
+        int days = result.periods().size();
+        assertEquals(731, days);
+        Map<String, long[]> expected = new HashMap<>();
+        for (Fact f : facts) {
+            String key = f.serviceId() != null ? String.valueOf(f.serviceId()) : "none";
+            long[] acc = expected.computeIfAbsent(key, k -> new long[2 * days]);
+            int day = (int) (f.day().toEpochDay() - START.toEpochDay());
+            acc[day] += f.amount();
+            acc[days + day]++;
+        }
+        assertEquals(51, result.series().size()); // 50 service + "none" (combo)
+        for (RevenueCube.Series s : result.series()) {
+            long[] acc = expected.get(s.key());
+            assertArrayEquals(Arrays.copyOfRange(acc, 0, days), s.revenue(), s.key());
+            assertArrayEquals(Arrays.copyOfRange(acc, days, 2 * days), s.count(), s.key());
+        }
+    }
+
+    @Test
+    void totalsAreExactAcrossTheLeafBoundary() {
+        RevenueCube.Query all = RevenueCube.Query.builder()
+                .granularity(Granularity.MONTH).from(START).to(START.plusYears(2)).build();
+        // LEAF_SIZE: 1 leaf, không chia; +1: tách 2 leaf; 2 * LEAF_SIZE + 1: 3 leaf
+        for (int n : new int[]{RevenueCube.LEAF_SIZE, RevenueCube.LEAF_SIZE + 1, 2 * RevenueCube.LEAF_SIZE + 1}) {
+            RevenueCube partial = new RevenueCube();
+            partial.append(facts.subList(0, n));
+            RevenueCube.Result result = partial.query(all);
+
+            long revenue = 0;
+            for (Fact f : facts.subList(0, n)) {
+                revenue += f.amount();
+            }
+            assertEquals(revenue, total(result), "n=" + n);
+            assertEquals(n, count(result), "n=" + n);
+        }
+    }
+
+    private static Fact fact(long itemId, long amount) {
+        return new Fact(itemId, 1L, START, amount, ItemType.SERVICE, 1L, null, "Sapa", BookingStatus.CONFIRMED);
+    }
+
+    private static long count(RevenueCube.Result result) {
+        long sum = 0;
+        for (RevenueCube.Series s : result.series()) {
+            for (long v : s.count()) {
+                sum += v;
+            }
+        }
+        return sum;
+    }
+
+    private static long total(RevenueCube.Result result) {
+        long sum = 0;
+        for (RevenueCube.Series s : result.series()) {
+            for (long v : s.revenue()) {
+                sum += v;
+            }
+        }
+        return sum;
+    }
+}
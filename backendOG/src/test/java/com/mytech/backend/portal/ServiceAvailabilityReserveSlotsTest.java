@@ -0,0 +1,160 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.models.Service.Service;
+import com.mytech.backend.portal.models.Service.ServiceAvailability;
+import com.mytech.backend.portal.repositories.ServiceAvailabilityRepository;
+import com.mytech.backend.portal.repositories.ServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bắn hàng nghìn xác nhận thanh toán đồng thời vào 1 ngày đông khách trên H2,
+ * mỗi xác nhận là 1 transaction gọi reserveSlots như confirmPaymentVNPay.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ServiceAvailabilityReserveSlotsTest {
+
+    private static final int TOTAL_SLOTS = 200;
+    private static final LocalDate POPULAR_DAY = LocalDate.of(2025, 12, 31);
+
+    // Chỉ nạp JPA cho 2 repository cần dùng, không quét toàn bộ bean của app
+    @Configuration
+    @EntityScan(basePackages = "com.mytech.backend.portal.models")
+    @EnableJpaRepositories(basePackageClasses = ServiceAvailabilityRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = {ServiceAvailabilityRepository.class, ServiceRepository.class}))
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private ServiceAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Long serviceId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        availabilityRepository.deleteAll();
+
+        Service service = serviceRepository.save(Service.builder()
+                .name("Glamping đồi thông")
+                .active(true)
+                .build());
+        serviceId = service.getId();
+
+        availabilityRepository.save(day(service, POPULAR_DAY.minusDays(1), 5, 0));
+        availabilityRepository.save(day(service, POPULAR_DAY, TOTAL_SLOTS, 0));
+        availabilityRepository.save(day(service, POPULAR_DAY.plusDays(1), 5, 5));
+    }
+
+    @Test
+    void thousandsOfConcurrentConfirmationsNeverOverbook() throws Exception {
+        int confirmations = 5_000;
+        AtomicInteger confirmed = new AtomicInteger();
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+
+        for (int i = 0; i < confirmations; i++) {
+            pool.submit(() -> {
+                startGate.await();
+                if (confirm(POPULAR_DAY, POPULAR_DAY.plusDays(1))) {
+                    confirmed.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        startGate.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertEquals(TOTAL_SLOTS, confirmed.get());
+        assertEquals(TOTAL_SLOTS, bookedSlots(POPULAR_DAY));
+    }
+
+    @Test
+    void rangeIsRolledBackWhenAnyDayIsFull() {
+        // Ngày sau POPULAR_DAY đã hết slot nên cả khoảng 3 đêm phải thất bại
+        boolean ok = confirm(POPULAR_DAY.minusDays(1), POPULAR_DAY.plusDays(2));
+
+        assertEquals(false, ok);
+        assertEquals(0, bookedSlots(POPULAR_DAY.minusDays(1)));
+        assertEquals(0, bookedSlots(POPULAR_DAY));
+        assertEquals(5, bookedSlots(POPULAR_DAY.plusDays(1)));
+    }
+
+    @Test
+    void releaseNeverGoesBelowZero() {
+        assertTrue(confirm(POPULAR_DAY.minusDays(1), POPULAR_DAY.plusDays(1)));
+
+        Integer released = tx.execute(status ->
+                availabilityRepository.releaseSlots(serviceId, POPULAR_DAY.minusDays(1), POPULAR_DAY.plusDays(1)));
+        Integer again = tx.execute(status ->
+                availabilityRepository.releaseSlots(serviceId, POPULAR_DAY.minusDays(1), POPULAR_DAY.plusDays(1)));
+
+        assertEquals(2, released);
+        assertEquals(0, again);
+        assertEquals(0, bookedSlots(POPULAR_DAY));
+    }
+
+    // Giống confirmPaymentVNPay: số dòng cập nhật phải bằng số đêm, nếu không thì rollback
+    private boolean confirm(LocalDate from, LocalDate to) {
+        Boolean ok = tx.execute(status -> {
+            int updated = availabilityRepository.reserveSlots(serviceId, from, to);
+            if (updated != to.toEpochDay() - from.toEpochDay()) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(ok);
+    }
+
+    private int bookedSlots(LocalDate date) {
+        return availabilityRepository.findByServiceIdAndDate(serviceId, date)
+                .map(ServiceAvailability::getBookedSlots)
+                .orElseThrow();
+    }
+
+    private static ServiceAvailability day(Service service, LocalDate date, int total, int booked) {
+        return ServiceAvailability.builder()
+                .service(service)
+                .date(date)
+                .totalSlots(total)
+                .bookedSlots(booked)
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.dto.Booking.BookingStatsDTO;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingItem;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.Booking.ItemType;
+import com.mytech.backend.portal.models.Customer.Customer;
+import com.mytech.backend.portal.models.Service.Service;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.BookingItemRepository;
+import com.mytech.backend.portal.services.Service.ServiceStatsService;
+import com.mytech.backend.portal.services.Service.ServiceStatsServiceImpl;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Đủ 6 số liệu của service từ 1 câu GROUP BY; đọc lại (1 service hay tất cả) lấy từ cache.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ServiceStatsServiceImpl.class, EntityChangeTracker.class})
+class ServiceStatsServiceTest {
+
+    @Configuration
+    @EntityScan(basePackages = "com.mytech.backend.portal.models")
+    @EnableJpaRepositories(basePackageClasses = BookingItemRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = BookingItemRepository.class))
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ServiceStatsService serviceStatsService;
+
+    private Long lakeId;
+    private Long hillId;
+
+    @BeforeEach
+    void setUp() {
+        Service lake = em.persist(Service.builder().name("Lều đôi ven hồ").price(400_000.0).build());
+        Service hill = em.persist(Service.builder().name("Glamping đồi thông").price(900_000.0).build());
+        lakeId = lake.getId();
+        hillId = hill.getId();
+        User user = em.persist(User.builder().name("Khách").email("guest@example.com")
+                .role(User.Role.CUSTOMER).build());
+        Customer customer = em.persist(Customer.builder().name("Khách").email("guest@example.com")
+                .user(user).build());
+
+        booking(customer, lake, BookingStatus.COMPLETED, 5);
+        Booking lastMonth = booking(customer, lake, BookingStatus.COMPLETED, 4);
+        booking(customer, lake, BookingStatus.CANCELLED, null);
+        booking(customer, hill, BookingStatus.CONFIRMED, null);
+        em.flush();
+
+        // createdAt không cho update qua entity
+        em.getEntityManager().createNativeQuery("UPDATE bookings SET created_at = ?1 WHERE id = ?2")
+                .setParameter(1, LocalDateTime.now().withDayOfMonth(1).minusDays(3))
+                .setParameter(2, lastMonth.getId())
+                .executeUpdate();
+        em.clear();
+    }
+
+    @Test
+    void computesAllSixFields() {
+        BookingStatsDTO stats = serviceStatsService.getStats(lakeId);
+
+        assertEquals(3L, stats.getTotalBookings());
+        assertEquals(2L, stats.getMonthlyBookings());
+        assertEquals(1_200_000L, stats.getRevenue());
+        assertEquals(800_000L, stats.getMonthlyRevenue());
+        assertEquals(4.5, stats.getAverageRating());
+        assertEquals(66.7, stats.getCompletionRate());
+    }
+
+    @Test
+    void allServicesInOneStatementThenCached() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Map<Long, BookingStatsDTO> all = serviceStatsService.getAllStats();
+        serviceStatsService.getAllStats();
+        BookingStatsDTO hill = serviceStatsService.getStats(hillId);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, all.size());
+        assertEquals(1L, hill.getTotalBookings());
+        assertEquals(0.0, hill.getCompletionRate());
+    }
+
+    @Test
+    void ratingCountsOncePerBookingWhateverItsItemCount() {
+        Service hill = em.find(Service.class, hillId);
+        Customer customer = em.getEntityManager()
+                .createQuery("SELECT c FROM Customer c", Customer.class).getSingleResult();
+        // 2 lều đồi trong cùng 1 booking được 5 điểm, 1 booking khác 2 điểm: trung bình 3.5, không phải 4.0
+        Booking group = booking(customer, hill, BookingStatus.COMPLETED, 5);
+        group.getItems().add(BookingItem.builder().booking(group).type(ItemType.SERVICE)
+                .service(hill).quantity(1).price(hill.getPrice()).build());
+        booking(customer, hill, BookingStatus.COMPLETED, 2);
+        em.flush();
+        em.clear();
+
+        BookingStatsDTO stats = serviceStatsService.getStats(hillId);
+
+        assertEquals(4L, stats.getTotalBookings());
+        assertEquals(3.5, stats.getAverageRating());
+    }
+
+    private Booking booking(Customer customer, Service service, BookingStatus status, Integer rating) {
+        Booking booking = Booking.builder().customer(customer).status(status).rating(rating).build();
+        booking.setItems(new ArrayList<>());
+        booking.getItems().add(BookingItem.builder().booking(booking).type(ItemType.SERVICE)
+                .service(service).quantity(1).price(service.getPrice()).build());
+        return em.persist(booking);
+    }
+}
@@ -0,0 +1,101 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.models.Service.ServiceAvailability;
+import com.mytech.backend.portal.repositories.BookingItemRepository;
+import com.mytech.backend.portal.repositories.ServiceAvailabilityRepository;
+import com.mytech.backend.portal.services.ServiceAvailabilityService.SlotHoldManager;
+import com.mytech.backend.portal.services.ServiceAvailabilityService.SlotHoldManager.Range;
+import com.mytech.backend.portal.services.ServiceAvailabilityService.SlotInventory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Hold giữ slot cuối cùng cho khách đang thanh toán: khách thứ 2 bị chặn ngay lúc đặt,
+ * hold hết hạn thì slot quay lại, và hold được dựng lại từ booking PENDING khi khởi động.
+ */
+class SlotHoldManagerTest {
+
+    private static final long SERVICE_ID = 7L;
+    private static final LocalDate NIGHT = LocalDate.of(2025, 12, 31);
+    private static final List<Range> LAST_SLOT = List.of(new Range(SERVICE_ID, NIGHT, NIGHT.plusDays(1)));
+
+    private ServiceAvailabilityRepository availabilityRepository;
+    private BookingItemRepository bookingItemRepository;
+    private SlotInventory inventory;
+    private SlotHoldManager holds;
+
+    @BeforeEach
+    void setUp() {
+        availabilityRepository = Mockito.mock(ServiceAvailabilityRepository.class);
+        bookingItemRepository = Mockito.mock(BookingItemRepository.class);
+        // Đêm giao thừa chỉ còn đúng 1 slot
+        Mockito.when(availabilityRepository.findAllByServiceIdAndDateBetween(anyLong(), any(), any()))
+                .thenReturn(List.of(ServiceAvailability.builder().date(NIGHT).totalSlots(1).bookedSlots(0).build()));
+        Mockito.when(availabilityRepository.reserveSlots(anyLong(), any(), any())).thenReturn(1);
+
+        inventory = new SlotInventory(availabilityRepository);
+        holds = new SlotHoldManager(inventory, availabilityRepository, bookingItemRepository);
+        ReflectionTestUtils.setField(holds, "holdMinutes", 20L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        holds.stop();
+    }
+
+    @Test
+    void holdBlocksSecondCustomerAndConfirmOnlyWritesDb() {
+        holds.hold(1L, LAST_SLOT);
+
+        assertThrows(RuntimeException.class, () -> holds.hold(2L, LAST_SLOT));
+        assertEquals(0, inventory.freeSlots(SERVICE_ID, NIGHT));
+
+        holds.confirm(1L, LAST_SLOT);
+
+        assertFalse(holds.isHeld(1L));
+        assertEquals(0, inventory.freeSlots(SERVICE_ID, NIGHT));
+        Mockito.verify(availabilityRepository).reserveSlots(SERVICE_ID, NIGHT, NIGHT.plusDays(1));
+    }
+
+    @Test
+    void expiredHoldReturnsSlot() throws Exception {
+        ReflectionTestUtils.setField(holds, "holdMinutes", 0L);
+        Mockito.when(bookingItemRepository.findPendingHoldRows(any())).thenReturn(List.of());
+
+        holds.hold(1L, LAST_SLOT);
+        holds.start();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (holds.isHeld(1L) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(holds.isHeld(1L));
+        assertEquals(1, inventory.freeSlots(SERVICE_ID, NIGHT));
+    }
+
+    @Test
+    void holdsAreRebuiltFromPendingBookings() {
+        Mockito.when(bookingItemRepository.findPendingHoldRows(any())).thenReturn(List.<Object[]>of(
+                new Object[]{1L, LocalDateTime.now().minusMinutes(5), null, SERVICE_ID,
+                        NIGHT.atTime(14, 0), NIGHT.plusDays(1).atTime(12, 0)}));
+
+        holds.start();
+
+        assertTrue(holds.isHeld(1L));
+        assertEquals(0, inventory.freeSlots(SERVICE_ID, NIGHT));
+    }
+}
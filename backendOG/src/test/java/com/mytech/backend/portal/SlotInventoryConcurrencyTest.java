@@ -0,0 +1,136 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.dto.Service.AvailabilityCalendarDTO;
+import com.mytech.backend.portal.dto.Service.FreeServiceDTO;
+import com.mytech.backend.portal.models.Service.ServiceAvailability;
+import com.mytech.backend.portal.repositories.ServiceAvailabilityRepository;
+import com.mytech.backend.portal.services.ServiceAvailabilityService.SlotInventory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * Stress test cho SlotInventory: nhiều thread cùng giữ slot nhiều ngày chồng lấn nhau,
+ * kết quả không được vượt totalSlots và mỗi lần giữ phải all-or-nothing.
+ */
+class SlotInventoryConcurrencyTest {
+
+    private static final long SERVICE_ID = 1L;
+    private static final int DAYS = 7;
+    private static final int TOTAL_SLOTS = 50;
+    private static final LocalDate START = LocalDate.of(2025, 12, 1);
+
+    private ServiceAvailabilityRepository repository;
+    private SlotInventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(ServiceAvailabilityRepository.class);
+
+        // Giả lập DB: mỗi ngày trong tuần có TOTAL_SLOTS slot, chưa ai đặt
+        Mockito.when(repository.findAllByServiceIdAndDateBetween(anyLong(), any(), any()))
+                .thenAnswer(invocation -> {
+                    LocalDate from = invocation.getArgument(1);
+                    LocalDate to = invocation.getArgument(2);
+                    List<ServiceAvailability> rows = new ArrayList<>();
+                    for (int i = 0; i < DAYS; i++) {
+                        LocalDate date = START.plusDays(i);
+                        if (!date.isBefore(from) && !date.isAfter(to)) {
+                            rows.add(ServiceAvailability.builder()
+                                    .date(date).totalSlots(TOTAL_SLOTS).bookedSlots(0).build());
+                        }
+                    }
+                    return rows;
+                });
+
+        inventory = new SlotInventory(repository);
+    }
+
+    @Test
+    void concurrentReservationsNeverOverbook() throws Exception {
+        int threads = 64;
+        int attempts = 20_000;
+        AtomicIntegerArray grantedPerDay = new AtomicIntegerArray(DAYS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < attempts; i++) {
+            pool.submit(() -> {
+                startGate.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int offset = random.nextInt(DAYS);
+                int nights = 1 + random.nextInt(Math.min(3, DAYS - offset));
+                try {
+                    inventory.reserve(SERVICE_ID, START.plusDays(offset), START.plusDays(offset + nights));
+                    for (int d = offset; d < offset + nights; d++) {
+                        grantedPerDay.incrementAndGet(d);
+                    }
+                } catch (RuntimeException soldOut) {
+                    // hết slot là kết quả hợp lệ
+                }
+                return null;
+            });
+        }
+        startGate.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        for (int d = 0; d < DAYS; d++) {
+            int granted = grantedPerDay.get(d);
+            assertTrue(granted <= TOTAL_SLOTS, "Overbooked day " + d + ": " + granted);
+            // Ledger phải khớp đúng số slot đã cấp (không có giữ chỗ nửa vời)
+            assertEquals(TOTAL_SLOTS - granted, inventory.freeSlots(SERVICE_ID, START.plusDays(d)));
+        }
+    }
+
+    @Test
+    void reservationFailsAsAWholeWhenOneDayIsFull() {
+        for (int i = 0; i < TOTAL_SLOTS; i++) {
+            inventory.reserve(SERVICE_ID, START.plusDays(2), START.plusDays(3));
+        }
+
+        assertThrows(RuntimeException.class,
+                () -> inventory.reserve(SERVICE_ID, START, START.plusDays(4)));
+
+        assertEquals(TOTAL_SLOTS, inventory.freeSlots(SERVICE_ID, START));
+        assertEquals(TOTAL_SLOTS, inventory.freeSlots(SERVICE_ID, START.plusDays(1)));
+        assertEquals(0, inventory.freeSlots(SERVICE_ID, START.plusDays(2)));
+    }
+
+    @Test
+    void calendarAndCrossServiceQueryReflectReservations() {
+        Mockito.when(repository.findSlotRowsBetween(any(), any()))
+                .thenReturn(List.<Object[]>of(
+                        new Object[]{SERVICE_ID, START.plusDays(5), TOTAL_SLOTS, 0},
+                        new Object[]{SERVICE_ID, START.plusDays(6), TOTAL_SLOTS, 0},
+                        new Object[]{2L, START.plusDays(5), 3, 3}));
+
+        inventory.reserve(SERVICE_ID, START.plusDays(5), START.plusDays(7));
+
+        AvailabilityCalendarDTO calendar = inventory.calendar(SERVICE_ID, START, START.plusDays(7));
+        assertEquals(8, calendar.getFreeSlots().length);
+        assertEquals(TOTAL_SLOTS - 1, calendar.getFreeSlots()[5]);
+        assertEquals(-1, calendar.getTotalSlots()[7]);
+
+        List<FreeServiceDTO> free = inventory.findFree(START.plusDays(5), START.plusDays(6), 1);
+        assertEquals(1, free.size());
+        assertEquals(SERVICE_ID, free.get(0).getServiceId());
+        assertEquals(TOTAL_SLOTS - 1, free.get(0).getFreeSlots());
+    }
+}
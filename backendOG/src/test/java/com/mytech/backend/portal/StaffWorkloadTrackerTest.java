@@ -0,0 +1,116 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.models.Booking.BookingStatus;
+import com.mytech.backend.portal.models.User.User;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.services.Shift.StaffWorkloadTracker;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.EntityChange;
+import com.mytech.backend.portal.services.Stats.EntityChangeTracker.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Chọn nhân viên ít việc nhất chỉ đọc bộ nhớ; gán / hoàn thành / hủy booking đổi tải ngay.
+ */
+class StaffWorkloadTrackerTest {
+
+    private static final String[] PROPS = {"assignedStaff", "status"};
+
+    private BookingRepository bookingRepository;
+    private StaffWorkloadTracker tracker;
+    private Consumer<EntityChange> onBookingChanged;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = Mockito.mock(BookingRepository.class);
+        ChangeListeners listeners = new ChangeListeners();
+        // Nhân viên 1: 3 booking mở (11, 12, 13), 2: 1 (21), 3: 2 (31, 32)
+        Mockito.when(bookingRepository.findOpenAssignments(any()))
+                .thenReturn(List.of(new Object[]{11L, 1L}, new Object[]{12L, 1L}, new Object[]{13L, 1L},
+                        new Object[]{21L, 2L}, new Object[]{31L, 3L}, new Object[]{32L, 3L}));
+
+        tracker = new StaffWorkloadTracker(bookingRepository, listeners.tracker);
+        ReflectionTestUtils.invokeMethod(tracker, "subscribe");        onBookingChanged = listeners.changes(Booking.class);
+    }
+
+    @Test
+    void picksLeastLoadedCandidateWithoutQueries() {
+        assertEquals(2L, tracker.leastLoaded(Set.of(1L, 2L, 3L)).orElseThrow());
+        assertEquals(3L, tracker.leastLoaded(Set.of(1L, 3L)).orElseThrow());
+        // Chưa có booking mở nào thì tải 0
+        assertEquals(9L, tracker.leastLoaded(Set.of(1L, 9L)).orElseThrow());
+
+        for (int i = 0; i < 1000; i++) {
+            tracker.leastLoaded(Set.of(1L, 2L, 3L));
+        }
+        Mockito.verify(bookingRepository, Mockito.times(1)).findOpenAssignments(any());
+    }
+
+    @Test
+    void assignCompleteAndCancelMoveLoad() {
+        tracker.leastLoaded(Set.of(1L));
+
+        // 2 booking mới gán cho nhân viên 2 -> 2 thành 3, nhân viên 3 (2) ít nhất
+        onBookingChanged.accept(update(201L, null, 2L, BookingStatus.PENDING, BookingStatus.PENDING));
+        onBookingChanged.accept(update(202L, null, 2L, BookingStatus.PENDING, BookingStatus.CONFIRMED));
+        assertEquals(3, tracker.loadOf(2L));
+        assertEquals(3L, tracker.leastLoaded(Set.of(1L, 2L, 3L)).orElseThrow());
+
+        // Nhân viên 1 hoàn thành 2 booking, hủy 1 -> còn 0
+        onBookingChanged.accept(update(11L, 1L, 1L, BookingStatus.IN_PROGRESS, BookingStatus.COMPLETED));
+        onBookingChanged.accept(update(12L, 1L, 1L, BookingStatus.CONFIRMED, BookingStatus.COMPLETED));
+        onBookingChanged.accept(update(13L, 1L, 1L, BookingStatus.PENDING, BookingStatus.CANCELLED));
+        assertEquals(0, tracker.loadOf(1L));
+        assertEquals(1L, tracker.leastLoaded(Set.of(1L, 2L, 3L)).orElseThrow());
+
+        // Chuyển booking từ 3 sang 1
+        onBookingChanged.accept(update(31L, 3L, 1L, BookingStatus.CONFIRMED, BookingStatus.CONFIRMED));
+        assertEquals(1, tracker.loadOf(1L));
+        assertEquals(1, tracker.loadOf(3L));
+        Mockito.verify(bookingRepository, Mockito.times(1)).findOpenAssignments(any());
+    }
+
+    @Test
+    void changesAlreadyInSnapshotAreNotCountedTwice() {
+        // Sự kiện tới trước lần nạp: lần nạp đã thấy thay đổi đó
+        onBookingChanged.accept(update(33L, null, 3L, BookingStatus.PENDING, BookingStatus.PENDING));
+        assertEquals(2, tracker.loadOf(3L));
+
+        // Gán booking 21 đã commit trước câu nạp, sự kiện tới sau
+        onBookingChanged.accept(update(21L, null, 2L, BookingStatus.PENDING, BookingStatus.PENDING));
+        assertEquals(1, tracker.loadOf(2L));
+
+        // Booking 12 hoàn thành 2 lần (sự kiện lặp) chỉ trừ 1; booking chưa từng tính không bị trừ
+        onBookingChanged.accept(update(12L, 1L, 1L, BookingStatus.CONFIRMED, BookingStatus.COMPLETED));
+        onBookingChanged.accept(update(12L, 1L, 1L, BookingStatus.CONFIRMED, BookingStatus.COMPLETED));
+        onBookingChanged.accept(update(99L, 1L, 1L, BookingStatus.CONFIRMED, BookingStatus.CANCELLED));
+        assertEquals(2, tracker.loadOf(1L));
+    }
+
+    private static EntityChange update(Long bookingId, Long oldStaff, Long newStaff,
+                                       BookingStatus oldStatus, BookingStatus newStatus) {
+        Booking booking = new Booking();
+        booking.setId(bookingId);
+        return new EntityChange(Kind.UPDATE, booking, PROPS,
+                new Object[]{staff(newStaff), newStatus}, new Object[]{staff(oldStaff), oldStatus});
+    }
+
+    private static User staff(Long id) {
+        if (id == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,80 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.dto.StatDTO;
+import com.mytech.backend.portal.models.Booking.Booking;
+import com.mytech.backend.portal.repositories.BookingRepository;
+import com.mytech.backend.portal.repositories.GearRepository;
+import com.mytech.backend.portal.repositories.UserRepository;
+import com.mytech.backend.portal.services.impl.StatServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Dashboard poll liên tục: chỉ lần đầu chạm DB; booking mới hôm nay chỉ làm kỳ hiện tại
+ * tính lại, kỳ trước (đã đóng) vẫn lấy từ cache.
+ */
+class StatServiceCacheTest {
+
+    private BookingRepository bookingRepository;
+    private UserRepository userRepository;
+    private StatServiceImpl statService;
+    private Consumer<LocalDate> onBookingChanged;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = Mockito.mock(BookingRepository.class);
+        userRepository = Mockito.mock(UserRepository.class);
+        GearRepository gearRepository = Mockito.mock(GearRepository.class);
+        ChangeListeners listeners = new ChangeListeners();
+
+        Mockito.when(bookingRepository.countAndRevenueBetween(any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{4L, 2_000_000L}));
+        Mockito.when(userRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(any(), any()))
+                .thenReturn(3L);
+        Mockito.when(gearRepository.count()).thenReturn(12L);
+        Mockito.when(gearRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(any(), any()))
+                .thenReturn(2L);
+
+        statService = new StatServiceImpl(userRepository, bookingRepository, gearRepository, listeners.tracker);
+        ReflectionTestUtils.invokeMethod(statService, "subscribe");
+        onBookingChanged = listeners.dates(Booking.class, "createdAt");
+    }
+
+    @Test
+    void pollingHitsDbOnlyOnce() {
+        List<StatDTO> first = statService.getStats("weekly");
+        for (int i = 0; i < 100; i++) {
+            statService.getStats("weekly");
+        }
+
+        assertEquals("New Bookings", first.get(1).getTitle());
+        assertEquals("4", first.get(1).getValue());
+        assertEquals("12", first.get(2).getValue());
+        // 2 thiết bị thêm trong kỳ: 10 -> 12
+        assertEquals("+20.0%", first.get(2).getChange());
+        // kỳ hiện tại + kỳ trước
+        Mockito.verify(bookingRepository, Mockito.times(2)).countAndRevenueBetween(any(), any());
+    }
+
+    @Test
+    void changeTodayOnlyRecomputesCurrentPeriod() {
+        statService.getStats("monthly");
+        statService.getStats("daily");
+
+        onBookingChanged.accept(LocalDate.now());
+        statService.getStats("monthly");
+        statService.getStats("daily");
+
+        // 4 bucket lần đầu + tháng này và hôm nay được tính lại
+        Mockito.verify(bookingRepository, Mockito.times(6)).countAndRevenueBetween(any(), any());
+    }
+}
@@ -0,0 +1,67 @@
+package com.mytech.backend.portal;
+
+import com.mytech.backend.portal.jwt.JwtUtils;
+import com.mytech.backend.portal.security.AppUserDetailsService;
+import com.mytech.backend.portal.security.StompAuthChannelInterceptor;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Topic / snapshot admin và subscribe wildcard chỉ cho ADMIN; topic khác không đổi.
+ */
+class StompAuthChannelInterceptorTest {
+
+    private final StompAuthChannelInterceptor interceptor = new StompAuthChannelInterceptor(
+            Mockito.mock(JwtUtils.class), Mockito.mock(AppUserDetailsService.class));
+    private final MessageChannel channel = Mockito.mock(MessageChannel.class);
+
+    @Test
+    void adminDestinationsRequireAdmin() {
+        for (String destination : List.of("/topic/admin/stats", "/app/admin/stats")) {
+            assertThrows(AccessDeniedException.class,
+                    () -> interceptor.preSend(subscribe(destination, null), channel));
+            assertThrows(AccessDeniedException.class,
+                    () -> interceptor.preSend(subscribe(destination, user("STAFF")), channel));
+            assertDoesNotThrow(() -> interceptor.preSend(subscribe(destination, user("ADMIN")), channel));
+        }
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe("/topic/notifications", null), channel));
+    }
+
+    @Test
+    void wildcardSubscriptionsRequireAdmin() {
+        for (String destination : List.of("/topic/**", "/topic/*/stats", "/topic/adm?n/stats", "/topic/{x}/stats")) {
+            assertThrows(AccessDeniedException.class,
+                    () -> interceptor.preSend(subscribe(destination, null), channel));
+            assertThrows(AccessDeniedException.class,
+                    () -> interceptor.preSend(subscribe(destination, user("CUSTOMER")), channel));
+            assertDoesNotThrow(() -> interceptor.preSend(subscribe(destination, user("ADMIN")), channel));
+        }
+    }
+
+    private static Principal user(String role) {
+        return new UsernamePasswordAuthenticationToken("user", null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+
+    private static Message<byte[]> subscribe(String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setUser(user);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}